@@ -39,4 +39,27 @@ public interface Action {
      * @return 动作执行结果
      */
     ActionReturn execute(FunctionCall functionCall);
+    
+    /**
+     * 相同参数的调用结果是否可以缓存复用
+     * <p>
+     * 只读且结果在一段时间内稳定的动作（如搜索、网页读取）可以返回true，
+     * 执行器配置了{@link ToolResultCache}时会在有效期内直接返回缓存结果
+     *
+     * @return 可以缓存时返回true，默认为false
+     */
+    default boolean isCacheable() {
+        return false;
+    }
+    
+    /**
+     * 相同参数执行多次是否与执行一次效果相同
+     * <p>
+     * 幂等的动作在相同参数的调用仍在执行时，后来的调用会等待并共享同一个结果，而不会再执行一次
+     *
+     * @return 幂等时返回true，默认为false
+     */
+    default boolean isIdempotent() {
+        return false;
+    }
 } 
\ No newline at end of file
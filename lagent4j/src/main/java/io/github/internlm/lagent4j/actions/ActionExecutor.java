@@ -1,13 +1,23 @@
 package io.github.internlm.lagent4j.actions;
 
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONException;
+import io.github.internlm.lagent4j.metrics.MetricSource;
+import io.github.internlm.lagent4j.metrics.MetricWriter;
 import io.github.internlm.lagent4j.schema.ActionReturn;
 import io.github.internlm.lagent4j.schema.ActionStatusCode;
 import io.github.internlm.lagent4j.schema.AgentMessage;
 import io.github.internlm.lagent4j.schema.FunctionCall;
+import io.github.internlm.lagent4j.utils.VirtualThreads;
+import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -20,33 +30,100 @@ import java.util.stream.Collectors;
  * 4. 工具执行状态监控
  * 5. 错误处理和重试机制
  * 6. 工具执行超时控制
+ * 7. 流式执行工具并实时输出部分结果
+ * <p>
+ * 执行分为两个阶段：分发阶段在调用线程中解析消息、查找动作；执行阶段把动作提交到有界线程池。
+ * 超时和重试延迟由单独的调度线程处理，工作线程只执行动作本身，不会阻塞等待其他任务，
+ * 因此并发调用再多也不会出现工作线程互相等待的死锁。线程池队列满时任务被拒绝，
+ * 立即返回{@link ActionStatusCode#BUSY}结果，由调用方决定稍后重试或降级。
+ * <p>
+ * 注册动作时可以指定{@link BulkheadConfig}，该动作在独立的有界线程池中执行，舱壁已满时立即返回
+ * {@link ActionStatusCode#BULKHEAD_FULL}。每个动作的调用次数、失败、拒绝、并发和耗时可以通过{@link MetricSource}导出。
+ * <p>
+ * 注册动作时参数Schema被编译为{@link SchemaValidator}，参数不合法的调用在执行前直接返回
+ * {@link ActionStatusCode#ARGS_ERROR}，不会进入线程池，也不会重试。
+ * <p>
+ * 设置{@link ToolResultCache}后，可缓存的动作在有效期内直接返回相同参数的上一次成功结果，
+ * 相同参数的调用正在执行时，后来的调用共享同一个结果。
  */
 @Slf4j
-public class ActionExecutor {
+public class ActionExecutor implements MetricSource {
+    /**
+     * 微秒换算为秒的系数
+     */
+    private static final double MICROS_TO_SECONDS = 1e-6;
+
     /**
      * 动作映射表
      */
     private final Map<String, Action> actions;
 
     /**
-     * 线程池执行器
+     * 当前的工具目录，动作变化时整体替换
+     */
+    private volatile ToolCatalog catalog = ToolCatalog.EMPTY;
+
+    /**
+     * 工具目录的版本号
+     */
+    private final AtomicLong catalogVersion = new AtomicLong();
+
+    /**
+     * 动作名称到参数校验器的映射
+     */
+    private final Map<String, SchemaValidator> validators = new ConcurrentHashMap<>();
+
+    /**
+     * 动作名称到舱壁的映射
+     */
+    private final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+
+    /**
+     * 未注册动作按名称共享的舱壁，使用公共线程池，只用于统计；随{@link #collect(MetricWriter)}导出，
+     * 在{@link #clearActions()}时清空
+     */
+    private final Map<String, Bulkhead> unregisteredBulkheads = new ConcurrentHashMap<>();
+
+    /**
+     * 执行动作的线程池
      */
     private final ExecutorService executor;
 
     /**
-     * 默认超时时间（秒）
+     * 处理超时和重试延迟的调度器
      */
-    private static final int DEFAULT_TIMEOUT = 30;
+    private final ScheduledExecutorService scheduler;
 
     /**
-     * 默认最大重试次数
+     * 重试策略
      */
-    private static final int DEFAULT_MAX_RETRIES = 3;
+    @Getter
+    @Setter
+    private volatile RetryPolicy retryPolicy = RetryPolicy.defaults();
 
     /**
-     * 默认重试延迟（毫秒）
+     * 重试预算，默认重试不超过调用量的20%
      */
-    private static final long DEFAULT_RETRY_DELAY = 1000;
+    @Getter
+    @Setter
+    private volatile RetryBudget retryBudget = new RetryBudget(0.2, 10, 100);
+
+    /**
+     * 工具结果缓存，为null时不缓存
+     */
+    @Getter
+    @Setter
+    private volatile ToolResultCache toolResultCache;
+
+    /**
+     * 默认超时时间（秒）
+     */
+    private static final int DEFAULT_TIMEOUT = 30;
+
+    /**
+     * 默认等待队列长度
+     */
+    private static final int DEFAULT_QUEUE_CAPACITY = 1024;
 
     /**
      * 创建一个动作执行器
@@ -61,15 +138,73 @@ public class ActionExecutor {
      * @param threadPoolSize 线程池大小
      */
     public ActionExecutor(int threadPoolSize) {
+        this(threadPoolSize, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * 创建一个动作执行器
+     *
+     * @param threadPoolSize 线程池大小
+     * @param queueCapacity  等待队列长度，队列满时新任务返回繁忙结果
+     */
+    public ActionExecutor(int threadPoolSize, int queueCapacity) {
+        this(newBoundedPool(threadPoolSize, queueCapacity));
+    }
+
+    /**
+     * 使用指定的执行器创建一个动作执行器，执行器在{@link #shutdown()}时关闭
+     *
+     * @param executor 执行器
+     */
+    public ActionExecutor(ExecutorService executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("执行器不能为空");
+        }
         this.actions = new ConcurrentHashMap<>();
-        this.executor = new ThreadPoolExecutor(
+        this.executor = executor;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "lagent4j-action-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 创建有界线程池：核心线程数等于最大线程数，队列有界，队列满时抛出拒绝异常
+     *
+     * @param threadPoolSize 线程数
+     * @param queueCapacity  队列长度
+     * @return 线程池
+     */
+    private static ExecutorService newBoundedPool(int threadPoolSize, int queueCapacity) {
+        if (threadPoolSize <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("线程池大小和队列长度必须为正数");
+        }
+        AtomicLong counter = new AtomicLong();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                threadPoolSize,
                 threadPoolSize,
-                threadPoolSize * 2,
                 60L,
                 TimeUnit.SECONDS,
-                new LinkedBlockingQueue<>(),
-                new ThreadPoolExecutor.CallerRunsPolicy()
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "lagent4j-action-" + counter.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
         );
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * 创建一个使用虚拟线程执行工具的动作执行器，当前JDK不支持时退回到平台线程
+     *
+     * @return 动作执行器
+     */
+    public static ActionExecutor withVirtualThreads() {
+        return new ActionExecutor(VirtualThreads.newExecutor("lagent4j-action-"));
     }
 
     /**
@@ -78,6 +213,16 @@ public class ActionExecutor {
      * @param action 动作
      */
     public void registerAction(Action action) {
+        registerAction(action, null);
+    }
+
+    /**
+     * 注册动作，并为其指定独立的舱壁
+     *
+     * @param action 动作
+     * @param config 舱壁配置，为null时使用共享线程池
+     */
+    public void registerAction(Action action, BulkheadConfig config) {
         if (action == null) {
             throw new IllegalArgumentException("动作不能为空");
         }
@@ -87,7 +232,14 @@ public class ActionExecutor {
             throw new IllegalArgumentException("动作名称不能为空");
         }
 
+        validators.put(name, SchemaValidator.compile(action.getParameters()));
         actions.put(name, action);
+        unregisteredBulkheads.remove(name);
+        Bulkhead previous = bulkheads.put(name, config != null ? new Bulkhead(name, config) : new Bulkhead(name, executor));
+        if (previous != null) {
+            previous.shutdown();
+        }
+        rebuildCatalog();
         log.debug("注册动作: {}", name);
     }
 
@@ -103,7 +255,13 @@ public class ActionExecutor {
         }
 
         Action removed = actions.remove(name);
+        validators.remove(name);
+        Bulkhead bulkhead = bulkheads.remove(name);
+        if (bulkhead != null) {
+            bulkhead.shutdown();
+        }
         if (removed != null) {
+            rebuildCatalog();
             log.debug("注销动作: {}", name);
             return true;
         }
@@ -111,23 +269,29 @@ public class ActionExecutor {
         return false;
     }
 
+    /**
+     * 根据当前动作重建工具目录
+     */
+    private synchronized void rebuildCatalog() {
+        catalog = new ToolCatalog(catalogVersion.incrementAndGet(), actions.values());
+    }
+
+    /**
+     * 获取当前的工具目录
+     *
+     * @return 工具目录
+     */
+    public ToolCatalog getCatalog() {
+        return catalog;
+    }
+
     /**
      * 获取所有动作的描述
      *
-     * @return 动作描述列表
+     * @return 不可修改的动作描述列表
      */
     public List<Map<String, Object>> getActionDescriptions() {
-        List<Map<String, Object>> descriptions = new ArrayList<>();
-
-        for (Action action : actions.values()) {
-            Map<String, Object> description = new HashMap<>();
-            description.put("name", action.getName());
-            description.put("description", action.getDescription());
-            description.put("parameters", action.getParameters());
-            descriptions.add(description);
-        }
-
-        return descriptions;
+        return catalog.getDescriptions();
     }
 
     /**
@@ -136,9 +300,8 @@ public class ActionExecutor {
      * @param message 代理消息
      * @return 处理结果
      */
-    @SuppressWarnings("unchecked")
     public AgentMessage process(AgentMessage message) {
-        return process(message, DEFAULT_TIMEOUT, DEFAULT_MAX_RETRIES);
+        return process(message, DEFAULT_TIMEOUT, retryPolicy.getMaxRetries());
     }
 
     /**
@@ -149,71 +312,128 @@ public class ActionExecutor {
      * @param maxRetries 最大重试次数
      * @return 处理结果
      */
-    @SuppressWarnings("unchecked")
     public AgentMessage process(AgentMessage message, int timeout, int maxRetries) {
+        return processAsync(message, timeout, maxRetries).join();
+    }
+
+    /**
+     * 异步处理代理消息
+     *
+     * @param message 代理消息
+     * @return 处理结果的Future对象
+     */
+    public CompletableFuture<AgentMessage> processAsync(AgentMessage message) {
+        return processAsync(message, DEFAULT_TIMEOUT, retryPolicy.getMaxRetries());
+    }
+
+    /**
+     * 异步处理代理消息
+     * <p>
+     * 分发阶段在调用线程中完成，动作本身在线程池中执行
+     *
+     * @param message    代理消息
+     * @param timeout    超时时间（秒）
+     * @param maxRetries 最大重试次数
+     * @return 处理结果的Future对象
+     */
+    public CompletableFuture<AgentMessage> processAsync(AgentMessage message, int timeout, int maxRetries) {
+        return dispatch(message, (action, functionCall) -> executeAsync(action, functionCall, timeout, maxRetries));
+    }
+
+    /**
+     * 流式处理代理消息
+     * <p>
+     * 动作的部分结果通过onPartial实时送出，见{@link #executeStreamAsync(Action, FunctionCall, int, Consumer)}
+     *
+     * @param message   代理消息
+     * @param onPartial 接收部分结果的回调
+     * @return 处理结果的Future
+     */
+    public CompletableFuture<AgentMessage> processStreamAsync(AgentMessage message, Consumer<ActionReturn> onPartial) {
+        return processStreamAsync(message, DEFAULT_TIMEOUT, onPartial);
+    }
+
+    /**
+     * 流式处理代理消息
+     * <p>
+     * 动作的部分结果通过onPartial实时送出，见{@link #executeStreamAsync(Action, FunctionCall, int, Consumer)}
+     *
+     * @param message   代理消息
+     * @param timeout   超时时间（秒）
+     * @param onPartial 接收部分结果的回调
+     * @return 处理结果的Future
+     */
+    public CompletableFuture<AgentMessage> processStreamAsync(AgentMessage message, int timeout,
+                                                              Consumer<ActionReturn> onPartial) {
+        return dispatch(message, (action, functionCall) ->
+                executeStreamAsync(action, functionCall, timeout, onPartial));
+    }
+
+    /**
+     * 分发阶段：解析消息、查找动作，再交给指定的执行方式
+     *
+     * @param message   代理消息
+     * @param execution 执行方式
+     * @return 处理结果的Future
+     */
+    @SuppressWarnings("unchecked")
+    private CompletableFuture<AgentMessage> dispatch(AgentMessage message,
+                                                     BiFunction<Action, FunctionCall, CompletableFuture<ActionReturn>> execution) {
         if (message == null || message.getFormatted() == null) {
-            return new AgentMessage("action_executor", "没有要执行的动作");
+            return CompletableFuture.completedFuture(new AgentMessage("action_executor", "没有要执行的动作"));
         }
 
         Map<String, Object> formatted = (Map<String, Object>) message.getFormatted();
 
         // 提取函数调用信息
         String actionName = null;
-        Map<String, Object> parameters = null;
+        Object arguments = null;
 
         if (formatted.containsKey("function_call")) {
             Map<String, Object> functionCall = (Map<String, Object>) formatted.get("function_call");
             actionName = (String) functionCall.get("name");
-            parameters = (Map<String, Object>) functionCall.get("arguments");
+            arguments = functionCall.get("arguments");
         } else if (formatted.containsKey("action")) {
             actionName = (String) formatted.get("action");
-            parameters = (Map<String, Object>) formatted.get("parameters");
+            arguments = formatted.get("parameters");
         }
 
         if (actionName == null) {
-            return new AgentMessage("action_executor", "未指定动作");
+            return CompletableFuture.completedFuture(new AgentMessage("action_executor", "未指定动作"));
         }
 
         // 查找动作
         Action action = actions.get(actionName);
         if (action == null) {
             log.warn("未找到动作: {}", actionName);
-            return new AgentMessage("action_executor", "未找到动作: " + actionName);
+            return CompletableFuture.completedFuture(new AgentMessage("action_executor", "未找到动作: " + actionName));
         }
 
-        // 执行动作（带重试）
-        FunctionCall functionCall = new FunctionCall(actionName, parameters);
-        ActionReturn result = executeWithRetry(action, functionCall, timeout, maxRetries);
-
-        // 构建响应消息
-        String content = result.formatResult();
-        if (content.isEmpty()) {
-            content = "动作执行成功，但未返回结果。";
+        // 模型有时把参数输出为JSON字符串
+        if (arguments instanceof String) {
+            try {
+                arguments = JSON.parseObject((String) arguments);
+            } catch (JSONException e) {
+                arguments = null;
+                log.debug("无法解析动作参数: {}", actionName);
+            }
+        }
+        if (arguments != null && !(arguments instanceof Map)) {
+            return CompletableFuture.completedFuture(new AgentMessage("action_executor",
+                    "参数必须是JSON对象: " + actionName));
         }
 
-        return new AgentMessage("action_executor", content);
-    }
-
-    /**
-     * 异步处理代理消息
-     *
-     * @param message 代理消息
-     * @return 处理结果的Future对象
-     */
-    public CompletableFuture<AgentMessage> processAsync(AgentMessage message) {
-        return processAsync(message, DEFAULT_TIMEOUT, DEFAULT_MAX_RETRIES);
-    }
-
-    /**
-     * 异步处理代理消息
-     *
-     * @param message    代理消息
-     * @param timeout    超时时间（秒）
-     * @param maxRetries 最大重试次数
-     * @return 处理结果的Future对象
-     */
-    public CompletableFuture<AgentMessage> processAsync(AgentMessage message, int timeout, int maxRetries) {
-        return CompletableFuture.supplyAsync(() -> process(message, timeout, maxRetries), executor);
+        // 执行动作（带重试）
+        FunctionCall functionCall = new FunctionCall(actionName, (Map<String, Object>) arguments);
+        CompletableFuture<ActionReturn> executing = execution.apply(action, functionCall);
+        return propagateCancellation(executing.thenApply(result -> {
+            // 构建响应消息
+            String content = result.getState() == ActionStatusCode.SUCCESS ? result.formatResult() : result.getErrmsg();
+            if (content == null || content.isEmpty()) {
+                content = "动作执行成功，但未返回结果。";
+            }
+            return new AgentMessage("action_executor", content);
+        }), executing);
     }
 
     /**
@@ -223,7 +443,7 @@ public class ActionExecutor {
      * @return 处理结果列表
      */
     public List<AgentMessage> processParallel(List<AgentMessage> messages) {
-        return processParallel(messages, DEFAULT_TIMEOUT, DEFAULT_MAX_RETRIES);
+        return processParallel(messages, DEFAULT_TIMEOUT, retryPolicy.getMaxRetries());
     }
 
     /**
@@ -249,49 +469,339 @@ public class ActionExecutor {
     }
 
     /**
-     * 带重试的动作执行
+     * 带超时和重试的异步动作执行
+     * <p>
+     * 每次尝试把动作提交到线程池，由调度器在超时后取消。失败时按{@link RetryPolicy}判断是否值得重试，
+     * 并在{@link RetryBudget}允许时由调度器在退避时间结束后发起下一次尝试，等待期间不占用任何线程。
+     * 已注册的动作先按参数Schema校验，不合法时直接返回{@link ActionStatusCode#ARGS_ERROR}。
+     * 设置了{@link ToolResultCache}时先查询缓存，命中或有相同调用正在执行时不再执行动作
      *
-     * @param action     动作
+     * @param action       动作
      * @param functionCall 函数调用
-     * @param timeout     超时时间（秒）
-     * @param maxRetries  最大重试次数
-     * @return 执行结果
+     * @param timeout      超时时间（秒）
+     * @param maxRetries   最大重试次数
+     * @return 执行结果的Future
      */
-    private ActionReturn executeWithRetry(Action action, FunctionCall functionCall, int timeout, int maxRetries) {
-        int retries = 0;
-        Exception lastException = null;
+    public CompletableFuture<ActionReturn> executeAsync(Action action, FunctionCall functionCall,
+                                                        int timeout, int maxRetries) {
+        ActionReturn invalid = validate(action, functionCall);
+        if (invalid != null) {
+            return CompletableFuture.completedFuture(invalid);
+        }
+        ToolResultCache cache = toolResultCache;
+        if (cache != null) {
+            return cache.execute(action, functionCall, () -> executeUncached(action, functionCall, timeout, maxRetries));
+        }
+        return executeUncached(action, functionCall, timeout, maxRetries);
+    }
 
-        while (retries <= maxRetries) {
-            try {
-                Future<ActionReturn> future = executor.submit(() -> action.execute(functionCall));
-                return future.get(timeout, TimeUnit.SECONDS);
-            } catch (TimeoutException e) {
-                log.warn("动作执行超时: {}", action.getName());
-                lastException = e;
-            } catch (Exception e) {
-                log.warn("动作执行失败: {}", action.getName(), e);
-                lastException = e;
+    /**
+     * 流式执行动作
+     * <p>
+     * {@link StreamingAction}在执行过程中输出的部分结果通过onPartial实时送出，超时后到达的部分结果被丢弃。
+     * 已经送出的内容无法撤回，所以流式动作不重试，也不经过{@link ToolResultCache}。
+     * 普通动作按{@link #executeAsync(Action, FunctionCall, int, int)}执行，成功后把完整结果作为唯一一段部分结果送出
+     *
+     * @param action       动作
+     * @param functionCall 函数调用
+     * @param timeout      超时时间（秒）
+     * @param onPartial    接收部分结果的回调
+     * @return 完整执行结果的Future
+     */
+    public CompletableFuture<ActionReturn> executeStreamAsync(Action action, FunctionCall functionCall,
+                                                              int timeout, Consumer<ActionReturn> onPartial) {
+        if (!(action instanceof StreamingAction)) {
+            CompletableFuture<ActionReturn> executing = executeAsync(action, functionCall, timeout,
+                    retryPolicy.getMaxRetries());
+            return propagateCancellation(executing.thenApply(result -> {
+                if (result != null && result.getState() == ActionStatusCode.SUCCESS) {
+                    onPartial.accept(result);
+                }
+                return result;
+            }), executing);
+        }
+
+        ActionReturn invalid = validate(action, functionCall);
+        if (invalid != null) {
+            return CompletableFuture.completedFuture(invalid);
+        }
+        StreamingCall call = new StreamingCall((StreamingAction) action, onPartial);
+        CompletableFuture<ActionReturn> executing = executeUncached(call, functionCall, timeout, 0);
+        executing.whenComplete((result, error) -> call.closed = true);
+        return executing;
+    }
+
+    /**
+     * 派生的Future被取消时取消原Future，使调用方的取消能到达正在执行的动作
+     */
+    private static <T> CompletableFuture<T> propagateCancellation(CompletableFuture<T> derived,
+                                                                  CompletableFuture<?> source) {
+        derived.whenComplete((value, error) -> {
+            if (derived.isCancelled()) {
+                source.cancel(true);
             }
+        });
+        return derived;
+    }
+
+    /**
+     * 按参数Schema校验调用
+     *
+     * @param action       动作
+     * @param functionCall 函数调用
+     * @return 参数合法或动作未注册时返回null，否则返回参数错误结果
+     */
+    private ActionReturn validate(Action action, FunctionCall functionCall) {
+        SchemaValidator validator = validators.get(action.getName());
+        if (validator == null) {
+            return null;
+        }
+        String error = validator.validate(functionCall.getArguments());
+        if (error == null) {
+            return null;
+        }
+        Bulkhead bulkhead = getBulkhead(action.getName());
+        if (bulkhead != null) {
+            bulkhead.getInvalid().increment();
+        }
+        log.debug("动作参数校验失败: {}，{}", action.getName(), error);
+        return ActionReturn.builder()
+                .type(action.getName())
+                .args(functionCall.getArguments())
+                .state(ActionStatusCode.ARGS_ERROR)
+                .errmsg(error)
+                .build();
+    }
+
+    /**
+     * 在执行之前检查调用：动作是否已注册，参数是否符合Schema
+     * <p>
+     * 代理用它找出需要重新生成的调用，避免把注定失败的调用提交到工具执行器
+     *
+     * @param functionCall 函数调用
+     * @return 调用有效时返回null，否则返回错误信息
+     */
+    public String checkCall(FunctionCall functionCall) {
+        if (functionCall == null || functionCall.getName() == null) {
+            return "缺少动作名称";
+        }
+        if (!actions.containsKey(functionCall.getName())) {
+            return "未找到动作: " + functionCall.getName();
+        }
+        SchemaValidator validator = validators.get(functionCall.getName());
+        return validator != null ? validator.validate(functionCall.getArguments()) : null;
+    }
+
+    /**
+     * 不经过缓存执行动作
+     *
+     * @param action       动作
+     * @param functionCall 函数调用
+     * @param timeout      超时时间（秒）
+     * @param maxRetries   最大重试次数
+     * @return 执行结果的Future
+     */
+    private CompletableFuture<ActionReturn> executeUncached(Action action, FunctionCall functionCall,
+                                                            int timeout, int maxRetries) {
+        CompletableFuture<ActionReturn> result = new CompletableFuture<>();
+        retryBudget.recordRequest();
+        attempt(action, functionCall, timeout, maxRetries, 0, result);
+        return result;
+    }
+
+    /**
+     * 执行一次尝试
+     *
+     * @param action       动作
+     * @param functionCall 函数调用
+     * @param timeout      超时时间（秒）
+     * @param maxRetries   最大重试次数
+     * @param retries      已重试次数
+     * @param result       最终结果
+     */
+    private void attempt(Action action, FunctionCall functionCall, int timeout, int maxRetries,
+                         int retries, CompletableFuture<ActionReturn> result) {
+        if (result.isDone()) {
+            // 调用方已经取消，不再重试
+            return;
+        }
+        Bulkhead bulkhead = getBulkhead(action.getName());
+        if (bulkhead == null) {
+            bulkhead = unregisteredBulkheads.computeIfAbsent(action.getName(), name -> new Bulkhead(name, executor));
+        }
+        Bulkhead stats = bulkhead;
+        stats.getCalls().increment();
 
-            if (retries < maxRetries) {
+        CompletableFuture<ActionReturn> attempt = new CompletableFuture<>();
+        Future<?> task;
+        try {
+            task = bulkhead.submit(() -> {
                 try {
-                    Thread.sleep(DEFAULT_RETRY_DELAY * (retries + 1));
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
+                    attempt.complete(action.execute(functionCall));
+                } catch (Throwable e) {
+                    attempt.completeExceptionally(e);
                 }
+            });
+        } catch (RejectedExecutionException e) {
+            stats.getErrors().increment();
+            ActionReturn busy;
+            if (bulkhead.isIsolated()) {
+                log.warn("动作舱壁已满，拒绝执行: {}", action.getName());
+                busy = ActionReturn.builder()
+                        .type(action.getName())
+                        .state(ActionStatusCode.BULKHEAD_FULL)
+                        .errmsg("动作并发已达上限，请稍后重试: " + action.getName())
+                        .build();
+            } else {
+                log.warn("动作执行器繁忙，拒绝执行: {}", action.getName());
+                busy = ActionReturn.builder()
+                        .type(action.getName())
+                        .state(ActionStatusCode.BUSY)
+                        .errmsg("动作执行器繁忙，请稍后重试: " + action.getName())
+                        .build();
+            }
+            retryOrComplete(action, functionCall, timeout, maxRetries, retries, result, busy, null);
+            return;
+        }
+
+        ScheduledFuture<?> timer = scheduler.schedule(() -> {
+            if (attempt.completeExceptionally(new TimeoutException("动作执行超时（" + timeout + "秒）"))) {
+                task.cancel(true);
             }
+        }, timeout, TimeUnit.SECONDS);
 
-            retries++;
+        // 调用方取消时中断正在执行的尝试
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled() && attempt.completeExceptionally(new CancellationException("动作已取消"))) {
+                task.cancel(true);
+            }
+        });
+
+        attempt.whenComplete((value, error) -> {
+            timer.cancel(false);
+            if (result.isDone()) {
+                return;
+            }
+            if (error == null) {
+                if (value != null && value.getState() != ActionStatusCode.SUCCESS) {
+                    stats.getErrors().increment();
+                    retryOrComplete(action, functionCall, timeout, maxRetries, retries, result, value, null);
+                } else {
+                    result.complete(value);
+                }
+                return;
+            }
+
+            stats.getErrors().increment();
+            Throwable cause = RetryPolicy.unwrap(error);
+            if (cause instanceof TimeoutException) {
+                log.warn("动作执行超时: {}", action.getName());
+            } else {
+                log.warn("动作执行失败: {}", action.getName(), cause);
+            }
+            retryOrComplete(action, functionCall, timeout, maxRetries, retries, result, null, cause);
+        });
+    }
+
+    /**
+     * 根据重试策略和预算安排下一次尝试，不再重试时写入最终结果
+     *
+     * @param action       动作
+     * @param functionCall 函数调用
+     * @param timeout      超时时间（秒）
+     * @param maxRetries   最大重试次数
+     * @param retries      已重试次数
+     * @param result       最终结果
+     * @param failed       本次尝试返回的失败结果，抛出异常时为null
+     * @param error        本次尝试抛出的异常，返回失败结果时为null
+     */
+    private void retryOrComplete(Action action, FunctionCall functionCall, int timeout, int maxRetries,
+                                 int retries, CompletableFuture<ActionReturn> result,
+                                 ActionReturn failed, Throwable error) {
+        boolean retryable = error != null ? retryPolicy.isRetryable(error) : retryPolicy.isRetryable(failed);
+        if (retryable && retries < maxRetries && !scheduler.isShutdown() && retryBudget.tryAcquireRetry()) {
+            long delay = retryPolicy.delayMillis(retries + 1);
+            try {
+                scheduler.schedule(() -> attempt(action, functionCall, timeout, maxRetries, retries + 1, result),
+                        delay, TimeUnit.MILLISECONDS);
+                return;
+            } catch (RejectedExecutionException e) {
+                log.warn("调度器已关闭，放弃重试: {}", action.getName());
+            }
         }
 
-        // 所有重试都失败
-        return ActionReturn.builder()
+        if (failed != null) {
+            result.complete(failed);
+            return;
+        }
+        result.complete(ActionReturn.builder()
                 .type(action.getName())
-                .state(ActionStatusCode.API_ERROR)
-                .errmsg("动作执行失败（重试" + maxRetries + "次后）: " +
-                        (lastException != null ? lastException.getMessage() : "未知错误"))
-                .build();
+                .state(retryPolicy.classify(error))
+                .errmsg("动作执行失败（重试" + retries + "次后）: " +
+                        (error.getMessage() != null ? error.getMessage() : "未知错误"))
+                .build());
+    }
+
+    /**
+     * 获取动作的舱壁
+     *
+     * @param name 动作名称
+     * @return 舱壁，动作未注册时返回null
+     */
+    public Bulkhead getBulkhead(String name) {
+        return bulkheads.get(name);
+    }
+
+    @Override
+    public void collect(MetricWriter writer) {
+        for (Bulkhead bulkhead : bulkheads.values()) {
+            collect(writer, bulkhead);
+        }
+        for (Bulkhead bulkhead : unregisteredBulkheads.values()) {
+            collect(writer, bulkhead);
+        }
+        ToolResultCache cache = toolResultCache;
+        if (cache != null) {
+            cache.collect(writer);
+        }
+    }
+
+    /**
+     * 导出一个舱壁的统计
+     *
+     * @param writer   指标写入器
+     * @param bulkhead 舱壁
+     */
+    private static void collect(MetricWriter writer, Bulkhead bulkhead) {
+        Map<String, String> labels = Map.of("action", bulkhead.getName());
+        writer.counter("lagent4j_action_calls_total", "Action attempts", labels, bulkhead.getCalls().sum());
+        writer.counter("lagent4j_action_errors_total", "Failed or rejected action attempts", labels,
+                bulkhead.getErrors().sum());
+        writer.counter("lagent4j_action_rejected_total", "Attempts rejected because the pool was full", labels,
+                bulkhead.getRejected().sum());
+        writer.counter("lagent4j_action_invalid_arguments_total", "Calls rejected by schema validation", labels,
+                bulkhead.getInvalid().sum());
+        writer.gauge("lagent4j_action_active", "Attempts currently running", labels, bulkhead.getActive());
+        writer.summary("lagent4j_action_duration_seconds", "Action execution time", labels,
+                bulkhead.getDuration(), MICROS_TO_SECONDS);
+        if (bulkhead.isIsolated()) {
+            writer.gauge("lagent4j_action_queue_depth", "Attempts waiting in the bulkhead queue", labels,
+                    bulkhead.getQueued());
+            writer.gauge("lagent4j_action_max_concurrency", "Bulkhead concurrency limit", labels,
+                    bulkhead.getConfig().getMaxConcurrent());
+            writer.gauge("lagent4j_action_utilization", "Running attempts divided by the concurrency limit",
+                    labels, bulkhead.getUtilization());
+        }
+    }
+
+    /**
+     * 获取已注册的动作
+     *
+     * @param name 动作名称
+     * @return 动作，未注册时返回null
+     */
+    public Action getAction(String name) {
+        return name != null ? actions.get(name) : null;
     }
 
     /**
@@ -308,44 +818,31 @@ public class ActionExecutor {
      */
     public void clearActions() {
         actions.clear();
+        validators.clear();
+        bulkheads.values().forEach(Bulkhead::shutdown);
+        bulkheads.clear();
+        unregisteredBulkheads.clear();
+        rebuildCatalog();
         log.debug("清空所有动作");
     }
 
     /**
      * 获取工具描述信息
+     * <p>
+     * 返回工具目录中预先生成的文本，动作不变时每次返回同一个字符串
      *
      * @return 工具描述信息
      */
     public String getToolsDescription() {
-        StringBuilder description = new StringBuilder();
-//        description.append("可用工具列表：\n\n");
-
-        for (Action action : actions.values()) {
-            description.append("工具名称: ").append(action.getName()).append("\n");
-            description.append("描述: ").append(action.getDescription()).append("\n");
-            description.append("参数说明:\n");
-
-            Map<String, Object> params = action.getParameters();
-            if (params != null && params.containsKey("properties")) {
-                Map<String, Object> properties = (Map<String, Object>) params.get("properties");
-                for (Map.Entry<String, Object> entry : properties.entrySet()) {
-                    Map<String, Object> paramInfo = (Map<String, Object>) entry.getValue();
-                    description.append("  - ").append(entry.getKey())
-                            .append(": ").append(paramInfo.get("description"))
-                            .append("\n");
-                }
-            }
-
-            description.append("\n");
-        }
-
-        return description.toString();
+        return catalog.getText();
     }
 
     /**
      * 关闭执行器
      */
     public void shutdown() {
+        scheduler.shutdownNow();
+        bulkheads.values().forEach(Bulkhead::shutdown);
         executor.shutdown();
         try {
             if (!executor.awaitTermination(60, TimeUnit.SECONDS)) {
@@ -356,4 +853,42 @@ public class ActionExecutor {
             Thread.currentThread().interrupt();
         }
     }
-} 
\ No newline at end of file
+
+    /**
+     * 把流式动作的一次调用包装成普通动作，以便复用舱壁、超时和统计
+     */
+    private static final class StreamingCall implements Action {
+        private final StreamingAction delegate;
+        private final Consumer<ActionReturn> onPartial;
+        private volatile boolean closed;
+
+        StreamingCall(StreamingAction delegate, Consumer<ActionReturn> onPartial) {
+            this.delegate = delegate;
+            this.onPartial = onPartial;
+        }
+
+        @Override
+        public String getName() {
+            return delegate.getName();
+        }
+
+        @Override
+        public String getDescription() {
+            return delegate.getDescription();
+        }
+
+        @Override
+        public Map<String, Object> getParameters() {
+            return delegate.getParameters();
+        }
+
+        @Override
+        public ActionReturn execute(FunctionCall functionCall) {
+            return delegate.executeStream(functionCall, partial -> {
+                if (!closed) {
+                    onPartial.accept(partial);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package io.github.internlm.lagent4j.actions;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import io.github.internlm.lagent4j.utils.HttpClients;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Bing Web Search API搜索后端
+ * <p>
+ * 使用共享的HTTP客户端异步发送请求，连接在查询之间复用；请求设置了连接、读取和整体超时，
+ * 响应体在回调结束时关闭。调用{@link CompletableFuture#cancel(boolean)}会取消对应的HTTP请求。
+ */
+public class BingSearchBackend implements SearchBackend {
+    /**
+     * 默认API地址
+     */
+    public static final String DEFAULT_ENDPOINT = "https://api.bing.microsoft.com/v7.0/search";
+
+    private final OkHttpClient httpClient;
+    private final HttpUrl endpoint;
+    private final String apiKey;
+
+    private BingSearchBackend(Builder builder) {
+        this.endpoint = HttpUrl.get(builder.endpoint);
+        this.apiKey = builder.apiKey;
+        this.httpClient = HttpClients.shared().newBuilder()
+                .connectTimeout(builder.timeout)
+                .readTimeout(builder.timeout)
+                .callTimeout(builder.timeout)
+                .build();
+    }
+
+    @Override
+    public CompletableFuture<List<SearchResult>> search(String query, int count) {
+        Request.Builder request = new Request.Builder()
+                .url(endpoint.newBuilder()
+                        .addQueryParameter("q", query)
+                        .addQueryParameter("count", String.valueOf(count))
+                        .build())
+                .header("Accept", "application/json");
+        if (apiKey != null && !apiKey.isEmpty()) {
+            request.header("Ocp-Apim-Subscription-Key", apiKey);
+        }
+
+        Call call = httpClient.newCall(request.build());
+        CompletableFuture<List<SearchResult>> future = new CompletableFuture<>();
+        future.whenComplete((result, error) -> {
+            if (future.isCancelled()) {
+                call.cancel();
+            }
+        });
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                future.completeExceptionally(e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (ResponseBody body = response.body()) {
+                    if (!response.isSuccessful() || body == null) {
+                        future.completeExceptionally(new IOException("Unexpected response: " + response.code()));
+                        return;
+                    }
+                    future.complete(parse(body.string(), count));
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 解析响应中的网页结果，兼容webPages为对象（value字段为结果列表）和直接为列表两种格式
+     */
+    static List<SearchResult> parse(String json, int count) {
+        JSONObject response = JSON.parseObject(json);
+        Object webPages = response == null ? null : response.get("webPages");
+        JSONArray pages = webPages instanceof JSONObject
+                ? ((JSONObject) webPages).getJSONArray("value")
+                : webPages instanceof JSONArray ? (JSONArray) webPages : null;
+        List<SearchResult> results = new ArrayList<>();
+        if (pages == null) {
+            return results;
+        }
+        for (int i = 0; i < pages.size() && results.size() < count; i++) {
+            JSONObject page = pages.getJSONObject(i);
+            results.add(new SearchResult(page.getString("name"), page.getString("snippet"), page.getString("url")));
+        }
+        return results;
+    }
+
+    /**
+     * BingSearchBackend构建器
+     */
+    public static class Builder {
+        private String endpoint = DEFAULT_ENDPOINT;
+        private String apiKey = System.getenv("BING_API_KEY");
+        private Duration timeout = Duration.ofSeconds(10);
+
+        /**
+         * 设置API地址
+         *
+         * @param endpoint API地址，默认为{@link #DEFAULT_ENDPOINT}
+         * @return 构建器
+         */
+        public Builder endpoint(String endpoint) {
+            if (HttpUrl.parse(endpoint == null ? "" : endpoint) == null) {
+                throw new IllegalArgumentException("API地址无效: " + endpoint);
+            }
+            this.endpoint = endpoint;
+            return this;
+        }
+
+        /**
+         * 设置API密钥
+         *
+         * @param apiKey API密钥，默认读取环境变量BING_API_KEY
+         * @return 构建器
+         */
+        public Builder apiKey(String apiKey) {
+            this.apiKey = apiKey;
+            return this;
+        }
+
+        /**
+         * 设置单次请求的超时时间，包括建立连接和读取响应
+         *
+         * @param timeout 超时时间，默认10秒
+         * @return 构建器
+         */
+        public Builder timeout(Duration timeout) {
+            if (timeout == null || timeout.isNegative() || timeout.isZero()) {
+                throw new IllegalArgumentException("超时时间必须大于0");
+            }
+            this.timeout = timeout;
+            return this;
+        }
+
+        /**
+         * 构建BingSearchBackend实例
+         *
+         * @return BingSearchBackend实例
+         */
+        public BingSearchBackend build() {
+            return new BingSearchBackend(this);
+        }
+    }
+}
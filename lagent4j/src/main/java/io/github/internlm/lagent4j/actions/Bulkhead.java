@@ -0,0 +1,182 @@
+package io.github.internlm.lagent4j.actions;
+
+import io.github.internlm.lagent4j.metrics.Histogram;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 动作舱壁
+ * <p>
+ * 记录单个动作的执行统计。配置了{@link BulkheadConfig}的动作拥有独立的线程池，
+ * 并发和排队都有上限，慢动作占满自己的线程后只会拒绝自己的新任务，不影响其他动作；
+ * 未配置的动作使用执行器的共享线程池，只做统计。
+ */
+@Getter
+public class Bulkhead {
+    /**
+     * 动作名称
+     */
+    private final String name;
+
+    /**
+     * 舱壁配置，使用共享线程池时为null
+     */
+    private final BulkheadConfig config;
+
+    /**
+     * 执行任务的线程池
+     */
+    @Getter(AccessLevel.NONE)
+    private final ExecutorService executor;
+
+    /**
+     * 正在执行的任务数
+     */
+    @Getter(AccessLevel.NONE)
+    private final AtomicInteger active = new AtomicInteger();
+
+    /**
+     * 执行次数（每次尝试计一次）
+     */
+    private final LongAdder calls = new LongAdder();
+
+    /**
+     * 失败次数
+     */
+    private final LongAdder errors = new LongAdder();
+
+    /**
+     * 因并发或队列已满被拒绝的次数
+     */
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * 因参数校验失败未执行的次数
+     */
+    private final LongAdder invalid = new LongAdder();
+
+    /**
+     * 执行耗时（微秒）
+     */
+    private final Histogram duration = new Histogram();
+
+    /**
+     * 创建使用独立线程池的舱壁
+     *
+     * @param name   动作名称
+     * @param config 舱壁配置
+     */
+    Bulkhead(String name, BulkheadConfig config) {
+        this.name = name;
+        this.config = config;
+        AtomicLong counter = new AtomicLong();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                config.getMaxConcurrent(),
+                config.getMaxConcurrent(),
+                60L,
+                TimeUnit.SECONDS,
+                config.getMaxQueue() > 0 ? new LinkedBlockingQueue<>(config.getMaxQueue()) : new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "lagent4j-action-" + name + "-" + counter.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = pool;
+    }
+
+    /**
+     * 创建使用共享线程池的舱壁
+     *
+     * @param name     动作名称
+     * @param executor 共享线程池
+     */
+    Bulkhead(String name, ExecutorService executor) {
+        this.name = name;
+        this.config = null;
+        this.executor = executor;
+    }
+
+    /**
+     * 是否拥有独立线程池
+     *
+     * @return 配置了舱壁时返回true
+     */
+    public boolean isIsolated() {
+        return config != null;
+    }
+
+    /**
+     * 提交任务
+     *
+     * @param task 任务
+     * @return 任务的Future，可用于超时取消
+     * @throws RejectedExecutionException 并发和队列已满时抛出
+     */
+    Future<?> submit(Runnable task) {
+        try {
+            return executor.submit(() -> {
+                active.incrementAndGet();
+                long start = System.nanoTime();
+                try {
+                    task.run();
+                } finally {
+                    duration.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                    active.decrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw e;
+        }
+    }
+
+    /**
+     * 获取正在执行的任务数
+     *
+     * @return 正在执行的任务数
+     */
+    public int getActive() {
+        return active.get();
+    }
+
+    /**
+     * 获取排队等待的任务数，使用共享线程池时返回0
+     *
+     * @return 排队等待的任务数
+     */
+    public int getQueued() {
+        return isIsolated() ? ((ThreadPoolExecutor) executor).getQueue().size() : 0;
+    }
+
+    /**
+     * 获取利用率，即正在执行的任务数与并发上限之比，使用共享线程池时返回-1
+     *
+     * @return 利用率
+     */
+    public double getUtilization() {
+        return isIsolated() ? (double) active.get() / config.getMaxConcurrent() : -1;
+    }
+
+    /**
+     * 关闭独立线程池，共享线程池由执行器关闭
+     */
+    void shutdown() {
+        if (isIsolated()) {
+            executor.shutdownNow();
+        }
+    }
+}
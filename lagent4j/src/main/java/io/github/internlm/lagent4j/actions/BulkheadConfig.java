@@ -0,0 +1,35 @@
+package io.github.internlm.lagent4j.actions;
+
+import lombok.Getter;
+
+/**
+ * 舱壁配置
+ * <p>
+ * 为单个动作指定独立的并发上限和等待队列长度，注册动作时传入
+ */
+@Getter
+public class BulkheadConfig {
+    /**
+     * 最大并发执行数
+     */
+    private final int maxConcurrent;
+
+    /**
+     * 等待队列长度，0表示不排队，并发已满时直接拒绝
+     */
+    private final int maxQueue;
+
+    /**
+     * 创建舱壁配置
+     *
+     * @param maxConcurrent 最大并发执行数
+     * @param maxQueue      等待队列长度
+     */
+    public BulkheadConfig(int maxConcurrent, int maxQueue) {
+        if (maxConcurrent <= 0 || maxQueue < 0) {
+            throw new IllegalArgumentException("舱壁并发数必须为正数，队列长度不能为负数");
+        }
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueue = maxQueue;
+    }
+}
@@ -0,0 +1,37 @@
+package io.github.internlm.lagent4j.actions;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * 工具结果缓存配置
+ * <p>
+ * 为单个动作指定缓存结果的有效期和最多保留的条目数，创建{@link ToolResultCache}时传入
+ */
+@Getter
+public class CacheConfig {
+    /**
+     * 缓存有效期
+     */
+    private final Duration ttl;
+
+    /**
+     * 最多保留的条目数，超出后淘汰最久未使用的条目
+     */
+    private final int maxSize;
+
+    /**
+     * 创建缓存配置
+     *
+     * @param ttl     缓存有效期
+     * @param maxSize 最多保留的条目数
+     */
+    public CacheConfig(Duration ttl, int maxSize) {
+        if (ttl == null || ttl.isNegative() || ttl.isZero() || maxSize <= 0) {
+            throw new IllegalArgumentException("缓存有效期和条目数必须为正数");
+        }
+        this.ttl = ttl;
+        this.maxSize = maxSize;
+    }
+}
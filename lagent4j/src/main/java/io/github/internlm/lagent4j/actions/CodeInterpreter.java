@@ -0,0 +1,789 @@
+package io.github.internlm.lagent4j.actions;
+
+import io.github.internlm.lagent4j.schema.ActionReturn;
+import io.github.internlm.lagent4j.schema.ActionStatusCode;
+import io.github.internlm.lagent4j.schema.FunctionCall;
+import jdk.jshell.Diag;
+import jdk.jshell.EvalException;
+import jdk.jshell.JShell;
+import jdk.jshell.Snippet;
+import jdk.jshell.SnippetEvent;
+import jdk.jshell.SourceCodeAnalysis;
+import jdk.jshell.UnresolvedReferenceException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * 代码解释器工具
+ * <p>
+ * 在当前进程内用JShell执行Java代码片段，适合需要精确计算的问题。创建JShell并完成第一次编译要花费近一秒，
+ * 因此解释器在后台预热一组JShell实例，调用时直接取用，用完后清空状态放回池中。
+ * <p>
+ * 带{@code session}参数的调用共享同一个JShell，变量和方法在多次调用之间保留，
+ * 直到调用{@link #closeSession(String)}或空闲超时；不带{@code session}的调用每次都从空白状态开始。
+ * 执行过程中的标准输出和标准错误按行作为部分结果实时送出：存在未关闭的解释器期间，System.out和System.err
+ * 被替换为按线程分发的流，最后一个解释器关闭时恢复原来的流。
+ * <p>
+ * 代码与宿主程序运行在同一个JVM中，没有沙箱隔离，只应在可信环境中使用。
+ * 每次执行受墙钟时间限制，超时后中断执行并丢弃该JShell实例。
+ */
+@Slf4j
+public class CodeInterpreter implements StreamingAction, AutoCloseable {
+    /**
+     * 工具名称
+     */
+    public static final String NAME = "code_interpreter";
+
+    /**
+     * 参数描述，所有实例共享同一个不可修改的对象
+     */
+    private static final Map<String, Object> PARAMETERS = Map.of(
+            "type", "object",
+            "properties", Map.of(
+                    "code", Map.of(
+                            "type", "string",
+                            "minLength", 1,
+                            "description", "要执行的Java代码，可以包含多条语句，最后一个表达式的值会作为结果输出"),
+                    "session", Map.of(
+                            "type", "string",
+                            "description", "会话名称（可选），相同会话的调用共享变量和方法")),
+            "required", List.of("code"));
+
+    /**
+     * 预热时执行的代码，覆盖lambda和流等常用语法的首次编译
+     */
+    private static final String WARMUP_CODE =
+            "int $warmup = java.util.stream.IntStream.rangeClosed(1, 10).map(i -> i * i).sum();";
+
+    /**
+     * 当前线程的输出捕获，执行线程由调用线程创建，因此能继承
+     */
+    private static final InheritableThreadLocal<Capture> CAPTURE = new InheritableThreadLocal<>();
+
+    /**
+     * 未关闭的解释器数量，以CodeInterpreter.class加锁访问
+     */
+    private static int openInterpreters;
+
+    /**
+     * 替换前的System.out和System.err，以及替换后的流，没有替换时为null
+     */
+    private static PrintStream originalOut;
+    private static PrintStream originalErr;
+    private static PrintStream routedOut;
+    private static PrintStream routedErr;
+
+    private final int poolSize;
+    private final Duration timeout;
+    private final int maxOutputChars;
+    private final int maxUsesPerShell;
+    private final Duration sessionIdleTimeout;
+
+    /**
+     * 预热好的空闲实例
+     */
+    private final BlockingQueue<Shell> idle = new LinkedBlockingQueue<>();
+
+    /**
+     * 会话名称到实例的映射
+     */
+    private final Map<String, Shell> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * 正在预热的实例数量
+     */
+    private final AtomicInteger warming = new AtomicInteger();
+
+    /**
+     * 后台预热实例的线程
+     */
+    private final ExecutorService warmer;
+
+    /**
+     * 执行超时后中断执行的线程
+     */
+    private final ScheduledExecutorService watchdog;
+
+    private final LongAdder warmStarts = new LongAdder();
+    private final LongAdder coldStarts = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    private volatile boolean closed;
+
+    /**
+     * 使用默认配置创建代码解释器
+     */
+    public CodeInterpreter() {
+        this(new Builder());
+    }
+
+    private CodeInterpreter(Builder builder) {
+        this.poolSize = builder.poolSize;
+        this.timeout = builder.timeout;
+        this.maxOutputChars = builder.maxOutputChars;
+        this.maxUsesPerShell = builder.maxUsesPerShell;
+        this.sessionIdleTimeout = builder.sessionIdleTimeout;
+        this.warmer = Executors.newSingleThreadExecutor(daemon("lagent4j-jshell-warmer"));
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(daemon("lagent4j-jshell-watchdog"));
+        installRouter();
+        refill();
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String getDescription() {
+        return "执行Java代码并返回输出，适合数值计算、数据处理等需要精确结果的任务";
+    }
+
+    @Override
+    public Map<String, Object> getParameters() {
+        return PARAMETERS;
+    }
+
+    @Override
+    public boolean isCodeExecution() {
+        return true;
+    }
+
+    @Override
+    public ActionReturn executeStream(FunctionCall functionCall, Consumer<ActionReturn> onPartial) {
+        Map<String, Object> args = functionCall.getArguments();
+        String code = args != null ? (String) args.get("code") : null;
+        String session = args != null ? (String) args.get("session") : null;
+        if (code == null || code.isBlank()) {
+            return error(args, ActionStatusCode.ARGS_ERROR, "参数 code 缺少必填参数", "");
+        }
+        if (closed) {
+            return error(args, ActionStatusCode.API_ERROR, "代码解释器已关闭", "");
+        }
+
+        Shell shell = lock(session);
+        Capture capture = new Capture(onPartial, maxOutputChars);
+        try {
+            shell.uses++;
+            return run(shell, code, args, capture);
+        } finally {
+            shell.lock.unlock();
+            shell.lastUsed = System.nanoTime();
+            if (session == null) {
+                release(shell);
+            } else if (shell.broken && sessions.remove(session, shell)) {
+                discard(shell);
+            }
+        }
+    }
+
+    /**
+     * 取得实例并加锁
+     * <p>
+     * 会话实例在取得和加锁之间可能被{@link #closeSession(String)}或空闲超时放回池中，加锁后再确认它仍属于该会话，
+     * 否则重新取得，避免会话代码在池中的实例里执行
+     */
+    private Shell lock(String session) {
+        while (true) {
+            Shell shell = acquire(session);
+            // 使用ReentrantLock而不是synchronized，虚拟线程等待和执行代码时不会占住载体线程
+            shell.lock.lock();
+            if (session == null || sessions.get(session) == shell) {
+                shell.lastUsed = System.nanoTime();
+                return shell;
+            }
+            shell.lock.unlock();
+        }
+    }
+
+    /**
+     * 结束会话，清空其状态并把实例放回池中
+     *
+     * @param session 会话名称
+     * @return 会话存在时返回true
+     */
+    public boolean closeSession(String session) {
+        Shell shell = sessions.remove(session);
+        if (shell == null) {
+            return false;
+        }
+        shell.lock.lock();
+        try {
+            release(shell);
+        } finally {
+            shell.lock.unlock();
+        }
+        return true;
+    }
+
+    /**
+     * 获取当前空闲的预热实例数量
+     *
+     * @return 空闲实例数量
+     */
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * 获取使用预热实例执行的次数
+     *
+     * @return 次数
+     */
+    public long getWarmStarts() {
+        return warmStarts.sum();
+    }
+
+    /**
+     * 获取池中没有空闲实例、只能现场创建实例的次数
+     *
+     * @return 次数
+     */
+    public long getColdStarts() {
+        return coldStarts.sum();
+    }
+
+    /**
+     * 获取执行超时的次数
+     *
+     * @return 次数
+     */
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    /**
+     * 等待池中预热好指定数量的实例，主要用于启动阶段和测试
+     *
+     * @param count   实例数量
+     * @param timeout 最长等待时间
+     * @return 在超时前预热完成时返回true
+     * @throws InterruptedException 等待被中断
+     */
+    public boolean awaitWarm(int count, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (idle.size() < count) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    /**
+     * 关闭解释器，释放所有JShell实例
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        uninstallRouter();
+        warmer.shutdownNow();
+        watchdog.shutdownNow();
+        sessions.values().forEach(this::discard);
+        sessions.clear();
+        Shell shell;
+        while ((shell = idle.poll()) != null) {
+            discard(shell);
+        }
+    }
+
+    /**
+     * 逐条执行代码中的语句，遇到编译错误、异常或超时即停止
+     */
+    private ActionReturn run(Shell shell, String code, Map<String, Object> args, Capture capture) {
+        shell.timedOut = false;
+        ScheduledFuture<?> stopper = watchdog.schedule(() -> {
+            shell.timedOut = true;
+            shell.jshell.stop();
+        }, timeout.toMillis(), TimeUnit.MILLISECONDS);
+        CAPTURE.set(capture);
+        try {
+            SourceCodeAnalysis analysis = shell.jshell.sourceCodeAnalysis();
+            String remaining = code;
+            while (!remaining.isBlank()) {
+                SourceCodeAnalysis.CompletionInfo info = analysis.analyzeCompletion(remaining);
+                if (info.completeness() == SourceCodeAnalysis.Completeness.EMPTY) {
+                    break;
+                }
+                if (!info.completeness().isComplete()) {
+                    return error(args, ActionStatusCode.ARGS_ERROR, "代码不完整: " + remaining.trim(), capture.finish());
+                }
+                remaining = info.remaining();
+                String value = null;
+                for (SnippetEvent event : shell.jshell.eval(info.source())) {
+                    if (event.causeSnippet() != null) {
+                        continue;
+                    }
+                    if (shell.timedOut) {
+                        break;
+                    }
+                    if (event.status() == Snippet.Status.REJECTED) {
+                        return error(args, ActionStatusCode.ARGS_ERROR,
+                                "编译错误: " + diagnostics(shell.jshell, event.snippet()), capture.finish());
+                    }
+                    if (event.exception() != null) {
+                        return error(args, ActionStatusCode.API_ERROR, describe(event.exception()), capture.finish());
+                    }
+                    if (isExpression(event.snippet())) {
+                        value = event.value();
+                    }
+                }
+                if (shell.timedOut) {
+                    shell.broken = true;
+                    timeouts.increment();
+                    return error(args, ActionStatusCode.API_ERROR,
+                            "代码执行超时（" + timeout.toMillis() + "毫秒）", capture.finish());
+                }
+                capture.flushLine();
+                if (value != null && remaining.isBlank()) {
+                    capture.append(value + "\n");
+                }
+            }
+            return ActionReturn.builder()
+                    .args(args)
+                    .type(NAME)
+                    .state(ActionStatusCode.SUCCESS)
+                    .result(text(capture.finish()))
+                    .build();
+        } catch (IllegalStateException e) {
+            // JShell在执行过程中被关闭
+            shell.broken = true;
+            return error(args, ActionStatusCode.API_ERROR, "代码解释器已关闭", capture.finish());
+        } finally {
+            if (!stopper.cancel(false)) {
+                // 超时处理与正常结束同时发生，实例可能处于中断状态
+                shell.broken = true;
+            }
+            capture.closed = true;
+            CAPTURE.remove();
+        }
+    }
+
+    /**
+     * 取得实例：会话已有实例时直接使用，否则优先从池中取预热好的实例
+     */
+    private Shell acquire(String session) {
+        expireSessions();
+        if (session != null) {
+            Shell existing = sessions.get(session);
+            if (existing != null && !existing.broken) {
+                existing.lastUsed = System.nanoTime();
+                return existing;
+            }
+        }
+        Shell shell = idle.poll();
+        if (shell != null) {
+            warmStarts.increment();
+        } else {
+            coldStarts.increment();
+            shell = newShell(false);
+        }
+        refill();
+        if (session != null) {
+            Shell raced = sessions.putIfAbsent(session, shell);
+            if (raced != null) {
+                idle.offer(shell);
+                return raced;
+            }
+        }
+        return shell;
+    }
+
+    /**
+     * 清空实例状态后放回池中，出错、超时或使用次数过多的实例直接关闭并补充新实例
+     */
+    private void release(Shell shell) {
+        if (closed || shell.broken || shell.uses >= maxUsesPerShell || idle.size() >= poolSize) {
+            discard(shell);
+            refill();
+            return;
+        }
+        try {
+            reset(shell);
+            idle.offer(shell);
+        } catch (RuntimeException e) {
+            log.warn("重置JShell失败，丢弃该实例: {}", e.getMessage());
+            discard(shell);
+            refill();
+        }
+    }
+
+    /**
+     * 删除预热之后定义的所有片段，恢复到刚启动时的状态
+     */
+    private static void reset(Shell shell) {
+        List<Snippet> snippets = shell.jshell.snippets().collect(Collectors.toList());
+        for (int i = snippets.size() - 1; i >= shell.baseline; i--) {
+            Snippet snippet = snippets.get(i);
+            if (shell.jshell.status(snippet).isActive()) {
+                shell.jshell.drop(snippet);
+            }
+        }
+    }
+
+    private void discard(Shell shell) {
+        try {
+            shell.jshell.close();
+        } catch (RuntimeException e) {
+            log.debug("关闭JShell失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 在后台把空闲实例补足到池大小
+     */
+    private void refill() {
+        while (!closed && idle.size() + warming.get() < poolSize) {
+            warming.incrementAndGet();
+            try {
+                warmer.execute(() -> {
+                    try {
+                        if (!closed) {
+                            idle.offer(newShell(true));
+                        }
+                    } catch (RuntimeException e) {
+                        log.warn("预热JShell失败: {}", e.getMessage());
+                    } finally {
+                        warming.decrementAndGet();
+                    }
+                });
+            } catch (RuntimeException e) {
+                warming.decrementAndGet();
+                return;
+            }
+        }
+    }
+
+    /**
+     * 关闭空闲超时的会话，正在执行代码的会话不算空闲
+     */
+    private void expireSessions() {
+        long now = System.nanoTime();
+        long limit = sessionIdleTimeout.toNanos();
+        for (Map.Entry<String, Shell> entry : sessions.entrySet()) {
+            Shell shell = entry.getValue();
+            if (!shell.lock.isLocked() && now - shell.lastUsed > limit) {
+                closeSession(entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * 创建JShell实例，预热时额外执行一段代码完成首次编译
+     */
+    private static Shell newShell(boolean warm) {
+        JShell jshell = JShell.builder().executionEngine("local").build();
+        Shell shell = new Shell(jshell, (int) jshell.snippets().count());
+        if (warm) {
+            shell.jshell.sourceCodeAnalysis().analyzeCompletion(WARMUP_CODE);
+            shell.jshell.eval(WARMUP_CODE);
+            reset(shell);
+        }
+        return shell;
+    }
+
+    private static boolean isExpression(Snippet snippet) {
+        return snippet.kind() == Snippet.Kind.EXPRESSION
+                || snippet.subKind() == Snippet.SubKind.TEMP_VAR_EXPRESSION_SUBKIND;
+    }
+
+    private static String diagnostics(JShell jshell, Snippet snippet) {
+        return jshell.diagnostics(snippet)
+                .filter(Diag::isError)
+                .map(diag -> diag.getMessage(Locale.ROOT))
+                .collect(Collectors.joining("; "));
+    }
+
+    private static String describe(Exception exception) {
+        if (exception instanceof EvalException) {
+            EvalException eval = (EvalException) exception;
+            String message = eval.getMessage();
+            return eval.getExceptionClassName() + (message != null ? ": " + message : "");
+        }
+        if (exception instanceof UnresolvedReferenceException) {
+            return "引用了未定义的符号: " + ((UnresolvedReferenceException) exception).getSnippet().source().trim();
+        }
+        return exception.toString();
+    }
+
+    private static List<Map<String, String>> text(String content) {
+        return List.of(Map.of("type", "text", "content", content));
+    }
+
+    private static ActionReturn error(Map<String, Object> args, ActionStatusCode state, String message, String output) {
+        return ActionReturn.builder()
+                .args(args)
+                .type(NAME)
+                .state(state)
+                .errmsg(message)
+                .result(output.isEmpty() ? null : text(output))
+                .build();
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * 第一个解释器创建时替换System.out和System.err：正在执行代码的线程写入各自的捕获，其他线程照常输出
+     */
+    private static synchronized void installRouter() {
+        if (openInterpreters++ > 0) {
+            return;
+        }
+        originalOut = System.out;
+        originalErr = System.err;
+        routedOut = new PrintStream(new Router(originalOut), true, StandardCharsets.UTF_8);
+        routedErr = new PrintStream(new Router(originalErr), true, StandardCharsets.UTF_8);
+        System.setOut(routedOut);
+        System.setErr(routedErr);
+    }
+
+    /**
+     * 最后一个解释器关闭时恢复原来的流；期间被其他代码再次替换的流保持不变
+     */
+    private static synchronized void uninstallRouter() {
+        if (--openInterpreters > 0) {
+            return;
+        }
+        if (System.out == routedOut) {
+            System.setOut(originalOut);
+        }
+        if (System.err == routedErr) {
+            System.setErr(originalErr);
+        }
+        routedOut.flush();
+        routedErr.flush();
+        originalOut = null;
+        originalErr = null;
+        routedOut = null;
+        routedErr = null;
+    }
+
+    /**
+     * 池中的JShell实例
+     */
+    private static final class Shell {
+        private final JShell jshell;
+
+        /**
+         * 同一实例同时只执行一段代码
+         */
+        private final ReentrantLock lock = new ReentrantLock();
+
+        /**
+         * 启动后（预热前）的片段数量，重置时保留这些片段（默认导入等）
+         */
+        private final int baseline;
+
+        private int uses;
+        private volatile long lastUsed = System.nanoTime();
+        private volatile boolean timedOut;
+        private volatile boolean broken;
+
+        Shell(JShell jshell, int baseline) {
+            this.jshell = jshell;
+            this.baseline = baseline;
+        }
+    }
+
+    /**
+     * 按线程分发输出的流
+     */
+    private static final class Router extends OutputStream {
+        private final PrintStream original;
+
+        /**
+         * 原始流不是UTF-8编码时需要先解码再交给原始流
+         */
+        private final boolean transcode;
+
+        Router(PrintStream original) {
+            this.original = original;
+            this.transcode = !StandardCharsets.UTF_8.equals(Charset.defaultCharset());
+        }
+
+        @Override
+        public void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            Capture capture = CAPTURE.get();
+            if (capture != null && !capture.closed) {
+                capture.write(b, off, len);
+            } else if (transcode) {
+                original.print(new String(b, off, len, StandardCharsets.UTF_8));
+            } else {
+                original.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() {
+            original.flush();
+        }
+    }
+
+    /**
+     * 一次执行的输出：按行送出部分结果，超过上限后截断
+     */
+    private static final class Capture {
+        private final Consumer<ActionReturn> onPartial;
+        private final int limit;
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        private final StringBuilder output = new StringBuilder();
+        private boolean truncated;
+        private volatile boolean closed;
+
+        Capture(Consumer<ActionReturn> onPartial, int limit) {
+            this.onPartial = onPartial;
+            this.limit = limit;
+        }
+
+        synchronized void write(byte[] b, int off, int len) {
+            int start = off;
+            for (int i = off; i < off + len; i++) {
+                if (b[i] == '\n') {
+                    line.write(b, start, i + 1 - start);
+                    start = i + 1;
+                    flushLine();
+                }
+            }
+            line.write(b, start, off + len - start);
+        }
+
+        synchronized void flushLine() {
+            if (line.size() > 0) {
+                String text = line.toString(StandardCharsets.UTF_8);
+                line.reset();
+                append(text);
+            }
+        }
+
+        synchronized void append(String text) {
+            if (truncated) {
+                return;
+            }
+            if (output.length() + text.length() > limit) {
+                text = text.substring(0, limit - output.length()) + "\n...（输出过长，已截断）\n";
+                truncated = true;
+            }
+            output.append(text);
+            onPartial.accept(ActionReturn.builder()
+                    .type(NAME)
+                    .state(ActionStatusCode.ING)
+                    .result(text(text))
+                    .build());
+        }
+
+        synchronized String finish() {
+            flushLine();
+            return output.toString();
+        }
+    }
+
+    /**
+     * 代码解释器构建器
+     */
+    public static class Builder {
+        private int poolSize = 2;
+        private Duration timeout = Duration.ofSeconds(10);
+        private int maxOutputChars = 16 * 1024;
+        private int maxUsesPerShell = 50;
+        private Duration sessionIdleTimeout = Duration.ofMinutes(10);
+
+        /**
+         * 设置预热实例的数量，默认2
+         */
+        public Builder poolSize(int poolSize) {
+            if (poolSize < 0) {
+                throw new IllegalArgumentException("预热实例数量不能为负数");
+            }
+            this.poolSize = poolSize;
+            return this;
+        }
+
+        /**
+         * 设置单次执行的时间上限，默认10秒
+         */
+        public Builder timeout(Duration timeout) {
+            if (timeout == null || timeout.isNegative() || timeout.isZero()) {
+                throw new IllegalArgumentException("执行时间上限必须大于0");
+            }
+            this.timeout = timeout;
+            return this;
+        }
+
+        /**
+         * 设置单次执行最多保留的输出字符数，默认16K
+         */
+        public Builder maxOutputChars(int maxOutputChars) {
+            if (maxOutputChars <= 0) {
+                throw new IllegalArgumentException("输出字符上限必须大于0");
+            }
+            this.maxOutputChars = maxOutputChars;
+            return this;
+        }
+
+        /**
+         * 设置一个实例最多执行的次数，超过后关闭并换成新实例，避免类加载器无限增长，默认50
+         */
+        public Builder maxUsesPerShell(int maxUsesPerShell) {
+            if (maxUsesPerShell <= 0) {
+                throw new IllegalArgumentException("实例最大使用次数必须大于0");
+            }
+            this.maxUsesPerShell = maxUsesPerShell;
+            return this;
+        }
+
+        /**
+         * 设置会话的空闲超时，超时后会话状态被清空，默认10分钟
+         */
+        public Builder sessionIdleTimeout(Duration sessionIdleTimeout) {
+            if (sessionIdleTimeout == null || sessionIdleTimeout.isNegative() || sessionIdleTimeout.isZero()) {
+                throw new IllegalArgumentException("会话空闲超时必须大于0");
+            }
+            this.sessionIdleTimeout = sessionIdleTimeout;
+            return this;
+        }
+
+        public CodeInterpreter build() {
+            return new CodeInterpreter(this);
+        }
+    }
+}
@@ -0,0 +1,574 @@
+package io.github.internlm.lagent4j.actions;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 流式HTML内容提取器
+ * <p>
+ * 边读取边解析HTML，不构建DOM，提取到足够的内容后立即停止读取。用于网页浏览工具的text、title和meta模式：
+ * <ul>
+ *     <li>TEXT：提取body中的可见文本，跳过script、style和template，连续空白合并为一个空格，块级元素之间以空格分隔</li>
+ *     <li>TITLE：提取第一个title元素的文本，读到{@code </title>}即停止</li>
+ *     <li>META：提取meta标签的name或property及content，读到body开始即停止</li>
+ * </ul>
+ * 解析是宽松的：不检查标签是否匹配，无法识别的内容按普通文本处理。
+ */
+public final class HtmlStreamExtractor {
+
+    /**
+     * 提取模式
+     */
+    public enum Mode {
+        TEXT, TITLE, META
+    }
+
+    /**
+     * 提取结果
+     */
+    @Getter
+    public static final class Result {
+        /**
+         * 提取的内容，不超过上限
+         */
+        private final String content;
+
+        /**
+         * 内容是否因为达到上限而被截断
+         */
+        private final boolean truncated;
+
+        Result(String content, boolean truncated) {
+            this.content = content;
+            this.truncated = truncated;
+        }
+    }
+
+    /**
+     * 标签和文本事件的接收者，用于在流式解析的基础上做结构化分析
+     */
+    interface Listener {
+        /**
+         * 开始标签
+         *
+         * @param name       小写的标签名
+         * @param attributes 属性
+         */
+        void startTag(String name, Map<String, String> attributes);
+
+        /**
+         * 结束标签
+         *
+         * @param name 小写的标签名
+         */
+        void endTag(String name);
+
+        /**
+         * body中的文本字符，已解码字符实体，空白未合并
+         *
+         * @param c 字符
+         */
+        void text(char c);
+
+        /**
+         * 是否已收集到足够的内容，返回true后停止读取
+         *
+         * @return 需要停止时返回true
+         */
+        default boolean isDone() {
+            return false;
+        }
+    }
+
+    /**
+     * 内容不计入正文的元素，其中的文本原样跳过直到对应的结束标签
+     */
+    private static final Set<String> RAW_TEXT = Set.of("script", "style", "template", "iframe", "noembed", "noframes");
+
+    /**
+     * 块级元素，前后视为空白
+     */
+    static final Set<String> BLOCKS = Set.of("address", "article", "aside", "blockquote", "br", "dd", "details",
+            "dialog", "div", "dl", "dt", "fieldset", "figcaption", "figure", "footer", "form", "h1", "h2", "h3", "h4",
+            "h5", "h6", "header", "hr", "li", "main", "nav", "ol", "p", "pre", "section", "summary", "table", "tbody",
+            "td", "tfoot", "th", "thead", "tr", "ul", "option", "body", "html", "head", "title");
+
+    /**
+     * 常用的命名字符实体
+     */
+    private static final Map<String, Character> ENTITIES = Map.ofEntries(
+            Map.entry("amp", '&'), Map.entry("lt", '<'), Map.entry("gt", '>'), Map.entry("quot", '"'),
+            Map.entry("apos", '\''), Map.entry("nbsp", '\u00A0'), Map.entry("copy", '©'),
+            Map.entry("reg", '®'), Map.entry("trade", '™'), Map.entry("mdash", '—'),
+            Map.entry("ndash", '–'), Map.entry("hellip", '…'), Map.entry("laquo", '«'),
+            Map.entry("raquo", '»'), Map.entry("ldquo", '“'), Map.entry("rdquo", '”'),
+            Map.entry("lsquo", '‘'), Map.entry("rsquo", '’'), Map.entry("middot", '·'),
+            Map.entry("times", '×'), Map.entry("deg", '°'), Map.entry("yen", '¥'),
+            Map.entry("euro", '€'), Map.entry("bull", '•'));
+
+    private static final int MAX_ENTITY_LENGTH = 10;
+
+    private final Reader reader;
+    private final Mode mode;
+    private final int maxChars;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+
+    private final StringBuilder output = new StringBuilder();
+    private boolean pendingSpace;
+    private boolean inHead;
+    private boolean inTitle;
+    private boolean done;
+    private boolean truncated;
+
+    /**
+     * 事件接收者，为null时按模式提取内容
+     */
+    private final Listener listener;
+
+    private HtmlStreamExtractor(Reader reader, Mode mode, int maxChars, Listener listener) {
+        this.reader = reader;
+        this.mode = mode;
+        this.maxChars = maxChars;
+        this.listener = listener;
+    }
+
+    /**
+     * 从字符流中提取内容
+     *
+     * @param reader   HTML字符流，调用方负责关闭
+     * @param mode     提取模式
+     * @param maxChars 最多提取的字符数，达到后停止读取
+     * @return 提取结果
+     * @throws IOException 读取失败
+     */
+    public static Result extract(Reader reader, Mode mode, int maxChars) throws IOException {
+        if (maxChars <= 0) {
+            throw new IllegalArgumentException("最大字符数必须大于0");
+        }
+        HtmlStreamExtractor extractor = new HtmlStreamExtractor(reader, mode, maxChars, null);
+        extractor.run();
+        return new Result(extractor.output.toString(), extractor.truncated);
+    }
+
+    /**
+     * 解析字符流，把body中的标签和文本依次交给接收者，直到流结束或{@link Listener#isDone()}返回true
+     *
+     * @param reader   HTML字符流，调用方负责关闭
+     * @param listener 事件接收者
+     * @throws IOException 读取失败
+     */
+    static void parse(Reader reader, Listener listener) throws IOException {
+        new HtmlStreamExtractor(reader, Mode.TEXT, Integer.MAX_VALUE, listener).run();
+    }
+
+    private void run() throws IOException {
+        int c = read();
+        if (c == '\uFEFF') {
+            c = read();
+        }
+        while (c != -1 && !done && (listener == null || !listener.isDone())) {
+            if (c == '<') {
+                tag();
+            } else if (c == '&') {
+                text(entity());
+            } else {
+                text(c);
+            }
+            c = done ? -1 : read();
+        }
+    }
+
+    /**
+     * 处理一个标签，起始的'<'已读取
+     */
+    private void tag() throws IOException {
+        int c = read();
+        if (c == '!') {
+            skipDeclaration();
+            return;
+        }
+        if (c == '?') {
+            skipUntil('>');
+            return;
+        }
+        boolean end = c == '/';
+        if (end) {
+            c = read();
+        }
+        if (!isLetter(c)) {
+            // 不是标签，'<'按文本处理
+            text('<');
+            if (end) {
+                text('/');
+            }
+            if (c != -1) {
+                unread();
+            }
+            return;
+        }
+        String name = tagName(c);
+        Map<String, String> attributes = !end && (listener != null || (mode == Mode.META && name.equals("meta")))
+                ? attributes() : null;
+        if (attributes == null) {
+            skipTagRest();
+        }
+
+        if (BLOCKS.contains(name)) {
+            space();
+        }
+        if (end) {
+            endTag(name);
+        } else {
+            startTag(name, attributes);
+        }
+    }
+
+    private void startTag(String name, Map<String, String> attributes) throws IOException {
+        if (listener != null && !inHead) {
+            listener.startTag(name, attributes);
+        }
+        switch (name) {
+            case "head":
+                inHead = true;
+                return;
+            case "body":
+                inHead = false;
+                if (mode == Mode.META) {
+                    done = true;
+                }
+                return;
+            case "title":
+                if (mode == Mode.TITLE) {
+                    inTitle = true;
+                } else {
+                    skipRawText(name);
+                }
+                return;
+            case "meta":
+                if (attributes != null) {
+                    meta(attributes);
+                }
+                return;
+            default:
+                if (RAW_TEXT.contains(name)) {
+                    skipRawText(name);
+                } else if (mode == Mode.META && inHead && !isHeadElement(name)) {
+                    // 出现正文元素说明head已经结束
+                    done = true;
+                }
+        }
+    }
+
+    private void endTag(String name) {
+        if (listener != null && !inHead) {
+            listener.endTag(name);
+        }
+        if (name.equals("head")) {
+            inHead = false;
+            if (mode == Mode.META) {
+                done = true;
+            }
+        } else if (name.equals("title") && inTitle) {
+            done = true;
+        }
+    }
+
+    private void meta(Map<String, String> attributes) {
+        String content = attributes.getOrDefault("content", "");
+        String key = attributes.getOrDefault("name", "");
+        if (key.isEmpty()) {
+            key = attributes.getOrDefault("property", "");
+        }
+        if (!key.isEmpty() && !content.isEmpty()) {
+            append(key + ": " + content + "\n");
+        }
+    }
+
+    /**
+     * 处理文本字符
+     */
+    private void text(int c) {
+        if (mode == Mode.META || (mode == Mode.TITLE && !inTitle) || (mode == Mode.TEXT && inHead)) {
+            return;
+        }
+        if (listener != null) {
+            listener.text((char) c);
+            return;
+        }
+        if (c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f') {
+            space();
+            return;
+        }
+        boolean separate = pendingSpace && output.length() > 0;
+        pendingSpace = false;
+        if (output.length() + (separate ? 2 : 1) > maxChars) {
+            // 还有内容但已达到上限
+            truncated = true;
+            done = true;
+            return;
+        }
+        if (separate) {
+            output.append(' ');
+        }
+        output.append((char) c);
+    }
+
+    private void text(String s) {
+        for (int i = 0; i < s.length() && !done; i++) {
+            text(s.charAt(i));
+        }
+    }
+
+    private void space() {
+        pendingSpace = true;
+    }
+
+    private void append(String s) {
+        int room = maxChars - output.length();
+        if (s.length() > room) {
+            output.append(s, 0, room);
+            truncated = true;
+            done = true;
+        } else {
+            output.append(s);
+        }
+    }
+
+    /**
+     * 解析字符实体，起始的'&'已读取，无法识别时原样返回
+     */
+    private String entity() throws IOException {
+        StringBuilder raw = new StringBuilder(MAX_ENTITY_LENGTH);
+        int c;
+        while ((c = read()) != -1 && raw.length() < MAX_ENTITY_LENGTH && (isLetter(c) || isDigit(c) || c == '#')) {
+            raw.append((char) c);
+        }
+        boolean terminated = c == ';';
+        if (c != -1 && !terminated) {
+            unread();
+        }
+        String name = raw.toString();
+        if (name.startsWith("#") && name.length() > 1) {
+            try {
+                int codePoint = name.charAt(1) == 'x' || name.charAt(1) == 'X'
+                        ? Integer.parseInt(name.substring(2), 16)
+                        : Integer.parseInt(name.substring(1));
+                if (Character.isValidCodePoint(codePoint) && codePoint != 0) {
+                    return new String(Character.toChars(codePoint));
+                }
+            } catch (NumberFormatException e) {
+                // 按原文处理
+            }
+        } else {
+            Character decoded = ENTITIES.get(name);
+            if (decoded != null) {
+                return String.valueOf(decoded);
+            }
+        }
+        return "&" + name + (terminated ? ";" : "");
+    }
+
+    private String tagName(int first) throws IOException {
+        StringBuilder name = new StringBuilder();
+        int c = first;
+        while (c != -1 && c != '>' && c != '/' && !isWhitespace(c)) {
+            name.append(Character.toLowerCase((char) c));
+            c = read();
+        }
+        if (c != -1) {
+            unread();
+        }
+        return name.toString();
+    }
+
+    /**
+     * 读取标签属性直到'>'，属性名转为小写，属性值解码字符实体
+     */
+    private Map<String, String> attributes() throws IOException {
+        Map<String, String> attributes = new HashMap<>();
+        int c;
+        while ((c = read()) != -1 && c != '>') {
+            if (isWhitespace(c) || c == '/') {
+                continue;
+            }
+            StringBuilder name = new StringBuilder();
+            while (c != -1 && c != '=' && c != '>' && !isWhitespace(c) && c != '/') {
+                name.append(Character.toLowerCase((char) c));
+                c = read();
+            }
+            while (isWhitespace(c)) {
+                c = read();
+            }
+            String value = "";
+            if (c == '=') {
+                c = read();
+                while (isWhitespace(c)) {
+                    c = read();
+                }
+                StringBuilder v = new StringBuilder();
+                if (c == '"' || c == '\'') {
+                    int quote = c;
+                    while ((c = read()) != -1 && c != quote) {
+                        if (c == '&') {
+                            v.append(entity());
+                        } else {
+                            v.append((char) c);
+                        }
+                    }
+                } else {
+                    while (c != -1 && c != '>' && !isWhitespace(c)) {
+                        if (c == '&') {
+                            v.append(entity());
+                        } else {
+                            v.append((char) c);
+                        }
+                        c = read();
+                    }
+                    if (c == '>') {
+                        unread();
+                    }
+                }
+                value = v.toString().trim();
+            } else if (c == '>') {
+                unread();
+            }
+            attributes.putIfAbsent(name.toString(), value);
+        }
+        return attributes;
+    }
+
+    /**
+     * 跳过标签剩余部分，引号中的'>'不结束标签
+     */
+    private void skipTagRest() throws IOException {
+        int quote = 0;
+        int c;
+        while ((c = read()) != -1) {
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '>') {
+                return;
+            }
+        }
+    }
+
+    private void skipDeclaration() throws IOException {
+        int c = read();
+        if (c == '-') {
+            int d = read();
+            if (d == '-') {
+                // 注释，跳到"-->"
+                int dashes = 0;
+                while ((c = read()) != -1) {
+                    if (c == '>' && dashes >= 2) {
+                        return;
+                    }
+                    dashes = c == '-' ? dashes + 1 : 0;
+                }
+                return;
+            }
+        }
+        if (c != '>') {
+            skipUntil('>');
+        }
+    }
+
+    /**
+     * 跳过原始文本元素的内容，直到对应的结束标签
+     */
+    private void skipRawText(String name) throws IOException {
+        int matched = -2;
+        int c;
+        while ((c = read()) != -1) {
+            if (matched == -2) {
+                if (c == '<') {
+                    matched = -1;
+                }
+            } else if (matched == -1) {
+                matched = c == '/' ? 0 : (c == '<' ? -1 : -2);
+            } else if (matched < name.length()) {
+                if (Character.toLowerCase((char) c) == name.charAt(matched)) {
+                    matched++;
+                } else {
+                    matched = c == '<' ? -1 : -2;
+                }
+            } else if (c == '>' || isWhitespace(c) || c == '/') {
+                if (c != '>') {
+                    skipTagRest();
+                }
+                if (BLOCKS.contains(name)) {
+                    space();
+                }
+                return;
+            } else {
+                matched = c == '<' ? -1 : -2;
+            }
+        }
+    }
+
+    private void skipUntil(char end) throws IOException {
+        int c;
+        while ((c = read()) != -1 && c != end) {
+            // 跳过
+        }
+    }
+
+    private static boolean isHeadElement(String name) {
+        switch (name) {
+            case "html":
+            case "head":
+            case "meta":
+            case "link":
+            case "base":
+            case "title":
+            case "noscript":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isLetter(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+    }
+
+    private int read() throws IOException {
+        if (position == limit) {
+            int n = reader.read(buffer, 0, buffer.length);
+            if (n <= 0) {
+                position = 0;
+                limit = 0;
+                return -1;
+            }
+            position = 0;
+            limit = n;
+        }
+        return buffer[position++];
+    }
+
+    /**
+     * 退回刚读取的一个字符
+     */
+    private void unread() {
+        position--;
+    }
+}
@@ -0,0 +1,348 @@
+package io.github.internlm.lagent4j.actions;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 本地全文索引的一个不可修改的段
+ * <p>
+ * 每个段是一个文件，写入后以只读方式内存映射，查询时不把倒排表读入堆内存。文件布局：
+ * <pre>
+ * 头部        magic、版本、文档数、词项数、词元总数、各区域的偏移
+ * 文档表      每个文档的相对路径、标题、文件大小、修改时间和词元数，打开时读入堆内存
+ * 词项区      按UTF-8字节序排列的词项文本
+ * 词项记录    每个词项一条定长记录：词项文本偏移、长度、文档频率、倒排表偏移和长度，按词项二分查找
+ * 倒排表      每个文档一项：与上一个文档号的差值、词频，都用变长字节编码
+ * </pre>
+ * 变长字节编码每字节保存7位，最高位为1表示后面还有字节；文档号差值和词频通常很小，每项一般只占2个字节。
+ */
+final class IndexSegment {
+    private static final int MAGIC = 0x4C344958;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 48;
+    private static final int TERM_RECORD_BYTES = 24;
+
+    /**
+     * 段名称，也是文件名
+     */
+    final String name;
+
+    final int docCount;
+
+    /**
+     * 所有文档的词元总数，用于计算平均文档长度
+     */
+    final long totalLength;
+
+    final String[] paths;
+    final String[] titles;
+    final long[] sizes;
+    final long[] modified;
+    final int[] lengths;
+
+    private final ByteBuffer buffer;
+    private final int termCount;
+    private final int termBytesOffset;
+    private final int termRecordsOffset;
+    private final int postingsOffset;
+
+    private IndexSegment(String name, ByteBuffer buffer) throws IOException {
+        this.name = name;
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Invalid index segment: " + name);
+        }
+        this.docCount = buffer.getInt(8);
+        this.termCount = buffer.getInt(12);
+        this.totalLength = buffer.getLong(16);
+        int docTableOffset = (int) buffer.getLong(24);
+        this.termBytesOffset = (int) buffer.getLong(32);
+        this.termRecordsOffset = termBytesOffset + buffer.getInt(40);
+        this.postingsOffset = termRecordsOffset + termCount * TERM_RECORD_BYTES;
+
+        this.paths = new String[docCount];
+        this.titles = new String[docCount];
+        this.sizes = new long[docCount];
+        this.modified = new long[docCount];
+        this.lengths = new int[docCount];
+        ByteBuffer docs = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+        docs.position(docTableOffset);
+        for (int i = 0; i < docCount; i++) {
+            paths[i] = readString(docs);
+            titles[i] = readString(docs);
+            sizes[i] = docs.getLong();
+            modified[i] = docs.getLong();
+            lengths[i] = docs.getInt();
+        }
+    }
+
+    /**
+     * 打开段文件并内存映射
+     *
+     * @param file 段文件
+     * @return 段
+     * @throws IOException 文件不存在或格式错误时抛出
+     */
+    static IndexSegment open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Index segment too large: " + file);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new IndexSegment(file.getFileName().toString(), mapped);
+        }
+    }
+
+    /**
+     * 查找词项
+     *
+     * @param term 词项的UTF-8字节
+     * @return 词项记录的序号，不存在时返回-1
+     */
+    int find(byte[] term) {
+        int low = 0;
+        int high = termCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareTerm(mid, term);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 词项的文档频率
+     */
+    int docFrequency(int record) {
+        return buffer.getInt(termRecordsOffset + record * TERM_RECORD_BYTES + 8);
+    }
+
+    /**
+     * 读取词项的倒排表
+     *
+     * @param record 词项记录的序号
+     * @return 倒排表游标
+     */
+    Postings postings(int record) {
+        int base = termRecordsOffset + record * TERM_RECORD_BYTES;
+        int start = postingsOffset + (int) buffer.getLong(base + 12);
+        return new Postings(buffer, start, start + buffer.getInt(base + 20));
+    }
+
+    private int compareTerm(int record, byte[] term) {
+        int base = termRecordsOffset + record * TERM_RECORD_BYTES;
+        int offset = termBytesOffset + buffer.getInt(base);
+        int length = buffer.getInt(base + 4);
+        int n = Math.min(length, term.length);
+        for (int i = 0; i < n; i++) {
+            int cmp = Integer.compare(buffer.get(offset + i) & 0xFF, term[i] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return Integer.compare(length, term.length);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 倒排表游标，按文档号递增的顺序遍历
+     */
+    static final class Postings {
+        private final ByteBuffer buffer;
+        private final int end;
+        private int position;
+        private int doc = -1;
+        private int frequency;
+
+        Postings(ByteBuffer buffer, int start, int end) {
+            this.buffer = buffer;
+            this.position = start;
+            this.end = end;
+        }
+
+        /**
+         * 移动到下一个文档
+         *
+         * @return 没有更多文档时返回false
+         */
+        boolean next() {
+            if (position >= end) {
+                return false;
+            }
+            doc += readVInt();
+            frequency = readVInt();
+            return true;
+        }
+
+        int doc() {
+            return doc;
+        }
+
+        int frequency() {
+            return frequency;
+        }
+
+        private int readVInt() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer.get(position++);
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+    }
+
+    /**
+     * 待写入段的文档
+     */
+    static final class Document {
+        final String path;
+        final String title;
+        final long size;
+        final long modified;
+        final Map<String, Integer> frequencies;
+        final int length;
+
+        Document(String path, String title, long size, long modified, List<String> tokens) {
+            this.path = path;
+            this.title = title;
+            this.size = size;
+            this.modified = modified;
+            this.length = tokens.size();
+            this.frequencies = new HashMap<>();
+            for (String token : tokens) {
+                frequencies.merge(token, 1, Integer::sum);
+            }
+        }
+    }
+
+    /**
+     * 写入段文件：先写到临时文件，完成后原子地改名，读者不会看到写了一半的段
+     *
+     * @param file      段文件
+     * @param documents 文档，文档号为其在列表中的位置
+     * @throws IOException 写入失败时抛出
+     */
+    static void write(Path file, List<Document> documents) throws IOException {
+        // 收集每个词项出现的文档，文档按序号递增加入
+        Map<String, List<Document>> index = new HashMap<>();
+        Map<Document, Integer> ids = new HashMap<>();
+        long totalLength = 0;
+        for (int i = 0; i < documents.size(); i++) {
+            Document document = documents.get(i);
+            ids.put(document, i);
+            totalLength += document.length;
+            for (String term : document.frequencies.keySet()) {
+                index.computeIfAbsent(term, t -> new ArrayList<>()).add(document);
+            }
+        }
+        byte[][] terms = new byte[index.size()][];
+        String[] termStrings = new String[index.size()];
+        int t = 0;
+        for (String term : index.keySet()) {
+            terms[t++] = term.getBytes(StandardCharsets.UTF_8);
+        }
+        Arrays.sort(terms, Arrays::compareUnsigned);
+
+        ByteArrayOutputStream docTable = new ByteArrayOutputStream();
+        DataOutputStream docOut = new DataOutputStream(docTable);
+        for (Document document : documents) {
+            writeString(docOut, document.path);
+            writeString(docOut, document.title);
+            docOut.writeLong(document.size);
+            docOut.writeLong(document.modified);
+            docOut.writeInt(document.length);
+        }
+
+        ByteArrayOutputStream termBytes = new ByteArrayOutputStream();
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        DataOutputStream recordOut = new DataOutputStream(records);
+        ByteArrayOutputStream postings = new ByteArrayOutputStream();
+        for (int i = 0; i < terms.length; i++) {
+            termStrings[i] = new String(terms[i], StandardCharsets.UTF_8);
+            List<Document> matches = index.get(termStrings[i]);
+            int postingsStart = postings.size();
+            int previous = -1;
+            for (Document document : matches) {
+                int id = ids.get(document);
+                writeVInt(postings, id - previous);
+                writeVInt(postings, document.frequencies.get(termStrings[i]));
+                previous = id;
+            }
+            recordOut.writeInt(termBytes.size());
+            recordOut.writeInt(terms[i].length);
+            recordOut.writeInt(matches.size());
+            recordOut.writeLong(postingsStart);
+            recordOut.writeInt(postings.size() - postingsStart);
+            termBytes.write(terms[i]);
+        }
+
+        long docTableOffset = HEADER_BYTES;
+        long termBytesOffset = docTableOffset + docTable.size();
+        if (termBytesOffset + termBytes.size() + records.size() + postings.size() > Integer.MAX_VALUE) {
+            throw new IOException("Index segment too large: " + file);
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(documents.size());
+            out.writeInt(terms.length);
+            out.writeLong(totalLength);
+            out.writeLong(docTableOffset);
+            out.writeLong(termBytesOffset);
+            out.writeInt(termBytes.size());
+            out.writeInt(0);
+            docTable.writeTo(out);
+            termBytes.writeTo(out);
+            records.writeTo(out);
+            postings.writeTo(out);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static void writeVInt(OutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+}
@@ -0,0 +1,751 @@
+package io.github.internlm.lagent4j.actions;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import io.github.internlm.lagent4j.metrics.MetricSource;
+import io.github.internlm.lagent4j.metrics.MetricWriter;
+import io.github.internlm.lagent4j.schema.ActionReturn;
+import io.github.internlm.lagent4j.schema.ActionStatusCode;
+import io.github.internlm.lagent4j.schema.FunctionCall;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * 本地全文搜索工具
+ * <p>
+ * 为一个目录下的文档（Markdown、纯文本、HTML等）建立倒排索引，按BM25相关度返回结果，结果格式与{@link WebSearch}相同，
+ * 也可以作为{@link SearchBackend}交给{@link WebSearch}使用。
+ * <p>
+ * 索引保存在磁盘上，由若干不可修改的段（{@link IndexSegment}）和一个清单文件组成，段文件以内存映射方式读取。
+ * 文档变化时增量更新：修改或删除的文档在原来的段中标记为已删除，新增和修改的文档写入一个新段；
+ * 已删除的文档超过一半或段数过多时，重新为所有文档建立一个段。
+ * 查询时如果距上次检查超过刷新间隔，先检查文件的大小和修改时间；检查和更新只由一个线程执行，
+ * 其余查询继续使用更新前的索引。
+ */
+@Slf4j
+public class LocalSearch implements Action, SearchBackend, MetricSource {
+    /**
+     * 默认返回结果数量
+     */
+    private static final int DEFAULT_COUNT = 5;
+
+    /**
+     * BM25参数
+     */
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    /**
+     * 摘要长度
+     */
+    private static final int SNIPPET_LENGTH = 160;
+
+    /**
+     * 段数超过该值时合并
+     */
+    private static final int MAX_SEGMENTS = 8;
+
+    private static final String MANIFEST = "manifest.json";
+
+    /**
+     * 参数描述，所有实例共享同一个不可修改的对象
+     */
+    private static final Map<String, Object> PARAMETERS = Map.of(
+            "type", "object",
+            "properties", Map.of(
+                    "query", Map.of(
+                            "type", "string",
+                            "description", "搜索关键词"),
+                    "count", Map.of(
+                            "type", "integer",
+                            "description", "返回结果数量（可选，默认为5）")),
+            "required", List.of("query"));
+
+    private final Path documentDirectory;
+    private final Path indexDirectory;
+    private final Set<String> extensions;
+    private final long maxFileBytes;
+    private final long refreshIntervalNanos;
+
+    /**
+     * 当前索引，更新时整体替换
+     */
+    private volatile Snapshot snapshot = new Snapshot(List.of(), 0);
+
+    private volatile long lastCheck;
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder indexedFiles = new LongAdder();
+    private final LongAdder merges = new LongAdder();
+
+    private LocalSearch(Builder builder) {
+        this.documentDirectory = builder.documentDirectory.toAbsolutePath().normalize();
+        this.indexDirectory = (builder.indexDirectory != null
+                ? builder.indexDirectory
+                : documentDirectory.resolve(".lagent4j-index")).toAbsolutePath().normalize();
+        this.extensions = Set.copyOf(builder.extensions);
+        this.maxFileBytes = builder.maxFileBytes;
+        this.refreshIntervalNanos = builder.refreshInterval.toNanos();
+        try {
+            Files.createDirectories(indexDirectory);
+            load();
+            refresh();
+        } catch (IOException e) {
+            throw new UncheckedIOException("无法打开本地索引: " + indexDirectory, e);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "local_search";
+    }
+
+    @Override
+    public String getDescription() {
+        return "在本地文档中搜索内容，适合查询内部文档";
+    }
+
+    @Override
+    public Map<String, Object> getParameters() {
+        return PARAMETERS;
+    }
+
+    @Override
+    public boolean isIdempotent() {
+        return true;
+    }
+
+    @Override
+    public ActionReturn execute(FunctionCall functionCall) {
+        try {
+            Map<String, Object> params = functionCall.getArguments();
+            Object query = params.get("query");
+            if (query == null || query.toString().isBlank()) {
+                return error(ActionStatusCode.ARGS_ERROR, "Missing query");
+            }
+            int count = params.get("count") instanceof Number
+                    ? Math.max(1, ((Number) params.get("count")).intValue())
+                    : DEFAULT_COUNT;
+
+            List<SearchResult> results = query(query.toString(), count);
+            if (results.isEmpty()) {
+                return error(ActionStatusCode.API_ERROR, "No results found");
+            }
+            List<Map<String, String>> searchResults = new ArrayList<>(results.size());
+            for (SearchResult result : results) {
+                searchResults.add(result.toMap());
+            }
+            return ActionReturn.builder()
+                    .type(getName())
+                    .state(ActionStatusCode.SUCCESS)
+                    .result(searchResults)
+                    .build();
+        } catch (Exception e) {
+            log.error("Error executing local search: {}", e.getMessage(), e);
+            return error(ActionStatusCode.API_ERROR, "Error executing local search: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public CompletableFuture<List<SearchResult>> search(String query, int count) {
+        try {
+            return CompletableFuture.completedFuture(query(query, count));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * 查询索引
+     *
+     * @param query 搜索关键词
+     * @param count 最多返回的结果数
+     * @return 按相关度排序的结果，链接为文件的file:地址
+     */
+    public List<SearchResult> query(String query, int count) {
+        queries.increment();
+        if (System.nanoTime() - lastCheck >= refreshIntervalNanos && refreshLock.tryLock()) {
+            try {
+                refresh();
+            } catch (IOException e) {
+                log.warn("Failed to refresh local index {}: {}", indexDirectory, e.getMessage());
+            } finally {
+                refreshLock.unlock();
+            }
+        }
+
+        Snapshot current = snapshot;
+        Set<String> terms = new LinkedHashSet<>(SearchTokenizer.tokenize(query));
+        if (terms.isEmpty() || current.liveDocs == 0) {
+            return List.of();
+        }
+
+        // 文档频率、文档数和平均文档长度都只统计未删除的文档，三者口径一致，idf不会为负
+        double averageLength = Math.max(1, (double) current.liveLength / current.liveDocs);
+        List<byte[]> termBytes = new ArrayList<>(terms.size());
+        List<Double> idfs = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            byte[] bytes = term.getBytes(StandardCharsets.UTF_8);
+            int df = 0;
+            for (SegmentState segment : current.segments) {
+                int record = segment.segment.find(bytes);
+                if (record >= 0) {
+                    df += segment.liveFrequency(record);
+                }
+            }
+            if (df > 0) {
+                termBytes.add(bytes);
+                idfs.add(Math.log(1 + (current.liveDocs - df + 0.5) / (df + 0.5)));
+            }
+        }
+
+        // 逐个词项累加得分，用小顶堆保留得分最高的文档
+        PriorityQueue<Hit> top = new PriorityQueue<>(Comparator.comparingDouble((Hit hit) -> hit.score));
+        for (SegmentState state : current.segments) {
+            IndexSegment segment = state.segment;
+            float[] scores = null;
+            for (int i = 0; i < termBytes.size(); i++) {
+                int record = segment.find(termBytes.get(i));
+                if (record < 0) {
+                    continue;
+                }
+                if (scores == null) {
+                    scores = new float[segment.docCount];
+                }
+                double idf = idfs.get(i);
+                IndexSegment.Postings postings = segment.postings(record);
+                while (postings.next()) {
+                    int doc = postings.doc();
+                    int tf = postings.frequency();
+                    scores[doc] += (float) (idf * tf * (K1 + 1)
+                            / (tf + K1 * (1 - B + B * segment.lengths[doc] / averageLength)));
+                }
+            }
+            if (scores == null) {
+                continue;
+            }
+            for (int doc = 0; doc < scores.length; doc++) {
+                if (scores[doc] > 0 && !state.deleted.get(doc)
+                        && (top.size() < count || scores[doc] > top.peek().score)) {
+                    top.add(new Hit(segment, doc, scores[doc]));
+                    if (top.size() > count) {
+                        top.poll();
+                    }
+                }
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>(top);
+        hits.sort(Comparator.comparingDouble((Hit hit) -> hit.score).reversed());
+        List<SearchResult> results = new ArrayList<>(hits.size());
+        Map<Path, String> texts = new HashMap<>();
+        for (Hit hit : hits) {
+            Path file = documentDirectory.resolve(hit.segment.paths[hit.doc]);
+            results.add(new SearchResult(hit.segment.titles[hit.doc], snippet(file, terms, texts),
+                    file.toUri().toString()));
+        }
+        return results;
+    }
+
+    /**
+     * 检查文档目录，把新增、修改和删除的文档更新到索引
+     *
+     * @return 索引有变化时返回true
+     * @throws IOException 读写索引失败时抛出
+     */
+    public boolean refresh() throws IOException {
+        refreshLock.lock();
+        try {
+            lastCheck = System.nanoTime();
+            Map<String, BasicFileAttributes> files = scan();
+            Snapshot old = snapshot;
+
+            // 标记已修改和已删除的文档，记下仍然有效的文档
+            Set<String> upToDate = new HashSet<>();
+            List<SegmentState> segments = new ArrayList<>();
+            boolean changed = false;
+            int deletedDocs = 0;
+            for (SegmentState state : old.segments) {
+                IndexSegment segment = state.segment;
+                BitSet deleted = (BitSet) state.deleted.clone();
+                for (int doc = 0; doc < segment.docCount; doc++) {
+                    if (deleted.get(doc)) {
+                        continue;
+                    }
+                    BasicFileAttributes attributes = files.get(segment.paths[doc]);
+                    if (attributes != null && attributes.size() == segment.sizes[doc]
+                            && attributes.lastModifiedTime().toMillis() == segment.modified[doc]) {
+                        upToDate.add(segment.paths[doc]);
+                    } else {
+                        deleted.set(doc);
+                        changed = true;
+                    }
+                }
+                if (deleted.cardinality() < segment.docCount) {
+                    segments.add(new SegmentState(segment, deleted));
+                    deletedDocs += deleted.cardinality();
+                } else {
+                    changed = true;
+                }
+            }
+            List<String> added = new ArrayList<>();
+            for (String path : files.keySet()) {
+                if (!upToDate.contains(path)) {
+                    added.add(path);
+                }
+            }
+            if (!changed && added.isEmpty()) {
+                return false;
+            }
+
+            int liveDocs = upToDate.size();
+            if (deletedDocs > liveDocs || segments.size() + 1 > MAX_SEGMENTS) {
+                // 重新为所有文档建立一个段
+                segments.clear();
+                added = new ArrayList<>(files.keySet());
+                liveDocs = 0;
+                merges.increment();
+            }
+            int nextSegment = old.nextSegment;
+            if (!added.isEmpty()) {
+                String name = String.format(Locale.ROOT, "segment-%06d.idx", nextSegment++);
+                List<IndexSegment.Document> documents = new ArrayList<>(added.size());
+                for (String path : added) {
+                    IndexSegment.Document document = read(path, files.get(path));
+                    if (document != null) {
+                        documents.add(document);
+                    }
+                }
+                if (!documents.isEmpty()) {
+                    Path file = indexDirectory.resolve(name);
+                    IndexSegment.write(file, documents);
+                    segments.add(new SegmentState(IndexSegment.open(file), new BitSet()));
+                    liveDocs += documents.size();
+                    indexedFiles.add(documents.size());
+                }
+            }
+
+            Snapshot updated = new Snapshot(segments, nextSegment);
+            writeManifest(updated);
+            snapshot = updated;
+            refreshes.increment();
+            deleteUnusedSegments(updated);
+            log.debug("Local index {} updated: {} documents in {} segments", indexDirectory, liveDocs,
+                    segments.size());
+            return true;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * 获取索引中的文档数
+     *
+     * @return 未删除的文档数
+     */
+    public int getDocumentCount() {
+        return snapshot.liveDocs;
+    }
+
+    /**
+     * 获取索引的段数
+     *
+     * @return 段数
+     */
+    public int getSegmentCount() {
+        return snapshot.segments.size();
+    }
+
+    @Override
+    public void collect(MetricWriter writer) {
+        Map<String, String> labels = Map.of("action", getName());
+        Snapshot current = snapshot;
+        writer.gauge("lagent4j_local_search_documents", "Documents in the local index", labels, current.liveDocs);
+        writer.gauge("lagent4j_local_search_segments", "Segments in the local index", labels,
+                current.segments.size());
+        writer.counter("lagent4j_local_search_queries_total", "Queries answered from the local index", labels,
+                queries.sum());
+        writer.counter("lagent4j_local_search_refreshes_total", "Refreshes that changed the local index", labels,
+                refreshes.sum());
+        writer.counter("lagent4j_local_search_indexed_files_total", "Files tokenized and written to a segment",
+                labels, indexedFiles.sum());
+        writer.counter("lagent4j_local_search_merges_total", "Times all documents were rewritten into one segment",
+                labels, merges.sum());
+    }
+
+    /**
+     * 列出文档目录下需要索引的文件，键为以/分隔的相对路径，跳过隐藏目录和索引目录
+     */
+    private Map<String, BasicFileAttributes> scan() throws IOException {
+        Map<String, BasicFileAttributes> files = new HashMap<>();
+        try (Stream<Path> stream = Files.walk(documentDirectory)) {
+            stream.filter(path -> !path.startsWith(indexDirectory))
+                    .filter(path -> {
+                        Path relative = documentDirectory.relativize(path);
+                        for (Path part : relative) {
+                            if (part.toString().startsWith(".")) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    })
+                    .filter(path -> extensions.contains(extension(path)))
+                    .forEach(path -> {
+                        try {
+                            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                            if (attributes.isRegularFile() && attributes.size() <= maxFileBytes) {
+                                String relative = documentDirectory.relativize(path).toString()
+                                        .replace(path.getFileSystem().getSeparator(), "/");
+                                files.put(relative, attributes);
+                            }
+                        } catch (IOException e) {
+                            // 文件在遍历期间被删除
+                        }
+                    });
+        }
+        return files;
+    }
+
+    /**
+     * 读取并切分文档，读取失败时返回null
+     */
+    private IndexSegment.Document read(String path, BasicFileAttributes attributes) {
+        Path file = documentDirectory.resolve(path);
+        try {
+            String[] content = content(file);
+            return new IndexSegment.Document(path, content[0], attributes.size(),
+                    attributes.lastModifiedTime().toMillis(), SearchTokenizer.tokenize(content[0] + "\n" + content[1]));
+        } catch (IOException e) {
+            log.warn("Failed to index {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 读取文档的标题和正文：HTML取title元素和正文文本，Markdown取第一个一级标题，其余使用文件名
+     */
+    private String[] content(Path file) throws IOException {
+        String raw = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        String name = file.getFileName().toString();
+        String extension = extension(file);
+        if ("html".equals(extension) || "htm".equals(extension)) {
+            String title = HtmlStreamExtractor.extract(new StringReader(raw), HtmlStreamExtractor.Mode.TITLE,
+                    SNIPPET_LENGTH).getContent();
+            String text = HtmlStreamExtractor.extract(new StringReader(raw), HtmlStreamExtractor.Mode.TEXT,
+                    raw.length()).getContent();
+            return new String[]{title.isEmpty() ? name : title, text};
+        }
+        String title = name;
+        for (String line : raw.split("\n", 50)) {
+            if (line.startsWith("# ")) {
+                title = line.substring(2).trim();
+                break;
+            }
+        }
+        return new String[]{title, raw};
+    }
+
+    /**
+     * 截取文档中第一个命中查询词项的位置附近的文字作为摘要
+     *
+     * @param texts 本次查询已读取的文档正文，同一文件只读取一次
+     */
+    private String snippet(Path file, Set<String> terms, Map<Path, String> texts) {
+        String text = texts.computeIfAbsent(file, path -> {
+            try {
+                return content(path)[1].replaceAll("\\s+", " ").trim();
+            } catch (IOException e) {
+                return "";
+            }
+        });
+        if (text.isEmpty()) {
+            return "";
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int position = -1;
+        for (String term : terms) {
+            int index = lower.indexOf(term);
+            if (index >= 0 && (position < 0 || index < position)) {
+                position = index;
+            }
+        }
+        int start = Math.max(0, Math.min(position - SNIPPET_LENGTH / 4, text.length() - SNIPPET_LENGTH));
+        int end = Math.min(text.length(), start + SNIPPET_LENGTH);
+        return (start > 0 ? "..." : "") + text.substring(start, end) + (end < text.length() ? "..." : "");
+    }
+
+    /**
+     * 读取清单并打开其中的段，清单不存在或损坏时从空索引开始
+     */
+    private void load() throws IOException {
+        Path manifest = indexDirectory.resolve(MANIFEST);
+        if (!Files.exists(manifest)) {
+            return;
+        }
+        try {
+            JSONObject json = JSON.parseObject(Files.readString(manifest, StandardCharsets.UTF_8));
+            List<SegmentState> segments = new ArrayList<>();
+            JSONArray array = json.getJSONArray("segments");
+            for (int i = 0; i < array.size(); i++) {
+                JSONObject item = array.getJSONObject(i);
+                BitSet deleted = new BitSet();
+                for (Object doc : item.getJSONArray("deleted")) {
+                    deleted.set(((Number) doc).intValue());
+                }
+                segments.add(new SegmentState(IndexSegment.open(indexDirectory.resolve(item.getString("name"))),
+                        deleted));
+            }
+            snapshot = new Snapshot(segments, json.getIntValue("nextSegment"));
+        } catch (RuntimeException | IOException e) {
+            log.warn("Local index {} is unreadable, rebuilding: {}", indexDirectory, e.getMessage());
+            snapshot = new Snapshot(List.of(), 0);
+        }
+    }
+
+    /**
+     * 写入清单：先写临时文件再原子地改名
+     */
+    private void writeManifest(Snapshot snapshot) throws IOException {
+        JSONArray segments = new JSONArray();
+        for (SegmentState state : snapshot.segments) {
+            JSONObject item = new JSONObject();
+            item.put("name", state.segment.name);
+            item.put("deleted", state.deleted.stream().toArray());
+            segments.add(item);
+        }
+        JSONObject json = new JSONObject();
+        json.put("nextSegment", snapshot.nextSegment);
+        json.put("segments", segments);
+        Path temp = indexDirectory.resolve(MANIFEST + ".tmp");
+        Files.writeString(temp, json.toJSONString(), StandardCharsets.UTF_8);
+        Files.move(temp, indexDirectory.resolve(MANIFEST), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 删除不再被清单引用的段文件；文件仍被映射而无法删除时留到下次更新
+     */
+    private void deleteUnusedSegments(Snapshot snapshot) {
+        Set<String> used = new HashSet<>();
+        for (SegmentState state : snapshot.segments) {
+            used.add(state.segment.name);
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(indexDirectory, "segment-*.idx")) {
+            for (Path file : stream) {
+                if (!used.contains(file.getFileName().toString())) {
+                    try {
+                        Files.deleteIfExists(file);
+                    } catch (IOException e) {
+                        log.debug("Segment {} is still in use: {}", file, e.getMessage());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to clean local index {}: {}", indexDirectory, e.getMessage());
+        }
+    }
+
+    private static String extension(Path path) {
+        String name = path.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private ActionReturn error(ActionStatusCode state, String message) {
+        return ActionReturn.builder()
+                .type(getName())
+                .state(state)
+                .errmsg(message)
+                .build();
+    }
+
+    /**
+     * 段及其已删除的文档
+     */
+    private static final class SegmentState {
+        final IndexSegment segment;
+        final BitSet deleted;
+        final long liveLength;
+
+        SegmentState(IndexSegment segment, BitSet deleted) {
+            this.segment = segment;
+            this.deleted = deleted;
+            long length = segment.totalLength;
+            for (int doc = deleted.nextSetBit(0); doc >= 0 && doc < segment.docCount; doc = deleted.nextSetBit(doc + 1)) {
+                length -= segment.lengths[doc];
+            }
+            this.liveLength = length;
+        }
+
+        /**
+         * 词项在未删除文档中的文档频率
+         */
+        int liveFrequency(int record) {
+            if (deleted.isEmpty()) {
+                return segment.docFrequency(record);
+            }
+            int df = 0;
+            IndexSegment.Postings postings = segment.postings(record);
+            while (postings.next()) {
+                if (!deleted.get(postings.doc())) {
+                    df++;
+                }
+            }
+            return df;
+        }
+    }
+
+    /**
+     * 某一时刻的索引，创建后不再修改
+     */
+    private static final class Snapshot {
+        final List<SegmentState> segments;
+        final int nextSegment;
+        final int liveDocs;
+        final long liveLength;
+
+        Snapshot(List<SegmentState> segments, int nextSegment) {
+            this.segments = List.copyOf(segments);
+            this.nextSegment = nextSegment;
+            int live = 0;
+            long length = 0;
+            for (SegmentState state : segments) {
+                live += state.segment.docCount - state.deleted.cardinality();
+                length += state.liveLength;
+            }
+            this.liveDocs = live;
+            this.liveLength = length;
+        }
+    }
+
+    private static final class Hit {
+        final IndexSegment segment;
+        final int doc;
+        final float score;
+
+        Hit(IndexSegment segment, int doc, float score) {
+            this.segment = segment;
+            this.doc = doc;
+            this.score = score;
+        }
+    }
+
+    /**
+     * LocalSearch构建器
+     */
+    public static class Builder {
+        private Path documentDirectory;
+        private Path indexDirectory;
+        private Set<String> extensions = Set.of("md", "markdown", "txt", "rst", "adoc", "html", "htm");
+        private long maxFileBytes = 4L * 1024 * 1024;
+        private Duration refreshInterval = Duration.ofSeconds(10);
+
+        /**
+         * 设置文档目录
+         *
+         * @param documentDirectory 文档目录，其下的文件递归地加入索引
+         * @return 构建器
+         */
+        public Builder documentDirectory(Path documentDirectory) {
+            this.documentDirectory = documentDirectory;
+            return this;
+        }
+
+        /**
+         * 设置索引目录
+         *
+         * @param indexDirectory 索引目录，默认为文档目录下的.lagent4j-index
+         * @return 构建器
+         */
+        public Builder indexDirectory(Path indexDirectory) {
+            this.indexDirectory = indexDirectory;
+            return this;
+        }
+
+        /**
+         * 设置需要索引的文件扩展名
+         *
+         * @param extensions 不含点的扩展名，默认为md、markdown、txt、rst、adoc、html和htm
+         * @return 构建器
+         */
+        public Builder extensions(Set<String> extensions) {
+            if (extensions == null || extensions.isEmpty()) {
+                throw new IllegalArgumentException("扩展名不能为空");
+            }
+            Set<String> normalized = new HashSet<>();
+            for (String extension : extensions) {
+                normalized.add(extension.toLowerCase(Locale.ROOT));
+            }
+            this.extensions = normalized;
+            return this;
+        }
+
+        /**
+         * 设置单个文件的大小上限，超过的文件不加入索引
+         *
+         * @param maxFileBytes 字节数，默认为4MB
+         * @return 构建器
+         */
+        public Builder maxFileBytes(long maxFileBytes) {
+            if (maxFileBytes <= 0) {
+                throw new IllegalArgumentException("文件大小上限必须大于0");
+            }
+            this.maxFileBytes = maxFileBytes;
+            return this;
+        }
+
+        /**
+         * 设置查询时检查文档变化的最短间隔
+         *
+         * @param refreshInterval 间隔，默认10秒，为0时每次查询都检查
+         * @return 构建器
+         */
+        public Builder refreshInterval(Duration refreshInterval) {
+            if (refreshInterval == null || refreshInterval.isNegative()) {
+                throw new IllegalArgumentException("刷新间隔不能为负数");
+            }
+            this.refreshInterval = refreshInterval;
+            return this;
+        }
+
+        /**
+         * 构建LocalSearch实例，打开已有索引并更新到文档目录的当前状态
+         *
+         * @return LocalSearch实例
+         */
+        public LocalSearch build() {
+            if (documentDirectory == null || !Files.isDirectory(documentDirectory)) {
+                throw new IllegalArgumentException("文档目录不存在: " + documentDirectory);
+            }
+            return new LocalSearch(this);
+        }
+    }
+}
@@ -0,0 +1,524 @@
+package io.github.internlm.lagent4j.actions;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 网页正文提取器
+ * <p>
+ * 参考Readability的做法，从页面中找出正文所在的容器，去掉导航、页脚、侧栏和广告等模板内容：
+ * <ol>
+ *     <li>流式解析HTML，把文本切分成段落（块级元素之间的文本），记录每段的链接文字长度和所在容器</li>
+ *     <li>长度足够的段落按长度和逗号数量得分，分数加到所在容器，其上一级容器得一半</li>
+ *     <li>容器的class和id命中article、content等加分，命中nav、footer、comment等减分；
+ *     nav、footer、aside等元素整体视为模板内容</li>
+ *     <li>容器得分乘以（1 - 链接密度），取得分最高的容器及得分接近的兄弟容器作为正文</li>
+ * </ol>
+ * 给出查询时，正文按标题切分为小节，再按与查询的相关度（BM25）排序，在字符上限内优先保留相关的小节。
+ * 找不到可信的正文容器时退回到全部非模板段落。
+ * <p>
+ * 评分需要看到正文之后的兄弟容器，因此不能在收集到maxChars个字符时就停止；
+ * 解析在非模板段落累计达到maxChars的{@value #TEXT_BUDGET_FACTOR}倍或段落数达到{@value #MAX_BLOCKS}时停止，
+ * 超长页面的后半部分（通常是评论和推荐列表）不再解析，代价是这部分中的正文不会被选中。
+ */
+public final class MainContentExtractor {
+
+    /**
+     * 参与评分的最短段落长度
+     */
+    private static final int MIN_PARAGRAPH_LENGTH = 25;
+
+    /**
+     * 正文短于该长度时认为提取失败，退回全部非模板段落
+     */
+    private static final int MIN_CONTENT_LENGTH = 140;
+
+    /**
+     * 单个小节的最大字符数，过长的小节在段落边界处拆开
+     */
+    private static final int MAX_SECTION_LENGTH = 1200;
+
+    /**
+     * 停止解析前最多收集的非模板文本，以输出上限的倍数计
+     */
+    private static final int TEXT_BUDGET_FACTOR = 4;
+
+    /**
+     * 停止解析前最多收集的段落数
+     */
+    private static final int MAX_BLOCKS = 4000;
+
+    private static final Pattern POSITIVE = Pattern.compile(
+            "article|body|content|entry|hentry|main|page|post|text|blog|story|markdown|doc");
+
+    private static final Pattern NEGATIVE = Pattern.compile(
+            "comment|footer|footnote|foot|nav|menu|sidebar|sponsor|advert|\\bads?\\b|banner|share|social|related|"
+                    + "breadcrumb|masthead|header|login|modal|popup|cookie|subscribe|newsletter|widget|toc|pagination");
+
+    /**
+     * 视为容器的元素，其余块级元素只作为段落边界
+     */
+    private static final Set<String> CONTAINERS = Set.of("body", "div", "section", "article", "main", "td", "table",
+            "tbody", "tr", "blockquote", "ul", "ol", "dl", "aside", "nav", "footer", "header", "form", "figure",
+            "details", "center");
+
+    /**
+     * 整体视为模板内容的元素
+     */
+    private static final Set<String> BOILERPLATE = Set.of("nav", "footer", "aside", "form", "menu", "dialog");
+
+    private static final Set<String> HEADINGS = Set.of("h1", "h2", "h3", "h4", "h5", "h6");
+
+    private MainContentExtractor() {
+    }
+
+    /**
+     * 提取正文
+     *
+     * @param reader   HTML字符流，调用方负责关闭
+     * @param query    用于对小节排序的查询，为null或空时按原文顺序输出
+     * @param maxChars 最多输出的字符数
+     * @return 提取结果，因收集到足够内容而提前停止解析时也标记为截断
+     * @throws IOException 读取失败
+     */
+    public static HtmlStreamExtractor.Result extract(Reader reader, String query, int maxChars) throws IOException {
+        if (maxChars <= 0) {
+            throw new IllegalArgumentException("最大字符数必须大于0");
+        }
+        Collector collector = new Collector((long) maxChars * TEXT_BUDGET_FACTOR);
+        HtmlStreamExtractor.parse(reader, collector);
+        boolean stopped = collector.isDone();
+        collector.flush();
+
+        List<Block> content = select(collector.blocks);
+        HtmlStreamExtractor.Result result = query == null || query.isBlank()
+                ? join(content, maxChars) : ranked(sections(content), query, maxChars);
+        return stopped && !result.isTruncated() ? new HtmlStreamExtractor.Result(result.getContent(), true) : result;
+    }
+
+    /**
+     * 选出正文段落
+     */
+    static List<Block> select(List<Block> blocks) {
+        // 段落得分累加到所在容器和上一级容器
+        List<Container> candidates = new ArrayList<>();
+        for (Block block : blocks) {
+            if (block.heading || block.container.boilerplate || block.text.length() < MIN_PARAGRAPH_LENGTH) {
+                continue;
+            }
+            double score = (1 + commas(block.text) + Math.min(block.text.length() / 100.0, 3))
+                    * (1 - block.linkDensity());
+            Container container = block.container;
+            for (int level = 0; container != null && level < 2; level++, container = container.parent) {
+                if (!container.candidate) {
+                    container.candidate = true;
+                    container.score = container.weight;
+                    candidates.add(container);
+                }
+                container.score += level == 0 ? score : score / 2;
+            }
+        }
+
+        Container top = null;
+        for (Container candidate : candidates) {
+            candidate.score *= 1 - candidate.linkDensity();
+            if (!candidate.boilerplate && (top == null || candidate.score > top.score)) {
+                top = candidate;
+            }
+        }
+
+        List<Block> selected = new ArrayList<>();
+        if (top != null) {
+            // 得分接近的兄弟容器也视为正文（例如被广告隔开的两段正文）
+            double threshold = Math.max(10, top.score * 0.2);
+            int length = 0;
+            for (Block block : blocks) {
+                if (block.container.boilerplate || (block.linkDensity() > 0.5 && !block.heading)) {
+                    continue;
+                }
+                Container main = block.container.under(top, threshold);
+                if (main != null) {
+                    selected.add(block);
+                    length += block.text.length();
+                }
+            }
+            if (length >= MIN_CONTENT_LENGTH) {
+                return selected;
+            }
+        }
+
+        selected.clear();
+        for (Block block : blocks) {
+            if (!block.container.boilerplate) {
+                selected.add(block);
+            }
+        }
+        return selected.isEmpty() ? blocks : selected;
+    }
+
+    /**
+     * 按标题切分小节，过长的小节在段落边界处拆开
+     */
+    static List<String> sections(List<Block> blocks) {
+        List<String> sections = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (Block block : blocks) {
+            boolean split = block.heading || current.length() + block.text.length() > MAX_SECTION_LENGTH;
+            if (split && current.length() > 0) {
+                sections.add(current.toString());
+                current.setLength(0);
+            }
+            if (current.length() > 0) {
+                current.append('\n');
+            }
+            current.append(block.text);
+        }
+        if (current.length() > 0) {
+            sections.add(current.toString());
+        }
+        return sections;
+    }
+
+    private static HtmlStreamExtractor.Result join(List<Block> blocks, int maxChars) {
+        StringBuilder out = new StringBuilder();
+        for (Block block : blocks) {
+            if (out.length() > 0) {
+                out.append('\n');
+            }
+            out.append(block.text);
+            if (out.length() > maxChars) {
+                return new HtmlStreamExtractor.Result(out.substring(0, maxChars), true);
+            }
+        }
+        return new HtmlStreamExtractor.Result(out.toString(), false);
+    }
+
+    /**
+     * 按与查询的相关度输出小节，相关的小节在前，其余按原文顺序补足
+     */
+    private static HtmlStreamExtractor.Result ranked(List<String> sections, String query, int maxChars) {
+        double[] scores = Bm25.score(sections, query);
+        Integer[] order = new Integer[sections.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        // 分数相同时保持原文顺序
+        Arrays.sort(order, (a, b) -> Double.compare(scores[b], scores[a]));
+
+        StringBuilder out = new StringBuilder();
+        boolean truncated = false;
+        for (int index : order) {
+            String section = sections.get(index);
+            int separator = out.length() > 0 ? 2 : 0;
+            if (out.length() + separator + section.length() > maxChars) {
+                truncated = true;
+                if (out.length() == 0) {
+                    out.append(section, 0, maxChars);
+                    break;
+                }
+                continue;
+            }
+            if (separator > 0) {
+                out.append("\n\n");
+            }
+            out.append(section);
+        }
+        return new HtmlStreamExtractor.Result(out.toString(), truncated);
+    }
+
+    private static int commas(String text) {
+        int count = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == ',' || c == '，' || c == '、' || c == '。') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 根据标签名、class和id计算容器权重
+     */
+    private static int weight(String name, Map<String, String> attributes) {
+        int weight;
+        switch (name) {
+            case "article":
+            case "main":
+                weight = 10;
+                break;
+            case "div":
+                weight = 5;
+                break;
+            case "td":
+            case "blockquote":
+                weight = 3;
+                break;
+            case "ul":
+            case "ol":
+            case "dl":
+            case "form":
+                weight = -3;
+                break;
+            default:
+                weight = 0;
+        }
+        if (attributes != null) {
+            String hints = (attributes.getOrDefault("class", "") + " " + attributes.getOrDefault("id", "")
+                    + " " + attributes.getOrDefault("role", "")).toLowerCase(Locale.ROOT);
+            if (!hints.isBlank()) {
+                if (NEGATIVE.matcher(hints).find()) {
+                    weight -= 25;
+                }
+                if (POSITIVE.matcher(hints).find()) {
+                    weight += 25;
+                }
+            }
+        }
+        return weight;
+    }
+
+    /**
+     * 段落
+     */
+    static final class Block {
+        final String text;
+        final int linkChars;
+        final Container container;
+        final boolean heading;
+
+        Block(String text, int linkChars, Container container, boolean heading) {
+            this.text = text;
+            this.linkChars = linkChars;
+            this.container = container;
+            this.heading = heading;
+        }
+
+        double linkDensity() {
+            return text.isEmpty() ? 0 : Math.min(1, (double) linkChars / text.length());
+        }
+    }
+
+    /**
+     * 容器
+     */
+    static final class Container {
+        final Container parent;
+        final String name;
+        final int weight;
+        final boolean boilerplate;
+        int textChars;
+        int linkChars;
+        boolean candidate;
+        double score;
+
+        Container(Container parent, String name, int weight, boolean boilerplate) {
+            this.parent = parent;
+            this.name = name;
+            this.weight = weight;
+            this.boilerplate = boilerplate;
+        }
+
+        double linkDensity() {
+            return textChars == 0 ? 0 : Math.min(1, (double) linkChars / textChars);
+        }
+
+        /**
+         * 判断容器是否位于正文容器或与其得分接近的兄弟容器之内
+         *
+         * @return 所在的正文容器，不在正文中时返回null
+         */
+        Container under(Container top, double threshold) {
+            for (Container c = this; c != null; c = c.parent) {
+                if (c == top) {
+                    return c;
+                }
+                if (c.parent == top.parent && c.candidate && c.score >= threshold && !c.boilerplate) {
+                    return c;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 收集段落和容器的事件接收者
+     */
+    private static final class Collector implements HtmlStreamExtractor.Listener {
+        private final Container root = new Container(null, "body", 0, false);
+        private final Deque<Container> stack = new ArrayDeque<>();
+        private final List<Block> blocks = new ArrayList<>();
+        private final StringBuilder text = new StringBuilder();
+        private final long textBudget;
+        private long contentChars;
+        private int linkChars;
+        private int linkDepth;
+        private boolean heading;
+        private boolean pendingSpace;
+
+        Collector(long textBudget) {
+            this.textBudget = textBudget;
+            stack.push(root);
+        }
+
+        @Override
+        public boolean isDone() {
+            return contentChars >= textBudget || blocks.size() >= MAX_BLOCKS;
+        }
+
+        @Override
+        public void startTag(String name, Map<String, String> attributes) {
+            if (name.equals("a")) {
+                linkDepth++;
+                return;
+            }
+            if (!HtmlStreamExtractor.BLOCKS.contains(name) && !CONTAINERS.contains(name)) {
+                return;
+            }
+            flush();
+            heading = HEADINGS.contains(name);
+            if (CONTAINERS.contains(name) && !name.equals("body")) {
+                Container parent = stack.peek();
+                int weight = weight(name, attributes);
+                boolean boilerplate = parent.boilerplate || BOILERPLATE.contains(name)
+                        || weight <= -25 || attributeHidden(attributes);
+                stack.push(new Container(parent, name, weight, boilerplate));
+            }
+        }
+
+        @Override
+        public void endTag(String name) {
+            if (name.equals("a")) {
+                linkDepth = Math.max(0, linkDepth - 1);
+                return;
+            }
+            if (!HtmlStreamExtractor.BLOCKS.contains(name) && !CONTAINERS.contains(name)) {
+                return;
+            }
+            flush();
+            if (CONTAINERS.contains(name)) {
+                // 弹出到对应的容器，找不到时忽略多余的结束标签
+                for (Container c : stack) {
+                    if (c == root) {
+                        break;
+                    }
+                    if (c.name.equals(name)) {
+                        while (stack.peek() != c) {
+                            stack.pop();
+                        }
+                        stack.pop();
+                        break;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void text(char c) {
+            if (c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == '\u00A0') {
+                pendingSpace = true;
+                return;
+            }
+            if (pendingSpace && text.length() > 0) {
+                text.append(' ');
+                if (linkDepth > 0) {
+                    linkChars++;
+                }
+            }
+            pendingSpace = false;
+            text.append(c);
+            if (linkDepth > 0) {
+                linkChars++;
+            }
+        }
+
+        void flush() {
+            if (text.length() > 0) {
+                Container container = stack.peek();
+                blocks.add(new Block(text.toString(), linkChars, container, heading));
+                if (!container.boilerplate) {
+                    contentChars += text.length();
+                }
+                for (Container c = container; c != null; c = c.parent) {
+                    c.textChars += text.length();
+                    c.linkChars += linkChars;
+                }
+            }
+            text.setLength(0);
+            linkChars = 0;
+            heading = false;
+            pendingSpace = false;
+        }
+
+        private static boolean attributeHidden(Map<String, String> attributes) {
+            if (attributes == null) {
+                return false;
+            }
+            String style = attributes.getOrDefault("style", "").replace(" ", "").toLowerCase(Locale.ROOT);
+            return attributes.containsKey("hidden") || "true".equals(attributes.get("aria-hidden"))
+                    || style.contains("display:none");
+        }
+    }
+
+    /**
+     * 小节与查询的BM25相关度
+     */
+    static final class Bm25 {
+        private static final double K1 = 1.2;
+        private static final double B = 0.75;
+
+        private Bm25() {
+        }
+
+        static double[] score(List<String> documents, String query) {
+            List<String> terms = SearchTokenizer.tokenize(query);
+            double[] scores = new double[documents.size()];
+            if (terms.isEmpty() || documents.isEmpty()) {
+                return scores;
+            }
+            List<Map<String, Integer>> frequencies = new ArrayList<>(documents.size());
+            Map<String, Integer> documentFrequency = new HashMap<>();
+            long totalLength = 0;
+            int[] lengths = new int[documents.size()];
+            for (int i = 0; i < documents.size(); i++) {
+                List<String> tokens = SearchTokenizer.tokenize(documents.get(i));
+                lengths[i] = tokens.size();
+                totalLength += tokens.size();
+                Map<String, Integer> tf = new HashMap<>();
+                for (String token : tokens) {
+                    tf.merge(token, 1, Integer::sum);
+                }
+                for (String term : tf.keySet()) {
+                    documentFrequency.merge(term, 1, Integer::sum);
+                }
+                frequencies.add(tf);
+            }
+            double averageLength = Math.max(1, (double) totalLength / documents.size());
+            for (String term : new LinkedHashSet<>(terms)) {
+                int df = documentFrequency.getOrDefault(term, 0);
+                if (df == 0) {
+                    continue;
+                }
+                double idf = Math.log(1 + (documents.size() - df + 0.5) / (df + 0.5));
+                for (int i = 0; i < documents.size(); i++) {
+                    int tf = frequencies.get(i).getOrDefault(term, 0);
+                    if (tf > 0) {
+                        scores[i] += idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * lengths[i] / averageLength));
+                    }
+                }
+            }
+            return scores;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package io.github.internlm.lagent4j.actions;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 网页提取结果缓存
+ * <p>
+ * 以（URL，提取模式）为键保存提取后的内容以及响应的ETag和Last-Modified。
+ * 新鲜的条目直接使用，不发请求；过期的条目用条件请求验证，服务器返回304时沿用已提取的内容，不再下载和解析页面。
+ * 超过条目上限时淘汰最久未使用的条目。
+ */
+final class PageCache {
+    private final int maxSize;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    final LongAdder hits = new LongAdder();
+    final LongAdder revalidated = new LongAdder();
+    final LongAdder misses = new LongAdder();
+    final LongAdder evictions = new LongAdder();
+
+    PageCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * 计算缓存键
+     *
+     * @param url  URL
+     * @param mode 提取模式
+     * @return 缓存键
+     */
+    static String key(String url, String mode) {
+        return mode + '\u0000' + url;
+    }
+
+    synchronized Entry get(String key) {
+        return entries.get(key);
+    }
+
+    synchronized void put(String key, Entry entry) {
+        entries.put(key, entry);
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (entries.size() > maxSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictions.increment();
+        }
+    }
+
+    synchronized void remove(String key) {
+        entries.remove(key);
+    }
+
+    synchronized void clear() {
+        entries.clear();
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * 缓存条目
+     */
+    static final class Entry {
+        final String content;
+        final String etag;
+        final String lastModified;
+
+        /**
+         * 过期时间（纳秒），之前可以不经验证直接使用
+         */
+        final long freshUntil;
+
+        Entry(String content, String etag, String lastModified, long freshUntil) {
+            this.content = content;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.freshUntil = freshUntil;
+        }
+
+        boolean isFresh(long now) {
+            return now - freshUntil < 0;
+        }
+
+        boolean hasValidator() {
+            return etag != null || lastModified != null;
+        }
+
+        /**
+         * 验证通过后以新的过期时间生成条目
+         */
+        Entry refresh(long freshUntil) {
+            return new Entry(content, etag, lastModified, freshUntil);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package io.github.internlm.lagent4j.actions;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 全局重试预算
+ * <p>
+ * 以令牌桶的方式限制重试占总调用量的比例：每次首次调用存入{@code ratio}个令牌，每次重试取出一个令牌，
+ * 余额不足时放弃重试。下游整体故障时所有调用都会失败，预算可以防止重试把流量放大数倍。
+ * 初始余额为{@code minRetries}，保证低流量时也能进行少量重试。多个执行器可以共享同一个预算。
+ */
+public class RetryBudget {
+    /**
+     * 令牌的定点精度
+     */
+    private static final long SCALE = 1000;
+
+    /**
+     * 不限制重试的预算
+     */
+    private static final RetryBudget UNLIMITED = new RetryBudget(1.0, Long.MAX_VALUE / SCALE, Long.MAX_VALUE / SCALE);
+
+    /**
+     * 每次首次调用存入的令牌数（定点）
+     */
+    private final long deposit;
+
+    /**
+     * 余额上限（定点）
+     */
+    private final long maxBalance;
+
+    /**
+     * 当前余额（定点）
+     */
+    private final AtomicLong balance;
+
+    /**
+     * 获准的重试次数
+     */
+    private final LongAdder retries = new LongAdder();
+
+    /**
+     * 因预算不足放弃的重试次数
+     */
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * 创建一个重试预算
+     *
+     * @param ratio      重试次数占首次调用次数的最大比例，例如0.1表示最多10%
+     * @param minRetries 初始余额，即没有任何调用时也允许的重试次数
+     * @param maxRetries 余额上限，限制空闲一段时间后能够集中进行的重试次数
+     */
+    public RetryBudget(double ratio, long minRetries, long maxRetries) {
+        if (ratio < 0 || minRetries < 0 || maxRetries < minRetries) {
+            throw new IllegalArgumentException("重试预算参数无效");
+        }
+        this.deposit = Math.round(ratio * SCALE);
+        this.maxBalance = maxRetries * SCALE;
+        this.balance = new AtomicLong(minRetries * SCALE);
+    }
+
+    /**
+     * 获取不限制重试的预算
+     *
+     * @return 不限制重试的预算
+     */
+    public static RetryBudget unlimited() {
+        return UNLIMITED;
+    }
+
+    /**
+     * 记录一次首次调用
+     */
+    public void recordRequest() {
+        if (this == UNLIMITED) {
+            return;
+        }
+        balance.accumulateAndGet(deposit, (current, add) -> Math.min(maxBalance, current + add));
+    }
+
+    /**
+     * 尝试为一次重试取出令牌
+     *
+     * @return 预算充足时返回true
+     */
+    public boolean tryAcquireRetry() {
+        if (this == UNLIMITED) {
+            retries.increment();
+            return true;
+        }
+        long current;
+        do {
+            current = balance.get();
+            if (current < SCALE) {
+                rejected.increment();
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - SCALE));
+        retries.increment();
+        return true;
+    }
+
+    /**
+     * 获取当前可用的重试次数
+     *
+     * @return 可用的重试次数
+     */
+    public long getAvailable() {
+        return balance.get() / SCALE;
+    }
+
+    /**
+     * 获取获准的重试次数
+     *
+     * @return 获准的重试次数
+     */
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    /**
+     * 获取因预算不足放弃的重试次数
+     *
+     * @return 放弃的重试次数
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+}
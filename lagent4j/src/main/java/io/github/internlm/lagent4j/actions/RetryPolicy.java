@@ -0,0 +1,223 @@
+package io.github.internlm.lagent4j.actions;
+
+import io.github.internlm.lagent4j.schema.ActionReturn;
+import io.github.internlm.lagent4j.schema.ActionStatusCode;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 动作重试策略
+ * <p>
+ * 决定一次失败的动作是否值得重试，以及下一次重试前等待多久。等待时间按指数增长并加入随机抖动，
+ * 避免大量调用方在同一时刻重试同一个下游服务。参数错误等重试也不会成功的结果不会重试。
+ */
+@Getter
+public class RetryPolicy {
+    /**
+     * 默认策略
+     */
+    private static final RetryPolicy DEFAULTS = new Builder().build();
+
+    /**
+     * 不重试的策略
+     */
+    private static final RetryPolicy NONE = new Builder().maxRetries(0).build();
+
+    /**
+     * 最大重试次数
+     */
+    private final int maxRetries;
+
+    /**
+     * 第一次重试前的基础等待时间（毫秒）
+     */
+    private final long baseDelayMillis;
+
+    /**
+     * 单次等待时间上限（毫秒）
+     */
+    private final long maxDelayMillis;
+
+    /**
+     * 每次重试等待时间的增长倍数
+     */
+    private final double multiplier;
+
+    /**
+     * 抖动比例，0表示不抖动，1表示在0到计算值之间完全随机
+     */
+    private final double jitter;
+
+    /**
+     * 可以重试的结果状态
+     */
+    private final Set<ActionStatusCode> retryableStates;
+
+    private RetryPolicy(Builder builder) {
+        this.maxRetries = builder.maxRetries;
+        this.baseDelayMillis = builder.baseDelayMillis;
+        this.maxDelayMillis = builder.maxDelayMillis;
+        this.multiplier = builder.multiplier;
+        this.jitter = builder.jitter;
+        this.retryableStates = EnumSet.copyOf(builder.retryableStates);
+    }
+
+    /**
+     * 获取默认策略：最多重试3次，等待200毫秒起按2倍增长，上限5秒，完全抖动
+     *
+     * @return 默认策略
+     */
+    public static RetryPolicy defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * 获取不重试的策略
+     *
+     * @return 不重试的策略
+     */
+    public static RetryPolicy none() {
+        return NONE;
+    }
+
+    /**
+     * 计算第retry次重试前的等待时间
+     *
+     * @param retry 重试序号，从1开始
+     * @return 等待时间（毫秒）
+     */
+    public long delayMillis(int retry) {
+        double exponential = baseDelayMillis * Math.pow(multiplier, Math.max(0, retry - 1));
+        long capped = (long) Math.min(exponential, maxDelayMillis);
+        if (jitter <= 0 || capped <= 0) {
+            return capped;
+        }
+        long fixed = Math.round(capped * (1 - jitter));
+        return fixed + ThreadLocalRandom.current().nextLong(capped - fixed + 1);
+    }
+
+    /**
+     * 判断动作返回的结果是否值得重试
+     *
+     * @param result 动作结果
+     * @return 值得重试时返回true
+     */
+    public boolean isRetryable(ActionReturn result) {
+        return result != null && retryableStates.contains(result.getState());
+    }
+
+    /**
+     * 判断动作抛出的异常是否值得重试
+     * <p>
+     * 超时和I/O异常可以重试；参数错误、类型错误、空指针和不支持的操作属于调用本身的问题，重试也不会成功
+     *
+     * @param error 异常
+     * @return 值得重试时返回true
+     */
+    public boolean isRetryable(Throwable error) {
+        Throwable cause = unwrap(error);
+        if (cause instanceof TimeoutException || cause instanceof IOException || cause instanceof UncheckedIOException) {
+            return true;
+        }
+        return !(cause instanceof IllegalArgumentException
+                || cause instanceof ClassCastException
+                || cause instanceof NullPointerException
+                || cause instanceof UnsupportedOperationException);
+    }
+
+    /**
+     * 判断异常对应的状态码
+     *
+     * @param error 异常
+     * @return 不可重试的异常返回{@link ActionStatusCode#ARGS_ERROR}，其余返回{@link ActionStatusCode#API_ERROR}
+     */
+    public ActionStatusCode classify(Throwable error) {
+        return isRetryable(error) ? ActionStatusCode.API_ERROR : ActionStatusCode.ARGS_ERROR;
+    }
+
+    /**
+     * 去掉异步执行包装的异常
+     *
+     * @param error 异常
+     * @return 原始异常
+     */
+    static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    /**
+     * 重试策略构建器
+     */
+    public static class Builder {
+        private int maxRetries = 3;
+        private long baseDelayMillis = 200;
+        private long maxDelayMillis = 5000;
+        private double multiplier = 2.0;
+        private double jitter = 1.0;
+        private Set<ActionStatusCode> retryableStates = EnumSet.of(
+                ActionStatusCode.HTTP_ERROR, ActionStatusCode.API_ERROR, ActionStatusCode.BUSY);
+
+        public Builder maxRetries(int maxRetries) {
+            this.maxRetries = maxRetries;
+            return this;
+        }
+
+        public Builder baseDelayMillis(long baseDelayMillis) {
+            this.baseDelayMillis = baseDelayMillis;
+            return this;
+        }
+
+        public Builder maxDelayMillis(long maxDelayMillis) {
+            this.maxDelayMillis = maxDelayMillis;
+            return this;
+        }
+
+        public Builder multiplier(double multiplier) {
+            this.multiplier = multiplier;
+            return this;
+        }
+
+        /**
+         * 设置抖动比例，取值0到1
+         */
+        public Builder jitter(double jitter) {
+            this.jitter = jitter;
+            return this;
+        }
+
+        /**
+         * 设置可以重试的结果状态，{@link ActionStatusCode#ARGS_ERROR}始终不会重试
+         */
+        public Builder retryableStates(Set<ActionStatusCode> retryableStates) {
+            this.retryableStates = EnumSet.noneOf(ActionStatusCode.class);
+            this.retryableStates.addAll(retryableStates);
+            return this;
+        }
+
+        public RetryPolicy build() {
+            if (maxRetries < 0 || baseDelayMillis < 0 || maxDelayMillis < baseDelayMillis || multiplier < 1) {
+                throw new IllegalStateException("Invalid retry policy settings");
+            }
+            if (jitter < 0 || jitter > 1) {
+                throw new IllegalStateException("Jitter must be between 0 and 1");
+            }
+            retryableStates.remove(ActionStatusCode.ARGS_ERROR);
+            retryableStates.remove(ActionStatusCode.SUCCESS);
+            retryableStates.remove(ActionStatusCode.ING);
+            return new RetryPolicy(this);
+        }
+    }
+}
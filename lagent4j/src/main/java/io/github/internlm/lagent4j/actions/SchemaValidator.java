@@ -0,0 +1,393 @@
+package io.github.internlm.lagent4j.actions;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * 预编译的参数校验器
+ * <p>
+ * 注册动作时把{@link Action#getParameters()}返回的JSON Schema编译成校验节点树，之后每次调用只需沿节点树检查参数，
+ * 不再查找和解释Schema中的Map。支持的关键字：{@code type}、{@code properties}、{@code required}、
+ * {@code additionalProperties}（仅布尔值）、{@code items}、{@code enum}、{@code minimum}、{@code maximum}、
+ * {@code minLength}、{@code maxLength}，其余关键字忽略。没有{@code type}和{@code properties}的旧式参数描述不做校验。
+ * <p>
+ * 参数合法时不分配任何对象，只有校验失败时才生成错误信息。
+ */
+public final class SchemaValidator {
+    private static final int STRING = 1;
+    private static final int INTEGER = 1 << 1;
+    private static final int NUMBER = 1 << 2;
+    private static final int BOOLEAN = 1 << 3;
+    private static final int OBJECT = 1 << 4;
+    private static final int ARRAY = 1 << 5;
+    private static final int NULL = 1 << 6;
+    private static final int ANY = STRING | INTEGER | NUMBER | BOOLEAN | OBJECT | ARRAY | NULL;
+
+    /**
+     * 不做任何校验的校验器
+     */
+    private static final SchemaValidator ACCEPT_ALL = new SchemaValidator(null);
+
+    /**
+     * 根节点，为null时接受任何参数
+     */
+    private final Node root;
+
+    private SchemaValidator(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * 编译参数Schema
+     *
+     * @param schema 参数Schema
+     * @return 校验器
+     */
+    public static SchemaValidator compile(Map<String, Object> schema) {
+        if (schema == null || !(schema.containsKey("type") || schema.containsKey("properties"))) {
+            return ACCEPT_ALL;
+        }
+        return new SchemaValidator(compileNode(schema));
+    }
+
+    /**
+     * 是否不做任何校验
+     *
+     * @return 接受任何参数时返回true
+     */
+    public boolean acceptsAll() {
+        return root == null;
+    }
+
+    /**
+     * 校验参数
+     *
+     * @param arguments 参数，为null时按空对象处理
+     * @return 参数合法时返回null，否则返回错误信息
+     */
+    public String validate(Map<String, Object> arguments) {
+        if (root == null) {
+            return null;
+        }
+        Violation violation = root.check(arguments != null ? arguments : Collections.emptyMap());
+        return violation != null ? violation.toString() : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Node compileNode(Object definition) {
+        if (!(definition instanceof Map)) {
+            return new Node();
+        }
+        Map<String, Object> schema = (Map<String, Object>) definition;
+        Node node = new Node();
+        node.types = compileTypes(schema.get("type"));
+        if (schema.get("enum") instanceof Collection) {
+            node.allowed = new ArrayList<>((Collection<Object>) schema.get("enum")).toArray();
+        }
+        node.minimum = number(schema.get("minimum"));
+        node.maximum = number(schema.get("maximum"));
+        node.minLength = integer(schema.get("minLength"));
+        node.maxLength = integer(schema.get("maxLength"));
+
+        if (schema.get("properties") instanceof Map) {
+            Map<String, Object> properties = (Map<String, Object>) schema.get("properties");
+            node.propertyNames = new String[properties.size()];
+            node.propertyNodes = new Node[properties.size()];
+            int i = 0;
+            for (Map.Entry<String, Object> entry : properties.entrySet()) {
+                node.propertyNames[i] = entry.getKey();
+                node.propertyNodes[i] = compileNode(entry.getValue());
+                i++;
+            }
+            if (!schema.containsKey("type")) {
+                node.types = OBJECT;
+            }
+        }
+        if (schema.get("required") instanceof Collection) {
+            node.required = ((Collection<Object>) schema.get("required")).stream()
+                    .map(String::valueOf)
+                    .toArray(String[]::new);
+        }
+        node.closed = Boolean.FALSE.equals(schema.get("additionalProperties"));
+        if (schema.containsKey("items")) {
+            node.items = compileNode(schema.get("items"));
+        }
+        return node;
+    }
+
+    private static int compileTypes(Object type) {
+        if (type instanceof String) {
+            return typeBit((String) type);
+        }
+        if (type instanceof Collection) {
+            int types = 0;
+            for (Object item : (Collection<?>) type) {
+                types |= typeBit(String.valueOf(item));
+            }
+            return types != 0 ? types : ANY;
+        }
+        return ANY;
+    }
+
+    private static int typeBit(String type) {
+        switch (type) {
+            case "string":
+                return STRING;
+            case "integer":
+                return INTEGER;
+            case "number":
+                return NUMBER | INTEGER;
+            case "boolean":
+                return BOOLEAN;
+            case "object":
+                return OBJECT;
+            case "array":
+                return ARRAY;
+            case "null":
+                return NULL;
+            default:
+                return ANY;
+        }
+    }
+
+    private static int typeOf(Object value) {
+        if (value == null) {
+            return NULL;
+        }
+        if (value instanceof String || value instanceof Character) {
+            return STRING;
+        }
+        if (value instanceof Boolean) {
+            return BOOLEAN;
+        }
+        if (value instanceof Integer || value instanceof Long || value instanceof Short
+                || value instanceof Byte || value instanceof BigInteger) {
+            return INTEGER;
+        }
+        if (value instanceof Number) {
+            return isIntegral((Number) value) ? INTEGER : NUMBER;
+        }
+        if (value instanceof Map) {
+            return OBJECT;
+        }
+        if (value instanceof Collection || value instanceof Object[]) {
+            return ARRAY;
+        }
+        return 0;
+    }
+
+    private static boolean isIntegral(Number number) {
+        if (number instanceof BigDecimal) {
+            BigDecimal decimal = (BigDecimal) number;
+            return decimal.signum() == 0 || decimal.stripTrailingZeros().scale() <= 0;
+        }
+        double d = number.doubleValue();
+        return !Double.isInfinite(d) && d == Math.rint(d);
+    }
+
+    private static String typeName(int type) {
+        switch (type) {
+            case STRING:
+                return "string";
+            case INTEGER:
+                return "integer";
+            case NUMBER:
+                return "number";
+            case BOOLEAN:
+                return "boolean";
+            case OBJECT:
+                return "object";
+            case ARRAY:
+                return "array";
+            case NULL:
+                return "null";
+            default:
+                return "unknown";
+        }
+    }
+
+    private static String typeNames(int types) {
+        StringJoiner names = new StringJoiner("|");
+        for (int bit = STRING; bit <= NULL; bit <<= 1) {
+            if ((types & bit) != 0 && !(bit == INTEGER && (types & NUMBER) != 0)) {
+                names.add(typeName(bit));
+            }
+        }
+        return names.toString();
+    }
+
+    private static Double number(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : null;
+    }
+
+    private static int integer(Object value) {
+        return value instanceof Number ? ((Number) value).intValue() : -1;
+    }
+
+    private static boolean sameValue(Object expected, Object actual) {
+        if (expected instanceof Number && actual instanceof Number) {
+            return ((Number) expected).doubleValue() == ((Number) actual).doubleValue();
+        }
+        return Objects.equals(expected, actual);
+    }
+
+    /**
+     * 校验节点
+     */
+    private static final class Node {
+        private int types = ANY;
+        private Object[] allowed;
+        private Double minimum;
+        private Double maximum;
+        private int minLength = -1;
+        private int maxLength = -1;
+        private String[] propertyNames;
+        private Node[] propertyNodes;
+        private String[] required;
+        private boolean closed;
+        private Node items;
+
+        @SuppressWarnings("unchecked")
+        Violation check(Object value) {
+            int type = typeOf(value);
+            if ((types & type) == 0) {
+                return new Violation("类型应为" + typeNames(types) + "，实际为" + typeName(type));
+            }
+            if (allowed != null) {
+                boolean found = false;
+                for (Object candidate : allowed) {
+                    if (sameValue(candidate, value)) {
+                        found = true;
+                        break;
+                    }
+                }
+                if (!found) {
+                    return new Violation("取值应为" + Arrays.toString(allowed) + "之一，实际为" + value);
+                }
+            }
+            switch (type) {
+                case STRING:
+                    return checkLength(value.toString().length());
+                case INTEGER:
+                case NUMBER:
+                    return checkRange(((Number) value).doubleValue());
+                case OBJECT:
+                    return checkObject((Map<String, Object>) value);
+                case ARRAY:
+                    return checkArray(value);
+                default:
+                    return null;
+            }
+        }
+
+        private Violation checkLength(int length) {
+            if (minLength >= 0 && length < minLength) {
+                return new Violation("长度不能小于" + minLength);
+            }
+            if (maxLength >= 0 && length > maxLength) {
+                return new Violation("长度不能大于" + maxLength);
+            }
+            return null;
+        }
+
+        private Violation checkRange(double number) {
+            if (minimum != null && number < minimum) {
+                return new Violation("不能小于" + minimum);
+            }
+            if (maximum != null && number > maximum) {
+                return new Violation("不能大于" + maximum);
+            }
+            return null;
+        }
+
+        private Violation checkObject(Map<String, Object> object) {
+            if (required != null) {
+                for (String name : required) {
+                    if (object.get(name) == null) {
+                        return new Violation("缺少必填参数").at(name);
+                    }
+                }
+            }
+            int known = 0;
+            if (propertyNames != null) {
+                for (int i = 0; i < propertyNames.length; i++) {
+                    Object value = object.get(propertyNames[i]);
+                    if (value == null && !object.containsKey(propertyNames[i])) {
+                        continue;
+                    }
+                    known++;
+                    Violation violation = propertyNodes[i].check(value);
+                    if (violation != null) {
+                        return violation.at(propertyNames[i]);
+                    }
+                }
+            }
+            if (closed && object.size() > known) {
+                for (String name : object.keySet()) {
+                    if (propertyNames == null || Arrays.asList(propertyNames).indexOf(name) < 0) {
+                        return new Violation("不支持的参数").at(name);
+                    }
+                }
+            }
+            return null;
+        }
+
+        private Violation checkArray(Object value) {
+            if (items == null) {
+                return null;
+            }
+            if (value instanceof List) {
+                List<?> list = (List<?>) value;
+                for (int i = 0; i < list.size(); i++) {
+                    Violation violation = items.check(list.get(i));
+                    if (violation != null) {
+                        return violation.at("[" + i + "]");
+                    }
+                }
+                return null;
+            }
+            int i = 0;
+            for (Object item : value instanceof Collection ? (Collection<?>) value : Arrays.asList((Object[]) value)) {
+                Violation violation = items.check(item);
+                if (violation != null) {
+                    return violation.at("[" + i + "]");
+                }
+                i++;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 校验失败信息，路径在返回途中由外向内逐级补全
+     */
+    private static final class Violation {
+        private final Deque<String> path = new ArrayDeque<>();
+        private final String reason;
+
+        Violation(String reason) {
+            this.reason = reason;
+        }
+
+        Violation at(String segment) {
+            path.addFirst(segment);
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            if (path.isEmpty()) {
+                return "参数" + reason;
+            }
+            StringBuilder name = new StringBuilder();
+            for (String segment : path) {
+                if (name.length() > 0 && !segment.startsWith("[")) {
+                    name.append('.');
+                }
+                name.append(segment);
+            }
+            return "参数 " + name + " " + reason;
+        }
+    }
+}
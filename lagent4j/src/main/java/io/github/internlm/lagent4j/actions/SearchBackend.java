@@ -0,0 +1,23 @@
+package io.github.internlm.lagent4j.actions;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 搜索后端接口
+ * <p>
+ * {@link WebSearch}通过该接口执行查询，默认使用{@link BingSearchBackend}。
+ * 测试和基准测试可以换成本地索引，不访问网络。实现应当是非阻塞的：
+ * 立即返回future，在I/O线程上完成，这样多个查询可以并行执行而不占用调用线程。
+ */
+@FunctionalInterface
+public interface SearchBackend {
+    /**
+     * 执行一次查询
+     *
+     * @param query 搜索关键词
+     * @param count 最多返回的结果数
+     * @return 按相关度排序的结果，没有结果时为空列表；失败时future以异常结束
+     */
+    CompletableFuture<List<SearchResult>> search(String query, int count);
+}
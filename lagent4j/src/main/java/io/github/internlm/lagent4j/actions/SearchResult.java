@@ -0,0 +1,44 @@
+package io.github.internlm.lagent4j.actions;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 搜索结果
+ * <p>
+ * 由{@link SearchBackend}返回的一条结果，不可修改
+ */
+@Getter
+@AllArgsConstructor
+public final class SearchResult {
+    /**
+     * 标题
+     */
+    private final String title;
+
+    /**
+     * 摘要
+     */
+    private final String snippet;
+
+    /**
+     * 链接地址
+     */
+    private final String url;
+
+    /**
+     * 转换为工具返回结果中的一项
+     *
+     * @return 包含title、snippet和url的Map
+     */
+    public Map<String, String> toMap() {
+        Map<String, String> map = new HashMap<>();
+        map.put("title", title);
+        map.put("snippet", snippet);
+        map.put("url", url);
+        return map;
+    }
+}
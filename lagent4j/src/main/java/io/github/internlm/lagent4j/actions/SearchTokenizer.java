@@ -0,0 +1,57 @@
+package io.github.internlm.lagent4j.actions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 检索用的分词器
+ * <p>
+ * 拉丁字母和数字按单词切分并转为小写，汉字等表意文字按相邻两字切分（单独的汉字作为一个词项），
+ * 不需要词典，中英文混排的文本也能得到稳定的词项。正文提取的小节排序和本地全文索引使用同一套规则，
+ * 保证建索引和查询时切出的词项一致。
+ */
+final class SearchTokenizer {
+
+    private SearchTokenizer() {
+    }
+
+    /**
+     * 切分词项
+     *
+     * @param text 文本
+     * @return 词项，按出现顺序排列，可能重复
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        char previousIdeograph = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c) && c < 0x2E80) {
+                word.append(Character.toLowerCase(c));
+                previousIdeograph = 0;
+                continue;
+            }
+            if (word.length() > 0) {
+                tokens.add(word.toString());
+                word.setLength(0);
+            }
+            if (Character.isLetter(c)) {
+                if (previousIdeograph != 0) {
+                    tokens.add(new String(new char[]{previousIdeograph, c}));
+                } else if (i + 1 >= text.length() || !Character.isLetter(text.charAt(i + 1))
+                        || text.charAt(i + 1) < 0x2E80) {
+                    // 单独的汉字
+                    tokens.add(String.valueOf(c));
+                }
+                previousIdeograph = c;
+            } else {
+                previousIdeograph = 0;
+            }
+        }
+        if (word.length() > 0) {
+            tokens.add(word.toString());
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,45 @@
+package io.github.internlm.lagent4j.actions;
+
+import io.github.internlm.lagent4j.schema.ActionReturn;
+import io.github.internlm.lagent4j.schema.FunctionCall;
+
+import java.util.function.Consumer;
+
+/**
+ * 流式动作接口
+ * <p>
+ * 执行时间较长的动作（如抓取大网页、返回大量结果的搜索）可以在执行过程中分段输出部分结果，
+ * 调用方不必等到动作完全结束才看到内容。每段部分结果只包含新增的内容，
+ * 方法返回的结果是完整结果，与{@link #execute(FunctionCall)}的返回值相同。
+ */
+public interface StreamingAction extends Action {
+    /**
+     * 流式执行动作
+     *
+     * @param functionCall 函数调用信息
+     * @param onPartial    接收部分结果的回调，在执行动作的线程中调用
+     * @return 完整的动作执行结果
+     */
+    ActionReturn executeStream(FunctionCall functionCall, Consumer<ActionReturn> onPartial);
+
+    /**
+     * 是否执行代码。执行代码的动作在流式代理中以CODING系列状态通知，便于界面区分代码执行和普通工具
+     *
+     * @return 默认返回false
+     */
+    default boolean isCodeExecution() {
+        return false;
+    }
+
+    /**
+     * 执行动作，忽略部分结果
+     *
+     * @param functionCall 函数调用信息
+     * @return 动作执行结果
+     */
+    @Override
+    default ActionReturn execute(FunctionCall functionCall) {
+        return executeStream(functionCall, partial -> {
+        });
+    }
+}
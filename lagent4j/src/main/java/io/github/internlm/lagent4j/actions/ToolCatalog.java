@@ -0,0 +1,233 @@
+package io.github.internlm.lagent4j.actions;
+
+import com.alibaba.fastjson2.JSONWriter;
+import io.github.internlm.lagent4j.utils.TokenCounter;
+import lombok.Getter;
+
+import java.util.*;
+
+/**
+ * 工具目录
+ * <p>
+ * 已注册动作的不可变快照，包含提示中使用的工具描述文本、OpenAI {@code tools}格式的JSON编码和估算令牌数。
+ * 这些内容在动作注册、注销或清空时由{@link ActionExecutor}一次性生成，之后每次模型调用直接复用，
+ * 不再逐个调用{@link Action#getParameters()}拼接字符串。动作按名称排序，参数中无序的Map按键名排序，
+ * 因此同一组动作在不同进程中生成的文本和编码完全相同，不会破坏模型服务端的前缀缓存。
+ * 每次重建版本号加一，调用方可以据此判断目录是否变化。
+ * <p>
+ * 目录同时生成结构化输出模式使用的{@code response_format}：模型的整个回复被约束为
+ * {@code {"tool_calls": [{"name": ..., "parameters": {...}}]}}，其中每个调用的名称和参数必须符合某个动作的Schema。
+ */
+@Getter
+public final class ToolCatalog {
+    /**
+     * 空目录
+     */
+    static final ToolCatalog EMPTY = new ToolCatalog(0, Collections.emptyList());
+
+    /**
+     * 版本号
+     */
+    private final long version;
+
+    /**
+     * 各动作的名称、描述和参数
+     */
+    private final List<Map<String, Object>> descriptions;
+
+    /**
+     * 提示中使用的工具描述文本
+     */
+    private final String text;
+
+    /**
+     * OpenAI {@code tools}格式的JSON编码（UTF-8），调用方不应修改
+     */
+    private final byte[] schemaJson;
+
+    /**
+     * 结构化输出模式下的OpenAI {@code response_format}，调用方不应修改
+     */
+    private final Map<String, Object> responseFormat;
+
+    /**
+     * 描述文本的估算令牌数
+     */
+    private final int tokenCount;
+
+    /**
+     * 各动作描述文本的估算令牌数
+     */
+    private final Map<String, Integer> toolTokenCounts;
+
+    /**
+     * 根据动作生成目录
+     *
+     * @param version 版本号
+     * @param actions 动作
+     */
+    ToolCatalog(long version, Collection<Action> actions) {
+        List<Action> sorted = new ArrayList<>(actions);
+        sorted.sort(Comparator.comparing(Action::getName));
+
+        List<Map<String, Object>> descriptions = new ArrayList<>(sorted.size());
+        Map<String, Integer> toolTokenCounts = new LinkedHashMap<>();
+        StringBuilder text = new StringBuilder();
+        for (Action action : sorted) {
+            Map<String, Object> parameters = freeze(action.getParameters());
+            Map<String, Object> description = new LinkedHashMap<>();
+            description.put("name", action.getName());
+            description.put("description", action.getDescription());
+            description.put("parameters", parameters);
+            descriptions.add(Collections.unmodifiableMap(description));
+
+            int start = text.length();
+            appendText(text, action, parameters);
+            toolTokenCounts.put(action.getName(), TokenCounter.estimate(text.subSequence(start, text.length())));
+        }
+
+        this.version = version;
+        this.descriptions = Collections.unmodifiableList(descriptions);
+        this.text = text.toString();
+        this.schemaJson = encodeSchema(descriptions);
+        this.responseFormat = buildResponseFormat(descriptions);
+        this.tokenCount = TokenCounter.estimate(this.text);
+        this.toolTokenCounts = Collections.unmodifiableMap(toolTokenCounts);
+    }
+
+    /**
+     * 目录是否为空
+     *
+     * @return 没有任何动作时返回true
+     */
+    public boolean isEmpty() {
+        return descriptions.isEmpty();
+    }
+
+    /**
+     * 生成参数的不可修改副本：有序的Map保持原有顺序，无序的Map按键名排序
+     *
+     * @param value 参数值
+     * @return 不可修改的副本
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T freeze(T value) {
+        if (value instanceof Map) {
+            Map<?, ?> source = (Map<?, ?>) value;
+            Map<String, Object> copy = new LinkedHashMap<>();
+            Collection<? extends Map.Entry<?, ?>> entries = source.entrySet();
+            if (!(source instanceof LinkedHashMap || source instanceof SortedMap)) {
+                List<Map.Entry<?, ?>> sorted = new ArrayList<>(entries);
+                sorted.sort(Comparator.comparing(entry -> String.valueOf(entry.getKey())));
+                entries = sorted;
+            }
+            for (Map.Entry<?, ?> entry : entries) {
+                copy.put(String.valueOf(entry.getKey()), freeze(entry.getValue()));
+            }
+            return (T) Collections.unmodifiableMap(copy);
+        }
+        if (value instanceof List) {
+            List<Object> copy = new ArrayList<>();
+            for (Object item : (List<?>) value) {
+                copy.add(freeze(item));
+            }
+            return (T) Collections.unmodifiableList(copy);
+        }
+        return value;
+    }
+
+    /**
+     * 写入单个动作的描述文本
+     *
+     * @param text       输出
+     * @param action     动作
+     * @param parameters 动作参数
+     */
+    @SuppressWarnings("unchecked")
+    private static void appendText(StringBuilder text, Action action, Map<String, Object> parameters) {
+        text.append("工具名称: ").append(action.getName()).append("\n");
+        text.append("描述: ").append(action.getDescription()).append("\n");
+        text.append("参数说明:\n");
+
+        if (parameters != null && parameters.get("properties") instanceof Map) {
+            Map<String, Object> properties = (Map<String, Object>) parameters.get("properties");
+            for (Map.Entry<String, Object> entry : properties.entrySet()) {
+                Object description = entry.getValue() instanceof Map
+                        ? ((Map<String, Object>) entry.getValue()).get("description")
+                        : entry.getValue();
+                text.append("  - ").append(entry.getKey())
+                        .append(": ").append(description)
+                        .append("\n");
+            }
+        }
+
+        text.append("\n");
+    }
+
+    /**
+     * 生成OpenAI {@code response_format}（json_schema类型）
+     * <p>
+     * 动作的参数Schema由各动作自行提供，不一定满足strict模式的要求（全部字段必填、禁止额外字段），
+     * 因此不开启strict，服务端按Schema引导生成，客户端再校验参数
+     *
+     * @param descriptions 动作描述
+     * @return 不可修改的response_format
+     */
+    private static Map<String, Object> buildResponseFormat(List<Map<String, Object>> descriptions) {
+        List<Object> variants = new ArrayList<>(descriptions.size());
+        for (Map<String, Object> description : descriptions) {
+            Object parameters = description.get("parameters");
+            Map<String, Object> properties = new LinkedHashMap<>();
+            properties.put("name", Map.of("type", "string", "enum", List.of(description.get("name"))));
+            properties.put("parameters", parameters != null ? parameters : Map.of("type", "object"));
+            Map<String, Object> call = new LinkedHashMap<>();
+            call.put("type", "object");
+            call.put("properties", properties);
+            call.put("required", List.of("name", "parameters"));
+            call.put("additionalProperties", false);
+            variants.add(call);
+        }
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("type", "object");
+        root.put("properties", Map.of("tool_calls", Map.of("type", "array", "items", Map.of("anyOf", variants))));
+        root.put("required", List.of("tool_calls"));
+        root.put("additionalProperties", false);
+
+        Map<String, Object> schema = new LinkedHashMap<>();
+        schema.put("name", "tool_calls");
+        schema.put("strict", false);
+        schema.put("schema", root);
+        Map<String, Object> format = new LinkedHashMap<>();
+        format.put("type", "json_schema");
+        format.put("json_schema", schema);
+        return freeze(format);
+    }
+
+    /**
+     * 编码为OpenAI {@code tools}格式
+     *
+     * @param descriptions 动作描述
+     * @return JSON编码
+     */
+    private static byte[] encodeSchema(List<Map<String, Object>> descriptions) {
+        try (JSONWriter writer = JSONWriter.ofUTF8()) {
+            writer.startArray();
+            for (int i = 0; i < descriptions.size(); i++) {
+                if (i > 0) {
+                    writer.writeComma();
+                }
+                Map<String, Object> description = descriptions.get(i);
+                writer.startObject();
+                writer.writeName("type");
+                writer.writeColon();
+                writer.writeString("function");
+                writer.writeName("function");
+                writer.writeColon();
+                writer.writeAny(description);
+                writer.endObject();
+            }
+            writer.endArray();
+            return writer.getBytes();
+        }
+    }
+}
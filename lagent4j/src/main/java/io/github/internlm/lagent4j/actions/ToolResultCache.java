@@ -0,0 +1,361 @@
+package io.github.internlm.lagent4j.actions;
+
+import com.alibaba.fastjson2.JSON;
+import io.github.internlm.lagent4j.metrics.MetricSource;
+import io.github.internlm.lagent4j.metrics.MetricWriter;
+import io.github.internlm.lagent4j.schema.ActionReturn;
+import io.github.internlm.lagent4j.schema.ActionStatusCode;
+import io.github.internlm.lagent4j.schema.FunctionCall;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 工具结果缓存
+ * <p>
+ * 以动作名称加规范化后的参数为键缓存成功的执行结果。参数按键名排序、去掉值为null的键、
+ * 把整数值的浮点数写成整数，因此{@code {"b":1,"a":"x"}}和{@code {"a":"x","b":1.0}}命中同一条缓存。
+ * <p>
+ * 只有{@link Action#isCacheable()}的动作会读写缓存，每个动作有独立的有效期和条目上限，超出上限时淘汰最久未使用的条目。
+ * 可缓存或{@link Action#isIdempotent()}的动作在相同参数的调用仍在执行时，后来的调用直接共享正在执行的结果。
+ * 缓存的结果对象会返回给多个调用方，调用方不应修改它。
+ */
+public class ToolResultCache implements MetricSource {
+    /**
+     * 未单独配置的动作使用的默认配置
+     */
+    private final CacheConfig defaultConfig;
+
+    /**
+     * 按动作名称单独指定的配置
+     */
+    private final Map<String, CacheConfig> actionConfigs;
+
+    /**
+     * 当前时间（纳秒）
+     */
+    private final LongSupplier ticker;
+
+    /**
+     * 动作名称到缓存分区的映射
+     */
+    private final Map<String, Region> regions = new ConcurrentHashMap<>();
+
+    /**
+     * 正在执行的调用
+     */
+    private final Map<String, CompletableFuture<ActionReturn>> inFlight = new ConcurrentHashMap<>();
+
+    private ToolResultCache(Builder builder) {
+        this.defaultConfig = builder.defaultConfig;
+        this.actionConfigs = new HashMap<>(builder.actionConfigs);
+        this.ticker = builder.ticker;
+    }
+
+    /**
+     * 执行动作，命中缓存或有相同调用正在执行时不再执行
+     *
+     * @param action       动作
+     * @param functionCall 函数调用
+     * @param loader       真正执行动作的方法
+     * @return 执行结果的Future
+     */
+    public CompletableFuture<ActionReturn> execute(Action action, FunctionCall functionCall,
+                                                   Supplier<CompletableFuture<ActionReturn>> loader) {
+        boolean cacheable = action.isCacheable();
+        if (!cacheable && !action.isIdempotent()) {
+            return loader.get();
+        }
+
+        Region region = region(action.getName());
+        String key = key(action.getName(), functionCall.getArguments());
+        if (cacheable) {
+            ActionReturn cached = region.get(key, ticker.getAsLong());
+            if (cached != null) {
+                region.hits.increment();
+                return CompletableFuture.completedFuture(cached);
+            }
+        }
+
+        CompletableFuture<ActionReturn> flight = new CompletableFuture<>();
+        CompletableFuture<ActionReturn> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            region.coalesced.increment();
+            return existing.copy();
+        }
+
+        region.misses.increment();
+        CompletableFuture<ActionReturn> loaded;
+        try {
+            loaded = loader.get();
+        } catch (Throwable e) {
+            loaded = CompletableFuture.failedFuture(e);
+        }
+        loaded.whenComplete((value, error) -> {
+            if (error == null && cacheable && value != null && value.getState() == ActionStatusCode.SUCCESS) {
+                region.put(key, value, ticker.getAsLong());
+            }
+            inFlight.remove(key, flight);
+            if (error != null) {
+                flight.completeExceptionally(error);
+            } else {
+                flight.complete(value);
+            }
+        });
+        return flight.copy();
+    }
+
+    /**
+     * 清除某个动作的全部缓存
+     *
+     * @param actionName 动作名称
+     */
+    public void invalidate(String actionName) {
+        Region region = regions.get(actionName);
+        if (region != null) {
+            region.clear();
+        }
+    }
+
+    /**
+     * 清除全部缓存
+     */
+    public void clear() {
+        regions.values().forEach(Region::clear);
+    }
+
+    /**
+     * 获取某个动作当前缓存的条目数
+     *
+     * @param actionName 动作名称
+     * @return 条目数
+     */
+    public int size(String actionName) {
+        Region region = regions.get(actionName);
+        return region != null ? region.size() : 0;
+    }
+
+    /**
+     * 获取某个动作的命中率，即不需要执行动作就得到结果的调用所占比例
+     *
+     * @param actionName 动作名称
+     * @return 命中率，没有调用时返回0
+     */
+    public double getHitRatio(String actionName) {
+        Region region = regions.get(actionName);
+        return region != null ? region.hitRatio() : 0;
+    }
+
+    /**
+     * 计算缓存键：动作名称加规范化后的参数
+     *
+     * @param actionName 动作名称
+     * @param arguments  参数
+     * @return 缓存键
+     */
+    static String key(String actionName, Map<String, Object> arguments) {
+        StringBuilder key = new StringBuilder(actionName).append('\u0000');
+        appendCanonical(key, arguments);
+        return key.toString();
+    }
+
+    /**
+     * 以规范化形式写入参数值
+     *
+     * @param out   输出
+     * @param value 参数值
+     */
+    private static void appendCanonical(StringBuilder out, Object value) {
+        if (value == null) {
+            out.append("null");
+        } else if (value instanceof Map) {
+            TreeMap<String, Object> sorted = new TreeMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                if (entry.getValue() != null) {
+                    sorted.put(String.valueOf(entry.getKey()), entry.getValue());
+                }
+            }
+            out.append('{');
+            boolean first = true;
+            for (Map.Entry<String, Object> entry : sorted.entrySet()) {
+                if (!first) {
+                    out.append(',');
+                }
+                first = false;
+                out.append(JSON.toJSONString(entry.getKey())).append(':');
+                appendCanonical(out, entry.getValue());
+            }
+            out.append('}');
+        } else if (value instanceof Collection || value instanceof Object[]) {
+            Collection<?> items = value instanceof Collection ? (Collection<?>) value : Arrays.asList((Object[]) value);
+            out.append('[');
+            boolean first = true;
+            for (Object item : items) {
+                if (!first) {
+                    out.append(',');
+                }
+                first = false;
+                appendCanonical(out, item);
+            }
+            out.append(']');
+        } else if (value instanceof Number) {
+            out.append(canonicalNumber((Number) value));
+        } else if (value instanceof Boolean) {
+            out.append(value);
+        } else {
+            out.append(JSON.toJSONString(value.toString()));
+        }
+    }
+
+    /**
+     * 规范化数字：数值相等的整数和浮点数写成同一个字符串
+     *
+     * @param number 数字
+     * @return 规范化后的字符串
+     */
+    private static String canonicalNumber(Number number) {
+        if (number instanceof Double || number instanceof Float) {
+            double d = number.doubleValue();
+            if (Double.isNaN(d) || Double.isInfinite(d)) {
+                return JSON.toJSONString(String.valueOf(d));
+            }
+        }
+        try {
+            BigDecimal decimal = new BigDecimal(number.toString()).stripTrailingZeros();
+            return decimal.scale() <= 0 ? decimal.toBigInteger().toString() : decimal.toPlainString();
+        } catch (NumberFormatException e) {
+            return number.toString();
+        }
+    }
+
+    private Region region(String actionName) {
+        return regions.computeIfAbsent(actionName,
+                name -> new Region(actionConfigs.getOrDefault(name, defaultConfig)));
+    }
+
+    @Override
+    public void collect(MetricWriter writer) {
+        for (Map.Entry<String, Region> entry : regions.entrySet()) {
+            Map<String, String> labels = Map.of("action", entry.getKey());
+            Region region = entry.getValue();
+            writer.counter("lagent4j_tool_cache_hits_total", "Calls answered from the result cache", labels,
+                    region.hits.sum());
+            writer.counter("lagent4j_tool_cache_misses_total", "Calls that executed the action", labels,
+                    region.misses.sum());
+            writer.counter("lagent4j_tool_cache_coalesced_total", "Calls that joined an identical call in flight",
+                    labels, region.coalesced.sum());
+            writer.counter("lagent4j_tool_cache_evictions_total", "Entries removed because the cache was full",
+                    labels, region.evictions.sum());
+            writer.gauge("lagent4j_tool_cache_entries", "Entries currently cached", labels, region.size());
+            writer.gauge("lagent4j_tool_cache_hit_ratio", "Share of calls answered without executing the action",
+                    labels, region.hitRatio());
+        }
+    }
+
+    /**
+     * 缓存条目
+     */
+    private static final class Entry {
+        private final ActionReturn value;
+        private final long expiresAt;
+
+        Entry(ActionReturn value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * 单个动作的缓存分区
+     */
+    private static final class Region {
+        private final long ttlNanos;
+        private final int maxSize;
+        private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder coalesced = new LongAdder();
+        private final LongAdder evictions = new LongAdder();
+
+        Region(CacheConfig config) {
+            this.ttlNanos = config.getTtl().toNanos();
+            this.maxSize = config.getMaxSize();
+        }
+
+        synchronized ActionReturn get(String key, long now) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (now - entry.expiresAt >= 0) {
+                entries.remove(key);
+                return null;
+            }
+            return entry.value;
+        }
+
+        synchronized void put(String key, ActionReturn value, long now) {
+            entries.put(key, new Entry(value, now + ttlNanos));
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (entries.size() > maxSize && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+                evictions.increment();
+            }
+        }
+
+        synchronized void clear() {
+            entries.clear();
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+
+        double hitRatio() {
+            long served = hits.sum() + coalesced.sum();
+            long total = served + misses.sum();
+            return total == 0 ? 0 : (double) served / total;
+        }
+    }
+
+    /**
+     * 工具结果缓存构建器
+     */
+    public static class Builder {
+        private CacheConfig defaultConfig = new CacheConfig(Duration.ofMinutes(5), 256);
+        private final Map<String, CacheConfig> actionConfigs = new HashMap<>();
+        private LongSupplier ticker = System::nanoTime;
+
+        /**
+         * 设置未单独配置的动作使用的配置，默认有效期5分钟、最多256条
+         */
+        public Builder defaultConfig(CacheConfig defaultConfig) {
+            this.defaultConfig = Objects.requireNonNull(defaultConfig);
+            return this;
+        }
+
+        /**
+         * 为指定动作单独设置配置
+         */
+        public Builder action(String actionName, CacheConfig config) {
+            this.actionConfigs.put(actionName, Objects.requireNonNull(config));
+            return this;
+        }
+
+        Builder ticker(LongSupplier ticker) {
+            this.ticker = ticker;
+            return this;
+        }
+
+        public ToolResultCache build() {
+            return new ToolResultCache(this);
+        }
+    }
+}
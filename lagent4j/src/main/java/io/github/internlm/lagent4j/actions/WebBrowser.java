@@ -1,33 +1,53 @@
 package io.github.internlm.lagent4j.actions;
 
+import io.github.internlm.lagent4j.metrics.MetricSource;
+import io.github.internlm.lagent4j.metrics.MetricWriter;
 import io.github.internlm.lagent4j.schema.ActionReturn;
 import io.github.internlm.lagent4j.schema.ActionStatusCode;
 import io.github.internlm.lagent4j.schema.FunctionCall;
+import io.github.internlm.lagent4j.utils.HttpClients;
 import lombok.extern.slf4j.Slf4j;
+import okhttp3.Cache;
+import okhttp3.CacheControl;
+import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
+import okhttp3.ResponseBody;
 
+import java.io.File;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 网页浏览器工具
  * <p>
  * 用于获取和解析网页内容，支持以下功能：
  * 1. 获取网页原始内容
- * 2. 提取网页正文内容
+ * 2. 提取网页正文内容（去掉导航、页脚、侧栏等模板内容，可按问题对正文分段排序）
  * 3. 提取网页标题
  * 4. 提取网页元数据
+ * <p>
+ * 提取结果按（URL，模式）缓存：响应声明的有效期内直接返回缓存内容，过期后带ETag/Last-Modified发送条件请求，
+ * 服务器返回304时沿用已提取的内容。通过{@link Builder#cache(File, long)}还可以启用OkHttp的磁盘HTTP缓存，
+ * 让不同实例和进程重启之后也能复用已下载的页面。
  */
 @Slf4j
-public class WebBrowser implements Action {
+public class WebBrowser implements Action, MetricSource {
     /**
      * HTTP客户端
      */
@@ -43,6 +63,59 @@ public class WebBrowser implements Action {
      */
     private static final int MAX_CONTENT_LENGTH = 8000;
     
+    /**
+     * 默认单次请求最多下载的字节数
+     */
+    private static final long DEFAULT_MAX_BYTES = 2L * 1024 * 1024;
+    
+    /**
+     * 参数描述，所有实例共享同一个不可修改的对象
+     */
+    private static final Map<String, Object> PARAMETERS = Map.of(
+            "type", "object",
+            "properties", Map.of(
+                    "url", Map.of(
+                            "type", "string",
+                            "description", "要访问的URL"),
+                    "mode", Map.of(
+                            "type", "string",
+                            "description", "内容提取模式：raw（原始内容）、text（正文内容，去掉导航、页脚等）、full（页面全部文本）、title（标题）、meta（元数据）",
+                            "enum", List.of("raw", "text", "full", "title", "meta")),
+                    "query", Map.of(
+                            "type", "string",
+                            "description", "关注的问题（可选），text模式下正文按与其相关的程度分段排序")),
+            "required", List.of("url"));
+    
+    /**
+     * 单次请求最多下载的字节数
+     */
+    private final long maxBytes;
+    
+    /**
+     * 提取结果缓存，为null时不缓存
+     */
+    private final PageCache pageCache;
+    
+    /**
+     * 响应没有声明有效期时，提取结果可以不经验证直接使用的时长
+     */
+    private final long defaultFreshnessNanos;
+    
+    /**
+     * 由磁盘HTTP缓存直接返回、未访问网络的响应数
+     */
+    private final LongAdder httpCacheHits = new LongAdder();
+    
+    /**
+     * 磁盘HTTP缓存经条件请求验证后返回的响应数
+     */
+    private final LongAdder httpCacheConditionalHits = new LongAdder();
+    
+    /**
+     * 从网络下载的响应数
+     */
+    private final LongAdder networkResponses = new LongAdder();
+    
     /**
      * 创建一个网页浏览器工具
      */
@@ -56,11 +129,31 @@ public class WebBrowser implements Action {
      * @param timeoutSeconds 超时时间（秒）
      */
     public WebBrowser(int timeoutSeconds) {
-        this.httpClient = new OkHttpClient.Builder()
-                .connectTimeout(timeoutSeconds, TimeUnit.SECONDS)
-                .readTimeout(timeoutSeconds, TimeUnit.SECONDS)
-                .followRedirects(true)
-                .build();
+        this(timeoutSeconds, DEFAULT_MAX_BYTES);
+    }
+    
+    /**
+     * 创建一个网页浏览器工具
+     *
+     * @param timeoutSeconds 超时时间（秒）
+     * @param maxBytes       单次请求最多下载的字节数，超出部分不再读取
+     */
+    public WebBrowser(int timeoutSeconds, long maxBytes) {
+        this(new Builder().timeoutSeconds(timeoutSeconds).maxBytes(maxBytes));
+    }
+    
+    private WebBrowser(Builder builder) {
+        this.maxBytes = builder.maxBytes;
+        this.pageCache = builder.pageCacheSize > 0 ? new PageCache(builder.pageCacheSize) : null;
+        this.defaultFreshnessNanos = builder.defaultFreshness.toNanos();
+        OkHttpClient.Builder client = HttpClients.shared().newBuilder()
+                .connectTimeout(builder.timeoutSeconds, TimeUnit.SECONDS)
+                .readTimeout(builder.timeoutSeconds, TimeUnit.SECONDS)
+                .followRedirects(true);
+        if (builder.cacheDirectory != null) {
+            client.cache(new Cache(builder.cacheDirectory, builder.cacheMaxBytes));
+        }
+        this.httpClient = client.build();
     }
     
     @Override
@@ -75,28 +168,17 @@ public class WebBrowser implements Action {
     
     @Override
     public Map<String, Object> getParameters() {
-        Map<String, Object> parameters = new HashMap<>();
-        
-        // URL参数
-        Map<String, Object> urlProperty = new HashMap<>();
-        urlProperty.put("type", "string");
-        urlProperty.put("description", "要访问的URL");
-        
-        // 提取模式参数
-        Map<String, Object> modeProperty = new HashMap<>();
-        modeProperty.put("type", "string");
-        modeProperty.put("description", "内容提取模式：raw（原始内容）、text（正文内容）、title（标题）、meta（元数据）");
-        modeProperty.put("enum", List.of("raw", "text", "title", "meta"));
-        
-        Map<String, Object> properties = new HashMap<>();
-        properties.put("url", urlProperty);
-        properties.put("mode", modeProperty);
-        
-        parameters.put("type", "object");
-        parameters.put("properties", properties);
-        parameters.put("required", List.of("url"));
-        
-        return parameters;
+        return PARAMETERS;
+    }
+    
+    @Override
+    public boolean isCacheable() {
+        return true;
+    }
+    
+    @Override
+    public boolean isIdempotent() {
+        return true;
     }
     
     @Override
@@ -104,6 +186,7 @@ public class WebBrowser implements Action {
         // 获取参数
         String url = null;
         String mode = "text"; // 默认提取正文
+        String query = null;
         
         if (functionCall.isParametersMap()) {
             Map<String, Object> params = functionCall.getParametersAsMap();
@@ -114,6 +197,9 @@ public class WebBrowser implements Action {
                 if (params.containsKey("mode")) {
                     mode = params.get("mode").toString();
                 }
+                if (params.get("query") != null) {
+                    query = params.get("query").toString();
+                }
             }
         } else {
             // 尝试从字符串参数中解析
@@ -141,14 +227,37 @@ public class WebBrowser implements Action {
             url = "https://" + url;
         }
         
+        // 新鲜的提取结果直接返回，不发请求
+        String cacheKey = PageCache.key(url, query != null && "text".equals(mode) ? mode + '\u0000' + query : mode);
+        PageCache.Entry cached = pageCache != null ? pageCache.get(cacheKey) : null;
+        if (cached != null && cached.isFresh(System.nanoTime())) {
+            pageCache.hits.increment();
+            return success(url, mode, cached.content);
+        }
+        
         try {
-            // 发送HTTP请求
-            Request request = new Request.Builder()
+            // 发送HTTP请求，有过期的提取结果时改为条件请求
+            Request.Builder requestBuilder = new Request.Builder()
                     .url(url)
-                    .header("User-Agent", "Mozilla/5.0 (compatible; Lagent4j/1.0.0)")
-                    .build();
+                    .header("User-Agent", "Mozilla/5.0 (compatible; Lagent4j/1.0.0)");
+            if (cached != null && cached.hasValidator()) {
+                if (cached.etag != null) {
+                    requestBuilder.header("If-None-Match", cached.etag);
+                }
+                if (cached.lastModified != null) {
+                    requestBuilder.header("If-Modified-Since", cached.lastModified);
+                }
+            }
             
-            try (Response response = httpClient.newCall(request).execute()) {
+            try (Response response = httpClient.newCall(requestBuilder.build()).execute()) {
+                recordSource(response);
+                if (response.code() == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null) {
+                    // 页面未变化，沿用已提取的内容
+                    pageCache.revalidated.increment();
+                    pageCache.put(cacheKey, cached.refresh(System.nanoTime() + freshnessNanos(response)));
+                    return success(url, mode, cached.content);
+                }
+                
                 if (!response.isSuccessful()) {
                     return ActionReturn.builder()
                             .type(getName())
@@ -158,59 +267,28 @@ public class WebBrowser implements Action {
                             .build();
                 }
                 
-                String content = response.body() != null ? response.body().string() : "";
-                
-                // 使用Jsoup解析HTML
-                Document doc = Jsoup.parse(content);
-                
-                // 根据模式提取内容
-                String extractedContent;
-                switch (mode) {
-                    case "raw":
-                        extractedContent = content;
-                        break;
-                    case "text":
-                        extractedContent = doc.body().text();
-                        break;
-                    case "title":
-                        extractedContent = doc.title();
-                        break;
-                    case "meta":
-                        StringBuilder meta = new StringBuilder();
-                        doc.select("meta").forEach(element -> {
-                            String name = element.attr("name");
-                            String property = element.attr("property");
-                            String content1 = element.attr("content");
-                            if (!name.isEmpty() && !content1.isEmpty()) {
-                                meta.append(name).append(": ").append(content1).append("\n");
-                            } else if (!property.isEmpty() && !content1.isEmpty()) {
-                                meta.append(property).append(": ").append(content1).append("\n");
-                            }
-                        });
-                        extractedContent = meta.toString();
-                        break;
-                    default:
-                        extractedContent = doc.body().text();
+                // 边下载边解码和解析，提取到足够内容或达到字节上限后停止读取
+                String extractedContent = "";
+                ResponseBody body = response.body();
+                if (body != null) {
+                    MediaType contentType = body.contentType();
+                    Charset charset = contentType != null ? contentType.charset(StandardCharsets.UTF_8) : StandardCharsets.UTF_8;
+                    LimitedInputStream input = new LimitedInputStream(body.byteStream(), maxBytes);
+                    Reader reader = new InputStreamReader(input, charset);
+                    HtmlStreamExtractor.Result extracted = extract(reader, mode, query);
+                    extractedContent = extracted.getContent();
+                    
+                    // 截取内容，避免过长
+                    if (extracted.isTruncated() || input.isLimitReached()) {
+                        extractedContent = extractedContent + "... (内容已截断)";
+                    }
                 }
                 
-                // 截取内容，避免过长
-                if (extractedContent.length() > MAX_CONTENT_LENGTH) {
-                    extractedContent = extractedContent.substring(0, MAX_CONTENT_LENGTH) + "... (内容已截断)";
+                if (pageCache != null) {
+                    pageCache.misses.increment();
+                    store(cacheKey, extractedContent, response);
                 }
-                
-                // 构建结果
-                List<Map<String, String>> result = new ArrayList<>();
-                Map<String, String> item = new HashMap<>();
-                item.put("type", mode);
-                item.put("content", extractedContent);
-                result.add(item);
-                
-                return ActionReturn.builder()
-                        .type(getName())
-                        .state(ActionStatusCode.SUCCESS)
-                        .url(url)
-                        .result(result)
-                        .build();
+                return success(url, mode, extractedContent);
             }
         } catch (IOException e) {
             log.error("访问URL时发生错误: {}", url, e);
@@ -222,4 +300,265 @@ public class WebBrowser implements Action {
                     .build();
         }
     }
+    
+    /**
+     * 清空提取结果缓存
+     */
+    public void clearPageCache() {
+        if (pageCache != null) {
+            pageCache.clear();
+        }
+    }
+    
+    @Override
+    public void collect(MetricWriter writer) {
+        Map<String, String> labels = Map.of("action", getName());
+        if (pageCache != null) {
+            writer.counter("lagent4j_web_page_cache_hits_total", "Pages answered from extracted content without a request",
+                    labels, pageCache.hits.sum());
+            writer.counter("lagent4j_web_page_cache_revalidated_total",
+                    "Pages revalidated with a 304 and answered from extracted content", labels,
+                    pageCache.revalidated.sum());
+            writer.counter("lagent4j_web_page_cache_misses_total", "Pages downloaded and extracted", labels,
+                    pageCache.misses.sum());
+            writer.counter("lagent4j_web_page_cache_evictions_total", "Entries removed because the cache was full",
+                    labels, pageCache.evictions.sum());
+            writer.gauge("lagent4j_web_page_cache_entries", "Extracted pages currently cached", labels,
+                    pageCache.size());
+        }
+        writer.counter("lagent4j_web_http_cache_hits_total", "Responses served by the disk cache without the network",
+                labels, httpCacheHits.sum());
+        writer.counter("lagent4j_web_http_cache_conditional_hits_total",
+                "Responses served by the disk cache after a conditional request", labels,
+                httpCacheConditionalHits.sum());
+        writer.counter("lagent4j_web_http_network_responses_total", "Responses downloaded from the network", labels,
+                networkResponses.sum());
+    }
+    
+    private ActionReturn success(String url, String mode, String content) {
+        List<Map<String, String>> result = new ArrayList<>();
+        Map<String, String> item = new HashMap<>();
+        item.put("type", mode);
+        item.put("content", content);
+        result.add(item);
+        
+        return ActionReturn.builder()
+                .type(getName())
+                .state(ActionStatusCode.SUCCESS)
+                .url(url)
+                .result(result)
+                .build();
+    }
+    
+    /**
+     * 记录响应来自磁盘缓存还是网络
+     */
+    private void recordSource(Response response) {
+        if (response.networkResponse() == null) {
+            if (response.cacheResponse() != null) {
+                httpCacheHits.increment();
+            }
+        } else if (response.cacheResponse() != null) {
+            httpCacheConditionalHits.increment();
+        } else {
+            networkResponses.increment();
+        }
+    }
+    
+    /**
+     * 缓存提取结果，响应禁止缓存或既没有有效期也没有验证器时不缓存
+     */
+    private void store(String cacheKey, String content, Response response) {
+        CacheControl cacheControl = response.cacheControl();
+        if (cacheControl.noStore()) {
+            pageCache.remove(cacheKey);
+            return;
+        }
+        long freshness = freshnessNanos(response);
+        String etag = response.header("ETag");
+        String lastModified = response.header("Last-Modified");
+        if (freshness <= 0 && etag == null && lastModified == null) {
+            pageCache.remove(cacheKey);
+            return;
+        }
+        pageCache.put(cacheKey, new PageCache.Entry(content, etag, lastModified, System.nanoTime() + freshness));
+    }
+    
+    /**
+     * 计算响应的剩余有效期：优先使用max-age减去Age，其次使用Expires，都没有时使用默认值
+     */
+    private long freshnessNanos(Response response) {
+        CacheControl cacheControl = response.cacheControl();
+        if (cacheControl.noCache()) {
+            return 0;
+        }
+        if (cacheControl.maxAgeSeconds() >= 0) {
+            long age = 0;
+            String ageHeader = response.header("Age");
+            if (ageHeader != null) {
+                try {
+                    age = Long.parseLong(ageHeader.trim());
+                } catch (NumberFormatException e) {
+                    // 忽略无效的Age
+                }
+            }
+            return TimeUnit.SECONDS.toNanos(Math.max(0, cacheControl.maxAgeSeconds() - age));
+        }
+        Date expires = response.headers().getDate("Expires");
+        if (expires != null) {
+            Date date = response.headers().getDate("Date");
+            long now = date != null ? date.getTime() : System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, expires.getTime() - now));
+        }
+        return defaultFreshnessNanos;
+    }
+    
+    /**
+     * 按模式提取内容：text模式提取正文，收集到上限若干倍的正文后停止解析；full、title、meta模式流式提取，
+     * 提取到足够内容后停止读取
+     */
+    private static HtmlStreamExtractor.Result extract(Reader reader, String mode, String query) throws IOException {
+        switch (mode) {
+            case "raw":
+                return readRaw(reader, MAX_CONTENT_LENGTH);
+            case "full":
+                return HtmlStreamExtractor.extract(reader, HtmlStreamExtractor.Mode.TEXT, MAX_CONTENT_LENGTH);
+            case "title":
+                return HtmlStreamExtractor.extract(reader, HtmlStreamExtractor.Mode.TITLE, MAX_CONTENT_LENGTH);
+            case "meta":
+                return HtmlStreamExtractor.extract(reader, HtmlStreamExtractor.Mode.META, MAX_CONTENT_LENGTH);
+            default:
+                return MainContentExtractor.extract(reader, query, MAX_CONTENT_LENGTH);
+        }
+    }
+    
+    /**
+     * 读取原始内容，最多读取maxChars个字符
+     */
+    private static HtmlStreamExtractor.Result readRaw(Reader reader, int maxChars) throws IOException {
+        char[] buffer = new char[maxChars + 1];
+        int length = 0;
+        int n;
+        while (length < buffer.length && (n = reader.read(buffer, length, buffer.length - length)) != -1) {
+            length += n;
+        }
+        int start = length > 0 && buffer[0] == '\uFEFF' ? 1 : 0;
+        boolean truncated = length - start > maxChars;
+        return new HtmlStreamExtractor.Result(new String(buffer, start, Math.min(length - start, maxChars)), truncated);
+    }
+    
+    /**
+     * 限制读取字节数的输入流，达到上限后视为流结束
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+        private long remaining;
+        private boolean limitReached;
+        
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+        
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) == -1 ? -1 : one[0] & 0xff;
+        }
+        
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                // 只有后面确实还有数据时才算截断
+                limitReached = limitReached || super.read() != -1;
+                return -1;
+            }
+            int n = super.read(b, off, (int) Math.min(len, remaining));
+            if (n > 0) {
+                remaining -= n;
+            }
+            return n;
+        }
+        
+        boolean isLimitReached() {
+            return limitReached;
+        }
+    }
+    
+    /**
+     * 网页浏览器工具构建器
+     */
+    public static class Builder {
+        private int timeoutSeconds = DEFAULT_TIMEOUT;
+        private long maxBytes = DEFAULT_MAX_BYTES;
+        private File cacheDirectory;
+        private long cacheMaxBytes;
+        private int pageCacheSize = 256;
+        private Duration defaultFreshness = Duration.ZERO;
+        
+        /**
+         * 设置超时时间（秒），默认30秒，为0时不限制
+         */
+        public Builder timeoutSeconds(int timeoutSeconds) {
+            if (timeoutSeconds < 0) {
+                throw new IllegalArgumentException("超时时间不能为负数");
+            }
+            this.timeoutSeconds = timeoutSeconds;
+            return this;
+        }
+        
+        /**
+         * 设置单次请求最多下载的字节数，默认2MB
+         */
+        public Builder maxBytes(long maxBytes) {
+            if (maxBytes <= 0) {
+                throw new IllegalArgumentException("最大下载字节数必须大于0");
+            }
+            this.maxBytes = maxBytes;
+            return this;
+        }
+        
+        /**
+         * 启用磁盘HTTP缓存，默认不启用
+         *
+         * @param directory 缓存目录
+         * @param maxBytes  缓存占用的最大字节数
+         */
+        public Builder cache(File directory, long maxBytes) {
+            if (directory == null) {
+                throw new IllegalArgumentException("缓存目录不能为空");
+            }
+            if (maxBytes <= 0) {
+                throw new IllegalArgumentException("缓存大小必须大于0");
+            }
+            this.cacheDirectory = directory;
+            this.cacheMaxBytes = maxBytes;
+            return this;
+        }
+        
+        /**
+         * 设置提取结果缓存的最大条目数，默认256，为0时不缓存提取结果
+         */
+        public Builder pageCacheSize(int pageCacheSize) {
+            if (pageCacheSize < 0) {
+                throw new IllegalArgumentException("提取结果缓存条目数不能为负数");
+            }
+            this.pageCacheSize = pageCacheSize;
+            return this;
+        }
+        
+        /**
+         * 设置响应没有声明有效期时提取结果可以不经验证直接使用的时长，默认为0，即每次都发送条件请求
+         */
+        public Builder defaultFreshness(Duration defaultFreshness) {
+            if (defaultFreshness == null || defaultFreshness.isNegative()) {
+                throw new IllegalArgumentException("默认有效期不能为负数");
+            }
+            this.defaultFreshness = defaultFreshness;
+            return this;
+        }
+        
+        public WebBrowser build() {
+            return new WebBrowser(this);
+        }
+    }
 } 
\ No newline at end of file
@@ -1,37 +1,116 @@
 package io.github.internlm.lagent4j.actions;
 
-import com.alibaba.fastjson2.JSON;
+import io.github.internlm.lagent4j.metrics.MetricSource;
+import io.github.internlm.lagent4j.metrics.MetricWriter;
 import io.github.internlm.lagent4j.schema.ActionReturn;
 import io.github.internlm.lagent4j.schema.ActionStatusCode;
 import io.github.internlm.lagent4j.schema.FunctionCall;
 import lombok.extern.slf4j.Slf4j;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * 网页浏览工具
+ * 网页搜索工具
  * <p>
- * 用于搜索和获取网页内容的工具
+ * 通过{@link SearchBackend}执行搜索，默认使用{@link BingSearchBackend}。支持以下功能：
+ * 1. 一次调用可以给出多个关键词，各查询并行发出，结果按名次交替合并并按URL去重
+ * 2. 每个查询的结果按（关键词，数量）缓存，有效期内直接复用；相同的查询正在执行时共享同一个结果
+ * 3. 整次调用有超时时间，超时或部分查询失败时返回已完成的结果
  */
 @Slf4j
-public class WebSearch implements Action {
-    private static final String SEARCH_API = "http://www.bing.com/search?";
-//    private final String apiKey;
+public class WebSearch implements Action, MetricSource {
+    /**
+     * 默认返回结果数量
+     */
+    private static final int DEFAULT_COUNT = 5;
 
+    /**
+     * 参数描述，所有实例共享同一个不可修改的对象
+     */
+    private static final Map<String, Object> PARAMETERS = Map.of(
+            "type", "object",
+            "properties", Map.of(
+                    "query", Map.of(
+                            "type", "string",
+                            "description", "搜索关键词"),
+                    "queries", Map.of(
+                            "type", "array",
+                            "items", Map.of("type", "string"),
+                            "description", "其他搜索关键词（可选），与query并行搜索，结果合并去重"),
+                    "count", Map.of(
+                            "type", "integer",
+                            "description", "每个关键词返回结果数量（可选，默认为5）")),
+            "required", List.of("query"));
+
+    /**
+     * 搜索后端
+     */
+    private final SearchBackend backend;
+
+    /**
+     * 整次调用的超时时间（纳秒）
+     */
+    private final long timeoutNanos;
+
+    /**
+     * 单次调用最多执行的查询数
+     */
+    private final int maxQueries;
+
+    /**
+     * 结果缓存的条目上限，为0时不缓存
+     */
+    private final int cacheSize;
+
+    /**
+     * 结果缓存的有效期（纳秒）
+     */
+    private final long cacheTtlNanos;
+
+    /**
+     * 查询结果缓存，按最近使用顺序排列；值为future，正在执行的查询也在其中
+     */
+    private final LinkedHashMap<String, CachedSearch> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder backendQueries = new LongAdder();
+    private final LongAdder backendErrors = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    /**
+     * 创建一个使用默认Bing后端的网页搜索工具
+     */
     public WebSearch() {
-//        this.apiKey = System.getenv("BING_API_KEY");
-//        if (apiKey == null || apiKey.isEmpty()) {
-//            throw new IllegalStateException("BING_API_KEY environment variable not set");
-//        }
+        this(new Builder());
+    }
+
+    /**
+     * 创建一个网页搜索工具
+     *
+     * @param backend 搜索后端
+     */
+    public WebSearch(SearchBackend backend) {
+        this(new Builder().backend(backend));
+    }
+
+    private WebSearch(Builder builder) {
+        this.backend = builder.backend != null ? builder.backend : new BingSearchBackend.Builder().build();
+        this.timeoutNanos = builder.timeout.toNanos();
+        this.maxQueries = builder.maxQueries;
+        this.cacheSize = builder.cacheSize;
+        this.cacheTtlNanos = builder.cacheTtl.toNanos();
     }
 
     @Override
@@ -46,58 +125,66 @@ public class WebSearch implements Action {
 
     @Override
     public Map<String, Object> getParameters() {
-        Map<String, Object> parameters = new HashMap<>();
-        parameters.put("query", "搜索关键词");
-        parameters.put("count", "返回结果数量（可选，默认为5）");
-        return parameters;
+        return PARAMETERS;
+    }
+
+    @Override
+    public boolean isCacheable() {
+        return true;
+    }
+
+    @Override
+    public boolean isIdempotent() {
+        return true;
     }
 
     @Override
     public ActionReturn execute(FunctionCall functionCall) {
+        long deadline = System.nanoTime() + timeoutNanos;
         try {
             // 获取参数
             Map<String, Object> params = functionCall.getArguments();
-            String query = (String) params.get("query");
-            int count = params.containsKey("count") ? ((Number) params.get("count")).intValue() : 5;
-
-            // 构建URL
-            String encodedQuery = URLEncoder.encode(query, StandardCharsets.UTF_8);
-            URL url = new URL(SEARCH_API + "?q=" + encodedQuery + "&count=" + count);
-
-            // 发送请求
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("GET");
-//            conn.setRequestProperty("Ocp-Apim-Subscription-Key", apiKey);
-
-            // 读取响应
-            BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8));
-            StringBuilder response = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                response.append(line);
-            }
-            reader.close();
-
-            // 解析响应
-            Map<String, Object> result = JSON.parseObject(response.toString());
-            List<Map<String, Object>> webPages = (List<Map<String, Object>>) result.get("webPages");
-            if (webPages == null || webPages.isEmpty()) {
-                return ActionReturn.builder()
-                        .type(getName())
-                        .state(ActionStatusCode.API_ERROR)
-                        .errmsg("No results found")
-                        .build();
-            }
-
-            // 提取搜索结果
-            List<Map<String, String>> searchResults = new ArrayList<>();
-            for (Map<String, Object> page : webPages) {
-                Map<String, String> searchResult = new HashMap<>();
-                searchResult.put("title", (String) page.get("name"));
-                searchResult.put("snippet", (String) page.get("snippet"));
-                searchResult.put("url", (String) page.get("url"));
-                searchResults.add(searchResult);
+            int count = params.get("count") instanceof Number
+                    ? Math.max(1, ((Number) params.get("count")).intValue())
+                    : DEFAULT_COUNT;
+            List<String> queries = queries(params);
+            if (queries.isEmpty()) {
+                return error(ActionStatusCode.ARGS_ERROR, "Missing query");
+            }
+
+            // 并行发出所有查询
+            List<CompletableFuture<List<SearchResult>>> futures = new ArrayList<>(queries.size());
+            for (String query : queries) {
+                futures.add(search(query, count));
+            }
+            try {
+                CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                        .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                timeouts.increment();
+                log.warn("Web search timed out after {} ms, returning completed queries",
+                        TimeUnit.NANOSECONDS.toMillis(timeoutNanos));
+            } catch (ExecutionException e) {
+                // 部分查询失败，下面合并其余查询的结果
+            }
+
+            // 收集已完成的结果
+            List<List<SearchResult>> completed = new ArrayList<>(queries.size());
+            String firstError = null;
+            for (CompletableFuture<List<SearchResult>> future : futures) {
+                if (future.isDone() && !future.isCompletedExceptionally()) {
+                    completed.add(future.join());
+                } else if (firstError == null) {
+                    firstError = future.isDone() ? errorMessage(future) : "Timed out";
+                }
+            }
+            if (completed.isEmpty()) {
+                return error(ActionStatusCode.API_ERROR, "Error executing web search: " + firstError);
+            }
+
+            List<Map<String, String>> searchResults = merge(completed);
+            if (searchResults.isEmpty()) {
+                return error(ActionStatusCode.API_ERROR, "No results found");
             }
 
             // 返回结果
@@ -107,13 +194,260 @@ public class WebSearch implements Action {
                     .result(searchResults)
                     .build();
 
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return error(ActionStatusCode.API_ERROR, "Web search interrupted");
         } catch (Exception e) {
             log.error("Error executing web search: {}", e.getMessage(), e);
-            return ActionReturn.builder()
-                    .type(getName())
-                    .state(ActionStatusCode.API_ERROR)
-                    .errmsg("Error executing web search: " + e.getMessage())
-                    .build();
+            return error(ActionStatusCode.API_ERROR, "Error executing web search: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 执行一次查询，有效期内的缓存结果和正在执行的相同查询直接复用；每个调用方得到独立的Future
+     *
+     * @param query 搜索关键词
+     * @param count 最多返回的结果数
+     * @return 查询结果
+     */
+    public CompletableFuture<List<SearchResult>> search(String query, int count) {
+        if (cacheSize == 0) {
+            return callBackend(query, count);
+        }
+        String key = count + "\u0000" + query;
+        CompletableFuture<List<SearchResult>> future = new CompletableFuture<>();
+        synchronized (cache) {
+            CachedSearch cached = cache.get(key);
+            long now = System.nanoTime();
+            if (cached != null && now - cached.expiresAt < 0 && !cached.future.isCompletedExceptionally()) {
+                cacheHits.increment();
+                // 返回副本，调用方取消或改写结果不会影响共享同一查询的其他调用方
+                return cached.future.copy();
+            }
+            cache.put(key, new CachedSearch(future, now + cacheTtlNanos));
+            Iterator<CachedSearch> iterator = cache.values().iterator();
+            while (cache.size() > cacheSize && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+        // 在锁外调用后端，失败的结果不缓存
+        callBackend(query, count).whenComplete((result, error) -> {
+            if (error == null) {
+                future.complete(result);
+                return;
+            }
+            synchronized (cache) {
+                CachedSearch cached = cache.get(key);
+                if (cached != null && cached.future == future) {
+                    cache.remove(key);
+                }
+            }
+            future.completeExceptionally(error);
+        });
+        return future.copy();
+    }
+
+    /**
+     * 清空查询结果缓存
+     */
+    public void clearCache() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    @Override
+    public void collect(MetricWriter writer) {
+        Map<String, String> labels = Map.of("action", getName());
+        writer.counter("lagent4j_web_search_cache_hits_total", "Queries answered from cached or in-flight results",
+                labels, cacheHits.sum());
+        writer.counter("lagent4j_web_search_backend_queries_total", "Queries sent to the search backend", labels,
+                backendQueries.sum());
+        writer.counter("lagent4j_web_search_backend_errors_total", "Backend queries that failed", labels,
+                backendErrors.sum());
+        writer.counter("lagent4j_web_search_timeouts_total", "Calls that returned before all queries completed",
+                labels, timeouts.sum());
+        synchronized (cache) {
+            writer.gauge("lagent4j_web_search_cache_entries", "Queries currently cached", labels, cache.size());
+        }
+    }
+
+    private CompletableFuture<List<SearchResult>> callBackend(String query, int count) {
+        backendQueries.increment();
+        CompletableFuture<List<SearchResult>> future;
+        try {
+            future = backend.search(query, count);
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        future.whenComplete((result, error) -> {
+            if (error != null) {
+                backendErrors.increment();
+                log.warn("Search backend failed for query '{}': {}", query, error.getMessage());
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 取出query和queries参数中去重后的关键词，最多maxQueries个
+     */
+    private List<String> queries(Map<String, Object> params) {
+        Set<String> queries = new LinkedHashSet<>();
+        Object query = params.get("query");
+        if (query != null && !query.toString().isBlank()) {
+            queries.add(query.toString().trim());
+        }
+        if (params.get("queries") instanceof List) {
+            for (Object item : (List<?>) params.get("queries")) {
+                if (item != null && !item.toString().isBlank()) {
+                    queries.add(item.toString().trim());
+                }
+            }
+        }
+        List<String> result = new ArrayList<>(queries);
+        return result.size() > maxQueries ? result.subList(0, maxQueries) : result;
+    }
+
+    /**
+     * 按名次交替合并各查询的结果，相同URL只保留第一次出现的结果
+     */
+    private static List<Map<String, String>> merge(List<List<SearchResult>> results) {
+        List<Map<String, String>> merged = new ArrayList<>();
+        Set<String> seen = new LinkedHashSet<>();
+        int longest = 0;
+        for (List<SearchResult> list : results) {
+            longest = Math.max(longest, list.size());
+        }
+        for (int rank = 0; rank < longest; rank++) {
+            for (List<SearchResult> list : results) {
+                if (rank < list.size()) {
+                    SearchResult result = list.get(rank);
+                    if (result.getUrl() == null || seen.add(result.getUrl())) {
+                        merged.add(result.toMap());
+                    }
+                }
+            }
+        }
+        return merged;
+    }
+
+    private static String errorMessage(CompletableFuture<?> future) {
+        try {
+            future.join();
+            return null;
+        } catch (Exception e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            return cause.getMessage();
+        }
+    }
+
+    private ActionReturn error(ActionStatusCode state, String message) {
+        return ActionReturn.builder()
+                .type(getName())
+                .state(state)
+                .errmsg(message)
+                .build();
+    }
+
+    /**
+     * 缓存的查询
+     */
+    private static final class CachedSearch {
+        final CompletableFuture<List<SearchResult>> future;
+        final long expiresAt;
+
+        CachedSearch(CompletableFuture<List<SearchResult>> future, long expiresAt) {
+            this.future = future;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * WebSearch构建器
+     */
+    public static class Builder {
+        private SearchBackend backend;
+        private Duration timeout = Duration.ofSeconds(15);
+        private int maxQueries = 5;
+        private int cacheSize = 256;
+        private Duration cacheTtl = Duration.ofMinutes(10);
+
+        /**
+         * 设置搜索后端
+         *
+         * @param backend 搜索后端，默认为{@link BingSearchBackend}
+         * @return 构建器
+         */
+        public Builder backend(SearchBackend backend) {
+            this.backend = backend;
+            return this;
+        }
+
+        /**
+         * 设置整次调用的超时时间，超时后返回已完成的查询结果
+         *
+         * @param timeout 超时时间，默认15秒
+         * @return 构建器
+         */
+        public Builder timeout(Duration timeout) {
+            if (timeout == null || timeout.isNegative() || timeout.isZero()) {
+                throw new IllegalArgumentException("超时时间必须大于0");
+            }
+            this.timeout = timeout;
+            return this;
+        }
+
+        /**
+         * 设置单次调用最多执行的查询数，多余的关键词被忽略
+         *
+         * @param maxQueries 查询数上限，默认为5
+         * @return 构建器
+         */
+        public Builder maxQueries(int maxQueries) {
+            if (maxQueries <= 0) {
+                throw new IllegalArgumentException("查询数上限必须大于0");
+            }
+            this.maxQueries = maxQueries;
+            return this;
+        }
+
+        /**
+         * 设置结果缓存的条目上限
+         *
+         * @param cacheSize 条目上限，默认为256，为0时不缓存
+         * @return 构建器
+         */
+        public Builder cacheSize(int cacheSize) {
+            if (cacheSize < 0) {
+                throw new IllegalArgumentException("缓存条目上限不能为负数");
+            }
+            this.cacheSize = cacheSize;
+            return this;
+        }
+
+        /**
+         * 设置结果缓存的有效期
+         *
+         * @param cacheTtl 有效期，默认10分钟
+         * @return 构建器
+         */
+        public Builder cacheTtl(Duration cacheTtl) {
+            if (cacheTtl == null || cacheTtl.isNegative()) {
+                throw new IllegalArgumentException("缓存有效期不能为负数");
+            }
+            this.cacheTtl = cacheTtl;
+            return this;
+        }
+
+        /**
+         * 构建WebSearch实例
+         *
+         * @return WebSearch实例
+         */
+        public WebSearch build() {
+            return new WebSearch(this);
         }
     }
-} 
\ No newline at end of file
+}
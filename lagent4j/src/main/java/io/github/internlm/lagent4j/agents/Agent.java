@@ -1,20 +1,36 @@
 package io.github.internlm.lagent4j.agents;
 
+import com.alibaba.fastjson2.JSON;
 import io.github.internlm.lagent4j.actions.ActionExecutor;
+import io.github.internlm.lagent4j.actions.ToolCatalog;
 import io.github.internlm.lagent4j.agents.aggregator.DefaultAggregator;
 import io.github.internlm.lagent4j.llms.BaseLLM;
 import io.github.internlm.lagent4j.memory.MemoryManager;
+import io.github.internlm.lagent4j.prompts.ParseResult;
 import io.github.internlm.lagent4j.prompts.Parser;
+import io.github.internlm.lagent4j.prompts.PromptRegistry;
+import io.github.internlm.lagent4j.prompts.PromptTemplate;
 import io.github.internlm.lagent4j.prompts.parsers.StrParser;
 import io.github.internlm.lagent4j.prompts.parsers.ToolParser;
 import io.github.internlm.lagent4j.schema.AgentMessage;
+import io.github.internlm.lagent4j.schema.AgentStatusCode;
+import io.github.internlm.lagent4j.schema.ChatMessage;
+import io.github.internlm.lagent4j.schema.FunctionCall;
 import io.github.internlm.lagent4j.schema.ModelStatusCode;
+import io.github.internlm.lagent4j.utils.TokenCounter;
 import lombok.Getter;
 import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 代理基类
@@ -22,6 +38,7 @@ import java.util.concurrent.CompletableFuture;
  * 代理是框架的基本单位，负责与LLM通信、管理内存和处理消息。
  * 这是一个抽象基类，提供了基本的代理功能，子类可以实现不同的消息处理方式。
  */
+@Slf4j
 public abstract class Agent {
     /**
      * 语言模型
@@ -84,8 +101,100 @@ public abstract class Agent {
     protected final ActionExecutor actionExecutor;
     
     /**
-     * 工具使用的提示模板
+     * 提示布局
      */
+    @Getter
+    @Setter
+    protected PromptLayout promptLayout = PromptLayout.INLINE;
+
+    /**
+     * 异步处理使用的执行上下文，模型调用和工具执行分别在各自的有界执行器中进行
+     */
+    @Getter
+    @Setter
+    protected AgentExecutionContext executionContext = AgentExecutionContext.shared();
+
+    /**
+     * 一轮中全部工具调用的总时限，超时未完成的调用以超时信息代替结果
+     */
+    @Getter
+    @Setter
+    protected Duration toolTurnTimeout = Duration.ofSeconds(60);
+
+    /**
+     * 一个工具调用无法解析或校验失败时，单独请求模型修正该调用的最大次数，为0时直接丢弃
+     */
+    @Getter
+    @Setter
+    protected int maxRepairAttempts = 1;
+
+    /**
+     * 工具调用阶段的解析失败率和浪费的token
+     */
+    @Getter
+    protected final ToolCallMetrics toolCallMetrics = new ToolCallMetrics(this::getName);
+
+    /**
+     * 前缀稳定布局下缓存的系统消息，工具列表变化时重建
+     */
+    private volatile ChatMessage toolSystemMessage;
+
+    /**
+     * 生成缓存系统消息时使用的工具描述
+     */
+    private volatile String toolSystemSource;
+
+    /**
+     * 生成缓存系统消息时使用的模板，模板重新加载后重建
+     */
+    private volatile PromptTemplate toolSystemTemplate;
+    
+    /**
+     * 带工具的系统提示模板，不包含任何与本轮对话相关的内容，变量：tools
+     */
+    protected static final String TOOL_SYSTEM_PROMPT = "tool_system";
+
+    /**
+     * 前缀稳定布局下工具决策阶段的指令
+     */
+    protected static final String TOOL_DECISION_INSTRUCTION_PROMPT = "tool_decision_instruction";
+
+    /**
+     * 前缀稳定布局下工具调用阶段的指令，变量：decision
+     */
+    protected static final String TOOL_CALL_INSTRUCTION_PROMPT = "tool_call_instruction";
+
+    /**
+     * 前缀稳定布局下结果总结阶段的指令，变量：result
+     */
+    protected static final String RESULT_SUMMARY_INSTRUCTION_PROMPT = "result_summary_instruction";
+
+    /**
+     * 工具使用的提示模板，变量：tools、question
+     */
+    protected static final String TOOL_DECISION_PROMPT = "tool_decision";
+
+    /**
+     * 工具调用的提示模板，变量：tools、question、decision
+     */
+    protected static final String TOOL_CALL_PROMPT = "tool_call";
+
+    /**
+     * 结果总结的提示模板，变量：question、result
+     */
+    protected static final String RESULT_SUMMARY_PROMPT = "result_summary";
+
+    /**
+     * 修正单个工具调用的提示模板，变量：tools、fragment、error
+     */
+    protected static final String TOOL_CALL_REPAIR_PROMPT = "tool_call_repair";
+
+    /**
+     * 工具使用的提示模板，参数依次为工具列表和用户问题
+     *
+     * @deprecated 代理已改为从{@link #prompts}中读取{@value #TOOL_DECISION_PROMPT}模板，修改提示请覆盖该模板；此常量只保留默认文本
+     */
+    @Deprecated
     protected static final String TOOL_DECISION_TEMPLATE = """
         你是一个可以使用工具的AI助手。请仔细分析用户的问题，判断是否需要使用工具来回答。
         
@@ -102,10 +211,13 @@ public abstract class Agent {
         
         用户问题：%s
         """;
-    
+
     /**
-     * 工具调用的提示模板
+     * 工具调用的提示模板，参数依次为工具列表、用户问题和之前的决策
+     *
+     * @deprecated 代理已改为从{@link #prompts}中读取{@value #TOOL_CALL_PROMPT}模板，修改提示请覆盖该模板；此常量只保留默认文本
      */
+    @Deprecated
     protected static final String TOOL_CALL_TEMPLATE = """
         你是一个可以使用工具的AI助手。请根据之前的决策，生成标准的工具调用格式。
         
@@ -120,16 +232,21 @@ public abstract class Agent {
         }
         </tool>
         
+        如果需要多个互不依赖的工具调用，可以连续输出多个<tool>块，它们会同时执行。
+        
         可用工具列表：
         %s
         
         用户问题：%s
         之前的决策：%s
         """;
-    
+
     /**
-     * 结果总结的提示模板
+     * 结果总结的提示模板，参数依次为原始问题和工具执行结果
+     *
+     * @deprecated 代理已改为从{@link #prompts}中读取{@value #RESULT_SUMMARY_PROMPT}模板，修改提示请覆盖该模板；此常量只保留默认文本
      */
+    @Deprecated
     protected static final String RESULT_SUMMARY_TEMPLATE = """
         你是一个可以使用工具的AI助手。请根据工具执行的结果，结合原始问题给出最终答案。
         
@@ -143,6 +260,14 @@ public abstract class Agent {
         工具执行结果：%s
         """;
 
+    /**
+     * 提示模板注册表，默认使用类路径中prompts目录下的模板；
+     * 换成带模板目录的注册表后，修改目录中的文件即可调整提示，不需要重新部署
+     */
+    @Getter
+    @Setter
+    protected PromptRegistry prompts = PromptRegistry.defaults();
+
     /**
      * 创建一个代理
      *
@@ -190,6 +315,8 @@ public abstract class Agent {
 
     /**
      * 处理工具调用
+     * <p>
+     * 同一轮的多个工具调用同时执行，见{@link #processToolCallsAsync(List)}
      *
      * @param toolCalls 工具调用列表
      * @return 工具执行结果
@@ -198,31 +325,92 @@ public abstract class Agent {
         if (actionExecutor == null || toolCalls == null || toolCalls.isEmpty()) {
             return null;
         }
+        return processToolCallsAsync(toolCalls).join();
+    }
+
+    /**
+     * 处理类型化的工具调用
+     *
+     * @param toolCalls 工具调用列表
+     * @return 工具执行结果
+     */
+    protected String processFunctionCalls(List<FunctionCall> toolCalls) {
+        if (actionExecutor == null || toolCalls == null || toolCalls.isEmpty()) {
+            return null;
+        }
+        return processFunctionCallsAsync(toolCalls).join();
+    }
+
+    /**
+     * 从解析结果中取出本轮的全部工具调用
+     *
+     * @param parsed 工具解析器的解析结果
+     * @return 工具调用列表，没有调用时返回空列表
+     */
+    @SuppressWarnings("unchecked")
+    protected List<Map<String, Object>> toToolCalls(Object parsed) {
+        if (!(parsed instanceof Map)) {
+            return List.of();
+        }
+        Map<String, Object> result = (Map<String, Object>) parsed;
+        Object toolCalls = result.get(ToolParser.TOOL_CALLS);
+        if (toolCalls instanceof List && !((List<?>) toolCalls).isEmpty()) {
+            return (List<Map<String, Object>>) toolCalls;
+        }
+        return result.get("name") != null ? List.of(result) : List.of();
+    }
 
-        StringBuilder result = new StringBuilder();
+    /**
+     * 从解析结果中取出本轮的全部工具调用
+     * <p>
+     * {@link ParseResult.ToolCalls}直接返回解析器绑定好的调用；其他解析结果和解析器返回的Map按{@link #toToolCalls(Object)}的规则转换
+     *
+     * @param parsed 工具解析器的解析结果
+     * @return 工具调用列表，没有调用时返回空列表
+     */
+    @SuppressWarnings("unchecked")
+    protected List<FunctionCall> toFunctionCalls(Object parsed) {
+        if (parsed instanceof ParseResult.ToolCalls toolCalls) {
+            return toolCalls.calls();
+        }
+        List<Map<String, Object>> toolCalls = toToolCalls(parsed instanceof ParseResult result ? result.toMap() : parsed);
+        List<FunctionCall> calls = new ArrayList<>(toolCalls.size());
         for (Map<String, Object> toolCall : toolCalls) {
-            String toolName = (String) toolCall.get("name");
-            @SuppressWarnings("unchecked")
-            Map<String, Object> parameters = (Map<String, Object>) toolCall.get("parameters");
-            
-            AgentMessage toolMessage = new AgentMessage("user", "");
-            toolMessage.setFormatted(Map.of(
-                "function_call", Map.of(
-                    "name", toolName,
-                    "arguments", parameters
-                )
-            ));
-            
-            try {
-                AgentMessage response = actionExecutor.process(toolMessage);
-                result.append("工具 ").append(toolName).append(" 执行结果:\n")
-                      .append(response.getContent()).append("\n\n");
-            } catch (Exception e) {
-                result.append("工具 ").append(toolName).append(" 执行失败: ")
-                      .append(e.getMessage()).append("\n\n");
-            }
+            Object arguments = toolCall.get("parameters");
+            calls.add(new FunctionCall((String) toolCall.get("name"),
+                    arguments instanceof Map ? (Map<String, Object>) arguments : null));
         }
-        return result.toString();
+        return calls;
+    }
+
+    /**
+     * 构建交给工具执行器的消息
+     *
+     * @param toolCall 工具调用
+     * @return 工具消息
+     */
+    protected static AgentMessage toToolMessage(Map<String, Object> toolCall) {
+        Map<String, Object> functionCall = new HashMap<>();
+        functionCall.put("name", toolCall.get("name"));
+        functionCall.put("arguments", toolCall.get("parameters"));
+        AgentMessage toolMessage = new AgentMessage("user", "");
+        toolMessage.setFormatted(Map.of("function_call", functionCall));
+        return toolMessage;
+    }
+
+    /**
+     * 构建交给工具执行器的消息
+     *
+     * @param toolCall 工具调用
+     * @return 工具消息
+     */
+    protected static AgentMessage toToolMessage(FunctionCall toolCall) {
+        Map<String, Object> functionCall = new HashMap<>();
+        functionCall.put("name", toolCall.getName());
+        functionCall.put("arguments", toolCall.getArguments());
+        AgentMessage toolMessage = new AgentMessage("user", "");
+        toolMessage.setFormatted(Map.of("function_call", functionCall));
+        return toolMessage;
     }
 
     /**
@@ -234,29 +422,7 @@ public abstract class Agent {
         }
 
         String toolInfo = actionExecutor.getToolsDescription();
-        String promptTemplate = """
-            你是一个可以使用工具的AI助手。在回答问题时，请严格按照以下格式：
-
-            思考：[分析问题，判断是否需要使用工具]
-
-            决策：[使用/不使用] 工具
-
-            如果决定使用工具，请按如下格式调用：
-            <tool>
-            {
-                "name": "工具名称",
-                "parameters": {
-                    "参数1": "值1",
-                    "参数2": "值2"
-                }
-            }
-            </tool>
-
-            最后总结：[根据工具执行结果给出最终答案]
-
-            可用工具列表：
-            %s
-            """.formatted(toolInfo);
+        String promptTemplate = prompt(TOOL_SYSTEM_PROMPT, "tools", toolInfo);
 
         if (template instanceof String) {
             template = promptTemplate;
@@ -270,6 +436,95 @@ public abstract class Agent {
         }
     }
 
+    /**
+     * 获取前缀稳定布局下的系统消息
+     * <p>
+     * 工具列表不变时返回同一个消息对象，其JSON编码只生成一次
+     *
+     * @return 系统消息
+     */
+    protected ChatMessage getToolSystemMessage() {
+        String toolInfo = actionExecutor.getToolsDescription();
+        PromptTemplate template = prompts.get(TOOL_SYSTEM_PROMPT);
+        ChatMessage cached = toolSystemMessage;
+        if (cached == null || !toolInfo.equals(toolSystemSource) || template != toolSystemTemplate) {
+            cached = ChatMessage.system(template.format(Map.of("tools", String.valueOf(toolInfo))));
+            cached.toJsonBytes();
+            toolSystemMessage = cached;
+            toolSystemSource = toolInfo;
+            toolSystemTemplate = template;
+        }
+        return cached;
+    }
+
+    /**
+     * 构建工具决策阶段的消息
+     *
+     * @param sessionId 会话ID
+     * @param question  用户问题
+     * @return 消息列表
+     */
+    protected List<ChatMessage> buildDecisionMessages(int sessionId, Object question) {
+        if (promptLayout == PromptLayout.PREFIX_STABLE) {
+            return aggregator.aggregatePrefixStable(memory.get(sessionId), name,
+                    getToolSystemMessage(), prompts.get(TOOL_DECISION_INSTRUCTION_PROMPT).getTemplate());
+        }
+        return aggregator.aggregateMessages(memory.get(sessionId), name, outputFormat,
+                prompt(TOOL_DECISION_PROMPT, "tools", actionExecutor.getToolsDescription(), "question", question));
+    }
+
+    /**
+     * 构建工具调用阶段的消息
+     *
+     * @param sessionId 会话ID
+     * @param question  用户问题
+     * @param decision  工具决策阶段的回复
+     * @return 消息列表
+     */
+    protected List<ChatMessage> buildToolCallMessages(int sessionId, Object question, String decision) {
+        if (promptLayout == PromptLayout.PREFIX_STABLE) {
+            return aggregator.aggregatePrefixStable(memory.get(sessionId), name,
+                    getToolSystemMessage(), prompt(TOOL_CALL_INSTRUCTION_PROMPT, "decision", decision));
+        }
+        return aggregator.aggregateMessages(memory.get(sessionId), name, outputFormat,
+                prompt(TOOL_CALL_PROMPT, "tools", actionExecutor.getToolsDescription(), "question", question,
+                        "decision", decision));
+    }
+
+    /**
+     * 构建结果总结阶段的消息
+     *
+     * @param sessionId  会话ID
+     * @param question   用户问题
+     * @param toolResult 工具执行结果
+     * @return 消息列表
+     */
+    protected List<ChatMessage> buildSummaryMessages(int sessionId, Object question, String toolResult) {
+        if (promptLayout == PromptLayout.PREFIX_STABLE) {
+            return aggregator.aggregatePrefixStable(memory.get(sessionId), name,
+                    getToolSystemMessage(), prompt(RESULT_SUMMARY_INSTRUCTION_PROMPT, "result", toolResult));
+        }
+        return aggregator.aggregateMessages(memory.get(sessionId), name, outputFormat,
+                prompt(RESULT_SUMMARY_PROMPT, "question", question, "result", toolResult));
+    }
+
+    /**
+     * 按名称填充提示模板
+     * <p>
+     * 变量值为null时与String.format一样填入"null"，而不是保留变量原样
+     *
+     * @param name            模板名称
+     * @param namesAndValues 交替排列的变量名和变量值
+     * @return 填充后的文本
+     */
+    protected String prompt(String name, Object... namesAndValues) {
+        Map<String, Object> variables = new HashMap<>(namesAndValues.length);
+        for (int i = 0; i + 1 < namesAndValues.length; i += 2) {
+            variables.put((String) namesAndValues[i], String.valueOf(namesAndValues[i + 1]));
+        }
+        return prompts.get(name).format(variables);
+    }
+
     /**
      * 更新内存
      *
@@ -291,14 +546,12 @@ public abstract class Agent {
      */
     protected AgentMessage processWithTools(AgentMessage message, int sessionId) {
         // 第一步：判断是否需要使用工具
-        String toolDecisionPrompt = String.format(TOOL_DECISION_TEMPLATE, 
-            actionExecutor.getToolsDescription(),
-            message.getContent());
+        String toolDecisionPrompt = prompt(TOOL_DECISION_PROMPT,
+            "tools", actionExecutor.getToolsDescription(),
+            "question", message.getContent());
         
-        List<Map<String, String>> decisionMessages = List.of(
-            Map.of("role", "system", "content", toolDecisionPrompt)
-        );
-        String decisionResponse = llm.chat(decisionMessages);
+        List<ChatMessage> decisionMessages = List.of(ChatMessage.system(toolDecisionPrompt));
+        String decisionResponse = llm.chatMessages(decisionMessages);
         
         // 如果决定不使用工具，直接返回响应
         if (!decisionResponse.contains("决策：使用工具")) {
@@ -306,26 +559,19 @@ public abstract class Agent {
         }
         
         // 第二步：生成工具调用格式
-        String toolCallPrompt = String.format(TOOL_CALL_TEMPLATE,
-            actionExecutor.getToolsDescription(),
-            message.getContent(),
-            decisionResponse);
+        String toolCallPrompt = prompt(TOOL_CALL_PROMPT,
+            "tools", actionExecutor.getToolsDescription(),
+            "question", message.getContent(),
+            "decision", decisionResponse);
         
-        List<Map<String, String>> toolCallMessages = List.of(
-            Map.of("role", "system", "content", toolCallPrompt)
-        );
-        String toolCallResponse = llm.chat(toolCallMessages);
+        List<ChatMessage> toolCallMessages = List.of(ChatMessage.system(toolCallPrompt));
+        String toolCallResponse = chatMessages(toolCallMessages, toolCallParams());
         
         // 第三步：解析并执行工具调用
         String toolResult = null;
         if (outputFormat != null) {
-            Object parsed = outputFormat.parseResponse(toolCallResponse);
-            if (parsed instanceof Map) {
-                @SuppressWarnings("unchecked")
-                Map<String, Object> toolCall = (Map<String, Object>) parsed;
-                List<Map<String, Object>> toolCalls = List.of(toolCall);
-                toolResult = processToolCalls(toolCalls);
-            }
+            toolResult = processFunctionCalls(
+                    resolveToolCallsAsync(toolCallResponse, outputFormat.parse(toolCallResponse)).join());
         }
         
         // 如果工具执行失败，返回错误信息
@@ -334,19 +580,376 @@ public abstract class Agent {
         }
         
         // 第四步：根据工具结果生成最终答案
-        String summaryPrompt = String.format(RESULT_SUMMARY_TEMPLATE,
-            message.getContent(),
-            toolResult);
+        String summaryPrompt = prompt(RESULT_SUMMARY_PROMPT,
+            "question", message.getContent(),
+            "result", toolResult);
         
-        List<Map<String, String>> summaryMessages = List.of(
-            Map.of("role", "system", "content", summaryPrompt)
-        );
-        String summaryResponse = llm.chat(summaryMessages);
+        List<ChatMessage> summaryMessages = List.of(ChatMessage.system(summaryPrompt));
+        String summaryResponse = llm.chatMessages(summaryMessages);
         
         return new AgentMessage("assistant", summaryResponse);
     }
 
 
+    /**
+     * 在模型调用执行器中调用语言模型
+     *
+     * @param messages 消息列表
+     * @return 模型回复的Future
+     */
+    protected CompletableFuture<String> chatAsync(List<ChatMessage> messages) {
+        return AgentExecutionContext.supplyAsync(() -> llm.chatMessages(messages), executionContext.getLlm());
+    }
+
+    /**
+     * 在模型调用执行器中带参数调用语言模型
+     *
+     * @param messages 消息列表
+     * @param params   额外的请求参数，为null时与{@link #chatAsync(List)}相同
+     * @return 模型回复的Future
+     */
+    protected CompletableFuture<String> chatAsync(List<ChatMessage> messages, Map<String, Object> params) {
+        return AgentExecutionContext.supplyAsync(() -> chatMessages(messages, params), executionContext.getLlm());
+    }
+
+    /**
+     * 带参数调用语言模型，参数为null时调用不带参数的方法
+     *
+     * @param messages 消息列表
+     * @param params   额外的请求参数
+     * @return 模型回复
+     */
+    protected String chatMessages(List<ChatMessage> messages, Map<String, Object> params) {
+        return params != null ? llm.chatMessages(messages, params) : llm.chatMessages(messages);
+    }
+
+    /**
+     * 工具调用阶段的请求参数
+     * <p>
+     * 模型支持结构化输出时返回由工具目录生成的{@code response_format}，模型只能输出符合Schema的调用JSON，
+     * 工具名称和参数结构在生成时就受到约束，不需要事后解析失败再重试
+     *
+     * @return 请求参数，不使用结构化输出时返回null
+     */
+    protected Map<String, Object> toolCallParams() {
+        if (actionExecutor == null || !llm.supportsStructuredOutput()) {
+            return null;
+        }
+        ToolCatalog catalog = actionExecutor.getCatalog();
+        if (catalog == null || catalog.isEmpty()) {
+            return null;
+        }
+        return Map.of("response_format", catalog.getResponseFormat());
+    }
+
+    /**
+     * 取出本轮可以执行的工具调用，只对有问题的调用单独请求修正
+     * <p>
+     * 无法解析的工具块和{@link ActionExecutor#checkCall(FunctionCall)}不通过的调用各自发送一个小请求，
+     * 请求中只包含工具列表、该调用的原文和错误信息，不重新生成整轮回复，也不重复执行已经正确的调用。
+     * 修正后的调用放回原来的位置；最多修正{@link #maxRepairAttempts}次仍然无效的调用被丢弃。
+     * 回复中完全没有工具块时把整个回复当作待修正的调用。结果记录到{@link #toolCallMetrics}
+     *
+     * @param response 工具调用阶段的模型回复
+     * @param parsed   回复的解析结果，为null时返回空列表
+     * @return 可以执行的工具调用的Future
+     */
+    protected CompletableFuture<List<FunctionCall>> resolveToolCallsAsync(String response, ParseResult parsed) {
+        if (parsed == null) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        List<FunctionCall> calls = toFunctionCalls(parsed);
+        List<ParseResult.ToolCalls.Malformed> malformed = parsed instanceof ParseResult.ToolCalls toolCalls
+                ? toolCalls.errors() : List.of();
+
+        // 按原来的顺序排列：每个位置是一个有效调用，或者一个待修正的调用
+        List<CompletableFuture<FunctionCall>> slots = new ArrayList<>(calls.size() + malformed.size());
+        LongAdder wasted = new LongAdder();
+        int failures = 0;
+        int next = 0;
+        for (int i = 0; i <= calls.size(); i++) {
+            while (next < malformed.size() && malformed.get(next).position() <= i) {
+                ParseResult.ToolCalls.Malformed error = malformed.get(next++);
+                slots.add(repairToolCallAsync(error.fragment(), error.message(), wasted));
+                failures++;
+            }
+            if (i == calls.size()) {
+                break;
+            }
+            FunctionCall call = calls.get(i);
+            String error = actionExecutor != null ? actionExecutor.checkCall(call) : null;
+            if (error == null) {
+                slots.add(CompletableFuture.completedFuture(call));
+            } else {
+                slots.add(repairToolCallAsync(JSON.toJSONString(ParseResult.ToolCalls.toMap(call)), error, wasted));
+                failures++;
+            }
+        }
+        if (slots.isEmpty() && !parsed.success() && response != null && !response.isBlank()) {
+            slots.add(repairToolCallAsync(response, "没有找到工具调用", wasted));
+            failures++;
+        }
+        if (failures == 0) {
+            toolCallMetrics.recordTurn(0, 0, 0);
+            return CompletableFuture.completedFuture(calls);
+        }
+
+        int failed = failures;
+        return CompletableFuture.allOf(slots.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            List<FunctionCall> resolved = new ArrayList<>(slots.size());
+            for (CompletableFuture<FunctionCall> slot : slots) {
+                FunctionCall call = slot.join();
+                if (call != null) {
+                    resolved.add(call);
+                }
+            }
+            int repaired = failed - (slots.size() - resolved.size());
+            toolCallMetrics.recordTurn(failed, repaired, wasted.sum());
+            return resolved;
+        });
+    }
+
+    /**
+     * 请求模型修正一个工具调用
+     *
+     * @param fragment 调用原文
+     * @param error    错误信息
+     * @param wasted   累计本轮浪费的token
+     * @return 修正后的调用的Future，修正失败时为null
+     */
+    private CompletableFuture<FunctionCall> repairToolCallAsync(String fragment, String error, LongAdder wasted) {
+        wasted.add(TokenCounter.estimate(fragment));
+        if (maxRepairAttempts <= 0 || actionExecutor == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return repairToolCallAsync(fragment, error, wasted, 1);
+    }
+
+    private CompletableFuture<FunctionCall> repairToolCallAsync(String fragment, String error, LongAdder wasted,
+                                                                int attempt) {
+        String repairPrompt = prompt(TOOL_CALL_REPAIR_PROMPT, "tools", actionExecutor.getToolsDescription(),
+                "fragment", fragment, "error", error);
+        wasted.add(TokenCounter.estimate(repairPrompt));
+        return chatAsync(List.of(ChatMessage.system(repairPrompt)), toolCallParams())
+                .exceptionally(e -> null)
+                .thenCompose(response -> {
+                    if (response == null) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    wasted.add(TokenCounter.estimate(response));
+                    List<FunctionCall> repaired = toFunctionCalls(getToolParser().parse(response));
+                    String retryError = repaired.isEmpty() ? "没有找到工具调用" : actionExecutor.checkCall(repaired.get(0));
+                    if (retryError == null) {
+                        return CompletableFuture.completedFuture(repaired.get(0));
+                    }
+                    if (attempt >= maxRepairAttempts) {
+                        log.debug("工具调用修正失败: {}", retryError);
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    return repairToolCallAsync(response, retryError, wasted, attempt + 1);
+                });
+    }
+
+    /**
+     * 在工具执行器中处理工具调用
+     * <p>
+     * 每个调用分别提交到工具执行器，本轮耗时取决于最慢的调用而不是全部调用之和。
+     * 结果按调用顺序合并；超过{@link #toolTurnTimeout}仍未完成的调用以超时信息代替结果，
+     * 其余调用的结果照常返回
+     *
+     * @param toolCalls 工具调用列表
+     * @return 工具执行结果的Future
+     */
+    protected CompletableFuture<String> processToolCallsAsync(List<Map<String, Object>> toolCalls) {
+        if (actionExecutor == null || toolCalls == null || toolCalls.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        List<String> toolNames = new ArrayList<>(toolCalls.size());
+        List<AgentMessage> toolMessages = new ArrayList<>(toolCalls.size());
+        for (Map<String, Object> toolCall : toolCalls) {
+            toolNames.add((String) toolCall.get("name"));
+            toolMessages.add(toToolMessage(toolCall));
+        }
+        return executeToolMessages(toolNames, toolMessages);
+    }
+
+    /**
+     * 在工具执行器中处理类型化的工具调用，执行方式与{@link #processToolCallsAsync(List)}相同
+     *
+     * @param toolCalls 工具调用列表
+     * @return 工具执行结果的Future
+     */
+    protected CompletableFuture<String> processFunctionCallsAsync(List<FunctionCall> toolCalls) {
+        if (actionExecutor == null || toolCalls == null || toolCalls.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        List<String> toolNames = new ArrayList<>(toolCalls.size());
+        List<AgentMessage> toolMessages = new ArrayList<>(toolCalls.size());
+        for (FunctionCall toolCall : toolCalls) {
+            toolNames.add(toolCall.getName());
+            toolMessages.add(toToolMessage(toolCall));
+        }
+        return executeToolMessages(toolNames, toolMessages);
+    }
+
+    /**
+     * 把每个工具消息分别提交到工具执行器，按顺序合并结果
+     */
+    private CompletableFuture<String> executeToolMessages(List<String> toolNames, List<AgentMessage> toolMessages) {
+        List<CompletableFuture<String>> results = new ArrayList<>(toolMessages.size());
+        for (int i = 0; i < toolMessages.size(); i++) {
+            results.add(executeToolMessage(toolNames.get(i), toolMessages.get(i)));
+        }
+        return mergeToolResults(toolNames, results);
+    }
+
+    /**
+     * 在工具执行器中分发一个工具消息
+     * <p>
+     * 工具执行器的线程只做分发，动作由{@link ActionExecutor#processAsync(AgentMessage)}在动作执行器中异步执行，
+     * 不会有线程阻塞等待动作结束。返回的Future被取消时同时取消正在执行的动作
+     *
+     * @param toolName    工具名称
+     * @param toolMessage 工具消息
+     * @return 格式化后结果的Future
+     */
+    private CompletableFuture<String> executeToolMessage(String toolName, AgentMessage toolMessage) {
+        CompletableFuture<String> formatted = new CompletableFuture<>();
+        AgentExecutionContext.supplyAsync(() -> {
+            if (formatted.isDone()) {
+                return null;
+            }
+            CompletableFuture<AgentMessage> response = actionExecutor.processAsync(toolMessage);
+            propagateCancellation(formatted, response);
+            response.handle((message, error) -> formatted.complete(formatToolResult(toolName, message, error)));
+            return null;
+        }, executionContext.getTools()).exceptionally(error -> {
+            formatted.complete(formatToolResult(toolName, null, error));
+            return null;
+        });
+        return formatted;
+    }
+
+    /**
+     * 派生的Future被取消时取消原Future，CompletableFuture本身不会向上传播取消
+     *
+     * @param derived 派生的Future
+     * @param source  原Future
+     * @param <T>     结果类型
+     * @return 派生的Future
+     */
+    protected static <T> CompletableFuture<T> propagateCancellation(CompletableFuture<T> derived,
+                                                                    CompletableFuture<?> source) {
+        derived.whenComplete((value, error) -> {
+            if (derived.isCancelled()) {
+                source.cancel(true);
+            }
+        });
+        return derived;
+    }
+
+    /**
+     * 格式化单个工具的执行结果
+     *
+     * @param toolName 工具名称
+     * @param response 工具执行器的响应，执行失败时为null
+     * @param error    执行失败的异常，成功时为null
+     * @return 格式化后的结果
+     */
+    protected static String formatToolResult(String toolName, AgentMessage response, Throwable error) {
+        if (error != null) {
+            Throwable cause = error.getCause() != null ? error.getCause() : error;
+            return "工具 " + toolName + " 执行失败: " + cause.getMessage() + "\n\n";
+        }
+        return "工具 " + toolName + " 执行结果:\n" + response.getContent() + "\n\n";
+    }
+
+    /**
+     * 按调用顺序合并一轮的工具结果，超过{@link #toolTurnTimeout}仍未完成的调用被取消，以超时信息代替
+     *
+     * @param toolNames 工具名称
+     * @param results   各调用格式化后结果的Future
+     * @return 合并结果的Future
+     */
+    protected CompletableFuture<String> mergeToolResults(List<String> toolNames,
+                                                         List<CompletableFuture<String>> results) {
+        long timeoutMillis = toolTurnTimeout.toMillis();
+        return CompletableFuture.allOf(results.toArray(new CompletableFuture[0]))
+                .completeOnTimeout(null, timeoutMillis, TimeUnit.MILLISECONDS)
+                .thenApply(ignored -> {
+                    StringBuilder merged = new StringBuilder();
+                    for (int i = 0; i < results.size(); i++) {
+                        // 已完成的调用取消失败，直接取结果；仍在执行的调用被取消，不再占用动作执行器
+                        CompletableFuture<String> result = results.get(i);
+                        merged.append(result.cancel(true)
+                                ? "工具 " + toolNames.get(i) + " 执行超时（本轮限时" + timeoutMillis + "毫秒）\n\n"
+                                : result.join());
+                    }
+                    return merged.toString();
+                });
+    }
+
+    /**
+     * 解析模型生成的工具调用
+     *
+     * @param response 模型回复
+     * @return 解析结果，没有解析器时返回null
+     */
+    protected ParseResult parseToolCall(String response) {
+        Parser parser = getToolParser();
+        return parser != null ? parser.parse(response) : null;
+    }
+
+    /**
+     * 异步前向处理
+     * <p>
+     * 各阶段通过thenCompose串联：模型调用在模型执行器中进行，工具在工具执行器中执行，
+     * 拼装消息和解析回复在编排执行器中进行，任何线程都不会阻塞等待另一个异步任务
+     *
+     * @param messages  消息列表
+     * @param sessionId 会话ID
+     * @return 响应消息的Future
+     */
+    protected CompletableFuture<AgentMessage> forwardAsync(List<AgentMessage> messages, int sessionId) {
+        // 如果没有工具执行器，直接调用语言模型
+        if (actionExecutor == null) {
+            List<ChatMessage> formattedMessages = aggregator.aggregateMessages(
+                memory.get(sessionId), name, outputFormat, template);
+            return chatAsync(formattedMessages).thenApply(response -> new AgentMessage(name, response));
+        }
+
+        Executor orchestration = executionContext.getOrchestration();
+        Object question = messages.get(messages.size() - 1).getContent();
+
+        // 第一步：判断是否需要使用工具
+        return chatAsync(buildDecisionMessages(sessionId, question)).thenComposeAsync(decisionResponse -> {
+            // 如果决定不使用工具，直接返回响应
+            if (!decisionResponse.contains("决策：使用工具")) {
+                return CompletableFuture.completedFuture(new AgentMessage(name, decisionResponse));
+            }
+
+            // 第二步：生成工具调用格式
+            return chatAsync(buildToolCallMessages(sessionId, question, decisionResponse), toolCallParams())
+                .thenComposeAsync(toolCallResponse -> {
+                    // 第三步：解析工具调用，修正有问题的调用后执行
+                    return resolveToolCallsAsync(toolCallResponse, parseToolCall(toolCallResponse))
+                        .thenCompose(this::processFunctionCallsAsync);
+                }, orchestration)
+                .thenComposeAsync(toolResult -> {
+                    // 如果工具执行失败，返回错误信息
+                    if (toolResult == null || toolResult.isEmpty()) {
+                        return CompletableFuture.completedFuture(new AgentMessage(name, "工具执行失败，无法获取结果"));
+                    }
+
+                    // 第四步：根据工具结果生成最终答案
+                    return chatAsync(buildSummaryMessages(sessionId, question, toolResult))
+                        .thenApply(summaryResponse -> new AgentMessage(name, summaryResponse));
+                }, orchestration);
+        }, orchestration);
+    }
+
     protected  Parser getToolParser() {
         if (toolOutputFormat == null){
             return (toolOutputFormat=new ToolParser());
@@ -405,5 +1008,20 @@ public abstract class Agent {
          * 处理完成
          */
         void onComplete();
+
+        /**
+         * 处理工具事件
+         * <p>
+         * 工具开始执行时以{@link AgentStatusCode#PLUGIN_START}通知，chunk为空；每段部分结果以
+         * {@link AgentStatusCode#PLUGIN_RETURN}通知；执行结束时以{@link AgentStatusCode#PLUGIN_END}通知，
+         * chunk为完整结果。代码解释器的对应事件为{@link AgentStatusCode#CODING}、{@link AgentStatusCode#CODE_RETURN}
+         * 和{@link AgentStatusCode#CODE_END}。默认忽略工具事件
+         *
+         * @param toolName 工具名称
+         * @param chunk    工具输出
+         * @param state    工具状态
+         */
+        default void onToolChunk(String toolName, String chunk, AgentStatusCode state) {
+        }
     }
 } 
\ No newline at end of file
@@ -0,0 +1,313 @@
+package io.github.internlm.lagent4j.agents;
+
+import io.github.internlm.lagent4j.metrics.Histogram;
+import io.github.internlm.lagent4j.metrics.MetricSource;
+import io.github.internlm.lagent4j.metrics.MetricWriter;
+import io.github.internlm.lagent4j.utils.VirtualThreads;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 代理执行上下文
+ * <p>
+ * 为代理提供三个相互独立的执行器：编排（拼装消息、解析回复）、模型调用和工具执行。
+ * 默认每个执行器都是线程数和队列长度有界的线程池，队列满时拒绝新任务而不是无限堆积，
+ * 阻塞的模型或工具调用也不会占用公共ForkJoinPool。各执行器的排队深度、活跃任务数、
+ * 排队耗时和拒绝次数可以通过{@link MetricSource}导出。
+ * <p>
+ * 多个代理可以共享同一个上下文；不指定时代理使用{@link #shared()}。共享上下文在进程内一直可用，
+ * 不能被{@link #close()}关闭。
+ */
+public class AgentExecutionContext implements MetricSource, AutoCloseable {
+    /**
+     * 微秒换算为秒的系数
+     */
+    private static final double MICROS_TO_SECONDS = 1e-6;
+
+    /**
+     * 编排执行器
+     */
+    @Getter
+    private final Pool orchestration;
+
+    /**
+     * 模型调用执行器
+     */
+    @Getter
+    private final Pool llm;
+
+    /**
+     * 工具执行器
+     */
+    @Getter
+    private final Pool tools;
+
+    private AgentExecutionContext(Builder builder) {
+        this.orchestration = builder.newPool("orchestration", builder.orchestrationExecutor, builder.orchestrationThreads);
+        this.llm = builder.newPool("llm", builder.llmExecutor, builder.llmThreads);
+        this.tools = builder.newPool("tools", builder.toolExecutor, builder.toolThreads);
+    }
+
+    /**
+     * 获取进程内共享的默认上下文，首次使用时创建，线程均为守护线程
+     *
+     * @return 共享上下文
+     */
+    public static AgentExecutionContext shared() {
+        return SharedHolder.INSTANCE;
+    }
+
+    /**
+     * 在指定执行器上异步执行任务，执行器拒绝时返回异常完成的Future而不是直接抛出
+     *
+     * @param supplier 任务
+     * @param executor 执行器
+     * @param <T>      结果类型
+     * @return 任务结果的Future
+     */
+    public static <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier, Executor executor) {
+        try {
+            return CompletableFuture.supplyAsync(supplier, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public void collect(MetricWriter writer) {
+        for (Pool pool : List.of(orchestration, llm, tools)) {
+            Map<String, String> labels = Map.of("pool", pool.name);
+            writer.gauge("lagent4j_executor_queue_depth", "Tasks waiting for a thread", labels,
+                    pool.pending.sum());
+            writer.gauge("lagent4j_executor_active", "Tasks currently running", labels, pool.active.sum());
+            writer.counter("lagent4j_executor_completed_total", "Tasks finished", labels, pool.completed.sum());
+            writer.counter("lagent4j_executor_rejected_total", "Tasks rejected because the queue was full", labels,
+                    pool.rejected.sum());
+            writer.summary("lagent4j_executor_queue_wait_seconds", "Time from submission to execution", labels,
+                    pool.queueWait, MICROS_TO_SECONDS);
+        }
+    }
+
+    /**
+     * 关闭所有执行器，包括通过Builder传入的执行器
+     * <p>
+     * 只有通过{@link Builder}创建的上下文可以关闭；{@link #shared()}返回的共享上下文被所有代理使用，
+     * 对它调用此方法不做任何事
+     */
+    @Override
+    public void close() {
+        if (this == SharedHolder.INSTANCE) {
+            return;
+        }
+        for (Pool pool : List.of(orchestration, llm, tools)) {
+            pool.delegate.shutdown();
+        }
+        for (Pool pool : List.of(orchestration, llm, tools)) {
+            try {
+                if (!pool.delegate.awaitTermination(30, TimeUnit.SECONDS)) {
+                    pool.delegate.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                pool.delegate.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 带统计的执行器
+     */
+    @Getter
+    public static final class Pool implements Executor {
+        /**
+         * 执行器名称
+         */
+        private final String name;
+
+        /**
+         * 实际执行任务的执行器
+         */
+        @Getter(AccessLevel.NONE)
+        private final ExecutorService delegate;
+
+        /**
+         * 已提交但尚未开始的任务数
+         */
+        private final LongAdder pending = new LongAdder();
+
+        /**
+         * 正在执行的任务数
+         */
+        private final LongAdder active = new LongAdder();
+
+        /**
+         * 已完成的任务数
+         */
+        private final LongAdder completed = new LongAdder();
+
+        /**
+         * 被拒绝的任务数
+         */
+        private final LongAdder rejected = new LongAdder();
+
+        /**
+         * 排队耗时（微秒）
+         */
+        private final Histogram queueWait = new Histogram();
+
+        Pool(String name, ExecutorService delegate) {
+            this.name = name;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            long enqueued = System.nanoTime();
+            pending.increment();
+            try {
+                delegate.execute(() -> {
+                    pending.decrement();
+                    active.increment();
+                    queueWait.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - enqueued));
+                    try {
+                        command.run();
+                    } finally {
+                        active.decrement();
+                        completed.increment();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                pending.decrement();
+                rejected.increment();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 共享上下文的延迟初始化持有类
+     */
+    private static final class SharedHolder {
+        private static final AgentExecutionContext INSTANCE = new Builder().build();
+    }
+
+    /**
+     * 执行上下文构建器
+     */
+    public static class Builder {
+        private int orchestrationThreads = Runtime.getRuntime().availableProcessors();
+        private int llmThreads = 64;
+        private int toolThreads = Runtime.getRuntime().availableProcessors() * 2;
+        private int queueCapacity = 1024;
+        private ExecutorService orchestrationExecutor;
+        private ExecutorService llmExecutor;
+        private ExecutorService toolExecutor;
+
+        /**
+         * 设置编排线程数，默认为处理器核数
+         */
+        public Builder orchestrationThreads(int orchestrationThreads) {
+            this.orchestrationThreads = orchestrationThreads;
+            return this;
+        }
+
+        /**
+         * 设置模型调用线程数，即同时进行的阻塞式模型请求上限，默认64
+         */
+        public Builder llmThreads(int llmThreads) {
+            this.llmThreads = llmThreads;
+            return this;
+        }
+
+        /**
+         * 设置工具执行线程数，默认为处理器核数的两倍
+         */
+        public Builder toolThreads(int toolThreads) {
+            this.toolThreads = toolThreads;
+            return this;
+        }
+
+        /**
+         * 设置每个线程池的等待队列长度，默认1024
+         */
+        public Builder queueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        /**
+         * 使用外部执行器执行编排任务
+         */
+        public Builder orchestrationExecutor(ExecutorService executor) {
+            this.orchestrationExecutor = executor;
+            return this;
+        }
+
+        /**
+         * 使用外部执行器执行模型调用
+         */
+        public Builder llmExecutor(ExecutorService executor) {
+            this.llmExecutor = executor;
+            return this;
+        }
+
+        /**
+         * 使用外部执行器执行工具
+         */
+        public Builder toolExecutor(ExecutorService executor) {
+            this.toolExecutor = executor;
+            return this;
+        }
+
+        /**
+         * 模型调用和工具执行使用虚拟线程，编排仍使用有界线程池；当前JDK不支持时退回到平台线程
+         */
+        public Builder virtualThreads() {
+            this.llmExecutor = VirtualThreads.newExecutor("lagent4j-llm-");
+            this.toolExecutor = VirtualThreads.newExecutor("lagent4j-tools-");
+            return this;
+        }
+
+        public AgentExecutionContext build() {
+            if (orchestrationThreads <= 0 || llmThreads <= 0 || toolThreads <= 0 || queueCapacity <= 0) {
+                throw new IllegalStateException("Thread counts and queue capacity must be positive");
+            }
+            return new AgentExecutionContext(this);
+        }
+
+        private Pool newPool(String name, ExecutorService external, int threads) {
+            if (external != null) {
+                return new Pool(name, external);
+            }
+            AtomicLong counter = new AtomicLong();
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                    threads,
+                    threads,
+                    60L,
+                    TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "lagent4j-" + name + "-" + counter.getAndIncrement());
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    new ThreadPoolExecutor.AbortPolicy()
+            );
+            executor.allowCoreThreadTimeOut(true);
+            return new Pool(name, executor);
+        }
+    }
+}
@@ -1,17 +1,25 @@
 package io.github.internlm.lagent4j.agents;
 
 import io.github.internlm.lagent4j.actions.ActionExecutor;
+import io.github.internlm.lagent4j.actions.StreamingAction;
 import io.github.internlm.lagent4j.agents.aggregator.DefaultAggregator;
 import io.github.internlm.lagent4j.llms.BaseLLM;
+import io.github.internlm.lagent4j.prompts.ParseResult;
 import io.github.internlm.lagent4j.prompts.Parser;
 import io.github.internlm.lagent4j.schema.AgentMessage;
+import io.github.internlm.lagent4j.schema.AgentStatusCode;
+import io.github.internlm.lagent4j.schema.ChatMessage;
+import io.github.internlm.lagent4j.schema.FunctionCall;
 import io.github.internlm.lagent4j.schema.ModelStatusCode;
+import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * 异步流式代理实现
@@ -20,6 +28,12 @@ import java.util.concurrent.CompletableFuture;
  */
 @Slf4j
 public class AsyncStreamAgent extends Agent {
+    /**
+     * 工具部分结果累计达到该字符数时用截断的前缀提前开始总结，0表示等待全部工具结束
+     */
+    @Getter
+    @Setter
+    private volatile int earlySummaryChars = 0;
     
     /**
      * 创建一个异步流式代理
@@ -61,20 +75,17 @@ public class AsyncStreamAgent extends Agent {
 
     @Override
     public CompletableFuture<AgentMessage> processAsync(AgentMessage message, int sessionId) {
-        return CompletableFuture.supplyAsync(() -> {
-            // 处理输入消息
-            List<AgentMessage> messages = new ArrayList<>();
-            messages.add(message);
-            
-            // 更新内存
-            updateMemory(message, sessionId);
-            
-            // 处理消息并生成响应
-            AgentMessage responseMessage = forwardAsync(messages, sessionId).join();
-            
+        // 处理输入消息
+        List<AgentMessage> messages = new ArrayList<>();
+        messages.add(message);
+        
+        // 更新内存
+        updateMemory(message, sessionId);
+        
+        // 处理消息并生成响应，不在执行器线程中等待另一个异步任务
+        return forwardAsync(messages, sessionId).thenApply(responseMessage -> {
             // 更新内存
             updateMemory(responseMessage, sessionId);
-            
             return responseMessage;
         });
     }
@@ -95,12 +106,7 @@ public class AsyncStreamAgent extends Agent {
         }
 
         // 第一步：判断是否需要使用工具
-        List<Map<String, String>> decisionMessages = aggregator.aggregate(
-            memory.get(sessionId), name, outputFormat, TOOL_DECISION_TEMPLATE.formatted(
-                actionExecutor.getToolsDescription(),
-                message.getContent()
-            )
-        );
+        List<ChatMessage> decisionMessages = buildDecisionMessages(sessionId, message.getContent());
         
         // 用于累积决策内容和状态
         StringBuilder decisionBuilder = new StringBuilder();
@@ -109,7 +115,7 @@ public class AsyncStreamAgent extends Agent {
         }
         DecisionState state = new DecisionState();
 
-        llm.chatStream(decisionMessages,
+        llm.chatMessagesStream(decisionMessages, null,
             decisionChunk -> {
                 log.debug("思考中");
                 callback.onChunk(decisionChunk, ModelStatusCode.GENERATING);
@@ -135,52 +141,27 @@ public class AsyncStreamAgent extends Agent {
                 // 判断是否需要使用工具
                 if (fullDecision.contains("决策：使用工具")) {
                     state.made = true;
-                    List<Map<String, String>> toolCallMessages = aggregator.aggregate(
-                        memory.get(sessionId), name, outputFormat, TOOL_CALL_TEMPLATE.formatted(
-                            actionExecutor.getToolsDescription(),
-                            message.getContent(),
-                            fullDecision
-                        )
-                    );
+                    List<ChatMessage> toolCallMessages = buildToolCallMessages(
+                        sessionId, message.getContent(), fullDecision);
                     
-                    String toolCallResponse = llm.chat(toolCallMessages);
+                    String toolCallResponse = chatMessages(toolCallMessages, toolCallParams());
                     log.debug("准备调用工具");
                     log.debug("工具调用格式：\n{}", toolCallResponse);
                     
-                    // 第三步：解析并执行工具调用
-                    String toolResult = null;
-                    if (getToolParser() != null) {
-                        Object parsed = getToolParser().parseResponse(toolCallResponse);
-                        if (parsed instanceof Map) {
-                            @SuppressWarnings("unchecked")
-                            Map<String, Object> toolCall = (Map<String, Object>) parsed;
-                            List<Map<String, Object>> toolCalls = List.of(toolCall);
-                            toolResult = processToolCalls(toolCalls);
-                            log.debug("工具执行结果：\n{}", toolResult);
-                        }
-                    }
+                    // 第三步：解析工具调用，修正有问题的调用后流式执行
+                    List<FunctionCall> toolCalls = getToolParser() != null
+                        ? resolveToolCallsAsync(toolCallResponse, getToolParser().parse(toolCallResponse)).join()
+                        : List.of();
                     
-                    // 如果工具执行失败，返回错误信息
-                    if (toolResult == null || toolResult.isEmpty()) {
+                    // 如果没有可执行的工具调用，返回错误信息
+                    if (toolCalls.isEmpty()) {
                         log.error("工具执行失败，无法获取结果");
                         callback.onChunk("工具执行失败，无法获取结果", ModelStatusCode.END);
                         return;
                     }
                     
-                    // 第四步：根据工具结果生成最终答案
-                    List<Map<String, String>> summaryMessages = aggregator.aggregate(
-                        memory.get(sessionId), name, outputFormat, RESULT_SUMMARY_TEMPLATE.formatted(
-                            message.getContent(),
-                            toolResult
-                        )
-                    );
-                    
-                    log.debug("生成最终答案");
-                    llm.chatStream(summaryMessages,
-                        summaryChunk -> callback.onChunk(summaryChunk, ModelStatusCode.GENERATING),
-                        callback::onError,
-                        () -> callback.onChunk("", ModelStatusCode.END)
-                    );
+                    // 第四步：工具结束后（或部分结果足够时）生成最终答案
+                    streamToolCalls(toolCalls, sessionId, message.getContent(), callback);
                 }
             },
             callback::onError,
@@ -189,102 +170,134 @@ public class AsyncStreamAgent extends Agent {
     }
 
     /**
-     * 异步前向处理
+     * 流式执行一轮的工具调用
+     * <p>
+     * 每个工具开始、输出部分结果和结束时分别以{@link AgentStatusCode#PLUGIN_START}、
+     * {@link AgentStatusCode#PLUGIN_RETURN}和{@link AgentStatusCode#PLUGIN_END}通知回调，
+     * 执行代码的动作（{@link StreamingAction#isCodeExecution()}）对应使用{@link AgentStatusCode#CODING}、{@link AgentStatusCode#CODE_RETURN}和{@link AgentStatusCode#CODE_END}。
+     * 全部工具结束后用合并的结果生成最终答案；设置了{@link #earlySummaryChars}时，
+     * 部分结果累计达到该长度就用截断的前缀提前开始总结，不再等待工具结束
      *
-     * @param messages  消息列表
+     * @param toolCalls 工具调用列表
      * @param sessionId 会话ID
-     * @return 响应消息的Future
+     * @param question  用户问题
+     * @param callback  回调函数
      */
-    protected CompletableFuture<AgentMessage> forwardAsync(List<AgentMessage> messages, int sessionId) {
-        return CompletableFuture.supplyAsync(() -> {
-            // 如果没有工具执行器，直接调用语言模型
-            if (actionExecutor == null) {
-                return forwardToLLM(messages, sessionId);
-            }
+    private void streamToolCalls(List<FunctionCall> toolCalls, int sessionId, Object question,
+                                 StreamCallback callback) {
+        AtomicBoolean summarizing = new AtomicBoolean();
+        StringBuilder partial = new StringBuilder();
+        boolean[] started = new boolean[toolCalls.size()];
+        List<String> toolNames = new ArrayList<>(toolCalls.size());
+        List<CompletableFuture<String>> results = new ArrayList<>(toolCalls.size());
+        for (int i = 0; i < toolCalls.size(); i++) {
+            int index = i;
+            String toolName = toolCalls.get(i).getName();
+            toolNames.add(toolName);
+            // 执行代码的动作使用CODING系列状态，便于界面区分代码执行和普通工具
+            boolean coding = actionExecutor.getAction(toolName) instanceof StreamingAction streaming
+                && streaming.isCodeExecution();
+            AgentStatusCode returnState = coding ? AgentStatusCode.CODE_RETURN : AgentStatusCode.PLUGIN_RETURN;
+            AgentStatusCode endState = coding ? AgentStatusCode.CODE_END : AgentStatusCode.PLUGIN_END;
+            callback.onToolChunk(toolName, "", coding ? AgentStatusCode.CODING : AgentStatusCode.PLUGIN_START);
+            AgentMessage toolMessage = toToolMessage(toolCalls.get(i));
+            CompletableFuture<AgentMessage> execution = actionExecutor.processStreamAsync(toolMessage, chunk -> {
+                String text = chunk.formatResult();
+                callback.onToolChunk(toolName, text, returnState);
+                String prefix = appendPartial(partial, started, index, toolName, text, summarizing);
+                if (prefix != null) {
+                    log.debug("部分结果已达到{}字符，提前生成最终答案", earlySummaryChars);
+                    streamSummary(sessionId, question, prefix, callback);
+                }
+            });
+            results.add(propagateCancellation(execution.handle((response, error) -> {
+                String formatted = formatToolResult(toolName, response, error);
+                callback.onToolChunk(toolName, response != null ? String.valueOf(response.getContent()) : formatted,
+                    endState);
+                return formatted;
+            }), execution));
+        }
 
-            // 第一步：判断是否需要使用工具
-            List<Map<String, String>> decisionMessages = aggregator.aggregate(
-                memory.get(sessionId), name, outputFormat, TOOL_DECISION_TEMPLATE.formatted(
-                    actionExecutor.getToolsDescription(),
-                    messages.get(messages.size() - 1).getContent()
-                )
-            );
-            String decisionResponse = llm.chat(decisionMessages);
-            
-            // 如果决定不使用工具，直接返回响应
-            if (!decisionResponse.contains("决策：使用工具")) {
-                return new AgentMessage(name, decisionResponse);
+        mergeToolResults(toolNames, results).thenAccept(toolResult -> {
+            log.debug("工具执行结果：\n{}", toolResult);
+            if (summarizing.compareAndSet(false, true)) {
+                streamSummary(sessionId, question, toolResult, callback);
             }
-            
-            // 第二步：生成工具调用格式
-            List<Map<String, String>> toolCallMessages = aggregator.aggregate(
-                memory.get(sessionId), name, outputFormat, TOOL_CALL_TEMPLATE.formatted(
-                    actionExecutor.getToolsDescription(),
-                    messages.get(messages.size() - 1).getContent(),
-                    decisionResponse
-                )
-            );
-            String toolCallResponse = llm.chat(toolCallMessages);
-            
-            // 第三步：解析并执行工具调用
-            String toolResult = null;
-            if (outputFormat != null) {
-                Object parsed = outputFormat.parseResponse(toolCallResponse);
-                if (parsed instanceof Map) {
-                    @SuppressWarnings("unchecked")
-                    Map<String, Object> toolCall = (Map<String, Object>) parsed;
-                    List<Map<String, Object>> toolCalls = List.of(toolCall);
-                    toolResult = processToolCalls(toolCalls);
-                }
+        });
+    }
+
+    /**
+     * 累积部分结果，达到提前总结的长度时返回截断的前缀
+     *
+     * @param partial     已累积的部分结果
+     * @param started     各工具是否已经输出过部分结果
+     * @param index       工具序号
+     * @param toolName    工具名称
+     * @param text        本段部分结果
+     * @param summarizing 是否已经开始总结
+     * @return 需要提前总结时返回截断的前缀，否则返回null
+     */
+    private String appendPartial(StringBuilder partial, boolean[] started, int index, String toolName,
+                                 String text, AtomicBoolean summarizing) {
+        int threshold = earlySummaryChars;
+        if (threshold <= 0 || summarizing.get()) {
+            return null;
+        }
+        synchronized (partial) {
+            if (!started[index]) {
+                started[index] = true;
+                partial.append("工具 ").append(toolName).append(" 部分结果:\n");
             }
-            
-            // 如果工具执行失败，返回错误信息
-            if (toolResult == null || toolResult.isEmpty()) {
-                return new AgentMessage(name, "工具执行失败，无法获取结果");
+            partial.append(text);
+            if (partial.length() >= threshold && summarizing.compareAndSet(false, true)) {
+                return partial.substring(0, threshold) + "\n（工具仍在执行，以上结果已截断）\n\n";
             }
-            
-            // 第四步：根据工具结果生成最终答案
-            List<Map<String, String>> summaryMessages = aggregator.aggregate(
-                memory.get(sessionId), name, outputFormat, RESULT_SUMMARY_TEMPLATE.formatted(
-                    messages.get(messages.size() - 1).getContent(),
-                    toolResult
-                )
-            );
-            String summaryResponse = llm.chat(summaryMessages);
-            
-            return new AgentMessage(name, summaryResponse);
-        });
+        }
+        return null;
     }
 
     /**
-     * 直接流式调用语言模型
+     * 根据工具结果流式生成最终答案
      *
-     * @param messages  消息列表
-     * @param sessionId 会话ID
-     * @param callback  回调函数
+     * @param sessionId  会话ID
+     * @param question   用户问题
+     * @param toolResult 工具执行结果
+     * @param callback   回调函数
      */
-    private void streamToLLM(List<AgentMessage> messages, int sessionId, StreamCallback callback) {
-        List<Map<String, String>> formattedMessages = aggregator.aggregate(
-            memory.get(sessionId), name, outputFormat, template);
+    private void streamSummary(int sessionId, Object question, String toolResult, StreamCallback callback) {
+        List<ChatMessage> summaryMessages = buildSummaryMessages(sessionId, question, toolResult);
         
-        llm.chatStream(formattedMessages,
-            chunk -> callback.onChunk(chunk, ModelStatusCode.GENERATING),
+        log.debug("生成最终答案");
+        llm.chatMessagesStream(summaryMessages, null,
+            summaryChunk -> callback.onChunk(summaryChunk, ModelStatusCode.GENERATING),
             callback::onError,
             () -> callback.onChunk("", ModelStatusCode.END)
         );
     }
 
     /**
-     * 直接调用语言模型
+     * 流式代理沿用原有行为，使用输出格式解析器解析工具调用
+     */
+    @Override
+    protected ParseResult parseToolCall(String response) {
+        return outputFormat != null ? outputFormat.parse(response) : null;
+    }
+
+    /**
+     * 直接流式调用语言模型
      *
      * @param messages  消息列表
      * @param sessionId 会话ID
-     * @return 响应消息
+     * @param callback  回调函数
      */
-    private AgentMessage forwardToLLM(List<AgentMessage> messages, int sessionId) {
-        List<Map<String, String>> formattedMessages = aggregator.aggregate(
+    private void streamToLLM(List<AgentMessage> messages, int sessionId, StreamCallback callback) {
+        List<ChatMessage> formattedMessages = aggregator.aggregateMessages(
             memory.get(sessionId), name, outputFormat, template);
-        String llmResponse = llm.chat(formattedMessages);
-        return new AgentMessage(name, llmResponse);
+        
+        llm.chatMessagesStream(formattedMessages, null,
+            chunk -> callback.onChunk(chunk, ModelStatusCode.GENERATING),
+            callback::onError,
+            () -> callback.onChunk("", ModelStatusCode.END)
+        );
     }
-} 
\ No newline at end of file
+}
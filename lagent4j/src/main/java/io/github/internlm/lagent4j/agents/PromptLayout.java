@@ -0,0 +1,20 @@
+package io.github.internlm.lagent4j.agents;
+
+/**
+ * 提示布局枚举
+ * <p>
+ * 决定工具调用各阶段发送给模型的消息如何排列
+ */
+public enum PromptLayout {
+    /**
+     * 内联布局：每个阶段的系统指令同时包含工具列表、用户问题和阶段说明，历史消息在后
+     */
+    INLINE,
+
+    /**
+     * 前缀稳定布局：系统指令只包含静态说明和工具列表，在所有阶段和轮次中逐字节相同，
+     * 之后依次是历史消息和本阶段的指令。OpenAI、vLLM、SGLang等服务可以复用该前缀的KV缓存，
+     * 从而缩短首个令牌的等待时间
+     */
+    PREFIX_STABLE
+}
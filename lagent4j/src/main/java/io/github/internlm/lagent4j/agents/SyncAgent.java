@@ -6,6 +6,7 @@ import io.github.internlm.lagent4j.llms.BaseLLM;
 import io.github.internlm.lagent4j.prompts.Parser;
 import io.github.internlm.lagent4j.prompts.parsers.StrParser;
 import io.github.internlm.lagent4j.schema.AgentMessage;
+import io.github.internlm.lagent4j.schema.ChatMessage;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -72,7 +73,18 @@ public class SyncAgent extends Agent {
 
     @Override
     public CompletableFuture<AgentMessage> processAsync(AgentMessage message, int sessionId) {
-        return CompletableFuture.supplyAsync(() -> process(message, sessionId));
+        // 处理输入消息
+        List<AgentMessage> messages = new ArrayList<>();
+        messages.add(message);
+
+        // 更新内存
+        updateMemory(message, sessionId);
+
+        // 各阶段在执行上下文中异步串联
+        return forwardAsync(messages, sessionId).thenApply(responseMessage -> {
+            updateMemory(responseMessage, sessionId);
+            return responseMessage;
+        });
     }
 
     @Override
@@ -94,13 +106,9 @@ public class SyncAgent extends Agent {
         }
 
         // 第一步：判断是否需要使用工具
-        List<Map<String, String>> decisionMessages = aggregator.aggregate(
-            memory.get(sessionId), name, outputFormat, TOOL_DECISION_TEMPLATE.formatted(
-                actionExecutor.getToolsDescription(),
-                messages.get(messages.size() - 1).getContent()
-            )
-        );
-        String decisionResponse = llm.chat(decisionMessages);
+        Object question = messages.get(messages.size() - 1).getContent();
+        List<ChatMessage> decisionMessages = buildDecisionMessages(sessionId, question);
+        String decisionResponse = llm.chatMessages(decisionMessages);
         
         // 如果决定不使用工具，直接返回响应
         if (!decisionResponse.contains("决策：使用工具")) {
@@ -108,25 +116,14 @@ public class SyncAgent extends Agent {
         }
         
         // 第二步：生成工具调用格式
-        List<Map<String, String>> toolCallMessages = aggregator.aggregate(
-            memory.get(sessionId), name, outputFormat, TOOL_CALL_TEMPLATE.formatted(
-                actionExecutor.getToolsDescription(),
-                messages.get(messages.size() - 1).getContent(),
-                decisionResponse
-            )
-        );
-        String toolCallResponse = llm.chat(toolCallMessages);
+        List<ChatMessage> toolCallMessages = buildToolCallMessages(sessionId, question, decisionResponse);
+        String toolCallResponse = chatMessages(toolCallMessages, toolCallParams());
         
-        // 第三步：解析并执行工具调用
+        // 第三步：解析工具调用，修正有问题的调用后执行
         String toolResult = null;
         if (getToolParser() != null) {
-            Object parsed = getToolParser().parseResponse(toolCallResponse);
-            if (parsed instanceof Map) {
-                @SuppressWarnings("unchecked")
-                Map<String, Object> toolCall = (Map<String, Object>) parsed;
-                List<Map<String, Object>> toolCalls = List.of(toolCall);
-                toolResult = processToolCalls(toolCalls);
-            }
+            toolResult = processFunctionCalls(
+                    resolveToolCallsAsync(toolCallResponse, getToolParser().parse(toolCallResponse)).join());
         }
         
         // 如果工具执行失败，返回错误信息
@@ -135,13 +132,8 @@ public class SyncAgent extends Agent {
         }
         
         // 第四步：根据工具结果生成最终答案
-        List<Map<String, String>> summaryMessages = aggregator.aggregate(
-            memory.get(sessionId), name, outputFormat, RESULT_SUMMARY_TEMPLATE.formatted(
-                messages.get(messages.size() - 1).getContent(),
-                toolResult
-            )
-        );
-        String summaryResponse = llm.chat(summaryMessages);
+        List<ChatMessage> summaryMessages = buildSummaryMessages(sessionId, question, toolResult);
+        String summaryResponse = llm.chatMessages(summaryMessages);
         
         return new AgentMessage(name, summaryResponse);
     }
@@ -154,9 +146,9 @@ public class SyncAgent extends Agent {
      * @return 响应消息
      */
     private AgentMessage forwardToLLM(List<AgentMessage> messages, int sessionId) {
-        List<Map<String, String>> formattedMessages = aggregator.aggregate(
+        List<ChatMessage> formattedMessages = aggregator.aggregateMessages(
             memory.get(sessionId), name, outputFormat, template);
-        String llmResponse = llm.chat(formattedMessages);
+        String llmResponse = llm.chatMessages(formattedMessages);
         return new AgentMessage(name, llmResponse);
     }
 } 
\ No newline at end of file
@@ -0,0 +1,108 @@
+package io.github.internlm.lagent4j.agents;
+
+import io.github.internlm.lagent4j.metrics.Histogram;
+import io.github.internlm.lagent4j.metrics.MetricSource;
+import io.github.internlm.lagent4j.metrics.MetricWriter;
+import lombok.Getter;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 工具调用阶段的指标
+ * <p>
+ * 统计模型生成的工具调用有多少轮需要修复，以及因此浪费的token。浪费的token包括被丢弃的工具块
+ * （无法解析或参数校验失败）和修复请求本身的输入与输出，都按{@link io.github.internlm.lagent4j.utils.TokenCounter}估算。
+ * 开启结构化输出后解析失败率应接近0，可以用这些指标对比开启前后的效果。
+ */
+@Getter
+public class ToolCallMetrics implements MetricSource {
+    /**
+     * 工具调用轮数
+     */
+    private final LongAdder turns = new LongAdder();
+
+    /**
+     * 至少有一个调用无法解析或校验失败的轮数
+     */
+    private final LongAdder failedTurns = new LongAdder();
+
+    /**
+     * 修复成功的调用数
+     */
+    private final LongAdder repaired = new LongAdder();
+
+    /**
+     * 修复失败、最终被丢弃的调用数
+     */
+    private final LongAdder abandoned = new LongAdder();
+
+    /**
+     * 浪费的token总数
+     */
+    private final LongAdder wastedTokens = new LongAdder();
+
+    /**
+     * 每轮浪费的token
+     */
+    private final Histogram wastedTokensPerTurn = new Histogram();
+
+    private final Supplier<String> agentName;
+
+    /**
+     * 创建指标
+     *
+     * @param agentName 代理名称，导出时作为agent标签；代理改名后标签随之变化
+     */
+    public ToolCallMetrics(Supplier<String> agentName) {
+        this.agentName = agentName;
+    }
+
+    /**
+     * 记录一轮工具调用
+     *
+     * @param failures 需要修复的调用数
+     * @param repaired 修复成功的调用数
+     * @param wasted   本轮浪费的token
+     */
+    public void recordTurn(int failures, int repaired, long wasted) {
+        turns.increment();
+        if (failures > 0) {
+            failedTurns.increment();
+            this.repaired.add(repaired);
+            abandoned.add(failures - repaired);
+        }
+        wastedTokens.add(wasted);
+        wastedTokensPerTurn.record(wasted);
+    }
+
+    /**
+     * 获取解析失败率
+     *
+     * @return 需要修复的轮数占全部轮数的比例，没有记录时返回0
+     */
+    public double getParseFailureRate() {
+        long total = turns.sum();
+        return total == 0 ? 0.0 : (double) failedTurns.sum() / total;
+    }
+
+    @Override
+    public void collect(MetricWriter writer) {
+        Map<String, String> labels = Map.of("agent", String.valueOf(agentName.get()));
+        writer.counter("lagent4j_tool_call_turns_total", "Turns in which the model generated tool calls", labels,
+                turns.sum());
+        writer.counter("lagent4j_tool_call_parse_failures_total",
+                "Turns with at least one unparseable or invalid tool call", labels, failedTurns.sum());
+        writer.counter("lagent4j_tool_call_repairs_total", "Tool calls fixed by a repair request",
+                Map.of("agent", labels.get("agent"), "outcome", "repaired"), repaired.sum());
+        writer.counter("lagent4j_tool_call_repairs_total", "Tool calls fixed by a repair request",
+                Map.of("agent", labels.get("agent"), "outcome", "abandoned"), abandoned.sum());
+        writer.counter("lagent4j_tool_call_wasted_tokens_total",
+                "Estimated tokens spent on discarded tool calls and repair requests", labels, wastedTokens.sum());
+        writer.gauge("lagent4j_tool_call_parse_failure_ratio", "Share of turns that needed a repair", labels,
+                getParseFailureRate());
+        writer.summary("lagent4j_tool_call_wasted_tokens", "Estimated wasted tokens per turn", labels,
+                wastedTokensPerTurn, 1.0);
+    }
+}
@@ -1,18 +1,33 @@
 package io.github.internlm.lagent4j.agents.aggregator;
 
 import io.github.internlm.lagent4j.memory.Memory;
+import io.github.internlm.lagent4j.schema.AgentMessage;
+import io.github.internlm.lagent4j.schema.ChatMessage;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
  * 默认消息聚合器
  * <p>
- * 用于将内存中的消息聚合为模型可接受的格式
+ * 用于将内存中的消息聚合为模型可接受的格式。子类覆盖了已废弃的Map形式方法时，
+ * {@link #aggregateMessages}和{@link #aggregatePrefixStable}改为调用这些方法并转换结果，覆盖仍然生效
  */
 public class DefaultAggregator {
+    /**
+     * 每个子类覆盖了哪些已废弃的方法，按类缓存
+     */
+    private static final ClassValue<LegacyOverrides> LEGACY_OVERRIDES = new ClassValue<>() {
+        @Override
+        protected LegacyOverrides computeValue(Class<?> type) {
+            return new LegacyOverrides(
+                    overrides(type, "aggregate", Memory.class, String.class, Object.class, Object.class),
+                    overrides(type, "aggregateSystemInstruction", Object.class),
+                    overrides(type, "aggregateMemory", Memory.class, String.class));
+        }
+    };
+
     /**
      * 聚合消息
      *
@@ -22,73 +37,192 @@ public class DefaultAggregator {
      * @param systemInstruction 系统指令
      * @return 聚合后的消息列表
      */
-    public List<Map<String, String>> aggregate(Memory memory, String name, 
-                                              Object parser, Object systemInstruction) {
-        List<Map<String, String>> messages = new ArrayList<>();
-        
+    @SuppressWarnings("deprecation")
+    public List<ChatMessage> aggregateMessages(Memory memory, String name,
+                                               Object parser, Object systemInstruction) {
+        if (LEGACY_OVERRIDES.get(getClass()).aggregate()) {
+            return ChatMessage.fromMaps(aggregate(memory, name, parser, systemInstruction));
+        }
+        return buildMessages(memory, name, systemInstruction);
+    }
+
+    /**
+     * 依次聚合系统指令和历史消息
+     */
+    private List<ChatMessage> buildMessages(Memory memory, String name, Object systemInstruction) {
+        List<AgentMessage> history = memory != null ? memory.getMemory() : List.of();
+        List<ChatMessage> messages = new ArrayList<>(history.size() + 1);
+
         // 添加系统指令
         if (systemInstruction != null) {
-            messages.addAll(aggregateSystemInstruction(systemInstruction));
+            messages.addAll(systemMessages(systemInstruction));
         }
-        
+
         // 添加历史消息
-        if (memory != null) {
-            messages.addAll(aggregateMemory(memory, name));
+        aggregateHistory(memory, history, name, messages);
+
+        return messages;
+    }
+
+    /**
+     * 以前缀稳定的方式聚合消息
+     * <p>
+     * 消息依次为静态前缀、历史消息和本轮内容。静态前缀在多次请求之间保持同一个对象，
+     * 其JSON编码只生成一次，服务端也可以复用这段前缀的KV缓存
+     *
+     * @param memory       内存
+     * @param name         代理名称
+     * @param staticPrefix 静态前缀消息，可为null
+     * @param turnContent  本轮内容，作为最后一条用户消息，可为null
+     * @return 聚合后的消息列表
+     */
+    public List<ChatMessage> aggregatePrefixStable(Memory memory, String name,
+                                                   ChatMessage staticPrefix, String turnContent) {
+        List<AgentMessage> history = memory != null ? memory.getMemory() : List.of();
+        List<ChatMessage> messages = new ArrayList<>(history.size() + 2);
+
+        if (staticPrefix != null) {
+            messages.add(staticPrefix);
+        }
+        aggregateHistory(memory, history, name, messages);
+        if (turnContent != null) {
+            messages.add(ChatMessage.user(turnContent));
         }
-        
+
         return messages;
     }
-    
+
     /**
-     * 聚合系统指令
+     * 聚合消息，返回Map形式的消息列表
      *
+     * @param memory            内存
+     * @param name              代理名称
+     * @param parser            输出解析器
      * @param systemInstruction 系统指令
+     * @return 聚合后的消息列表
+     * @deprecated 代理改为调用{@link #aggregateMessages(Memory, String, Object, Object)}；覆盖此方法仍然生效，
+     * 但每次请求都要经过Map转换，自定义聚合请改为覆盖aggregateMessages
+     */
+    @Deprecated
+    public List<Map<String, String>> aggregate(Memory memory, String name,
+                                              Object parser, Object systemInstruction) {
+        return ChatMessage.toMaps(buildMessages(memory, name, systemInstruction));
+    }
+
+    /**
+     * 聚合系统指令，返回Map形式的消息列表
+     *
+     * @param systemInstruction 系统指令，可以是字符串、消息、Map形式的消息或它们的列表
      * @return 聚合后的系统指令消息列表
+     * @deprecated 代理改为调用{@link #aggregateSystemMessages(Object)}；覆盖此方法仍然生效，
+     * 但每次请求都要经过Map转换，自定义系统指令请改为覆盖aggregateSystemMessages
      */
+    @Deprecated
     public List<Map<String, String>> aggregateSystemInstruction(Object systemInstruction) {
-        List<Map<String, String>> messages = new ArrayList<>();
-        
+        return ChatMessage.toMaps(aggregateSystemMessages(systemInstruction));
+    }
+
+    /**
+     * 聚合系统指令
+     *
+     * @param systemInstruction 系统指令，可以是字符串、消息、Map形式的消息或它们的列表
+     * @return 聚合后的系统指令消息列表
+     */
+    public List<ChatMessage> aggregateSystemMessages(Object systemInstruction) {
+        List<ChatMessage> messages = new ArrayList<>();
+
         if (systemInstruction instanceof String) {
-            Map<String, String> systemMessage = new HashMap<>();
-            systemMessage.put("role", "system");
-            systemMessage.put("content", (String) systemInstruction);
-            messages.add(systemMessage);
+            messages.add(ChatMessage.system((String) systemInstruction));
+        } else if (systemInstruction instanceof ChatMessage) {
+            messages.add((ChatMessage) systemInstruction);
         } else if (systemInstruction instanceof Map) {
             @SuppressWarnings("unchecked")
             Map<String, String> systemMessage = (Map<String, String>) systemInstruction;
-            messages.add(systemMessage);
+            messages.add(ChatMessage.fromMap(systemMessage));
         } else if (systemInstruction instanceof List) {
-            @SuppressWarnings("unchecked")
-            List<Map<String, String>> systemMessages = (List<Map<String, String>>) systemInstruction;
-            messages.addAll(systemMessages);
+            for (Object item : (List<?>) systemInstruction) {
+                messages.addAll(aggregateSystemMessages(item));
+            }
         }
-        
+
         return messages;
     }
-    
+
     /**
-     * 聚合内存中的消息
+     * 聚合内存中的消息，返回Map形式的消息列表
      *
      * @param memory 内存
      * @param name   代理名称
-     * @return 聚合后的历史消息列表
+     * @return 聚合后的消息列表
+     * @deprecated 代理改为调用{@link #aggregateMemory(List, String, List)}；覆盖此方法仍然生效，
+     * 但每次请求都要经过Map转换，自定义历史消息请改为覆盖该重载
      */
+    @Deprecated
     protected List<Map<String, String>> aggregateMemory(Memory memory, String name) {
-        List<Map<String, String>> messages = new ArrayList<>();
-        
-        memory.getMemory().forEach(message -> {
-            Map<String, String> formattedMessage = new HashMap<>();
-            
+        List<ChatMessage> messages = new ArrayList<>();
+        aggregateMemory(memory.getMemory(), name, messages);
+        return ChatMessage.toMaps(messages);
+    }
+
+    /**
+     * 聚合内存中的消息
+     *
+     * @param history 历史消息
+     * @param name    代理名称
+     * @param target  聚合结果写入的消息列表
+     */
+    protected void aggregateMemory(List<AgentMessage> history, String name, List<ChatMessage> target) {
+        for (AgentMessage message : history) {
+            String content = message.getContent().toString();
             if (message.getSender().equals(name)) {
-                formattedMessage.put("role", "assistant");
+                target.add(ChatMessage.assistant(content));
             } else {
-                formattedMessage.put("role", "user");
+                target.add(ChatMessage.user(content));
             }
-            
-            formattedMessage.put("content", message.getContent().toString());
-            messages.add(formattedMessage);
-        });
-        
-        return messages;
+        }
+    }
+
+    /**
+     * 聚合系统指令，子类覆盖了{@link #aggregateSystemInstruction(Object)}时使用其结果
+     */
+    @SuppressWarnings("deprecation")
+    private List<ChatMessage> systemMessages(Object systemInstruction) {
+        if (LEGACY_OVERRIDES.get(getClass()).systemInstruction()) {
+            return ChatMessage.fromMaps(aggregateSystemInstruction(systemInstruction));
+        }
+        return aggregateSystemMessages(systemInstruction);
+    }
+
+    /**
+     * 聚合历史消息，子类覆盖了{@link #aggregateMemory(Memory, String)}时使用其结果
+     */
+    @SuppressWarnings("deprecation")
+    private void aggregateHistory(Memory memory, List<AgentMessage> history, String name, List<ChatMessage> target) {
+        if (memory != null && LEGACY_OVERRIDES.get(getClass()).memory()) {
+            target.addAll(ChatMessage.fromMaps(aggregateMemory(memory, name)));
+        } else {
+            aggregateMemory(history, name, target);
+        }
+    }
+
+    /**
+     * 判断类在DefaultAggregator之下是否声明了指定方法
+     */
+    private static boolean overrides(Class<?> type, String name, Class<?>... parameterTypes) {
+        for (Class<?> c = type; c != null && c != DefaultAggregator.class; c = c.getSuperclass()) {
+            try {
+                c.getDeclaredMethod(name, parameterTypes);
+                return true;
+            } catch (NoSuchMethodException ignored) {
+                // 继续检查父类
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 子类覆盖的已废弃方法
+     */
+    private record LegacyOverrides(boolean aggregate, boolean systemInstruction, boolean memory) {
     }
-} 
\ No newline at end of file
+}
@@ -1,6 +1,6 @@
 package io.github.internlm.lagent4j.llms;
 
-import io.github.internlm.lagent4j.schema.ModelStatusCode;
+import io.github.internlm.lagent4j.schema.ChatMessage;
 
 import java.util.List;
 import java.util.Map;
@@ -11,7 +11,9 @@ import java.util.function.Consumer;
 /**
  * 大型语言模型基础接口
  * <p>
- * 定义了与大型语言模型交互的基本方法，包括同步和异步的聊天功能
+ * 定义了与大型语言模型交互的基本方法，包括同步和异步的聊天功能。
+ * 以{@link ChatMessage}为参数的方法是框架内部使用的主入口，
+ * 以Map为参数的方法保留用于兼容，两者的默认实现可以互相适配。
  */
 public interface BaseLLM {
     /**
@@ -81,4 +83,82 @@ public interface BaseLLM {
                           Runnable onComplete) {
         chatStream(messages, onChunk, onError, onComplete);
     }
-} 
\ No newline at end of file
+    
+    /**
+     * 使用类型化消息的同步聊天方法
+     *
+     * @param messages 消息列表
+     * @return 模型的回复文本
+     */
+    default String chatMessages(List<ChatMessage> messages) {
+        return chatMessages(messages, null);
+    }
+    
+    /**
+     * 使用类型化消息的同步聊天方法，带有额外参数
+     * <p>
+     * 默认实现将消息转换为Map后调用{@link #chat(List, Map)}，实现类应覆盖该方法以避免转换开销
+     *
+     * @param messages 消息列表
+     * @param params   额外的参数，如温度、最大生成长度等
+     * @return 模型的回复文本
+     */
+    default String chatMessages(List<ChatMessage> messages, Map<String, Object> params) {
+        return params != null ? chat(ChatMessage.toMaps(messages), params) : chat(ChatMessage.toMaps(messages));
+    }
+    
+    /**
+     * 使用类型化消息的异步聊天方法
+     *
+     * @param messages 消息列表
+     * @param params   额外的参数，如温度、最大生成长度等
+     * @return 包含模型回复文本的CompletableFuture
+     */
+    default CompletableFuture<String> chatMessagesAsync(List<ChatMessage> messages, Map<String, Object> params) {
+        return params != null ? chatAsync(ChatMessage.toMaps(messages), params) : chatAsync(ChatMessage.toMaps(messages));
+    }
+    
+    /**
+     * 使用类型化消息的流式聊天方法
+     *
+     * @param messages   消息列表
+     * @param params     额外的参数，如温度、最大生成长度等
+     * @param onChunk    处理每个文本块的消费者函数
+     * @param onError    处理错误的消费者函数
+     * @param onComplete 处理完成事件的消费者函数
+     */
+    default void chatMessagesStream(List<ChatMessage> messages,
+                                    Map<String, Object> params,
+                                    Consumer<String> onChunk,
+                                    Consumer<Throwable> onError,
+                                    Runnable onComplete) {
+        if (params != null) {
+            chatStream(ChatMessage.toMaps(messages), params, onChunk, onError, onComplete);
+        } else {
+            chatStream(ChatMessage.toMaps(messages), onChunk, onError, onComplete);
+        }
+    }
+    
+    /**
+     * 获取调用指标
+     * <p>
+     * 默认实现不记录任何指标，实现类可以返回自己的指标对象以暴露各阶段耗时和令牌用量
+     *
+     * @return 调用指标
+     */
+    default LLMMetrics getMetrics() {
+        return LLMMetrics.noop();
+    }
+
+    /**
+     * 是否支持结构化输出
+     * <p>
+     * 支持时代理在工具调用阶段通过{@code response_format}参数传入由工具目录生成的JSON Schema，
+     * 模型的回复直接是调用JSON，不再需要从文本中提取工具块
+     *
+     * @return 默认返回false
+     */
+    default boolean supportsStructuredOutput() {
+        return false;
+    }
+}
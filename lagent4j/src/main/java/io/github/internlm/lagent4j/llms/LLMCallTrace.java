@@ -0,0 +1,197 @@
+package io.github.internlm.lagent4j.llms;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 单次语言模型调用的追踪对象
+ * <p>
+ * 在调用过程中记录各阶段的时间点和令牌用量，调用结束时一次性写入{@link LLMMetrics}。
+ * 所有时间点都以创建时刻为起点，因此首个令牌耗时包含排队和建连时间，与调用方感受到的延迟一致。
+ */
+public class LLMCallTrace {
+    /**
+     * 写入的统计数据，为null时不记录
+     */
+    private final LLMMetrics.Stats stats;
+
+    /**
+     * 创建时间
+     */
+    private final long createdNanos = System.nanoTime();
+
+    /**
+     * 请求开始执行的时间
+     */
+    private volatile long startNanos;
+
+    /**
+     * 开始建连的时间
+     */
+    private volatile long connectStartNanos;
+
+    /**
+     * 建连耗时
+     */
+    private volatile long connectNanos = -1;
+
+    /**
+     * 首个令牌到达的时间
+     */
+    private volatile long firstTokenNanos;
+
+    /**
+     * 上一个令牌到达的时间
+     */
+    private volatile long lastTokenNanos;
+
+    /**
+     * 收到的流式块数
+     */
+    private volatile int chunks;
+
+    /**
+     * 接口返回的输入令牌数，-1表示未返回
+     */
+    private volatile long promptTokens = -1;
+
+    /**
+     * 接口返回的输出令牌数，-1表示未返回
+     */
+    private volatile long completionTokens = -1;
+
+    /**
+     * 命中前缀缓存的输入令牌数，-1表示未返回
+     */
+    private volatile long cachedPromptTokens = -1;
+
+    /**
+     * 是否已结束
+     */
+    private final AtomicBoolean finished = new AtomicBoolean();
+
+    LLMCallTrace(LLMMetrics.Stats stats) {
+        this.stats = stats;
+    }
+
+    /**
+     * 标记请求开始执行，只有第一次调用生效
+     */
+    public void markStart() {
+        if (startNanos == 0) {
+            startNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * 标记开始建立新连接
+     */
+    public void connectStart() {
+        if (connectStartNanos == 0) {
+            connectStartNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * 标记新连接建立完成
+     */
+    public void connectEnd() {
+        if (connectStartNanos != 0) {
+            connectNanos = System.nanoTime() - connectStartNanos;
+        }
+    }
+
+    /**
+     * 标记收到一个流式令牌块
+     */
+    public void markToken() {
+        long now = System.nanoTime();
+        if (firstTokenNanos == 0) {
+            firstTokenNanos = now;
+        } else if (stats != null) {
+            stats.getInterToken().record(toMicros(now - lastTokenNanos));
+        }
+        lastTokenNanos = now;
+        chunks++;
+    }
+
+    /**
+     * 记录接口返回的令牌用量
+     *
+     * @param promptTokens     输入令牌数
+     * @param completionTokens 输出令牌数
+     */
+    public void usage(long promptTokens, long completionTokens) {
+        usage(promptTokens, completionTokens, -1);
+    }
+
+    /**
+     * 记录接口返回的令牌用量
+     *
+     * @param promptTokens       输入令牌数
+     * @param completionTokens   输出令牌数
+     * @param cachedPromptTokens 命中前缀缓存的输入令牌数，-1表示未返回
+     */
+    public void usage(long promptTokens, long completionTokens, long cachedPromptTokens) {
+        this.promptTokens = promptTokens;
+        this.completionTokens = completionTokens;
+        this.cachedPromptTokens = cachedPromptTokens;
+    }
+
+    /**
+     * 结束追踪并写入统计数据，重复调用只有第一次生效
+     *
+     * @param success 调用是否成功
+     */
+    public void finish(boolean success) {
+        if (!finished.compareAndSet(false, true) || stats == null) {
+            return;
+        }
+        long end = System.nanoTime();
+        stats.getRequests().increment();
+        if (!success) {
+            stats.getErrors().increment();
+        }
+        if (startNanos != 0) {
+            stats.getQueue().record(toMicros(startNanos - createdNanos));
+        }
+        if (connectNanos >= 0) {
+            stats.getConnect().record(toMicros(connectNanos));
+        }
+        stats.getDuration().record(toMicros(end - createdNanos));
+        if (!success) {
+            return;
+        }
+        boolean cacheHit = cachedPromptTokens > 0;
+        if (firstTokenNanos != 0) {
+            stats.getTtft().record(toMicros(firstTokenNanos - createdNanos));
+            if (cacheHit) {
+                stats.getCacheHitTtft().record(toMicros(firstTokenNanos - createdNanos));
+            }
+        }
+        if (cacheHit) {
+            stats.getCacheHits().increment();
+            stats.getCachedPromptTokens().add(cachedPromptTokens);
+            stats.getCacheHitDuration().record(toMicros(end - createdNanos));
+        }
+        if (promptTokens >= 0) {
+            stats.getPromptTokens().add(promptTokens);
+        }
+        if (completionTokens >= 0) {
+            stats.getCompletionTokens().add(completionTokens);
+        }
+
+        // 生成速度：流式调用按首个令牌之后的时间计算，非流式调用按总耗时计算
+        long generated = completionTokens >= 0 ? completionTokens : chunks;
+        long generationNanos = firstTokenNanos != 0 && end > firstTokenNanos
+                ? end - firstTokenNanos
+                : end - createdNanos;
+        if (generated > 0 && generationNanos > 0) {
+            stats.getTokensPerSecond().record(Math.round(generated * 100 * 1e9 / generationNanos));
+        }
+    }
+
+    private static long toMicros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
@@ -0,0 +1,249 @@
+package io.github.internlm.lagent4j.llms;
+
+import io.github.internlm.lagent4j.metrics.Histogram;
+import io.github.internlm.lagent4j.metrics.MetricSource;
+import io.github.internlm.lagent4j.metrics.MetricWriter;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 语言模型调用指标
+ * <p>
+ * 按模型和接口地址分别统计每次调用的各阶段耗时（排队、建连、首个令牌、令牌间隔、总耗时）、
+ * 令牌用量和生成速度。耗时以微秒记录在{@link Histogram}中，导出时换算为秒。
+ * 多个模型实例可以共享同一个指标对象。
+ */
+public class LLMMetrics implements MetricSource {
+    /**
+     * 不记录任何数据的指标对象
+     */
+    private static final LLMMetrics NOOP = new LLMMetrics(false);
+
+    /**
+     * 微秒换算为秒的系数
+     */
+    private static final double MICROS_TO_SECONDS = 1e-6;
+
+    /**
+     * 是否启用记录
+     */
+    private final boolean enabled;
+
+    /**
+     * 按模型和接口地址分组的统计数据
+     */
+    private final ConcurrentMap<Key, Stats> stats = new ConcurrentHashMap<>();
+
+    /**
+     * 创建一个指标对象
+     */
+    public LLMMetrics() {
+        this(true);
+    }
+
+    private LLMMetrics(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * 获取不记录任何数据的指标对象
+     *
+     * @return 空指标对象
+     */
+    public static LLMMetrics noop() {
+        return NOOP;
+    }
+
+    /**
+     * 开始追踪一次调用
+     *
+     * @param model    模型名称
+     * @param endpoint 接口地址
+     * @return 调用追踪对象
+     */
+    public LLMCallTrace startCall(String model, String endpoint) {
+        return new LLMCallTrace(enabled ? getStats(model, endpoint) : null);
+    }
+
+    /**
+     * 获取指定模型和接口地址的统计数据，不存在时创建
+     *
+     * @param model    模型名称
+     * @param endpoint 接口地址
+     * @return 统计数据
+     */
+    public Stats getStats(String model, String endpoint) {
+        return stats.computeIfAbsent(new Key(model, endpoint), key -> new Stats(key.model, key.endpoint));
+    }
+
+    /**
+     * 获取所有统计数据
+     *
+     * @return 统计数据列表
+     */
+    public Collection<Stats> getAllStats() {
+        return new ArrayList<>(stats.values());
+    }
+
+    @Override
+    public void collect(MetricWriter writer) {
+        for (Stats s : stats.values()) {
+            Map<String, String> labels = Map.of("model", s.model, "endpoint", s.endpoint);
+            writer.counter("lagent4j_llm_requests_total", "Total LLM calls", labels, s.requests.sum());
+            writer.counter("lagent4j_llm_errors_total", "Failed LLM calls", labels, s.errors.sum());
+            writer.counter("lagent4j_llm_prompt_tokens_total", "Prompt tokens reported by the API", labels,
+                    s.promptTokens.sum());
+            writer.counter("lagent4j_llm_completion_tokens_total", "Completion tokens reported by the API", labels,
+                    s.completionTokens.sum());
+            writer.counter("lagent4j_llm_cache_hits_total", "Calls that reused a cached prompt prefix", labels,
+                    s.cacheHits.sum());
+            writer.counter("lagent4j_llm_cached_prompt_tokens_total", "Prompt tokens served from the prefix cache",
+                    labels, s.cachedPromptTokens.sum());
+            writer.summary("lagent4j_llm_queue_seconds", "Time from call to request execution", labels,
+                    s.queue, MICROS_TO_SECONDS);
+            writer.summary("lagent4j_llm_connect_seconds", "DNS and connection setup time for new connections",
+                    labels, s.connect, MICROS_TO_SECONDS);
+            writer.summary("lagent4j_llm_ttft_seconds", "Time to first streamed token", labels,
+                    s.ttft, MICROS_TO_SECONDS);
+            writer.summary("lagent4j_llm_inter_token_seconds", "Gap between consecutive streamed chunks", labels,
+                    s.interToken, MICROS_TO_SECONDS);
+            writer.summary("lagent4j_llm_duration_seconds", "Total call duration", labels,
+                    s.duration, MICROS_TO_SECONDS);
+            writer.summary("lagent4j_llm_ttft_cache_hit_seconds", "Time to first streamed token on prefix cache hits",
+                    labels, s.cacheHitTtft, MICROS_TO_SECONDS);
+            writer.summary("lagent4j_llm_duration_cache_hit_seconds", "Total call duration on prefix cache hits",
+                    labels, s.cacheHitDuration, MICROS_TO_SECONDS);
+            writer.summary("lagent4j_llm_tokens_per_second", "Completion tokens per second of generation", labels,
+                    s.tokensPerSecond, 0.01);
+        }
+    }
+
+    /**
+     * 单个模型和接口地址的统计数据
+     */
+    @Getter
+    public static final class Stats {
+        /**
+         * 模型名称
+         */
+        private final String model;
+
+        /**
+         * 接口地址
+         */
+        private final String endpoint;
+
+        /**
+         * 排队耗时（微秒）
+         */
+        private final Histogram queue = new Histogram();
+
+        /**
+         * 建连耗时（微秒），复用连接时不记录
+         */
+        private final Histogram connect = new Histogram();
+
+        /**
+         * 首个令牌耗时（微秒），仅流式调用记录
+         */
+        private final Histogram ttft = new Histogram();
+
+        /**
+         * 令牌间隔（微秒），仅流式调用记录
+         */
+        private final Histogram interToken = new Histogram();
+
+        /**
+         * 总耗时（微秒）
+         */
+        private final Histogram duration = new Histogram();
+
+        /**
+         * 命中前缀缓存时的首个令牌耗时（微秒）
+         */
+        private final Histogram cacheHitTtft = new Histogram();
+
+        /**
+         * 命中前缀缓存时的总耗时（微秒）
+         */
+        private final Histogram cacheHitDuration = new Histogram();
+
+        /**
+         * 生成速度（每秒令牌数的100倍）
+         */
+        private final Histogram tokensPerSecond = new Histogram();
+
+        /**
+         * 调用次数
+         */
+        private final LongAdder requests = new LongAdder();
+
+        /**
+         * 失败次数
+         */
+        private final LongAdder errors = new LongAdder();
+
+        /**
+         * 输入令牌总数
+         */
+        private final LongAdder promptTokens = new LongAdder();
+
+        /**
+         * 输出令牌总数
+         */
+        private final LongAdder completionTokens = new LongAdder();
+
+        /**
+         * 命中前缀缓存的调用次数
+         */
+        private final LongAdder cacheHits = new LongAdder();
+
+        /**
+         * 命中前缀缓存的输入令牌总数
+         */
+        private final LongAdder cachedPromptTokens = new LongAdder();
+
+        Stats(String model, String endpoint) {
+            this.model = model;
+            this.endpoint = endpoint;
+        }
+    }
+
+    /**
+     * 统计分组键
+     */
+    private static final class Key {
+        private final String model;
+        private final String endpoint;
+
+        Key(String model, String endpoint) {
+            this.model = model != null ? model : "";
+            this.endpoint = endpoint != null ? endpoint : "";
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return model.equals(key.model) && endpoint.equals(key.endpoint);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(model, endpoint);
+        }
+    }
+}
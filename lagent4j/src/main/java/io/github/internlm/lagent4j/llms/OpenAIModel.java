@@ -1,18 +1,25 @@
 package io.github.internlm.lagent4j.llms;
 
 import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
 import com.alibaba.fastjson2.JSONObject;
+import com.alibaba.fastjson2.JSONWriter;
+import io.github.internlm.lagent4j.schema.ChatMessage;
+import io.github.internlm.lagent4j.utils.HttpClients;
+import io.github.internlm.lagent4j.utils.VirtualThreads;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.*;
 import okio.BufferedSource;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
 import java.time.Duration;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
 
 /**
@@ -21,28 +28,83 @@ import java.util.function.Consumer;
 @Slf4j
 public class OpenAIModel implements BaseLLM {
     private static final MediaType JSON_MEDIA_TYPE = MediaType.parse("application/json; charset=utf-8");
+
+    /**
+     * 将建连事件转发给请求标签中的追踪对象
+     */
+    private static final EventListener TRACE_LISTENER = new EventListener() {
+        @Override
+        public void dnsStart(Call call, String domainName) {
+            LLMCallTrace trace = call.request().tag(LLMCallTrace.class);
+            if (trace != null) {
+                trace.connectStart();
+            }
+        }
+
+        @Override
+        public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+            LLMCallTrace trace = call.request().tag(LLMCallTrace.class);
+            if (trace != null) {
+                trace.connectStart();
+            }
+        }
+
+        @Override
+        public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+            LLMCallTrace trace = call.request().tag(LLMCallTrace.class);
+            if (trace != null) {
+                trace.connectEnd();
+            }
+        }
+    };
     private final OkHttpClient client;
     private final String baseUrl;
     private final String apiKey;
     private final Map<String, Object> defaultParams;
+    private final String endpoint;
+    private final LLMMetrics metrics;
+    private final boolean streamUsage;
+    private final boolean structuredOutput;
+    private final ExecutorService executor;
 
     /**
      * 私有构造函数，通过Builder创建实例
      */
     private OpenAIModel(Builder builder) {
-        // 创建HTTP客户端
-        this.client = new OkHttpClient.Builder()
+        this.executor = builder.executor;
+
+        // 从共享客户端派生，复用连接池；拦截器和事件监听器用于记录排队和建连耗时
+        OkHttpClient.Builder clientBuilder = HttpClients.shared().newBuilder()
                 .connectTimeout(Duration.ofSeconds(builder.timeoutSeconds))
                 .callTimeout(Duration.ofSeconds(builder.timeoutSeconds))
                 .readTimeout(Duration.ofSeconds(builder.timeoutSeconds))
                 .writeTimeout(Duration.ofSeconds(builder.timeoutSeconds))
-                .build();
+                .addInterceptor(chain -> {
+                    LLMCallTrace trace = chain.request().tag(LLMCallTrace.class);
+                    if (trace != null) {
+                        trace.markStart();
+                    }
+                    return chain.proceed(chain.request());
+                })
+                .eventListener(TRACE_LISTENER);
+        if (executor != null) {
+            // 流式请求也由指定的执行器分发，并放开OkHttp默认每个主机5个并发请求的限制
+            Dispatcher dispatcher = new Dispatcher(executor);
+            dispatcher.setMaxRequests(builder.maxConcurrentRequests);
+            dispatcher.setMaxRequestsPerHost(builder.maxConcurrentRequests);
+            clientBuilder.dispatcher(dispatcher);
+        }
+        this.client = clientBuilder.build();
 
         // 设置基础URL和API密钥
         this.baseUrl = builder.baseUrl != null && !builder.baseUrl.isEmpty() 
                 ? builder.baseUrl.replaceAll("/$", "") 
                 : "https://api.openai.com/v1";
+        this.endpoint = baseUrl + "/chat/completions";
         this.apiKey = builder.apiKey;
+        this.metrics = builder.metrics != null ? builder.metrics : new LLMMetrics();
+        this.streamUsage = builder.streamUsage;
+        this.structuredOutput = builder.structuredOutput;
 
         // 设置默认参数
         this.defaultParams = new HashMap<>();
@@ -56,22 +118,31 @@ public class OpenAIModel implements BaseLLM {
 
     @Override
     public String chat(List<Map<String, String>> messages) {
-        return chat(messages, defaultParams);
+        return chatMessages(ChatMessage.fromMaps(messages), null);
     }
 
     @Override
     public String chat(List<Map<String, String>> messages, Map<String, Object> params) {
-        try {
-            // 构建请求体
-            Map<String, Object> requestBody = buildRequestBody(messages, params);
-            String jsonBody = JSON.toJSONString(requestBody);
+        return chatMessages(ChatMessage.fromMaps(messages), params);
+    }
+
+    @Override
+    public String chatMessages(List<ChatMessage> messages, Map<String, Object> params) {
+        return doChat(messages, params, metrics.startCall(modelOf(params), endpoint));
+    }
 
+    /**
+     * 执行同步请求
+     *
+     * @param messages 消息列表
+     * @param params   请求参数
+     * @param trace    调用追踪对象
+     * @return 模型的回复文本
+     */
+    private String doChat(List<ChatMessage> messages, Map<String, Object> params, LLMCallTrace trace) {
+        try {
             // 构建请求
-            Request request = new Request.Builder()
-                    .url(baseUrl + "/chat/completions")
-                    .post(RequestBody.create(jsonBody, JSON_MEDIA_TYPE))
-                    .addHeader("Authorization", "Bearer " + apiKey)
-                    .build();
+            Request request = newRequest(buildRequestBody(messages, params, false), trace);
 
             // 发送请求
             try (Response response = client.newCall(request).execute()) {
@@ -82,12 +153,16 @@ public class OpenAIModel implements BaseLLM {
                 // 解析响应
                 String responseBody = response.body().string();
                 JSONObject jsonResponse = JSON.parseObject(responseBody);
-                return jsonResponse.getJSONArray("choices")
+                recordUsage(trace, jsonResponse.getJSONObject("usage"));
+                String content = jsonResponse.getJSONArray("choices")
                         .getJSONObject(0)
                         .getJSONObject("message")
                         .getString("content");
+                trace.finish(true);
+                return content;
             }
         } catch (Exception e) {
+            trace.finish(false);
             log.error("Error in chat request: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to get chat response", e);
         }
@@ -95,12 +170,20 @@ public class OpenAIModel implements BaseLLM {
 
     @Override
     public CompletableFuture<String> chatAsync(List<Map<String, String>> messages) {
-        return chatAsync(messages, defaultParams);
+        return chatMessagesAsync(ChatMessage.fromMaps(messages), null);
     }
 
     @Override
     public CompletableFuture<String> chatAsync(List<Map<String, String>> messages, Map<String, Object> params) {
-        return CompletableFuture.supplyAsync(() -> chat(messages, params));
+        return chatMessagesAsync(ChatMessage.fromMaps(messages), params);
+    }
+
+    @Override
+    public CompletableFuture<String> chatMessagesAsync(List<ChatMessage> messages, Map<String, Object> params) {
+        LLMCallTrace trace = metrics.startCall(modelOf(params), endpoint);
+        return executor != null
+                ? CompletableFuture.supplyAsync(() -> doChat(messages, params, trace), executor)
+                : CompletableFuture.supplyAsync(() -> doChat(messages, params, trace));
     }
 
     @Override
@@ -108,7 +191,7 @@ public class OpenAIModel implements BaseLLM {
                          Consumer<String> onChunk,
                          Consumer<Throwable> onError,
                          Runnable onComplete) {
-        chatStream(messages, defaultParams, onChunk, onError, onComplete);
+        chatMessagesStream(ChatMessage.fromMaps(messages), null, onChunk, onError, onComplete);
     }
 
     @Override
@@ -117,23 +200,25 @@ public class OpenAIModel implements BaseLLM {
                          Consumer<String> onChunk,
                          Consumer<Throwable> onError,
                          Runnable onComplete) {
-        try {
-            // 构建请求体
-            Map<String, Object> requestBody = buildRequestBody(messages, params);
-            requestBody.put("stream", true);
-            String jsonBody = JSON.toJSONString(requestBody);
+        chatMessagesStream(ChatMessage.fromMaps(messages), params, onChunk, onError, onComplete);
+    }
 
+    @Override
+    public void chatMessagesStream(List<ChatMessage> messages,
+                                   Map<String, Object> params,
+                                   Consumer<String> onChunk,
+                                   Consumer<Throwable> onError,
+                                   Runnable onComplete) {
+        LLMCallTrace trace = metrics.startCall(modelOf(params), endpoint);
+        try {
             // 构建请求
-            Request request = new Request.Builder()
-                    .url(baseUrl + "/chat/completions")
-                    .post(RequestBody.create(jsonBody, JSON_MEDIA_TYPE))
-                    .addHeader("Authorization", "Bearer " + apiKey)
-                    .build();
+            Request request = newRequest(buildRequestBody(messages, params, true), trace);
 
             // 发送请求
             client.newCall(request).enqueue(new Callback() {
                 @Override
                 public void onFailure(Call call, IOException e) {
+                    trace.finish(false);
                     onError.accept(e);
                 }
 
@@ -153,42 +238,149 @@ public class OpenAIModel implements BaseLLM {
                                 if (line.startsWith("data: ")) {
                                     String data = line.substring(6);
                                     if (data.equals("[DONE]")) {
+                                        trace.finish(true);
                                         onComplete.run();
                                         break;
                                     }
 
-                                    // 解析数据
+                                    // 解析数据，开启用量统计时最后一个数据块只包含usage，choices为空
                                     JSONObject jsonChunk = JSON.parseObject(data);
-                                    String content = jsonChunk.getJSONArray("choices")
-                                            .getJSONObject(0)
-                                            .getJSONObject("delta")
-                                            .getString("content");
+                                    recordUsage(trace, jsonChunk.getJSONObject("usage"));
+                                    JSONArray choices = jsonChunk.getJSONArray("choices");
+                                    if (choices == null || choices.isEmpty()) {
+                                        continue;
+                                    }
+                                    JSONObject delta = choices.getJSONObject(0).getJSONObject("delta");
+                                    String content = delta != null ? delta.getString("content") : null;
 
                                     if (content != null) {
+                                        trace.markToken();
                                         onChunk.accept(content);
                                     }
                                 }
                             }
+                            trace.finish(true);
                         }
                     } catch (Exception e) {
+                        trace.finish(false);
                         onError.accept(e);
                     }
                 }
             });
         } catch (Exception e) {
+            trace.finish(false);
             onError.accept(e);
         }
     }
 
-    private Map<String, Object> buildRequestBody(List<Map<String, String>> messages, Map<String, Object> params) {
-        Map<String, Object> mergedParams = new HashMap<>(defaultParams);
-        if (params != null) {
+    @Override
+    public LLMMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public boolean supportsStructuredOutput() {
+        return structuredOutput;
+    }
+
+    /**
+     * 创建聊天补全请求，追踪对象作为请求标签供拦截器和事件监听器使用
+     *
+     * @param body  请求体
+     * @param trace 调用追踪对象
+     * @return HTTP请求
+     */
+    private Request newRequest(byte[] body, LLMCallTrace trace) {
+        return new Request.Builder()
+                .url(endpoint)
+                .post(RequestBody.create(body, JSON_MEDIA_TYPE))
+                .addHeader("Authorization", "Bearer " + apiKey)
+                .tag(LLMCallTrace.class, trace)
+                .build();
+    }
+
+    /**
+     * 获取本次请求实际使用的模型名称
+     *
+     * @param params 请求参数
+     * @return 模型名称
+     */
+    private String modelOf(Map<String, Object> params) {
+        Object model = params != null && params.containsKey("model") ? params.get("model") : defaultParams.get("model");
+        return String.valueOf(model);
+    }
+
+    /**
+     * 记录接口返回的令牌用量
+     *
+     * @param trace 调用追踪对象
+     * @param usage 响应中的usage字段，可为null
+     */
+    private static void recordUsage(LLMCallTrace trace, JSONObject usage) {
+        if (usage != null) {
+            // 支持前缀缓存的服务在prompt_tokens_details.cached_tokens中返回命中缓存的输入令牌数
+            JSONObject details = usage.getJSONObject("prompt_tokens_details");
+            trace.usage(usage.getLongValue("prompt_tokens", -1),
+                    usage.getLongValue("completion_tokens", -1),
+                    details != null ? details.getLongValue("cached_tokens", -1) : -1);
+        }
+    }
+
+    /**
+     * 构建请求体
+     * <p>
+     * 直接将参数和消息写入UTF-8字节流，已缓存编码的消息直接复用，不再为每条消息创建中间Map
+     *
+     * @param messages 消息列表
+     * @param params   请求参数，为null时使用默认参数
+     * @param stream   是否为流式请求
+     * @return 请求体字节数组
+     */
+    byte[] buildRequestBody(List<ChatMessage> messages, Map<String, Object> params, boolean stream) {
+        Map<String, Object> mergedParams = defaultParams;
+        if (params != null && params != defaultParams && !params.isEmpty()) {
+            mergedParams = new HashMap<>(defaultParams);
             mergedParams.putAll(params);
         }
 
-        Map<String, Object> requestBody = new HashMap<>(mergedParams);
-        requestBody.put("messages", messages);
-        return requestBody;
+        try (JSONWriter writer = JSONWriter.ofUTF8()) {
+            writer.startObject();
+            for (Map.Entry<String, Object> entry : mergedParams.entrySet()) {
+                if ("messages".equals(entry.getKey()) || "stream".equals(entry.getKey())
+                        || (stream && streamUsage && "stream_options".equals(entry.getKey()))) {
+                    continue;
+                }
+                writer.writeName(entry.getKey());
+                writer.writeColon();
+                writer.writeAny(entry.getValue());
+            }
+            if (stream) {
+                writer.writeName("stream");
+                writer.writeColon();
+                writer.writeBool(true);
+                if (streamUsage) {
+                    writer.writeName("stream_options");
+                    writer.writeColon();
+                    writer.startObject();
+                    writer.writeName("include_usage");
+                    writer.writeColon();
+                    writer.writeBool(true);
+                    writer.endObject();
+                }
+            }
+            writer.writeName("messages");
+            writer.writeColon();
+            writer.startArray();
+            for (int i = 0; i < messages.size(); i++) {
+                if (i > 0) {
+                    writer.writeComma();
+                }
+                messages.get(i).writeJson(writer);
+            }
+            writer.endArray();
+            writer.endObject();
+            return writer.getBytes();
+        }
     }
 
     /**
@@ -204,6 +396,11 @@ public class OpenAIModel implements BaseLLM {
         private double frequencyPenalty = 0.0;
         private double presencePenalty = 0.0;
         private int timeoutSeconds = 120;
+        private LLMMetrics metrics;
+        private boolean streamUsage = true;
+        private boolean structuredOutput;
+        private ExecutorService executor;
+        private int maxConcurrentRequests = 1024;
 
         public Builder apiKey(String apiKey) {
             this.apiKey = apiKey;
@@ -250,6 +447,55 @@ public class OpenAIModel implements BaseLLM {
             return this;
         }
 
+        /**
+         * 设置调用指标对象，多个模型可以共享同一个对象；不设置时每个模型使用独立的指标对象
+         */
+        public Builder metrics(LLMMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        /**
+         * 流式请求是否携带stream_options.include_usage以获取令牌用量，默认开启。
+         * 不支持该参数的兼容服务可以关闭
+         */
+        public Builder streamUsage(boolean streamUsage) {
+            this.streamUsage = streamUsage;
+            return this;
+        }
+
+        /**
+         * 是否启用结构化输出模式，默认关闭。启用后代理在工具调用阶段发送由工具目录生成的
+         * {@code response_format}（json_schema），需要服务端支持该参数
+         */
+        public Builder structuredOutput(boolean structuredOutput) {
+            this.structuredOutput = structuredOutput;
+            return this;
+        }
+
+        /**
+         * 设置异步和流式请求使用的执行器；不设置时异步请求使用公共线程池，流式请求使用OkHttp默认的分发器
+         */
+        public Builder executor(ExecutorService executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * 异步和流式请求使用虚拟线程执行，当前JDK不支持时退回到平台线程
+         */
+        public Builder virtualThreads() {
+            return executor(VirtualThreads.newExecutor("lagent4j-llm-"));
+        }
+
+        /**
+         * 设置了执行器时允许的最大并发请求数，默认1024
+         */
+        public Builder maxConcurrentRequests(int maxConcurrentRequests) {
+            this.maxConcurrentRequests = maxConcurrentRequests;
+            return this;
+        }
+
         public OpenAIModel build() {
             if (apiKey == null || apiKey.isEmpty()) {
                 throw new IllegalStateException("API key must be provided");
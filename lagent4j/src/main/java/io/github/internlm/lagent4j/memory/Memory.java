@@ -3,20 +3,28 @@ package io.github.internlm.lagent4j.memory;
 import io.github.internlm.lagent4j.schema.AgentMessage;
 
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 /**
  * 内存类
  * <p>
- * 用于存储和管理代理的对话历史
+ * 用于存储和管理代理的对话历史。读写操作通过显式锁互斥，
+ * 在虚拟线程中使用时不会占住载体线程
  */
 public class Memory {
     /**
      * 存储消息的列表
      */
-    private final List<AgentMessage> memory;
+    private final ArrayDeque<AgentMessage> memory;
+
+    /**
+     * 保护消息列表的互斥锁，读和写共用；使用ReentrantLock而不是synchronized以避免虚拟线程被固定
+     */
+    private final ReentrantLock lock = new ReentrantLock();
     
     /**
      * 最大内存容量，-1表示无限制
@@ -36,7 +44,7 @@ public class Memory {
      * @param capacity 内存容量，-1表示无限制
      */
     public Memory(int capacity) {
-        this.memory = new ArrayList<>();
+        this.memory = new ArrayDeque<>();
         this.capacity = capacity;
     }
     
@@ -46,10 +54,15 @@ public class Memory {
      * @param message 要添加的消息
      */
     public void add(AgentMessage message) {
-        if (capacity > 0 && memory.size() >= capacity) {
-            memory.remove(0);
+        lock.lock();
+        try {
+            if (capacity > 0 && memory.size() >= capacity) {
+                memory.pollFirst();
+            }
+            memory.addLast(message);
+        } finally {
+            lock.unlock();
         }
-        memory.add(message);
     }
     
     /**
@@ -58,8 +71,13 @@ public class Memory {
      * @param messages 要添加的消息列表
      */
     public void add(List<AgentMessage> messages) {
-        for (AgentMessage message : messages) {
-            add(message);
+        lock.lock();
+        try {
+            for (AgentMessage message : messages) {
+                add(message);
+            }
+        } finally {
+            lock.unlock();
         }
     }
     
@@ -67,7 +85,12 @@ public class Memory {
      * 清空内存
      */
     public void clear() {
-        memory.clear();
+        lock.lock();
+        try {
+            memory.clear();
+        } finally {
+            lock.unlock();
+        }
     }
     
     /**
@@ -76,7 +99,12 @@ public class Memory {
      * @return 内存中的所有消息
      */
     public List<AgentMessage> getMemory() {
-        return new ArrayList<>(memory);
+        lock.lock();
+        try {
+            return new ArrayList<>(memory);
+        } finally {
+            lock.unlock();
+        }
     }
     
     /**
@@ -86,9 +114,14 @@ public class Memory {
      * @return 指定发送者的所有消息
      */
     public List<AgentMessage> getBySender(String sender) {
-        return memory.stream()
-                .filter(message -> message.getSender().equals(sender))
-                .collect(Collectors.toList());
+        lock.lock();
+        try {
+            return memory.stream()
+                    .filter(message -> message.getSender().equals(sender))
+                    .collect(Collectors.toList());
+        } finally {
+            lock.unlock();
+        }
     }
     
     /**
@@ -97,10 +130,12 @@ public class Memory {
      * @return 最后一条消息，如果内存为空则返回null
      */
     public AgentMessage getLast() {
-        if (memory.isEmpty()) {
-            return null;
+        lock.lock();
+        try {
+            return memory.peekLast();
+        } finally {
+            lock.unlock();
         }
-        return memory.get(memory.size() - 1);
     }
     
     /**
@@ -109,7 +144,12 @@ public class Memory {
      * @return 内存中消息的数量
      */
     public int size() {
-        return memory.size();
+        lock.lock();
+        try {
+            return memory.size();
+        } finally {
+            lock.unlock();
+        }
     }
     
     /**
@@ -118,6 +158,11 @@ public class Memory {
      * @return 如果内存为空则返回true，否则返回false
      */
     public boolean isEmpty() {
-        return memory.isEmpty();
+        lock.lock();
+        try {
+            return memory.isEmpty();
+        } finally {
+            lock.unlock();
+        }
     }
 } 
\ No newline at end of file
@@ -2,14 +2,15 @@ package io.github.internlm.lagent4j.memory;
 
 import io.github.internlm.lagent4j.schema.AgentMessage;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 内存管理器类
  * <p>
- * 用于管理多个会话的内存，每个会话由一个唯一的会话ID标识
+ * 用于管理多个会话的内存，每个会话由一个唯一的会话ID标识。
+ * 多个会话可以在不同线程中并发读写
  */
 public class MemoryManager {
     /**
@@ -35,7 +36,7 @@ public class MemoryManager {
      * @param capacity 内存容量，-1表示无限制
      */
     public MemoryManager(int capacity) {
-        this.memories = new HashMap<>();
+        this.memories = new ConcurrentHashMap<>();
         this.capacity = capacity;
     }
     
@@ -45,7 +46,7 @@ public class MemoryManager {
      * @param memoryConfig 内存配置
      */
     public MemoryManager(Map<String, Object> memoryConfig) {
-        this.memories = new HashMap<>();
+        this.memories = new ConcurrentHashMap<>();
         
         // 从配置中获取容量，默认为-1（无限制）
         this.capacity = memoryConfig.containsKey("capacity") ? 
@@ -59,10 +60,7 @@ public class MemoryManager {
      * @return 指定会话的内存
      */
     public Memory get(int sessionId) {
-        if (!memories.containsKey(sessionId)) {
-            memories.put(sessionId, new Memory(capacity));
-        }
-        return memories.get(sessionId);
+        return memories.computeIfAbsent(sessionId, id -> new Memory(capacity));
     }
     
     /**
@@ -91,8 +89,9 @@ public class MemoryManager {
      * @param sessionId 会话ID
      */
     public void clear(int sessionId) {
-        if (memories.containsKey(sessionId)) {
-            memories.get(sessionId).clear();
+        Memory memory = memories.get(sessionId);
+        if (memory != null) {
+            memory.clear();
         }
     }
     
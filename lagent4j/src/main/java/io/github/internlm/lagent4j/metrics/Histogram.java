@@ -0,0 +1,181 @@
+package io.github.internlm.lagent4j.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁直方图
+ * <p>
+ * 采用HDR直方图的对数-线性分桶方式：小于128的值精确记录，更大的值在每个2的幂区间内
+ * 再均分为64个子桶，相对误差不超过1/64。记录操作不加锁：对桶计数做一次原子自增，对总数和总和各做一次LongAdder累加，
+ * 只有新值超过当前最大值时才用CAS循环更新最大值，可以在热路径上并发调用。
+ * 超过{@link #MAX_TRACKABLE_VALUE}的值按最大值记录。
+ */
+public class Histogram {
+    /**
+     * 子桶位数
+     */
+    private static final int SUB_BUCKET_BITS = 7;
+
+    /**
+     * 子桶数量
+     */
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * 每个2的幂区间内的子桶数量
+     */
+    private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT >> 1;
+
+    /**
+     * 可精确分桶的最大值（以微秒计约19小时）
+     */
+    public static final long MAX_TRACKABLE_VALUE = (1L << 36) - 1;
+
+    /**
+     * 各桶计数
+     */
+    private final AtomicLongArray counts;
+
+    /**
+     * 记录总数
+     */
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * 记录值之和
+     */
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * 记录的最大值
+     */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * 创建一个直方图
+     */
+    public Histogram() {
+        this.counts = new AtomicLongArray(indexOf(MAX_TRACKABLE_VALUE) + 1);
+    }
+
+    /**
+     * 记录一个值
+     *
+     * @param value 要记录的值，负数按0处理
+     */
+    public void record(long value) {
+        long v = Math.min(Math.max(value, 0), MAX_TRACKABLE_VALUE);
+        counts.incrementAndGet(indexOf(v));
+        count.increment();
+        sum.add(v);
+        long current = max.get();
+        while (v > current && !max.compareAndSet(current, v)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * 获取记录总数
+     *
+     * @return 记录总数
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * 获取记录值之和
+     *
+     * @return 记录值之和
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * 获取记录的最大值
+     *
+     * @return 最大值
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * 获取平均值
+     *
+     * @return 平均值，没有记录时返回0
+     */
+    public double getMean() {
+        long n = getCount();
+        return n == 0 ? 0 : (double) getSum() / n;
+    }
+
+    /**
+     * 获取指定百分位的值
+     * <p>
+     * 返回该百分位所在桶的上界（不超过最大值），与HDR直方图的highestEquivalentValue语义一致
+     *
+     * @param percentile 百分位，取值0到100
+     * @return 百分位对应的值，没有记录时返回0
+     */
+    public long getValueAtPercentile(double percentile) {
+        long total = getCount();
+        if (total == 0) {
+            return 0;
+        }
+        double p = Math.min(Math.max(percentile, 0), 100);
+        long target = Math.max(1, (long) Math.ceil(p / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(upperBoundOf(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * 清空直方图
+     */
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    /**
+     * 计算值所在的桶下标
+     *
+     * @param value 非负值
+     * @return 桶下标
+     */
+    static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - (SUB_BUCKET_BITS - 1);
+        return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF + (int) ((value >> shift) - SUB_BUCKET_HALF);
+    }
+
+    /**
+     * 计算桶的上界
+     *
+     * @param index 桶下标
+     * @return 桶内的最大值
+     */
+    static long upperBoundOf(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF + 1;
+        long subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF + SUB_BUCKET_HALF;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,15 @@
+package io.github.internlm.lagent4j.metrics;
+
+/**
+ * 指标来源接口
+ * <p>
+ * 持有指标的组件实现该接口，在导出时把当前值写入{@link MetricWriter}
+ */
+public interface MetricSource {
+    /**
+     * 收集当前指标
+     *
+     * @param writer 指标写入器
+     */
+    void collect(MetricWriter writer);
+}
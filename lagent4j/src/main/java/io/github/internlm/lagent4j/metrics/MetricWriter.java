@@ -0,0 +1,41 @@
+package io.github.internlm.lagent4j.metrics;
+
+import java.util.Map;
+
+/**
+ * 指标写入接口
+ * <p>
+ * 由导出器实现，指标来源通过它输出计数器、仪表和直方图，而不需要关心具体的导出格式
+ */
+public interface MetricWriter {
+    /**
+     * 写入单调递增的计数器
+     *
+     * @param name   指标名称
+     * @param help   指标说明
+     * @param labels 标签
+     * @param value  当前值
+     */
+    void counter(String name, String help, Map<String, String> labels, double value);
+
+    /**
+     * 写入仪表（可增可减的瞬时值）
+     *
+     * @param name   指标名称
+     * @param help   指标说明
+     * @param labels 标签
+     * @param value  当前值
+     */
+    void gauge(String name, String help, Map<String, String> labels, double value);
+
+    /**
+     * 写入直方图摘要
+     *
+     * @param name      指标名称
+     * @param help      指标说明
+     * @param labels    标签
+     * @param histogram 直方图
+     * @param scale     将直方图中的值换算为导出单位的系数，例如微秒换算为秒时为1e-6
+     */
+    void summary(String name, String help, Map<String, String> labels, Histogram histogram, double scale);
+}
@@ -0,0 +1,19 @@
+package io.github.internlm.lagent4j.metrics;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 指标导出器接口
+ * <p>
+ * 负责把一个或多个指标来源的当前值导出到外部，例如文本文件、日志或监控系统
+ */
+public interface MetricsExporter {
+    /**
+     * 导出指标
+     *
+     * @param sources 指标来源列表
+     * @throws IOException 导出失败时抛出
+     */
+    void export(List<? extends MetricSource> sources) throws IOException;
+}
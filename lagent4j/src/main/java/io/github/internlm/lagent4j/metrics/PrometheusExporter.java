@@ -0,0 +1,166 @@
+package io.github.internlm.lagent4j.metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Prometheus文本格式导出器
+ * <p>
+ * 将指标渲染为Prometheus文本格式（0.0.4），直方图按summary类型输出分位数、总和与次数。
+ * 渲染结果可以由应用自己的HTTP接口直接返回，也可以写入文件交给node_exporter的textfile收集器，
+ * 不依赖任何外部服务或客户端库。
+ */
+public class PrometheusExporter implements MetricsExporter {
+    /**
+     * summary输出的分位数
+     */
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    /**
+     * 导出文件路径，为null时export不写文件
+     */
+    private final Path target;
+
+    /**
+     * 创建一个只用于渲染文本的导出器
+     */
+    public PrometheusExporter() {
+        this(null);
+    }
+
+    /**
+     * 创建一个写入文件的导出器
+     *
+     * @param target 导出文件路径，每次导出时原子替换
+     */
+    public PrometheusExporter(Path target) {
+        this.target = target;
+    }
+
+    /**
+     * 将指标渲染为Prometheus文本格式
+     *
+     * @param sources 指标来源列表
+     * @return Prometheus文本
+     */
+    public String render(List<? extends MetricSource> sources) {
+        TextWriter writer = new TextWriter();
+        for (MetricSource source : sources) {
+            source.collect(writer);
+        }
+        return writer.render();
+    }
+
+    @Override
+    public void export(List<? extends MetricSource> sources) throws IOException {
+        if (target == null) {
+            return;
+        }
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        Files.writeString(tmp, render(sources), StandardCharsets.UTF_8);
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 按指标名称分组缓存样本，保证每个指标只输出一次HELP和TYPE
+     */
+    private static class TextWriter implements MetricWriter {
+        private final Map<String, Family> families = new LinkedHashMap<>();
+
+        @Override
+        public void counter(String name, String help, Map<String, String> labels, double value) {
+            family(name, help, "counter").samples.add(sample(name, labels, null, value));
+        }
+
+        @Override
+        public void gauge(String name, String help, Map<String, String> labels, double value) {
+            family(name, help, "gauge").samples.add(sample(name, labels, null, value));
+        }
+
+        @Override
+        public void summary(String name, String help, Map<String, String> labels,
+                            Histogram histogram, double scale) {
+            Family family = family(name, help, "summary");
+            for (double quantile : QUANTILES) {
+                family.samples.add(sample(name, labels, formatNumber(quantile),
+                        histogram.getValueAtPercentile(quantile * 100) * scale));
+            }
+            family.samples.add(sample(name + "_sum", labels, null, histogram.getSum() * scale));
+            family.samples.add(sample(name + "_count", labels, null, histogram.getCount()));
+        }
+
+        private Family family(String name, String help, String type) {
+            return families.computeIfAbsent(name, key -> new Family(help, type));
+        }
+
+        private String sample(String name, Map<String, String> labels, String quantile, double value) {
+            StringBuilder line = new StringBuilder(name);
+            Map<String, String> sorted = new TreeMap<>(labels != null ? labels : Map.of());
+            if (!sorted.isEmpty() || quantile != null) {
+                line.append('{');
+                boolean first = true;
+                for (Map.Entry<String, String> entry : sorted.entrySet()) {
+                    if (!first) {
+                        line.append(',');
+                    }
+                    first = false;
+                    line.append(entry.getKey()).append("=\"").append(escape(entry.getValue())).append('"');
+                }
+                if (quantile != null) {
+                    if (!first) {
+                        line.append(',');
+                    }
+                    line.append("quantile=\"").append(quantile).append('"');
+                }
+                line.append('}');
+            }
+            return line.append(' ').append(formatNumber(value)).toString();
+        }
+
+        String render() {
+            StringBuilder out = new StringBuilder();
+            families.forEach((name, family) -> {
+                out.append("# HELP ").append(name).append(' ').append(family.help).append('\n');
+                out.append("# TYPE ").append(name).append(' ').append(family.type).append('\n');
+                family.samples.forEach(sample -> out.append(sample).append('\n'));
+            });
+            return out.toString();
+        }
+    }
+
+    /**
+     * 同名指标的样本集合
+     */
+    private static class Family {
+        final String help;
+        final String type;
+        final List<String> samples = new ArrayList<>();
+
+        Family(String help, String type) {
+            this.help = help;
+            this.type = type;
+        }
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String formatNumber(double value) {
+        if (value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+}
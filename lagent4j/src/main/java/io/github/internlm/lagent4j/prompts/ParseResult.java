@@ -0,0 +1,255 @@
+package io.github.internlm.lagent4j.prompts;
+
+import io.github.internlm.lagent4j.schema.FunctionCall;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 解析结果
+ * <p>
+ * {@link Parser#parse(String)}返回的类型化结果，调用方用switch或instanceof按具体类型取字段，
+ * 不再按字符串键从Map中查找和强制转换。{@link #toMap()}把结果转换为原来parseResponse返回的Map，
+ * 供仍按键读取结果的代码使用。
+ */
+public sealed interface ParseResult permits ParseResult.Text, ParseResult.Json, ParseResult.ToolCalls {
+
+    /**
+     * 是否解析出了结构化内容，对应Map中的status（1或0）
+     *
+     * @return 解析成功时返回true
+     */
+    boolean success();
+
+    /**
+     * 结构化内容之外的思考过程
+     *
+     * @return 思考过程，没有时返回空字符串
+     */
+    String thought();
+
+    /**
+     * 转换为原来parseResponse返回的Map
+     *
+     * @return 新建的可修改Map
+     */
+    Map<String, Object> toMap();
+
+    /**
+     * 把旧解析器parseResponse返回的结果转换为类型化的结果
+     * <p>
+     * 含有name或tool_calls的Map转换为{@link ToolCalls}，其他Map转换为{@link Json}，其余结果转换为{@link Text}
+     *
+     * @param result   parseResponse的返回值
+     * @param response 响应文本
+     * @return 解析结果
+     */
+    @SuppressWarnings("unchecked")
+    static ParseResult fromLegacy(Object result, String response) {
+        if (result instanceof ParseResult parseResult) {
+            return parseResult;
+        }
+        if (result instanceof Map<?, ?> map) {
+            boolean success = Integer.valueOf(1).equals(map.get("status"));
+            Object thought = map.get("thought");
+            String text = thought != null ? thought.toString() : "";
+            Object toolCalls = map.get("tool_calls");
+            if (map.get("name") != null || toolCalls instanceof List) {
+                List<?> items = toolCalls instanceof List<?> list && !list.isEmpty() ? list : List.of(map);
+                List<FunctionCall> calls = new ArrayList<>(items.size());
+                for (Object item : items) {
+                    if (item instanceof Map<?, ?> call && call.get("name") != null) {
+                        Object arguments = call.get("parameters");
+                        calls.add(new FunctionCall(call.get("name").toString(),
+                                arguments instanceof Map ? (Map<String, Object>) arguments : null));
+                    }
+                }
+                Object toolType = map.get("tool_type");
+                Object action = map.get("action");
+                return new ToolCalls(toolType != null ? toolType.toString() : null, text,
+                        action != null ? action.toString() : calls.isEmpty() ? null : calls.get(0).getName(),
+                        calls, List.of(), success || !calls.isEmpty());
+            }
+            Object content = map.get("content");
+            List<Json.Block> blocks = content == null ? List.of()
+                    : List.of(new Json.Block(content, 0, response != null ? response.length() : 0, "raw"));
+            Object error = map.get("error");
+            String message = success ? null : error != null ? error.toString() : "未解析出结构化内容";
+            return new Json(text, blocks, message);
+        }
+        if (result != null) {
+            return new Text(result.toString());
+        }
+        return new Text(response != null ? response : "");
+    }
+
+    /**
+     * 纯文本结果，响应中没有可识别的结构化内容
+     *
+     * @param text 响应文本
+     */
+    record Text(String text) implements ParseResult {
+        @Override
+        public boolean success() {
+            return false;
+        }
+
+        @Override
+        public String thought() {
+            return text;
+        }
+
+        @Override
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new HashMap<>();
+            map.put("status", 0);
+            map.put("thought", text);
+            return map;
+        }
+    }
+
+    /**
+     * JSON结果
+     *
+     * @param thought JSON块之外的文本
+     * @param blocks  解析出的JSON块，按出现顺序排列
+     * @param error   没有解析出任何JSON块时的错误信息，成功时为null
+     */
+    record Json(String thought, List<Block> blocks, String error) implements ParseResult {
+
+        public Json {
+            blocks = List.copyOf(blocks);
+        }
+
+        @Override
+        public boolean success() {
+            return error == null;
+        }
+
+        /**
+         * 只有一个JSON块时返回其内容
+         *
+         * @return JSON对象或数组，块的数量不是1时返回null
+         */
+        public Object content() {
+            return blocks.size() == 1 ? blocks.get(0).content() : null;
+        }
+
+        @Override
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new HashMap<>();
+            map.put("status", success() ? 1 : 0);
+            if (error != null) {
+                map.put("error", error);
+            }
+            if (!thought.isEmpty()) {
+                map.put("thought", thought);
+            }
+            if (blocks.size() == 1) {
+                map.put("content", blocks.get(0).content());
+            } else if (!blocks.isEmpty()) {
+                List<Map<String, Object>> list = new ArrayList<>(blocks.size());
+                for (Block block : blocks) {
+                    list.add(block.toMap());
+                }
+                map.put("blocks", list);
+            }
+            return map;
+        }
+
+        /**
+         * 一个JSON块
+         *
+         * @param content JSON对象或数组
+         * @param start   块在响应中的起始位置（含标记）
+         * @param end     块在响应中的结束位置（含标记）
+         * @param format  块的开始标记，直接解析整个响应时为raw
+         */
+        public record Block(Object content, int start, int end, String format) {
+            Map<String, Object> toMap() {
+                Map<String, Object> map = new HashMap<>();
+                map.put("content", content);
+                map.put("start", start);
+                map.put("end", end);
+                map.put("format", format);
+                return map;
+            }
+        }
+    }
+
+    /**
+     * 工具调用结果
+     *
+     * @param toolType 工具类型
+     * @param thought  第一个工具块之前的文本；没有找到工具块时为整个响应
+     * @param action   第一个工具块的动作：JSON调用的名称，或非JSON块（例如代码块）的全文
+     * @param calls    解析出的全部调用，按出现顺序排列
+     * @param errors   无法解析的工具块
+     * @param success  是否找到了可用的工具块
+     */
+    record ToolCalls(String toolType, String thought, String action, List<FunctionCall> calls,
+                     List<Malformed> errors, boolean success) implements ParseResult {
+
+        public ToolCalls {
+            calls = List.copyOf(calls);
+            errors = List.copyOf(errors);
+        }
+
+        @Override
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new HashMap<>();
+            map.put("tool_type", toolType);
+            if (!calls.isEmpty()) {
+                List<Map<String, Object>> list = new ArrayList<>(calls.size());
+                for (FunctionCall call : calls) {
+                    list.add(toMap(call));
+                }
+                map.putAll(list.get(0));
+                map.put("tool_calls", list);
+            }
+            if (!errors.isEmpty()) {
+                List<String> messages = new ArrayList<>(errors.size());
+                for (Malformed error : errors) {
+                    messages.add(error.message());
+                }
+                map.put("parse_errors", messages);
+            }
+            map.put("status", success ? 1 : 0);
+            map.put("thought", thought);
+            map.put("action", action);
+            return map;
+        }
+
+        /**
+         * 把调用转换为模型输出的形式：name、parameters，以及可选的id
+         *
+         * @param call 调用
+         * @return 新建的Map
+         */
+        public static Map<String, Object> toMap(FunctionCall call) {
+            Map<String, Object> map = new HashMap<>();
+            if (call.getName() != null) {
+                map.put("name", call.getName());
+            }
+            if (call.getArguments() != null) {
+                map.put("parameters", call.getArguments());
+            }
+            if (call.getId() != null) {
+                map.put("id", call.getId());
+            }
+            return map;
+        }
+
+        /**
+         * 无法解析的工具块
+         *
+         * @param fragment 工具块内容
+         * @param message  错误信息
+         * @param position 该块在调用列表中应处的位置，即它之前已解析出的调用数
+         */
+        public record Malformed(String fragment, String message, int position) {
+        }
+    }
+}
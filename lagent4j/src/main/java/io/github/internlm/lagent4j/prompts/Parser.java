@@ -1,9 +1,5 @@
 package io.github.internlm.lagent4j.prompts;
 
-import com.alibaba.fastjson2.JSON;
-import com.alibaba.fastjson2.JSONObject;
-import io.github.internlm.lagent4j.prompts.parsers.ToolParser;
-
 /**
  * 字符串解析器
  * <p>
@@ -16,6 +12,19 @@ public interface Parser {
      * @param response 响应文本
      * @return 解析结果，如果是JSON则返回Map，否则返回null
      */
-    Object parseResponse(String response) ;
+    Object parseResponse(String response);
+
+    /**
+     * 解析响应文本，返回类型化的结果
+     * <p>
+     * 默认实现把{@link #parseResponse(String)}的结果按{@link ParseResult#fromLegacy(Object, String)}转换，
+     * 内置解析器直接生成类型化的结果
+     *
+     * @param response 响应文本
+     * @return 解析结果，具体类型见{@link ParseResult}
+     */
+    default ParseResult parse(String response) {
+        return ParseResult.fromLegacy(parseResponse(response), response);
+    }
 
-} 
\ No newline at end of file
+}
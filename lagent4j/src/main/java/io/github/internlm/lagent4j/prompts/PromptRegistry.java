@@ -0,0 +1,277 @@
+package io.github.internlm.lagent4j.prompts;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 提示模板注册表
+ * <p>
+ * 按名称提供编译好的{@link PromptTemplate}。默认模板位于类路径的prompts目录下（名称加.txt后缀），
+ * 指定模板目录时，目录中的同名文件优先于默认模板，修改提示不需要重新部署。
+ * <p>
+ * 目录中的模板保存在一个不可修改的Map中，重新加载时整体替换：读取方只做一次volatile读，不加锁，
+ * 始终看到某个完整的版本。内容没有变化的模板沿用原来的编译结果，调用方可以用对象是否相同判断模板是否变化。
+ * 调用{@link #watch()}后由后台线程监视目录，文件新增、修改或删除时自动重新加载。
+ */
+@Slf4j
+public class PromptRegistry implements AutoCloseable {
+    /**
+     * 默认模板在类路径中的目录
+     */
+    private static final String RESOURCE_PREFIX = "/prompts/";
+
+    /**
+     * 模板文件后缀
+     */
+    private static final String EXTENSION = ".txt";
+
+    /**
+     * 同一批文件事件合并处理的等待时间（毫秒），避免编辑器分多次写入时重复加载
+     */
+    private static final long DEBOUNCE_MILLIS = 50;
+
+    /**
+     * 模板目录，为null时只使用默认模板
+     */
+    private final Path directory;
+
+    /**
+     * 目录中的模板，重新加载时整体替换
+     */
+    private volatile Map<String, PromptTemplate> templates = Map.of();
+
+    /**
+     * 已加载的默认模板
+     */
+    private final Map<String, PromptTemplate> defaults = new ConcurrentHashMap<>();
+
+    private final AtomicLong version = new AtomicLong();
+    private WatchService watchService;
+    private Thread watcher;
+
+    /**
+     * 创建只使用默认模板的注册表
+     */
+    public PromptRegistry() {
+        this.directory = null;
+    }
+
+    /**
+     * 创建注册表，目录中的模板覆盖同名的默认模板
+     *
+     * @param directory 模板目录
+     * @throws UncheckedIOException 读取目录失败时抛出
+     */
+    public PromptRegistry(Path directory) {
+        if (directory == null || !Files.isDirectory(directory)) {
+            throw new IllegalArgumentException("模板目录不存在: " + directory);
+        }
+        this.directory = directory;
+        try {
+            reload();
+        } catch (IOException e) {
+            throw new UncheckedIOException("无法加载模板目录: " + directory, e);
+        }
+    }
+
+    /**
+     * 获取只包含默认模板的共享注册表
+     *
+     * @return 共享注册表
+     */
+    public static PromptRegistry defaults() {
+        return Holder.DEFAULTS;
+    }
+
+    /**
+     * 获取模板
+     *
+     * @param name 模板名称，不含后缀
+     * @return 当前版本的模板
+     * @throws IllegalArgumentException 模板不存在时抛出
+     */
+    public PromptTemplate get(String name) {
+        PromptTemplate template = templates.get(name);
+        if (template != null) {
+            return template;
+        }
+        template = defaults.computeIfAbsent(name, PromptRegistry::loadResource);
+        if (template == null) {
+            throw new IllegalArgumentException("提示模板不存在: " + name);
+        }
+        return template;
+    }
+
+    /**
+     * 判断模板是否存在
+     *
+     * @param name 模板名称
+     * @return 存在时返回true
+     */
+    public boolean contains(String name) {
+        return templates.containsKey(name) || defaults.computeIfAbsent(name, PromptRegistry::loadResource) != null;
+    }
+
+    /**
+     * 获取版本号，每次重新加载后目录中的模板有变化时加1
+     *
+     * @return 版本号
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * 重新读取模板目录，内容变化的文件重新编译，然后整体替换
+     *
+     * @return 有模板新增、修改或删除时返回true
+     * @throws IOException 读取目录失败时抛出
+     */
+    public synchronized boolean reload() throws IOException {
+        if (directory == null) {
+            return false;
+        }
+        Map<String, PromptTemplate> current = templates;
+        Map<String, PromptTemplate> loaded = new HashMap<>();
+        boolean changed = false;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            for (Path file : stream) {
+                if (!Files.isRegularFile(file)) {
+                    continue;
+                }
+                String fileName = file.getFileName().toString();
+                String name = fileName.substring(0, fileName.length() - EXTENSION.length());
+                String text = normalize(Files.readString(file, StandardCharsets.UTF_8));
+                PromptTemplate previous = current.get(name);
+                if (previous != null && previous.getTemplate().equals(text)) {
+                    loaded.put(name, previous);
+                } else {
+                    loaded.put(name, new PromptTemplate(text));
+                    changed = true;
+                }
+            }
+        }
+        if (!changed && loaded.size() == current.size()) {
+            return false;
+        }
+        templates = Collections.unmodifiableMap(loaded);
+        version.incrementAndGet();
+        log.info("Loaded {} prompt templates from {}", loaded.size(), directory);
+        return true;
+    }
+
+    /**
+     * 启动后台线程监视模板目录，文件变化时自动重新加载；已经在监视时不做任何事
+     *
+     * @return 当前注册表
+     * @throws IllegalStateException 没有模板目录时抛出
+     * @throws UncheckedIOException  无法注册监视时抛出
+     */
+    public synchronized PromptRegistry watch() {
+        if (directory == null) {
+            throw new IllegalStateException("没有模板目录，无法监视");
+        }
+        if (watcher != null) {
+            return this;
+        }
+        try {
+            watchService = directory.getFileSystem().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("无法监视模板目录: " + directory, e);
+        }
+        WatchService service = watchService;
+        watcher = new Thread(() -> watchLoop(service), "lagent4j-prompt-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+        return this;
+    }
+
+    /**
+     * 停止监视模板目录
+     */
+    @Override
+    public synchronized void close() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                log.debug("Failed to close prompt watcher: {}", e.getMessage());
+            }
+            watchService = null;
+            watcher = null;
+        }
+    }
+
+    private void watchLoop(WatchService service) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                Thread.sleep(DEBOUNCE_MILLIS);
+                boolean relevant = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    Object context = event.context();
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                            || (context != null && context.toString().endsWith(EXTENSION))) {
+                        relevant = true;
+                    }
+                }
+                key.reset();
+                if (relevant) {
+                    try {
+                        reload();
+                    } catch (IOException | RuntimeException e) {
+                        log.warn("Failed to reload prompt templates from {}: {}", directory, e.getMessage());
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // 已关闭
+        }
+    }
+
+    /**
+     * 从类路径读取默认模板，不存在时返回null
+     */
+    private static PromptTemplate loadResource(String name) {
+        try (InputStream input = PromptRegistry.class.getResourceAsStream(RESOURCE_PREFIX + name + EXTENSION)) {
+            if (input == null) {
+                return null;
+            }
+            return new PromptTemplate(normalize(new String(input.readAllBytes(), StandardCharsets.UTF_8)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("无法读取默认模板: " + name, e);
+        }
+    }
+
+    /**
+     * 统一换行符，在Windows上检出的文件与Java文本块得到相同的模板
+     */
+    private static String normalize(String text) {
+        return text.indexOf('\r') >= 0 ? text.replace("\r\n", "\n") : text;
+    }
+
+    private static final class Holder {
+        static final PromptRegistry DEFAULTS = new PromptRegistry();
+    }
+}
@@ -1,26 +1,67 @@
 package io.github.internlm.lagent4j.prompts;
 
-import java.util.HashMap;
+import io.github.internlm.lagent4j.utils.TokenCounter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * 提示模板类
  * <p>
- * 用于处理提示模板，支持变量替换
+ * 用于处理提示模板，支持{variable_name}格式的变量替换。
+ * 模板在创建时编译为交替排列的字面量段和变量段，填充时按段依次写入，不再扫描模板：
+ * 字面量总长度预先计算好，返回字符串的方法据此一次分配足够的容量；
+ * {@link #render(Map, Appendable)}可以直接写入调用方提供的StringBuilder、Writer等目标，不产生中间字符串。
+ * <p>
+ * 没有提供值（或值为null）的变量保留原样输出。编译后的模板不可修改，可以在线程之间共享。
+ * 字面量部分的令牌数也在编译时算好，估算填充后的令牌数时只需要计算变量值。
  */
 public class PromptTemplate {
     /**
      * 模板文本
      */
     private final String template;
-    
+
+    /**
+     * 字面量段，literals[i]位于第i个变量之前，最后一段位于所有变量之后，长度为变量数加1
+     */
+    private final String[] literals;
+
+    /**
+     * 变量段的变量名，按出现顺序排列，可能重复
+     */
+    private final String[] names;
+
+    /**
+     * 变量段未填充时输出的原文，即带花括号的变量
+     */
+    private final String[] placeholders;
+
+    /**
+     * 变量段对应的不重复变量序号，用于按位置填充
+     */
+    private final int[] slots;
+
+    /**
+     * 不重复的变量名，按首次出现的顺序排列
+     */
+    private final List<String> variableNames;
+
     /**
-     * 变量模式，匹配{variable_name}格式的变量
+     * 所有字面量段的总长度
      */
-    private static final Pattern VARIABLE_PATTERN = Pattern.compile("\\{([^{}]+)\\}");
-    
+    private final int literalLength;
+
+    /**
+     * 所有字面量段的估算令牌数
+     */
+    private final int staticTokenCount;
+
     /**
      * 创建一个提示模板
      *
@@ -28,8 +69,50 @@ public class PromptTemplate {
      */
     public PromptTemplate(String template) {
         this.template = template;
+        List<String> literalList = new ArrayList<>();
+        List<String> nameList = new ArrayList<>();
+        int literalStart = 0;
+        int i = 0;
+        int length = template.length();
+        while (i < length) {
+            if (template.charAt(i) != '{') {
+                i++;
+                continue;
+            }
+            // 与正则\{([^{}]+)\}相同：左花括号之后至少一个非花括号字符，紧接右花括号
+            int j = i + 1;
+            while (j < length && template.charAt(j) != '{' && template.charAt(j) != '}') {
+                j++;
+            }
+            if (j < length && template.charAt(j) == '}' && j > i + 1) {
+                literalList.add(template.substring(literalStart, i));
+                nameList.add(template.substring(i + 1, j));
+                literalStart = j + 1;
+                i = j + 1;
+            } else {
+                i = j;
+            }
+        }
+        literalList.add(template.substring(literalStart));
+
+        this.literals = literalList.toArray(new String[0]);
+        this.names = nameList.toArray(new String[0]);
+        this.placeholders = new String[names.length];
+        this.slots = new int[names.length];
+        Map<String, Integer> slotByName = new LinkedHashMap<>();
+        for (int k = 0; k < names.length; k++) {
+            placeholders[k] = "{" + names[k] + "}";
+            slots[k] = slotByName.computeIfAbsent(names[k], name -> slotByName.size());
+        }
+        this.variableNames = Collections.unmodifiableList(new ArrayList<>(slotByName.keySet()));
+        int total = 0;
+        for (String literal : literals) {
+            total += literal.length();
+        }
+        this.literalLength = total;
+        this.staticTokenCount = TokenCounter.estimate(String.join("", literals));
     }
-    
+
     /**
      * 使用提供的变量填充模板
      *
@@ -37,47 +120,133 @@ public class PromptTemplate {
      * @return 填充后的文本
      */
     public String format(Map<String, Object> variables) {
-        if (variables == null || variables.isEmpty()) {
+        if (variables == null || variables.isEmpty() || names.length == 0) {
             return template;
         }
-        
-        StringBuffer result = new StringBuffer();
-        Matcher matcher = VARIABLE_PATTERN.matcher(template);
-        
-        while (matcher.find()) {
-            String variableName = matcher.group(1);
-            Object value = variables.get(variableName);
-            String replacement = value != null ? value.toString() : matcher.group(0);
-            matcher.appendReplacement(result, Matcher.quoteReplacement(replacement));
+        String[] values = new String[names.length];
+        int capacity = literalLength;
+        for (int k = 0; k < names.length; k++) {
+            Object value = variables.get(names[k]);
+            values[k] = value != null ? value.toString() : placeholders[k];
+            capacity += values[k].length();
         }
-        
-        matcher.appendTail(result);
-        return result.toString();
+        return write(values, new StringBuilder(capacity)).toString();
     }
-    
+
     /**
      * 使用提供的变量填充模板
+     * <p>
+     * 第i个值对应模板中出现的第i个变量；同名变量出现多次时，以最后一个对应位置的值为准
      *
      * @param variables 变量值，按顺序对应模板中的变量
      * @return 填充后的文本
      */
     public String format(Object... variables) {
-        if (variables == null || variables.length == 0) {
+        if (variables == null || variables.length == 0 || names.length == 0) {
             return template;
         }
-        
-        Map<String, Object> variableMap = new HashMap<>();
-        Matcher matcher = VARIABLE_PATTERN.matcher(template);
-        int index = 0;
-        
-        while (matcher.find() && index < variables.length) {
-            String variableName = matcher.group(1);
-            variableMap.put(variableName, variables[index++]);
+        Object[] slotValues = new Object[variableNames.size()];
+        for (int k = 0; k < names.length && k < variables.length; k++) {
+            slotValues[slots[k]] = variables[k];
+        }
+        String[] values = new String[names.length];
+        int capacity = literalLength;
+        for (int k = 0; k < names.length; k++) {
+            Object value = slotValues[slots[k]];
+            values[k] = value != null ? value.toString() : placeholders[k];
+            capacity += values[k].length();
+        }
+        return write(values, new StringBuilder(capacity)).toString();
+    }
+
+    /**
+     * 将填充后的文本追加到StringBuilder
+     *
+     * @param variables 变量映射，可以为null
+     * @param out       目标
+     * @return 传入的目标
+     */
+    public StringBuilder render(Map<String, ?> variables, StringBuilder out) {
+        out.ensureCapacity(out.length() + literalLength);
+        try {
+            render(variables, (Appendable) out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out;
+    }
+
+    /**
+     * 将填充后的文本逐段写入目标，不生成完整的中间字符串
+     *
+     * @param variables 变量映射，可以为null
+     * @param out       目标，例如Writer或StringBuilder
+     * @throws IOException 写入目标失败时抛出
+     */
+    public void render(Map<String, ?> variables, Appendable out) throws IOException {
+        if (variables == null || variables.isEmpty()) {
+            out.append(template);
+            return;
+        }
+        out.append(literals[0]);
+        for (int k = 0; k < names.length; k++) {
+            Object value = variables.get(names[k]);
+            if (value instanceof CharSequence) {
+                out.append((CharSequence) value);
+            } else {
+                out.append(value != null ? value.toString() : placeholders[k]);
+            }
+            out.append(literals[k + 1]);
+        }
+    }
+
+    /**
+     * 获取模板中的变量名
+     *
+     * @return 不重复的变量名，按首次出现的顺序排列
+     */
+    public List<String> getVariableNames() {
+        return variableNames;
+    }
+
+    /**
+     * 获取模板中字面量部分的总长度，加上变量值的长度即为填充后的长度
+     *
+     * @return 字面量总长度
+     */
+    public int getLiteralLength() {
+        return literalLength;
+    }
+
+    /**
+     * 获取模板中字面量部分的估算令牌数
+     *
+     * @return 令牌数
+     */
+    public int getStaticTokenCount() {
+        return staticTokenCount;
+    }
+
+    /**
+     * 估算填充后文本的令牌数，只对变量值计数，字面量部分使用预先算好的令牌数
+     *
+     * @param variables 变量映射，可以为null
+     * @return 估算的令牌数
+     */
+    public int estimateTokens(Map<String, ?> variables) {
+        if (variables == null || variables.isEmpty()) {
+            return TokenCounter.estimate(template);
+        }
+        int tokens = staticTokenCount;
+        for (int k = 0; k < names.length; k++) {
+            Object value = variables.get(names[k]);
+            tokens += TokenCounter.estimate(value instanceof CharSequence
+                    ? (CharSequence) value
+                    : value != null ? value.toString() : placeholders[k]);
         }
-        
-        return format(variableMap);
+        return tokens;
     }
-    
+
     /**
      * 获取模板文本
      *
@@ -86,9 +255,17 @@ public class PromptTemplate {
     public String getTemplate() {
         return template;
     }
-    
+
+    private StringBuilder write(String[] values, StringBuilder out) {
+        out.append(literals[0]);
+        for (int k = 0; k < values.length; k++) {
+            out.append(values[k]).append(literals[k + 1]);
+        }
+        return out;
+    }
+
     @Override
     public String toString() {
         return template;
     }
-} 
\ No newline at end of file
+}
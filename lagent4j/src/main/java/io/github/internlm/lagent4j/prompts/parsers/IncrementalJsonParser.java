@@ -0,0 +1,423 @@
+package io.github.internlm.lagent4j.prompts.parsers;
+
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONException;
+import com.alibaba.fastjson2.JSONObject;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Consumer;
+
+/**
+ * 增量JSON解析器
+ * <p>
+ * 按块接收模型流式输出的JSON，每个值（字段值、数组元素以及对象和数组本身）一闭合就通知{@link Listener}，
+ * 不需要等整个流结束。例如要求模型输出{@code {"results": [...]}}时，每个搜索结果对象生成完毕即可交给下游处理，
+ * 处理与生成同时进行：
+ * <pre>{@code
+ * IncrementalJsonParser parser = new IncrementalJsonParser(
+ *         IncrementalJsonParser.elementsOf("$.results", result -> handle((JSONObject) result)));
+ * llm.chatStream(messages, parser::feed, onError, () -> done(parser.finish()));
+ * }</pre>
+ * 块的边界可以落在任意位置，包括字符串、转义序列和数字的中间。第一个左花括号或左方括号之前的内容
+ * （例如说明文字和```json围栏）被跳过，根值闭合之后的内容被忽略。解析结果与fastjson2一致：
+ * 对象为JSONObject，数组为JSONArray，整数为Integer、Long或BigInteger，小数为BigDecimal，带指数的数字为Double。
+ * 字符串中未转义的换行等控制字符按原样接受，对象和数组末尾多余的逗号被忽略。
+ * <p>
+ * 路径使用JSONPath写法：根为$，字段为{@code .name}（名称含特殊字符时为{@code ['name']}），数组元素为{@code [i]}。
+ * 解析器不是线程安全的，同一个流的块应按顺序送入。
+ */
+public class IncrementalJsonParser {
+
+    /**
+     * 值闭合时的接收者
+     */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * 一个值已经完整解析。子值先于包含它的对象或数组通知
+         *
+         * @param path  值的路径
+         * @param value 值；对象和数组为完整的JSONObject和JSONArray
+         */
+        void onValue(String path, Object value);
+    }
+
+    private enum State {
+        BEFORE_ROOT, VALUE, VALUE_OR_END, KEY, KEY_OR_END, COLON, AFTER_VALUE,
+        STRING, ESCAPE, UNICODE, NUMBER, LITERAL, DONE, FAILED
+    }
+
+    /**
+     * 正在解析的对象或数组
+     */
+    private static final class Frame {
+        final JSONObject object;
+        final JSONArray array;
+        final String path;
+        String key;
+
+        Frame(JSONObject object, JSONArray array, String path) {
+            this.object = object;
+            this.array = array;
+            this.path = path;
+        }
+    }
+
+    private final Listener listener;
+    private final Deque<Frame> stack = new ArrayDeque<>();
+    private final StringBuilder token = new StringBuilder();
+    private State state = State.BEFORE_ROOT;
+    private boolean stringIsKey;
+    private int unicodeDigits;
+    private int unicodeValue;
+    private long offset;
+    private Object root;
+    private String failure;
+
+    /**
+     * 创建一个增量JSON解析器
+     *
+     * @param listener 值闭合时的接收者，可以为null（只在结束时取结果）
+     */
+    public IncrementalJsonParser(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 创建一个只在结束时取结果的增量JSON解析器
+     */
+    public IncrementalJsonParser() {
+        this(null);
+    }
+
+    /**
+     * 创建只接收指定数组直接元素的接收者
+     *
+     * @param arrayPath 数组的路径，例如$.results
+     * @param consumer  元素的接收者
+     * @return 接收者
+     */
+    public static Listener elementsOf(String arrayPath, Consumer<Object> consumer) {
+        int prefix = arrayPath.length();
+        return (path, value) -> {
+            if (path.length() < prefix + 3 || !path.startsWith(arrayPath) || path.charAt(prefix) != '['
+                    || path.charAt(path.length() - 1) != ']') {
+                return;
+            }
+            for (int i = prefix + 1; i < path.length() - 1; i++) {
+                if (path.charAt(i) < '0' || path.charAt(i) > '9') {
+                    return;
+                }
+            }
+            consumer.accept(value);
+        };
+    }
+
+    /**
+     * 送入一块文本
+     *
+     * @param chunk 模型输出的一块文本
+     * @throws JSONException         文本不是合法的JSON时抛出，之后不能再送入
+     * @throws IllegalStateException 解析已经失败时抛出
+     */
+    public void feed(CharSequence chunk) {
+        if (state == State.FAILED) {
+            throw new IllegalStateException("解析已失败: " + failure);
+        }
+        int length = chunk.length();
+        int i = 0;
+        try {
+            while (i < length) {
+                if (accept(chunk.charAt(i))) {
+                    i++;
+                    offset++;
+                }
+            }
+        } catch (JSONException e) {
+            state = State.FAILED;
+            failure = e.getMessage();
+            throw e;
+        }
+    }
+
+    /**
+     * 结束输入，返回根值
+     *
+     * @return 根对象或数组
+     * @throws JSONException 没有JSON内容或JSON不完整时抛出
+     */
+    public Object finish() {
+        if (state == State.DONE) {
+            return root;
+        }
+        if (state == State.FAILED) {
+            throw new JSONException("解析已失败: " + failure);
+        }
+        throw new JSONException(state == State.BEFORE_ROOT ? "没有JSON内容" : "JSON不完整，已读取" + offset + "个字符");
+    }
+
+    /**
+     * 根值是否已经完整解析
+     *
+     * @return 已经完整解析时返回true
+     */
+    public boolean isComplete() {
+        return state == State.DONE;
+    }
+
+    /**
+     * 处理一个字符
+     *
+     * @return 字符已被消费时返回true；数字和字面量结束时返回false，由下一个状态重新处理该字符
+     */
+    private boolean accept(char c) {
+        switch (state) {
+            case BEFORE_ROOT:
+                if (c == '{' || c == '[') {
+                    open(c);
+                }
+                return true;
+            case DONE:
+                return true;
+            case STRING:
+                if (c == '"') {
+                    endString();
+                } else if (c == '\\') {
+                    state = State.ESCAPE;
+                } else {
+                    token.append(c);
+                }
+                return true;
+            case ESCAPE:
+                escape(c);
+                return true;
+            case UNICODE:
+                int digit = Character.digit(c, 16);
+                if (digit < 0) {
+                    throw error("非法的Unicode转义", c);
+                }
+                unicodeValue = unicodeValue * 16 + digit;
+                if (++unicodeDigits == 4) {
+                    token.append((char) unicodeValue);
+                    state = State.STRING;
+                }
+                return true;
+            case NUMBER:
+                if ((c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E') {
+                    token.append(c);
+                    return true;
+                }
+                complete(number());
+                return false;
+            case LITERAL:
+                if (c >= 'a' && c <= 'z') {
+                    token.append(c);
+                    return true;
+                }
+                complete(literal());
+                return false;
+            default:
+                break;
+        }
+        if (isWhitespace(c)) {
+            return true;
+        }
+        switch (state) {
+            case VALUE, VALUE_OR_END -> {
+                if (c == ']' && state == State.VALUE_OR_END) {
+                    close(c);
+                } else {
+                    startValue(c);
+                }
+            }
+            case KEY, KEY_OR_END -> {
+                if (c == '"') {
+                    startString(true);
+                } else if (c == '}' && state == State.KEY_OR_END) {
+                    close(c);
+                } else {
+                    throw error("应为字段名", c);
+                }
+            }
+            case COLON -> {
+                if (c != ':') {
+                    throw error("应为冒号", c);
+                }
+                state = State.VALUE;
+            }
+            case AFTER_VALUE -> {
+                Frame frame = stack.peek();
+                if (c == ',') {
+                    // 末尾多余的逗号之后允许直接闭合
+                    state = frame.object != null ? State.KEY_OR_END : State.VALUE_OR_END;
+                } else if (c == '}' || c == ']') {
+                    close(c);
+                } else {
+                    throw error("应为逗号或闭合括号", c);
+                }
+            }
+            default -> throw error("意外的字符", c);
+        }
+        return true;
+    }
+
+    private void startValue(char c) {
+        if (c == '{' || c == '[') {
+            open(c);
+        } else if (c == '"') {
+            startString(false);
+        } else if (c == '-' || (c >= '0' && c <= '9')) {
+            token.setLength(0);
+            token.append(c);
+            state = State.NUMBER;
+        } else if (c == 't' || c == 'f' || c == 'n') {
+            token.setLength(0);
+            token.append(c);
+            state = State.LITERAL;
+        } else {
+            throw error("应为值", c);
+        }
+    }
+
+    private void open(char c) {
+        String path = listener != null ? childPath() : null;
+        stack.push(c == '{' ? new Frame(new JSONObject(), null, path) : new Frame(null, new JSONArray(), path));
+        state = c == '{' ? State.KEY_OR_END : State.VALUE_OR_END;
+    }
+
+    private void close(char c) {
+        Frame frame = stack.pop();
+        if ((c == '}') != (frame.object != null)) {
+            throw error("括号不匹配", c);
+        }
+        Object value = frame.object != null ? frame.object : frame.array;
+        if (listener != null) {
+            listener.onValue(frame.path, value);
+        }
+        attach(value);
+    }
+
+    private void startString(boolean key) {
+        token.setLength(0);
+        stringIsKey = key;
+        state = State.STRING;
+    }
+
+    private void endString() {
+        String text = token.toString();
+        if (stringIsKey) {
+            stack.peek().key = text;
+            state = State.COLON;
+        } else {
+            complete(text);
+        }
+    }
+
+    private void escape(char c) {
+        state = State.STRING;
+        switch (c) {
+            case '"', '\\', '/' -> token.append(c);
+            case 'b' -> token.append('\b');
+            case 'f' -> token.append('\f');
+            case 'n' -> token.append('\n');
+            case 'r' -> token.append('\r');
+            case 't' -> token.append('\t');
+            case 'u' -> {
+                unicodeDigits = 0;
+                unicodeValue = 0;
+                state = State.UNICODE;
+            }
+            default -> throw error("非法的转义字符", c);
+        }
+    }
+
+    /**
+     * 基本类型的值闭合：通知接收者并放入所在的对象或数组
+     */
+    private void complete(Object value) {
+        if (listener != null) {
+            listener.onValue(childPath(), value);
+        }
+        attach(value);
+    }
+
+    private void attach(Object value) {
+        Frame parent = stack.peek();
+        if (parent == null) {
+            root = value;
+            state = State.DONE;
+            return;
+        }
+        if (parent.object != null) {
+            parent.object.put(parent.key, value);
+        } else {
+            parent.array.add(value);
+        }
+        state = State.AFTER_VALUE;
+    }
+
+    /**
+     * 即将闭合或打开的值的路径
+     */
+    private String childPath() {
+        Frame parent = stack.peek();
+        if (parent == null) {
+            return "$";
+        }
+        if (parent.array != null) {
+            return parent.path + "[" + parent.array.size() + "]";
+        }
+        String key = parent.key;
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (!(Character.isLetterOrDigit(c) || c == '_')) {
+                return parent.path + "['" + key.replace("\\", "\\\\").replace("'", "\\'") + "']";
+            }
+        }
+        return key.isEmpty() ? parent.path + "['']" : parent.path + "." + key;
+    }
+
+    private Object number() {
+        String text = token.toString();
+        try {
+            if (text.indexOf('e') >= 0 || text.indexOf('E') >= 0) {
+                return Double.valueOf(text);
+            }
+            if (text.indexOf('.') >= 0) {
+                return new BigDecimal(text);
+            }
+            long value = Long.parseLong(text);
+            if (value == (int) value) {
+                return (int) value;
+            }
+            return value;
+        } catch (NumberFormatException e) {
+            try {
+                return new BigInteger(text);
+            } catch (NumberFormatException invalid) {
+                throw new JSONException("非法的数字: " + text + "，位置" + offset);
+            }
+        }
+    }
+
+    private Object literal() {
+        String text = token.toString();
+        return switch (text) {
+            case "true" -> Boolean.TRUE;
+            case "false" -> Boolean.FALSE;
+            case "null" -> null;
+            default -> throw new JSONException("非法的字面量: " + text + "，位置" + offset);
+        };
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    private JSONException error(String message, char c) {
+        return new JSONException(message + "，位置" + offset + "，字符'" + c + "'");
+    }
+}
@@ -2,13 +2,12 @@ package io.github.internlm.lagent4j.prompts.parsers;
 
 import com.alibaba.fastjson2.JSON;
 import com.alibaba.fastjson2.JSONObject;
+import io.github.internlm.lagent4j.prompts.ParseResult;
 import io.github.internlm.lagent4j.prompts.Parser;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -21,6 +20,8 @@ import java.util.regex.Pattern;
  * 3. 支持嵌套的JSON结构
  * 4. 支持思考过程和JSON数据的分离
  * 5. 提供详细的错误信息和解析状态
+ * <p>
+ * 本解析器需要完整的响应；流式输出时使用{@link IncrementalJsonParser}逐块解析，每个值闭合时即可处理
  */
 @Slf4j
 public class JsonParser implements Parser {
@@ -72,10 +73,21 @@ public class JsonParser implements Parser {
         this("```json", "```");
     }
 
+    /**
+     * 解析响应文本
+     *
+     * @param response 响应文本
+     * @return {@link #parse(String)}结果的Map形式
+     */
     @Override
     public Object parseResponse(String response) {
-        Map<String, Object> result = new HashMap<>();
-        List<Map<String, Object>> jsonBlocks = new ArrayList<>();
+        return parse(response).toMap();
+    }
+
+    @Override
+    public ParseResult parse(String response) {
+        List<ParseResult.Json.Block> jsonBlocks = new ArrayList<>();
+        String error = null;
 
         // 提取思考过程
         StringBuilder thought = new StringBuilder();
@@ -109,12 +121,7 @@ public class JsonParser implements Parser {
                                     JSON.parseObject(jsonStr);
 
                             // 将解析结果添加到JSON块列表
-                            Map<String, Object> block = new HashMap<>();
-                            block.put("content", jsonObj);
-                            block.put("start", matcher.start());
-                            block.put("end", matcher.end());
-                            block.put("format", begin);
-                            jsonBlocks.add(block);
+                            jsonBlocks.add(new ParseResult.Json.Block(jsonObj, matcher.start(), matcher.end(), begin));
                         } catch (Exception e) {
                             log.debug("Failed to parse JSON block: {}", jsonStr, e);
                         }
@@ -130,20 +137,12 @@ public class JsonParser implements Parser {
                         JSON.parseArray(response) :
                         JSON.parseObject(response);
 
-                Map<String, Object> block = new HashMap<>();
-                block.put("content", jsonObj);
-                block.put("start", 0);
-                block.put("end", response.length());
-                block.put("format", "raw");
-                jsonBlocks.add(block);
-
-                result.put("status", 1);
+                jsonBlocks.add(new ParseResult.Json.Block(jsonObj, 0, response.length(), "raw"));
             } catch (Exception e) {
                 // 如果直接解析也失败，则整个响应作为思考过程
                 thought = new StringBuilder(response.trim());
 
-                result.put("status", 0);
-                result.put("error", "无法解析JSON：" + e.getMessage());
+                error = "无法解析JSON：" + e.getMessage();
                 log.error("Failed to parse response as JSON: {}", response, e);
             }
         } else {
@@ -151,29 +150,9 @@ public class JsonParser implements Parser {
             if (lastEnd < response.length()) {
                 thought.append(response.substring(lastEnd).trim());
             }
-
-            // 设置解析状态
-            result.put("status", 1);
-        }
-
-        // 添加思考过程（如果有）
-        String thoughtStr = thought.toString().trim();
-        if (!thoughtStr.isEmpty()) {
-            result.put("thought", thoughtStr);
-        }
-
-        // 添加JSON块（如果有）
-        if (!jsonBlocks.isEmpty()) {
-            if (jsonBlocks.size() == 1) {
-                // 如果只有一个JSON块，直接使用其内容
-                result.put("content", jsonBlocks.get(0).get("content"));
-            } else {
-                // 如果有多个JSON块，保留完整的块信息
-                result.put("blocks", jsonBlocks);
-            }
         }
 
-        return result;
+        return new ParseResult.Json(thought.toString().trim(), jsonBlocks, error);
     }
 
     /**
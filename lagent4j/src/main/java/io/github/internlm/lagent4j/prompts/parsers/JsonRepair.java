@@ -0,0 +1,151 @@
+package io.github.internlm.lagent4j.prompts.parsers;
+
+/**
+ * JSON修复工具
+ * <p>
+ * 在一次线性扫描中修正模型输出JSON时的常见错误，只处理能确定原意的情况：
+ * 1. 去掉包裹内容的Markdown代码围栏
+ * 2. 去掉对象和数组末尾多余的逗号
+ * 3. 单引号字符串改为双引号字符串
+ * 4. 字符串中未转义的换行、制表符等控制字符以及非法的反斜杠转义
+ * 5. 行注释和块注释
+ * 6. Python风格的True、False、None
+ * <p>
+ * 不补全被截断的括号和字符串：截断的调用参数不完整，不应被当作有效调用执行
+ */
+final class JsonRepair {
+
+    private JsonRepair() {
+    }
+
+    /**
+     * 修复JSON文本
+     *
+     * @param text 模型输出的JSON文本
+     * @return 修复后的文本，无法修复的部分保持原样，由调用方的解析器报告错误
+     */
+    static String repair(String text) {
+        String input = stripFence(text.trim());
+        int length = input.length();
+        StringBuilder out = new StringBuilder(length + 16);
+        int i = 0;
+        while (i < length) {
+            char c = input.charAt(i);
+            if (c == '"' || c == '\'') {
+                i = copyString(input, i, out);
+            } else if (c == ',') {
+                int next = skipIgnorable(input, i + 1);
+                if (next < length && input.charAt(next) != '}' && input.charAt(next) != ']') {
+                    out.append(',');
+                }
+                i++;
+            } else if (c == '/' && i + 1 < length && (input.charAt(i + 1) == '/' || input.charAt(i + 1) == '*')) {
+                i = skipComment(input, i);
+            } else if (Character.isLetter(c)) {
+                int start = i;
+                while (i < length && Character.isLetterOrDigit(input.charAt(i))) {
+                    i++;
+                }
+                String word = input.substring(start, i);
+                switch (word) {
+                    case "True" -> out.append("true");
+                    case "False" -> out.append("false");
+                    case "None" -> out.append("null");
+                    default -> out.append(word);
+                }
+            } else {
+                out.append(c);
+                i++;
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * 复制一个字符串字面量并统一为双引号形式
+     *
+     * @return 字符串结束后的位置
+     */
+    private static int copyString(String input, int start, StringBuilder out) {
+        char quote = input.charAt(start);
+        int length = input.length();
+        out.append('"');
+        int i = start + 1;
+        while (i < length) {
+            char c = input.charAt(i);
+            if (c == quote) {
+                out.append('"');
+                return i + 1;
+            }
+            if (c == '\\' && i + 1 < length) {
+                char escaped = input.charAt(i + 1);
+                switch (escaped) {
+                    case '"', '\\', '/', 'b', 'f', 'n', 'r', 't', 'u' -> out.append(c).append(escaped);
+                    // 单引号字符串中的\'在JSON中不需要转义
+                    case '\'' -> out.append('\'');
+                    default -> out.append("\\\\").append(escaped);
+                }
+                i += 2;
+                continue;
+            }
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+            i++;
+        }
+        // 未闭合的字符串保持未闭合，交给解析器报告
+        return i;
+    }
+
+    /**
+     * 跳过空白和注释
+     */
+    private static int skipIgnorable(String input, int i) {
+        int length = input.length();
+        while (i < length) {
+            char c = input.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '/' && i + 1 < length && (input.charAt(i + 1) == '/' || input.charAt(i + 1) == '*')) {
+                i = skipComment(input, i);
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    private static int skipComment(String input, int i) {
+        if (input.charAt(i + 1) == '/') {
+            int newline = input.indexOf('\n', i + 2);
+            return newline < 0 ? input.length() : newline;
+        }
+        int close = input.indexOf("*/", i + 2);
+        return close < 0 ? input.length() : close + 2;
+    }
+
+    /**
+     * 去掉```json ... ```形式的代码围栏
+     */
+    static String stripFence(String text) {
+        if (!text.startsWith("```")) {
+            return text;
+        }
+        int newline = text.indexOf('\n');
+        if (newline < 0) {
+            return text;
+        }
+        String body = text.substring(newline + 1).trim();
+        return body.endsWith("```") ? body.substring(0, body.length() - 3).trim() : body;
+    }
+}
@@ -2,8 +2,11 @@ package io.github.internlm.lagent4j.prompts.parsers;
 
 import com.alibaba.fastjson2.JSON;
 import com.alibaba.fastjson2.JSONObject;
+import io.github.internlm.lagent4j.prompts.ParseResult;
 import io.github.internlm.lagent4j.prompts.Parser;
 
+import java.util.List;
+
 /**
  * 字符串解析器
  * <p>
@@ -14,11 +17,12 @@ public class StrParser implements Parser {
      * 解析响应文本
      *
      * @param response 响应文本
-     * @return 解析结果，如果是JSON则返回Map，否则返回null
+     * @return 包含function_call或action的JSON对象时返回{@link ParseResult.Json}，否则返回{@link ParseResult.Text}
      */
-    public Object parseResponse(String response) {
+    @Override
+    public ParseResult parse(String response) {
         if (response == null || response.trim().isEmpty()) {
-            return null;
+            return new ParseResult.Text(response == null ? "" : response);
         }
 
         try {
@@ -26,13 +30,26 @@ public class StrParser implements Parser {
             if (response.trim().startsWith("{")) {
                 JSONObject json = JSON.parseObject(response);
                 if (json.containsKey("function_call") || json.containsKey("action")) {
-                    return json;
+                    return new ParseResult.Json("",
+                            List.of(new ParseResult.Json.Block(json, 0, response.length(), "raw")), null);
                 }
             }
         } catch (Exception ignored) {
             // 解析失败，说明不是JSON格式
         }
 
-        return null;
+        return new ParseResult.Text(response);
+    }
+
+    /**
+     * 解析响应文本
+     *
+     * @param response 响应文本
+     * @return 解析结果，如果是JSON则返回Map，否则返回null
+     */
+    @Override
+    public Object parseResponse(String response) {
+        ParseResult result = parse(response);
+        return result instanceof ParseResult.Json json ? json.content() : null;
     }
-} 
\ No newline at end of file
+}
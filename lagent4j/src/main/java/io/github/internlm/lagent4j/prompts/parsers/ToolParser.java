@@ -1,20 +1,42 @@
 package io.github.internlm.lagent4j.prompts.parsers;
 
 import com.alibaba.fastjson2.JSON;
-import com.alibaba.fastjson2.JSONObject;
+import com.alibaba.fastjson2.JSONException;
+import com.alibaba.fastjson2.annotation.JSONField;
+import io.github.internlm.lagent4j.prompts.ParseResult;
 import io.github.internlm.lagent4j.prompts.Parser;
+import io.github.internlm.lagent4j.schema.FunctionCall;
+import lombok.extern.slf4j.Slf4j;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * 工具解析器
  * <p>
- * 用于解析模型输出中的工具调用部分
+ * 用于解析模型输出中的工具调用部分，结果为{@link ParseResult.ToolCalls}，调用直接绑定为{@link FunctionCall}。
+ * 模型在一轮中输出多个工具块，或在一个工具块中输出JSON数组时，全部调用按出现顺序排列；
+ * Map形式的结果中第一个调用的字段直接放在结果中，全部调用放在{@code tool_calls}中。
+ * <p>
+ * 工具块用indexOf按标记线性扫描，不在每次解析时编译正则。块中的JSON先按标准格式解析，
+ * 失败时由{@link JsonRepair}修正末尾逗号、单引号、未转义换行等常见错误后重试；仍然无法解析的块
+ * 记录在错误列表（Map中为{@code parse_errors}）中并跳过，不抛出异常中断本轮对话。流式输出被停止词截掉结束标记时，
+ * 最后一个未闭合的块只要能完整解析也会被识别。不是JSON的块（例如代码块）整体作为{@code action}。
+ * 响应中没有任何开始标记时，整个响应按结构化输出模式的调用JSON解析，接受单个调用、调用数组或
+ * {@code {"tool_calls": [...]}}。
  */
+@Slf4j
 public class ToolParser implements Parser {
+    /**
+     * 结果中保存全部工具调用的键
+     */
+    public static final String TOOL_CALLS = "tool_calls";
+
+    /**
+     * 结果中保存无法解析的工具块错误信息的键
+     */
+    public static final String PARSE_ERRORS = "parse_errors";
+
     /**
      * 工具类型
      */
@@ -38,6 +60,9 @@ public class ToolParser implements Parser {
      * @param end      结束标记
      */
     public ToolParser(String toolType, String begin, String end) {
+        if (begin == null || begin.isEmpty() || end == null || end.isEmpty()) {
+            throw new IllegalArgumentException("开始和结束标记不能为空");
+        }
         this.toolType = toolType;
         this.begin = begin;
         this.end = end;
@@ -57,44 +82,145 @@ public class ToolParser implements Parser {
     }
 
 
+    /**
+     * 解析响应文本
+     *
+     * @param response 响应文本
+     * @return {@link #parse(String)}结果的Map形式
+     */
     @Override
     public Object parseResponse(String response) {
-        Map<String, Object> result = new HashMap<>();
-        result.put("tool_type", toolType);
-        
-        // 提取思考过程和动作
-        String thought = "";
-        String action = "";
-        
-        // 查找代码块
-        Pattern pattern = Pattern.compile(Pattern.quote(begin) + "(.*?)" + Pattern.quote(end), Pattern.DOTALL);
-        Matcher matcher = pattern.matcher(response);
-        
-        if (matcher.find()) {
-            // 提取代码块前的内容作为思考过程
-            int beginIndex = response.indexOf(begin);
-            if (beginIndex > 0) {
-                thought = response.substring(0, beginIndex).trim();
+        return parse(response).toMap();
+    }
+
+    @Override
+    public ParseResult.ToolCalls parse(String response) {
+        if (response == null) {
+            response = "";
+        }
+
+        List<FunctionCall> toolCalls = new ArrayList<>();
+        List<ParseResult.ToolCalls.Malformed> errors = List.of();
+        String thought = null;
+        String action = null;
+
+        // 线性扫描标记：每个开始标记之后查找最近的结束标记，不回溯
+        int from = 0;
+        while (from < response.length()) {
+            int start = response.indexOf(begin, from);
+            if (start < 0) {
+                break;
+            }
+            int contentStart = start + begin.length();
+            int stop = response.indexOf(end, contentStart);
+            boolean terminated = stop >= 0;
+            String block = response.substring(contentStart, terminated ? stop : response.length()).trim();
+            from = terminated ? stop + end.length() : response.length();
+
+            int before = toolCalls.size();
+            String error = addToolCalls(block, toolCalls, false);
+            String blockAction;
+            if (toolCalls.size() > before) {
+                blockAction = toolCalls.get(before).getName();
+            } else if (!terminated) {
+                // 停止词截掉了结束标记时，只接受能完整解析的调用，其余文本不算工具块
+                break;
+            } else if (error != null) {
+                if (errors.isEmpty()) {
+                    errors = new ArrayList<>();
+                }
+                errors.add(new ParseResult.ToolCalls.Malformed(block, error, before));
+                continue;
+            } else {
+                // 不是JSON的块（例如代码块）整体作为动作
+                blockAction = block;
+            }
+            if (thought == null) {
+                thought = response.substring(0, start).trim();
+                action = blockAction;
+            }
+        }
+
+        if (thought == null && from == 0) {
+            // 没有任何开始标记时，整个响应可能是结构化输出模式下的调用JSON
+            String json = JsonRepair.stripFence(response.trim());
+            if (json.startsWith("{") || json.startsWith("[")) {
+                String error = addToolCalls(json, toolCalls, true);
+                if (!toolCalls.isEmpty()) {
+                    return new ParseResult.ToolCalls(toolType, "", toolCalls.get(0).getName(), toolCalls, errors, true);
+                }
+                if (error != null) {
+                    errors = List.of(new ParseResult.ToolCalls.Malformed(json, error, 0));
+                }
             }
-            
-            // 提取代码块内容作为动作
-            String toolIn = matcher.group(1).trim();
-            JSONObject toolObj = JSON.parseObject(toolIn);
-            action = toolObj.getString("name");
-            result.putAll(toolObj);
-            // 设置状态为有效
-            result.put("status", 1);
-        } else {
-            // 如果没有找到代码块，则整个响应作为思考过程
-            thought = response.trim();
-            
-            // 设置状态为无效
-            result.put("status", 0);
         }
-        
-        result.put("thought", thought);
-        result.put("action", action);
-        
-        return result;
+        if (thought == null) {
+            // 如果没有找到可用的工具块，则整个响应作为思考过程
+            return new ParseResult.ToolCalls(toolType, response.trim(), "", toolCalls, errors, false);
+        }
+        return new ParseResult.ToolCalls(toolType, thought, action, toolCalls, errors, true);
+    }
+
+    /**
+     * 解析一个工具块，块中可以是单个调用对象，也可以是调用对象数组，直接绑定为{@link FunctionCall}。
+     * 先按标准JSON解析，失败时修复常见错误后再解析一次
+     *
+     * @param toolIn    工具块内容
+     * @param toolCalls 解析出的调用
+     * @param envelope  是否接受{@code {"tool_calls": [...]}}形式的包装对象
+     * @return 块看起来是JSON但无法解析时返回错误信息，否则返回null
+     */
+    private static String addToolCalls(String toolIn, List<FunctionCall> toolCalls, boolean envelope) {
+        String json = JsonRepair.stripFence(toolIn);
+        if (!json.startsWith("{") && !json.startsWith("[")) {
+            return null;
+        }
+        try {
+            bind(json, toolCalls, envelope);
+        } catch (JSONException e) {
+            try {
+                bind(JsonRepair.repair(json), toolCalls, envelope);
+            } catch (JSONException repairFailed) {
+                log.debug("Failed to parse tool block: {}", toolIn, repairFailed);
+                return "无法解析工具调用：" + repairFailed.getMessage();
+            }
+        }
+        return null;
+    }
+
+    private static void bind(String json, List<FunctionCall> toolCalls, boolean envelope) {
+        if (json.startsWith("[")) {
+            addAll(JSON.parseArray(json, FunctionCall.class), toolCalls);
+            return;
+        }
+        if (envelope) {
+            Envelope wrapped = JSON.parseObject(json, Envelope.class);
+            if (wrapped != null && wrapped.toolCalls != null) {
+                addAll(wrapped.toolCalls, toolCalls);
+                return;
+            }
+        }
+        FunctionCall call = JSON.parseObject(json, FunctionCall.class);
+        if (call != null) {
+            toolCalls.add(call);
+        }
+    }
+
+    private static void addAll(List<FunctionCall> calls, List<FunctionCall> toolCalls) {
+        if (calls != null) {
+            for (FunctionCall call : calls) {
+                if (call != null) {
+                    toolCalls.add(call);
+                }
+            }
+        }
+    }
+
+    /**
+     * 结构化输出模式下模型返回的包装对象，见{@link io.github.internlm.lagent4j.actions.ToolCatalog#getResponseFormat()}
+     */
+    static final class Envelope {
+        @JSONField(name = "tool_calls")
+        public List<FunctionCall> toolCalls;
     }
-} 
\ No newline at end of file
+}
@@ -29,7 +29,17 @@ public enum ActionStatusCode {
     /**
      * API错误
      */
-    API_ERROR(-1002);
+    API_ERROR(-1002),
+    
+    /**
+     * 执行器繁忙，任务被拒绝
+     */
+    BUSY(-1003),
+    
+    /**
+     * 动作的舱壁已满，任务被拒绝
+     */
+    BULKHEAD_FULL(-1004);
     
     private final int value;
     
@@ -0,0 +1,341 @@
+package io.github.internlm.lagent4j.schema;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONWriter;
+import io.github.internlm.lagent4j.utils.TokenCounter;
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 对话消息类
+ * <p>
+ * 发送给语言模型的不可变消息，包含角色、内容、名称和可选的工具调用信息。
+ * 消息的JSON编码（UTF-8字节）和令牌数在首次使用时计算并缓存，
+ * 同一条消息（例如系统指令）在多次请求中复用时无需重复序列化。
+ */
+@Getter
+@EqualsAndHashCode(of = {"role", "content", "name", "toolCalls", "toolCallId"})
+public final class ChatMessage {
+    /**
+     * 每条消息在角色、分隔符等格式上的额外令牌开销
+     */
+    private static final int MESSAGE_OVERHEAD_TOKENS = 4;
+
+    /**
+     * 消息角色
+     */
+    private final ChatRole role;
+
+    /**
+     * 消息内容
+     */
+    private final String content;
+
+    /**
+     * 发送者名称，可为空
+     */
+    private final String name;
+
+    /**
+     * 助手消息中携带的工具调用，可为空
+     */
+    private final List<FunctionCall> toolCalls;
+
+    /**
+     * 工具消息对应的调用ID，可为空
+     */
+    private final String toolCallId;
+
+    /**
+     * 缓存的JSON编码
+     */
+    @Getter(AccessLevel.NONE)
+    private volatile byte[] jsonBytes;
+
+    /**
+     * 缓存的令牌数，-1表示尚未计算
+     */
+    @Getter(AccessLevel.NONE)
+    private volatile int tokenCount = -1;
+
+    private ChatMessage(ChatRole role, String content, String name,
+                        List<FunctionCall> toolCalls, String toolCallId) {
+        if (role == null) {
+            throw new IllegalArgumentException("消息角色不能为空");
+        }
+        this.role = role;
+        this.content = content != null ? content : "";
+        this.name = name;
+        this.toolCalls = toolCalls != null && !toolCalls.isEmpty()
+                ? Collections.unmodifiableList(new ArrayList<>(toolCalls))
+                : null;
+        this.toolCallId = toolCallId;
+    }
+
+    /**
+     * 创建一条消息
+     *
+     * @param role    消息角色
+     * @param content 消息内容
+     * @return 消息
+     */
+    public static ChatMessage of(ChatRole role, String content) {
+        return new ChatMessage(role, content, null, null, null);
+    }
+
+    /**
+     * 创建一条系统消息
+     *
+     * @param content 消息内容
+     * @return 系统消息
+     */
+    public static ChatMessage system(String content) {
+        return of(ChatRole.SYSTEM, content);
+    }
+
+    /**
+     * 创建一条用户消息
+     *
+     * @param content 消息内容
+     * @return 用户消息
+     */
+    public static ChatMessage user(String content) {
+        return of(ChatRole.USER, content);
+    }
+
+    /**
+     * 创建一条助手消息
+     *
+     * @param content 消息内容
+     * @return 助手消息
+     */
+    public static ChatMessage assistant(String content) {
+        return of(ChatRole.ASSISTANT, content);
+    }
+
+    /**
+     * 创建一条携带工具调用的助手消息
+     *
+     * @param content   消息内容
+     * @param toolCalls 工具调用列表
+     * @return 助手消息
+     */
+    public static ChatMessage assistant(String content, List<FunctionCall> toolCalls) {
+        return new ChatMessage(ChatRole.ASSISTANT, content, null, toolCalls, null);
+    }
+
+    /**
+     * 创建一条工具返回消息
+     *
+     * @param toolCallId 对应的调用ID
+     * @param content    工具返回内容
+     * @return 工具消息
+     */
+    public static ChatMessage tool(String toolCallId, String content) {
+        return new ChatMessage(ChatRole.TOOL, content, null, null, toolCallId);
+    }
+
+    /**
+     * 返回一条带有发送者名称的新消息
+     *
+     * @param name 发送者名称
+     * @return 新消息
+     */
+    public ChatMessage withName(String name) {
+        return new ChatMessage(role, content, name, toolCalls, toolCallId);
+    }
+
+    /**
+     * 从Map形式的消息转换
+     * <p>
+     * 识别role、content、name和tool_call_id字段，未知角色按用户消息处理
+     *
+     * @param message Map形式的消息
+     * @return 消息
+     */
+    public static ChatMessage fromMap(Map<String, String> message) {
+        ChatRole role = ChatRole.fromValue(message.get("role"));
+        return new ChatMessage(role != null ? role : ChatRole.USER,
+                message.get("content"),
+                message.get("name"),
+                null,
+                message.get("tool_call_id"));
+    }
+
+    /**
+     * 批量从Map形式的消息转换
+     *
+     * @param messages Map形式的消息列表
+     * @return 消息列表
+     */
+    public static List<ChatMessage> fromMaps(List<Map<String, String>> messages) {
+        if (messages == null) {
+            return Collections.emptyList();
+        }
+        List<ChatMessage> result = new ArrayList<>(messages.size());
+        for (Map<String, String> message : messages) {
+            result.add(fromMap(message));
+        }
+        return result;
+    }
+
+    /**
+     * 转换为Map形式的消息
+     * <p>
+     * 工具调用信息无法用字符串Map表示，转换时会被忽略
+     *
+     * @return Map形式的消息
+     */
+    public Map<String, String> toMap() {
+        Map<String, String> map = new HashMap<>(4);
+        map.put("role", role.getValue());
+        map.put("content", content);
+        if (name != null) {
+            map.put("name", name);
+        }
+        if (toolCallId != null) {
+            map.put("tool_call_id", toolCallId);
+        }
+        return map;
+    }
+
+    /**
+     * 批量转换为Map形式的消息
+     *
+     * @param messages 消息列表
+     * @return Map形式的消息列表
+     */
+    public static List<Map<String, String>> toMaps(List<ChatMessage> messages) {
+        if (messages == null) {
+            return Collections.emptyList();
+        }
+        List<Map<String, String>> result = new ArrayList<>(messages.size());
+        for (ChatMessage message : messages) {
+            result.add(message.toMap());
+        }
+        return result;
+    }
+
+    /**
+     * 获取消息的JSON编码（UTF-8）
+     * <p>
+     * 编码结果在首次调用时生成并缓存，之后{@link #writeJson(JSONWriter)}直接复用该编码。
+     * 适合在多次请求之间复用的消息（例如系统指令），调用方不应修改返回的数组
+     *
+     * @return JSON编码的字节数组
+     */
+    public byte[] toJsonBytes() {
+        byte[] bytes = jsonBytes;
+        if (bytes == null) {
+            try (JSONWriter writer = JSONWriter.ofUTF8()) {
+                writeTo(writer);
+                bytes = writer.getBytes();
+            }
+            jsonBytes = bytes;
+        }
+        return bytes;
+    }
+
+    /**
+     * 获取消息的估算令牌数
+     *
+     * @return 令牌数
+     */
+    public int getTokenCount() {
+        int count = tokenCount;
+        if (count < 0) {
+            count = TokenCounter.estimate(content) + MESSAGE_OVERHEAD_TOKENS;
+            tokenCount = count;
+        }
+        return count;
+    }
+
+    /**
+     * 将消息写入JSON写入器
+     * <p>
+     * 如果已有缓存的编码则直接写入，否则逐字段写入，不额外分配中间缓冲区
+     *
+     * @param writer JSON写入器
+     */
+    public void writeJson(JSONWriter writer) {
+        byte[] bytes = jsonBytes;
+        if (bytes != null) {
+            writer.writeRaw(bytes);
+        } else {
+            writeTo(writer);
+        }
+    }
+
+    /**
+     * 将消息逐字段写入JSON写入器
+     *
+     * @param writer JSON写入器
+     */
+    private void writeTo(JSONWriter writer) {
+        writer.startObject();
+        writer.writeName("role");
+        writer.writeColon();
+        writer.writeString(role.getValue());
+        writer.writeName("content");
+        writer.writeColon();
+        writer.writeString(content);
+        if (name != null) {
+            writer.writeName("name");
+            writer.writeColon();
+            writer.writeString(name);
+        }
+        if (toolCallId != null) {
+            writer.writeName("tool_call_id");
+            writer.writeColon();
+            writer.writeString(toolCallId);
+        }
+        if (toolCalls != null) {
+            writer.writeName("tool_calls");
+            writer.writeColon();
+            writer.startArray();
+            for (int i = 0; i < toolCalls.size(); i++) {
+                if (i > 0) {
+                    writer.writeComma();
+                }
+                FunctionCall call = toolCalls.get(i);
+                writer.startObject();
+                if (call.getId() != null) {
+                    writer.writeName("id");
+                    writer.writeColon();
+                    writer.writeString(call.getId());
+                }
+                writer.writeName("type");
+                writer.writeColon();
+                writer.writeString("function");
+                writer.writeName("function");
+                writer.writeColon();
+                writer.startObject();
+                writer.writeName("name");
+                writer.writeColon();
+                writer.writeString(call.getName());
+                writer.writeName("arguments");
+                writer.writeColon();
+                writer.writeString(JSON.toJSONString(call.getArguments()));
+                writer.endObject();
+                writer.endObject();
+            }
+            writer.endArray();
+        }
+        writer.endObject();
+    }
+
+    @Override
+    public String toString() {
+        return "ChatMessage{" +
+                "role=" + role.getValue() +
+                ", content='" + content + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,58 @@
+package io.github.internlm.lagent4j.schema;
+
+/**
+ * 对话角色枚举
+ * <p>
+ * 用于表示发送给语言模型的消息角色，取值与OpenAI兼容接口的role字段一致
+ */
+public enum ChatRole {
+    /**
+     * 系统指令
+     */
+    SYSTEM("system"),
+
+    /**
+     * 用户消息
+     */
+    USER("user"),
+
+    /**
+     * 模型回复
+     */
+    ASSISTANT("assistant"),
+
+    /**
+     * 工具返回结果
+     */
+    TOOL("tool");
+
+    private final String value;
+
+    ChatRole(String value) {
+        this.value = value;
+    }
+
+    /**
+     * 获取角色在接口中的取值
+     *
+     * @return 角色取值
+     */
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * 根据接口取值获取对应的角色枚举
+     *
+     * @param value 角色取值
+     * @return 对应的角色枚举，如果没有找到则返回null
+     */
+    public static ChatRole fromValue(String value) {
+        for (ChatRole role : ChatRole.values()) {
+            if (role.value.equals(value)) {
+                return role;
+            }
+        }
+        return null;
+    }
+}
@@ -1,15 +1,21 @@
 package io.github.internlm.lagent4j.schema;
 
+import com.alibaba.fastjson2.JSONException;
+import com.alibaba.fastjson2.JSONReader;
+import com.alibaba.fastjson2.annotation.JSONField;
+import com.alibaba.fastjson2.reader.ObjectReader;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.lang.reflect.Type;
 import java.util.Map;
 
 /**
  * 函数调用
  * <p>
- * 表示一个工具函数的调用信息
+ * 表示一个工具函数的调用信息。可以直接从模型输出的调用JSON绑定：参数字段也接受parameters，
+ * 参数被输出为JSON字符串时解析为对象
  */
 @Data
 @NoArgsConstructor
@@ -23,8 +29,25 @@ public class FunctionCall {
     /**
      * 函数参数
      */
+    @JSONField(alternateNames = {"parameters"}, deserializeUsing = ArgumentsReader.class)
     private Map<String, Object> arguments;
     
+    /**
+     * 调用ID，由模型在原生工具调用中生成，可为空
+     */
+    private String id;
+    
+    /**
+     * 创建一个不带调用ID的函数调用
+     *
+     * @param name      函数名称
+     * @param arguments 函数参数
+     */
+    public FunctionCall(String name, Map<String, Object> arguments) {
+        this.name = name;
+        this.arguments = arguments;
+    }
+    
     /**
      * 检查参数是否为Map类型
      *
@@ -58,4 +81,26 @@ public class FunctionCall {
 //        }
         return arguments != null ? arguments.toString() : null;
     }
-} 
\ No newline at end of file
+
+    /**
+     * 读取函数参数：JSON对象直接读取，JSON字符串先解析为对象，其他类型视为格式错误
+     */
+    static final class ArgumentsReader implements ObjectReader<Map<String, Object>> {
+        @Override
+        public Map<String, Object> readObject(JSONReader reader, Type fieldType, Object fieldName, long features) {
+            if (reader.nextIfNull()) {
+                return null;
+            }
+            if (reader.isString()) {
+                String text = reader.readString();
+                try (JSONReader nested = JSONReader.of(text)) {
+                    return nested.readObject();
+                }
+            }
+            if (!reader.isObject()) {
+                throw new JSONException(reader.info("参数必须是JSON对象"));
+            }
+            return reader.readObject();
+        }
+    }
+}
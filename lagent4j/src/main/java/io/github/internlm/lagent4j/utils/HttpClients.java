@@ -0,0 +1,88 @@
+package io.github.internlm.lagent4j.utils;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 共享的HTTP客户端
+ * <p>
+ * 模型、网页浏览和搜索工具都从同一个{@link OkHttpClient}派生各自的客户端：
+ * 通过{@link OkHttpClient#newBuilder()}修改超时、缓存等设置时，连接池和分发器仍然共享，
+ * 同一主机的连接可以跨工具复用，异步请求也由同一组线程分发。
+ * <p>
+ * 分发器放开了OkHttp默认每个主机5个并发请求的限制，使多个查询并行发出时不会在客户端排队。
+ * 分发线程默认使用OkHttp自带的线程池；启动时设置系统属性{@value #VIRTUAL_THREADS_PROPERTY}为true，
+ * 则改用{@link VirtualThreads#newExecutor(String)}创建的执行器。该属性在第一次调用{@link #shared()}时读取，之后修改不再生效。
+ */
+public final class HttpClients {
+    /**
+     * 分发器是否使用虚拟线程的系统属性
+     */
+    public static final String VIRTUAL_THREADS_PROPERTY = "lagent4j.http.virtualThreads";
+
+    /**
+     * 连接池最多保留的空闲连接数
+     */
+    private static final int MAX_IDLE_CONNECTIONS = 32;
+
+    /**
+     * 空闲连接的保留时间（分钟）
+     */
+    private static final long KEEP_ALIVE_MINUTES = 5;
+
+    /**
+     * 同时执行的异步请求上限
+     */
+    private static final int MAX_REQUESTS = 256;
+
+    /**
+     * 同一主机同时执行的异步请求上限
+     */
+    private static final int MAX_REQUESTS_PER_HOST = 64;
+
+    /**
+     * 默认超时时间
+     */
+    private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
+
+    private HttpClients() {
+    }
+
+    /**
+     * 获取共享的HTTP客户端
+     * <p>
+     * 需要不同设置时应调用{@code shared().newBuilder()}派生新客户端，而不是新建{@link OkHttpClient.Builder}，
+     * 这样才能共享连接池和分发器。
+     *
+     * @return 共享的HTTP客户端
+     */
+    public static OkHttpClient shared() {
+        return Holder.CLIENT;
+    }
+
+    /**
+     * 延迟初始化，只有用到时才创建连接池和分发线程
+     */
+    private static final class Holder {
+        static final OkHttpClient CLIENT;
+
+        static {
+            Dispatcher dispatcher = Boolean.getBoolean(VIRTUAL_THREADS_PROPERTY)
+                    ? new Dispatcher(VirtualThreads.newExecutor("lagent4j-http-"))
+                    : new Dispatcher();
+            dispatcher.setMaxRequests(MAX_REQUESTS);
+            dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+            CLIENT = new OkHttpClient.Builder()
+                    .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                    .dispatcher(dispatcher)
+                    .connectTimeout(DEFAULT_TIMEOUT)
+                    .readTimeout(DEFAULT_TIMEOUT)
+                    .writeTimeout(DEFAULT_TIMEOUT)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package io.github.internlm.lagent4j.utils;
+
+/**
+ * 令牌计数工具类
+ * <p>
+ * 在不依赖具体分词器的情况下估算文本的令牌数：中日韩字符按每字一个令牌计算，
+ * 其余字符按平均每4个字符一个令牌计算。结果用于预算和统计，不保证与模型分词完全一致。
+ */
+public final class TokenCounter {
+    /**
+     * 非中日韩字符平均每个令牌包含的字符数
+     */
+    private static final int CHARS_PER_TOKEN = 4;
+
+    private TokenCounter() {
+    }
+
+    /**
+     * 估算文本的令牌数
+     *
+     * @param text 文本
+     * @return 估算的令牌数，空文本返回0
+     */
+    public static int estimate(CharSequence text) {
+        if (text == null || text.length() == 0) {
+            return 0;
+        }
+
+        int cjk = 0;
+        int other = 0;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (isCjk(c)) {
+                cjk++;
+            } else if (!Character.isWhitespace(c)) {
+                other++;
+            }
+        }
+
+        return cjk + (other + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    /**
+     * 判断字符是否属于中日韩文字或全角标点
+     *
+     * @param c 字符
+     * @return 是否为中日韩字符
+     */
+    private static boolean isCjk(char c) {
+        return (c >= '\u4e00' && c <= '\u9fff')
+                || (c >= '\u3400' && c <= '\u4dbf')
+                || (c >= '\u3000' && c <= '\u30ff')
+                || (c >= '\uac00' && c <= '\ud7af')
+                || (c >= '\uff00' && c <= '\uffef');
+    }
+}
@@ -0,0 +1,125 @@
+package io.github.internlm.lagent4j.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 虚拟线程工具类
+ * <p>
+ * 项目以Java 17为编译目标，因此通过方法句柄访问JDK 21的虚拟线程接口。
+ * 在支持的JDK上返回每个任务一个虚拟线程的执行器，适合代理、工具和阻塞式模型调用这类长时间等待网络的任务；
+ * 在不支持的JDK上退回到按需创建守护线程的平台线程池。
+ * <p>
+ * 虚拟线程在synchronized块中阻塞时会占住载体线程，因此交给这些执行器的代码路径应使用
+ * {@link java.util.concurrent.locks.ReentrantLock}等显式锁，而不是在I/O外层加synchronized。
+ */
+@Slf4j
+public final class VirtualThreads {
+    /**
+     * Thread.ofVirtual()，JDK不支持时为null
+     */
+    private static final MethodHandle OF_VIRTUAL;
+
+    /**
+     * Thread.Builder.OfVirtual.name(String, long)
+     */
+    private static final MethodHandle NAME;
+
+    /**
+     * Thread.Builder.factory()
+     */
+    private static final MethodHandle FACTORY;
+
+    /**
+     * Executors.newThreadPerTaskExecutor(ThreadFactory)
+     */
+    private static final MethodHandle PER_TASK_EXECUTOR;
+
+    static {
+        MethodHandle ofVirtual = null;
+        MethodHandle name = null;
+        MethodHandle factory = null;
+        MethodHandle perTaskExecutor = null;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Class<?> virtualClass = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            ofVirtual = lookup.findStatic(Thread.class, "ofVirtual", MethodType.methodType(virtualClass));
+            name = lookup.findVirtual(virtualClass, "name",
+                    MethodType.methodType(virtualClass, String.class, long.class));
+            factory = lookup.findVirtual(builderClass, "factory", MethodType.methodType(ThreadFactory.class));
+            perTaskExecutor = lookup.findStatic(Executors.class, "newThreadPerTaskExecutor",
+                    MethodType.methodType(ExecutorService.class, ThreadFactory.class));
+            // JDK 19和20中这些接口是预览特性，查找能成功但未启用预览时调用会失败，因此实际创建一次执行器
+            ThreadFactory probe = (ThreadFactory) factory.invoke(name.invoke(ofVirtual.invoke(), "probe-", 0L));
+            ((ExecutorService) perTaskExecutor.invoke(probe)).shutdown();
+        } catch (Throwable e) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        FACTORY = factory;
+        PER_TASK_EXECUTOR = perTaskExecutor;
+    }
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * 当前JDK是否支持虚拟线程，预览阶段的虚拟线程（JDK 19、20）不算支持
+     *
+     * @return 支持时返回true
+     */
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * 创建虚拟线程工厂
+     *
+     * @param namePrefix 线程名前缀，线程名为前缀加序号
+     * @return 线程工厂
+     * @throws UnsupportedOperationException 当前JDK不支持虚拟线程时抛出
+     */
+    public static ThreadFactory factory(String namePrefix) {
+        if (!isSupported()) {
+            throw new UnsupportedOperationException("当前JDK不支持虚拟线程: " + Runtime.version());
+        }
+        try {
+            Object builder = NAME.invoke(OF_VIRTUAL.invoke(), namePrefix, 0L);
+            return (ThreadFactory) FACTORY.invoke(builder);
+        } catch (Throwable e) {
+            throw new IllegalStateException("创建虚拟线程工厂失败", e);
+        }
+    }
+
+    /**
+     * 创建执行器，支持虚拟线程时每个任务使用一个虚拟线程，否则使用按需创建的平台线程池
+     *
+     * @param namePrefix 线程名前缀
+     * @return 执行器
+     */
+    public static ExecutorService newExecutor(String namePrefix) {
+        if (isSupported()) {
+            try {
+                return (ExecutorService) PER_TASK_EXECUTOR.invoke(factory(namePrefix));
+            } catch (Throwable e) {
+                throw new IllegalStateException("创建虚拟线程执行器失败", e);
+            }
+        }
+        log.warn("当前JDK不支持虚拟线程，使用平台线程池: {}", Runtime.version());
+        AtomicLong counter = new AtomicLong();
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
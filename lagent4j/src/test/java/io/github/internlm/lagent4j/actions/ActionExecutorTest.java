@@ -0,0 +1,261 @@
+package io.github.internlm.lagent4j.actions;
+
+import io.github.internlm.lagent4j.metrics.PrometheusExporter;
+import io.github.internlm.lagent4j.schema.ActionReturn;
+import io.github.internlm.lagent4j.schema.ActionStatusCode;
+import io.github.internlm.lagent4j.schema.AgentMessage;
+import io.github.internlm.lagent4j.schema.FunctionCall;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ActionExecutor类的单元测试
+ */
+public class ActionExecutorTest {
+
+    private static final int POOL_SIZE = 4;
+
+    private ActionExecutor executor;
+
+    @AfterEach
+    public void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * 调用方数量是线程池大小的10倍，每个调用方又并行处理多条消息，所有调用都必须在限定时间内完成
+     */
+    @Test
+    public void testNoDeadlockAtTenTimesPoolSize() {
+        executor = new ActionExecutor(POOL_SIZE);
+        executor.registerAction(new TestAction("sleep", call -> {
+            sleep(10);
+            return text("done");
+        }));
+
+        int callers = POOL_SIZE * 10;
+        ExecutorService callerPool = Executors.newFixedThreadPool(callers);
+        try {
+            assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+                List<CompletableFuture<List<AgentMessage>>> results = new ArrayList<>();
+                for (int i = 0; i < callers; i++) {
+                    List<AgentMessage> messages = new ArrayList<>();
+                    for (int j = 0; j < 5; j++) {
+                        messages.add(call("sleep"));
+                    }
+                    results.add(CompletableFuture.supplyAsync(() -> executor.processParallel(messages), callerPool));
+                }
+                for (CompletableFuture<List<AgentMessage>> result : results) {
+                    for (AgentMessage message : result.join()) {
+                        assertEquals("done", message.getContent());
+                    }
+                }
+            });
+        } finally {
+            callerPool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testRejectsWhenQueueIsFull() throws Exception {
+        executor = new ActionExecutor(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        TestAction blocking = new TestAction("block", call -> {
+            await(release);
+            return text("released");
+        });
+        executor.registerAction(blocking);
+
+        CompletableFuture<ActionReturn> running = executor.executeAsync(blocking, new FunctionCall("block", Map.of()), 10, 0);
+        CompletableFuture<ActionReturn> queued = executor.executeAsync(blocking, new FunctionCall("block", Map.of()), 10, 0);
+        ActionReturn rejected = executor.executeAsync(blocking, new FunctionCall("block", Map.of()), 10, 0)
+                .get(1, TimeUnit.SECONDS);
+
+        assertEquals(ActionStatusCode.BUSY, rejected.getState());
+
+        release.countDown();
+        assertEquals(ActionStatusCode.SUCCESS, running.get(5, TimeUnit.SECONDS).getState());
+        assertEquals(ActionStatusCode.SUCCESS, queued.get(5, TimeUnit.SECONDS).getState());
+    }
+
+    @Test
+    public void testTimeoutInterruptsAction() throws Exception {
+        executor = new ActionExecutor(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        TestAction slow = new TestAction("slow", call -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return text("late");
+        });
+
+        ActionReturn result = executor.executeAsync(slow, new FunctionCall("slow", Map.of()), 1, 0)
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(ActionStatusCode.API_ERROR, result.getState());
+        assertTrue(result.getErrmsg().contains("超时"));
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testRetryAfterFailure() {
+        executor = new ActionExecutor(1);
+        AtomicInteger attempts = new AtomicInteger();
+        executor.registerAction(new TestAction("flaky", call -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("first attempt fails");
+            }
+            return text("ok");
+        }));
+
+        AgentMessage response = executor.process(call("flaky"), 5, 1);
+
+        assertEquals("ok", response.getContent());
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    public void testArgsErrorIsNotRetried() throws Exception {
+        executor = new ActionExecutor(1);
+        AtomicInteger attempts = new AtomicInteger();
+        TestAction invalid = new TestAction("invalid", call -> {
+            attempts.incrementAndGet();
+            return ActionReturn.builder().state(ActionStatusCode.ARGS_ERROR).errmsg("缺少参数").build();
+        });
+        TestAction throwing = new TestAction("throwing", call -> {
+            attempts.incrementAndGet();
+            throw new IllegalArgumentException("参数类型错误");
+        });
+
+        ActionReturn returned = executor.executeAsync(invalid, new FunctionCall("invalid", Map.of()), 5, 3)
+                .get(5, TimeUnit.SECONDS);
+        ActionReturn thrown = executor.executeAsync(throwing, new FunctionCall("throwing", Map.of()), 5, 3)
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(ActionStatusCode.ARGS_ERROR, returned.getState());
+        assertEquals(ActionStatusCode.ARGS_ERROR, thrown.getState());
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    public void testRetryBudgetLimitsRetries() throws Exception {
+        executor = new ActionExecutor(1);
+        executor.setRetryPolicy(new RetryPolicy.Builder().baseDelayMillis(1).maxDelayMillis(1).build());
+        executor.setRetryBudget(new RetryBudget(0, 1, 1));
+        AtomicInteger attempts = new AtomicInteger();
+        TestAction failing = new TestAction("failing", call -> {
+            attempts.incrementAndGet();
+            return ActionReturn.builder().state(ActionStatusCode.HTTP_ERROR).errmsg("503").build();
+        });
+
+        ActionReturn first = executor.executeAsync(failing, new FunctionCall("failing", Map.of()), 5, 3)
+                .get(5, TimeUnit.SECONDS);
+        int firstAttempts = attempts.getAndSet(0);
+        ActionReturn second = executor.executeAsync(failing, new FunctionCall("failing", Map.of()), 5, 3)
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(ActionStatusCode.HTTP_ERROR, first.getState());
+        assertEquals(ActionStatusCode.HTTP_ERROR, second.getState());
+        assertEquals(2, firstAttempts);
+        assertEquals(1, attempts.get());
+        assertEquals(1, executor.getRetryBudget().getRetries());
+        assertEquals(2, executor.getRetryBudget().getRejected());
+    }
+
+    @Test
+    public void testBulkheadIsolatesSlowAction() throws Exception {
+        executor = new ActionExecutor(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        TestAction slow = new TestAction("slow", call -> {
+            started.countDown();
+            await(release);
+            return text("slow");
+        });
+        TestAction fast = new TestAction("fast", call -> text("fast"));
+        executor.registerAction(slow, new BulkheadConfig(1, 0));
+        executor.registerAction(fast);
+
+        CompletableFuture<ActionReturn> running = executor.executeAsync(slow, new FunctionCall("slow", Map.of()), 10, 3);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        ActionReturn saturated = executor.executeAsync(slow, new FunctionCall("slow", Map.of()), 10, 3)
+                .get(1, TimeUnit.SECONDS);
+        AgentMessage fastResponse = executor.processAsync(call("fast")).get(1, TimeUnit.SECONDS);
+
+        assertEquals(ActionStatusCode.BULKHEAD_FULL, saturated.getState());
+        assertEquals("fast", fastResponse.getContent());
+        Bulkhead bulkhead = executor.getBulkhead("slow");
+        assertEquals(1, bulkhead.getActive());
+        assertEquals(1.0, bulkhead.getUtilization());
+        assertEquals(1, bulkhead.getRejected().sum());
+
+        String text = new PrometheusExporter().render(List.of(executor));
+        assertTrue(text.contains("lagent4j_action_utilization{action=\"slow\"} 1"));
+        assertTrue(text.contains("lagent4j_action_calls_total{action=\"fast\"} 1"));
+        assertFalse(text.contains("lagent4j_action_utilization{action=\"fast\"}"));
+
+        release.countDown();
+        assertEquals(ActionStatusCode.SUCCESS, running.get(5, TimeUnit.SECONDS).getState());
+    }
+
+    @Test
+    public void testUnregisteredActionStatsExportedAndCleared() throws Exception {
+        executor = new ActionExecutor(1);
+        TestAction adhoc = new TestAction("adhoc", call -> text("adhoc"));
+
+        executor.executeAsync(adhoc, new FunctionCall("adhoc", Map.of()), 10, 0).get(5, TimeUnit.SECONDS);
+        executor.executeAsync(adhoc, new FunctionCall("adhoc", Map.of()), 10, 0).get(5, TimeUnit.SECONDS);
+
+        assertNull(executor.getBulkhead("adhoc"));
+        String text = new PrometheusExporter().render(List.of(executor));
+        assertTrue(text.contains("lagent4j_action_calls_total{action=\"adhoc\"} 2"), text);
+
+        executor.clearActions();
+        assertFalse(new PrometheusExporter().render(List.of(executor)).contains("action=\"adhoc\""));
+    }
+
+    private static AgentMessage call(String name) {
+        AgentMessage message = new AgentMessage("user", "");
+        message.setFormatted(Map.of("function_call", Map.of("name", name, "arguments", Map.of())));
+        return message;
+    }
+
+    private static ActionReturn text(String content) {
+        return ActionReturn.builder()
+                .result(List.of(Map.of("type", "text", "content", content)))
+                .build();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package io.github.internlm.lagent4j.actions;
+
+import io.github.internlm.lagent4j.schema.ActionReturn;
+import io.github.internlm.lagent4j.schema.FunctionCall;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 代码解释器基准测试
+ * <p>
+ * cold每次调用都新建JShell（池大小为0），warm从预热池中取实例，用完重置后放回。
+ * 两者执行同一段代码，差值即为预热池省下的启动和首次编译时间。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class CodeInterpreterBenchmark {
+
+    private static final FunctionCall CALL = new FunctionCall(CodeInterpreter.NAME, Map.of("code",
+            "long total = 0;\nfor (int i = 1; i <= 1000; i++) total += (long) i * i;\ntotal"));
+
+    private CodeInterpreter cold;
+    private CodeInterpreter warm;
+
+    @Setup
+    public void setUp() throws InterruptedException {
+        cold = new CodeInterpreter.Builder().poolSize(0).build();
+        warm = new CodeInterpreter.Builder().poolSize(2).build();
+        warm.awaitWarm(2, Duration.ofSeconds(30));
+    }
+
+    @TearDown
+    public void tearDown() {
+        cold.close();
+        warm.close();
+    }
+
+    @Benchmark
+    public ActionReturn cold() {
+        return cold.execute(CALL);
+    }
+
+    @Benchmark
+    public ActionReturn warm() {
+        return warm.execute(CALL);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CodeInterpreterBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
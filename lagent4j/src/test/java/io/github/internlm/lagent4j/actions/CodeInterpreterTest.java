@@ -0,0 +1,135 @@
+package io.github.internlm.lagent4j.actions;
+
+import io.github.internlm.lagent4j.schema.ActionReturn;
+import io.github.internlm.lagent4j.schema.ActionStatusCode;
+import io.github.internlm.lagent4j.schema.FunctionCall;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CodeInterpreter类的单元测试
+ */
+public class CodeInterpreterTest {
+
+    private static CodeInterpreter interpreter;
+    private static PrintStream originalOut;
+
+    @BeforeAll
+    public static void setUp() throws InterruptedException {
+        originalOut = System.out;
+        interpreter = new CodeInterpreter.Builder()
+                .poolSize(1)
+                .timeout(Duration.ofSeconds(2))
+                .build();
+        assertTrue(interpreter.awaitWarm(1, Duration.ofSeconds(30)));
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        interpreter.close();
+        // 最后一个解释器关闭后恢复原来的标准输出
+        assertSame(originalOut, System.out);
+    }
+
+    @Test
+    public void testStreamsAreSharedUntilLastInterpreterCloses() {
+        PrintStream routed = System.out;
+        assertNotSame(originalOut, routed);
+        CodeInterpreter second = new CodeInterpreter.Builder().poolSize(1).build();
+        assertSame(routed, System.out);
+        second.close();
+        second.close();
+        assertSame(routed, System.out);
+        assertEquals("3\n", interpreter.execute(call("System.out.println(1 + 2);")).formatResult());
+    }
+
+    @Test
+    public void testStdoutIsStreamedAndLastValueReturned() {
+        List<String> partials = Collections.synchronizedList(new ArrayList<>());
+        long warm = interpreter.getWarmStarts();
+
+        ActionReturn result = interpreter.executeStream(call(
+                "for (int i = 1; i <= 3; i++) System.out.println(\"第\" + i + \"行\");\n"
+                        + "long total = 0;\n"
+                        + "for (int i = 1; i <= 100; i++) total += i;\n"
+                        + "total"), partial -> partials.add(partial.formatResult()));
+
+        assertEquals(ActionStatusCode.SUCCESS, result.getState());
+        assertEquals(List.of("第1行\n", "第2行\n", "第3行\n", "5050\n"), partials);
+        assertEquals("第1行\n第2行\n第3行\n5050\n", result.formatResult());
+        assertEquals(warm + 1, interpreter.getWarmStarts());
+    }
+
+    @Test
+    public void testSessionKeepsStateAndAnonymousCallsStartClean() {
+        Map<String, Object> define = Map.of("code", "int base = 40;", "session", "s1");
+        assertEquals(ActionStatusCode.SUCCESS, interpreter.execute(new FunctionCall(CodeInterpreter.NAME, define)).getState());
+        Map<String, Object> use = Map.of("code", "base + 2", "session", "s1");
+        assertEquals("42\n", interpreter.execute(new FunctionCall(CodeInterpreter.NAME, use)).formatResult());
+
+        ActionReturn anonymous = interpreter.execute(call("int leaked = 1;"));
+        assertEquals(ActionStatusCode.SUCCESS, anonymous.getState());
+        ActionReturn missing = interpreter.execute(call("leaked + 1"));
+        assertEquals(ActionStatusCode.ARGS_ERROR, missing.getState());
+        assertTrue(missing.getErrmsg().startsWith("编译错误"));
+
+        assertTrue(interpreter.closeSession("s1"));
+        assertFalse(interpreter.closeSession("s1"));
+    }
+
+    @Test
+    public void testRunningSessionIsNotExpired() throws Exception {
+        CodeInterpreter shortIdle = new CodeInterpreter.Builder()
+                .poolSize(1)
+                .timeout(Duration.ofSeconds(10))
+                .sessionIdleTimeout(Duration.ofMillis(200))
+                .build();
+        try {
+            Map<String, Object> slow = Map.of("code", "int x = 1;\nThread.sleep(1500);", "session", "s2");
+            CompletableFuture<ActionReturn> running = CompletableFuture.supplyAsync(
+                    () -> shortIdle.execute(new FunctionCall(CodeInterpreter.NAME, slow)));
+            Thread.sleep(700);
+
+            // 另一个调用触发空闲会话检查，执行时间超过空闲超时的会话不能被关闭
+            assertEquals("2\n", shortIdle.execute(call("1 + 1")).formatResult());
+            assertEquals(ActionStatusCode.SUCCESS, running.get(10, TimeUnit.SECONDS).getState());
+            Map<String, Object> use = Map.of("code", "x + 1", "session", "s2");
+            assertEquals("2\n", shortIdle.execute(new FunctionCall(CodeInterpreter.NAME, use)).formatResult());
+        } finally {
+            shortIdle.close();
+        }
+    }
+
+    @Test
+    public void testErrorsAndTimeout() {
+        ActionReturn thrown = interpreter.execute(call("System.out.println(\"before\");\nInteger.parseInt(\"x\");"));
+        assertEquals(ActionStatusCode.API_ERROR, thrown.getState());
+        assertTrue(thrown.getErrmsg().contains("NumberFormatException"));
+        assertEquals("before\n", thrown.formatResult());
+
+        long timeouts = interpreter.getTimeouts();
+        ActionReturn timedOut = interpreter.execute(call("while (true) { }"));
+        assertEquals(ActionStatusCode.API_ERROR, timedOut.getState());
+        assertTrue(timedOut.getErrmsg().startsWith("代码执行超时"));
+        assertEquals(timeouts + 1, interpreter.getTimeouts());
+
+        // 超时的实例被丢弃，之后的调用不受影响
+        assertEquals("2\n", interpreter.execute(call("1 + 1")).formatResult());
+    }
+
+    private static FunctionCall call(String code) {
+        return new FunctionCall(CodeInterpreter.NAME, Map.of("code", code));
+    }
+}
@@ -0,0 +1,78 @@
+package io.github.internlm.lagent4j.actions;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 网页内容提取基准测试
+ * <p>
+ * 在本地生成的大HTML页面上对比两种做法：jsoup先把整个响应读成字符串、构建完整DOM再截取8000字符；
+ * {@link HtmlStreamExtractor}边解码边解析，提取到8000字符即停止。运行main方法并查看gc.alloc.rate.norm即可得到每次提取的分配字节数。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HtmlStreamExtractorBenchmark {
+
+    private static final int MAX_CONTENT_LENGTH = 8000;
+
+    /**
+     * 页面大小（MB）
+     */
+    @Param({"1", "20"})
+    private int sizeMb;
+
+    @Param({"TEXT", "TITLE"})
+    private HtmlStreamExtractor.Mode mode;
+
+    private byte[] page;
+
+    @Setup
+    public void setUp() {
+        StringBuilder html = new StringBuilder("<!DOCTYPE html><html><head><meta charset=\"utf-8\">"
+                + "<title>基准测试页面</title><style>p { margin: 0 }</style></head><body>");
+        int paragraph = 0;
+        while (html.length() * 2L < sizeMb * 1024L * 1024L) {
+            html.append("<div class=\"post\"><h2>第").append(paragraph).append("节</h2>")
+                    .append("<p>这是一段用于基准测试的正文内容，包含<a href=\"/link/").append(paragraph)
+                    .append("\">链接</a>和<b>加粗</b>文字 &amp; 实体。</p>")
+                    .append("<script>var x").append(paragraph).append(" = '<p>脚本</p>';</script></div>\n");
+            paragraph++;
+        }
+        page = html.append("</body></html>").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String jsoup() {
+        Document doc = Jsoup.parse(new String(page, StandardCharsets.UTF_8));
+        String content = mode == HtmlStreamExtractor.Mode.TITLE ? doc.title() : doc.body().text();
+        return content.length() > MAX_CONTENT_LENGTH ? content.substring(0, MAX_CONTENT_LENGTH) : content;
+    }
+
+    @Benchmark
+    public String streaming() throws IOException {
+        InputStreamReader reader = new InputStreamReader(new ByteArrayInputStream(page), StandardCharsets.UTF_8);
+        return HtmlStreamExtractor.extract(reader, mode, MAX_CONTENT_LENGTH).getContent();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(HtmlStreamExtractorBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
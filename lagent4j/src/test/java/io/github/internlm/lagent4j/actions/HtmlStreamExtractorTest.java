@@ -0,0 +1,102 @@
+package io.github.internlm.lagent4j.actions;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * HtmlStreamExtractor类的单元测试
+ */
+public class HtmlStreamExtractorTest {
+
+    private static final String PAGE = "<!DOCTYPE html>\n"
+            + "<html><head>\n"
+            + "  <meta charset=\"utf-8\">\n"
+            + "  <title> 示例 &amp; 标题 </title>\n"
+            + "  <meta name=\"description\" content=\"页面 &quot;描述&quot;\">\n"
+            + "  <meta property='og:title' content='OG标题'>\n"
+            + "  <style>body { color: red; } </style>\n"
+            + "  <script>var s = '<p>不是正文</p>';</script>\n"
+            + "</head>\n"
+            + "<body>\n"
+            + "  <!-- 注释 <p>也不是正文</p> -->\n"
+            + "  <h1>第一章</h1><p>正文<b>加粗</b>内容，a &lt; b &#x4E2D;&#25991;</p>\n"
+            + "  <ul><li>一</li><li>二</li></ul>\n"
+            + "  <p>1 < 2 && 3 > 2</p><br/>结尾\n"
+            + "</body></html>";
+
+    @Test
+    public void testTextMatchesJsoup() throws IOException {
+        Document doc = Jsoup.parse(PAGE);
+        assertEquals(doc.body().text(), extract(PAGE, HtmlStreamExtractor.Mode.TEXT, 8000).getContent());
+    }
+
+    @Test
+    public void testTitleAndMeta() throws IOException {
+        Document doc = Jsoup.parse(PAGE);
+        assertEquals(doc.title(), extract(PAGE, HtmlStreamExtractor.Mode.TITLE, 8000).getContent());
+        assertEquals("description: 页面 \"描述\"\nog:title: OG标题\n",
+                extract(PAGE, HtmlStreamExtractor.Mode.META, 8000).getContent());
+    }
+
+    @Test
+    public void testStopsReadingOnceEnoughContentIsExtracted() throws IOException {
+        StringBuilder html = new StringBuilder("<html><head><title>大页面</title></head><body>");
+        for (int i = 0; i < 100_000; i++) {
+            html.append("<p>段落").append(i).append("</p>");
+        }
+        html.append("</body></html>");
+
+        CountingReader reader = new CountingReader(html.toString());
+        HtmlStreamExtractor.Result result = HtmlStreamExtractor.extract(reader, HtmlStreamExtractor.Mode.TEXT, 100);
+        assertTrue(result.isTruncated());
+        assertTrue(result.getContent().length() <= 100 && result.getContent().length() >= 99);
+        assertTrue(result.getContent().startsWith("段落0 段落1 段落2"));
+        assertTrue(reader.count < 16 * 1024, "读取了" + reader.count + "个字符");
+
+        reader = new CountingReader(html.toString());
+        assertEquals("大页面", HtmlStreamExtractor.extract(reader, HtmlStreamExtractor.Mode.TITLE, 100).getContent());
+        assertTrue(reader.count < 16 * 1024);
+
+        HtmlStreamExtractor.Result small = extract("<p>短内容</p>", HtmlStreamExtractor.Mode.TEXT, 100);
+        assertFalse(small.isTruncated());
+        assertEquals("短内容", small.getContent());
+    }
+
+    private static HtmlStreamExtractor.Result extract(String html, HtmlStreamExtractor.Mode mode, int maxChars)
+            throws IOException {
+        return HtmlStreamExtractor.extract(new StringReader(html), mode, maxChars);
+    }
+
+    /**
+     * 记录读取字符数的Reader
+     */
+    private static final class CountingReader extends Reader {
+        private final StringReader delegate;
+        private long count;
+
+        CountingReader(String text) {
+            this.delegate = new StringReader(text);
+        }
+
+        @Override
+        public int read(char[] buffer, int off, int len) throws IOException {
+            int n = delegate.read(buffer, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package io.github.internlm.lagent4j.actions;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 本地全文搜索基准测试
+ * <p>
+ * 在临时目录中生成一批中英文混排的文档，对比两种做法：{@link LocalSearch}查询内存映射的倒排索引；
+ * 每次查询都读取并切分所有文档再计算BM25。build基准测量为全部文档建立索引的耗时。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LocalSearchBenchmark {
+
+    private static final String[] WORDS = {"部署", "配置", "数据库", "连接", "缓存", "超时", "重试", "日志", "监控", "告警",
+            "service", "client", "request", "timeout", "retry", "cache", "index", "query", "token", "model"};
+
+    @Param({"2000"})
+    private int documents;
+
+    private Path directory;
+    private LocalSearch search;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("local-search-benchmark");
+        Random random = new Random(42);
+        for (int i = 0; i < documents; i++) {
+            StringBuilder text = new StringBuilder("# 文档").append(i).append("\n\n");
+            for (int w = 0; w < 300; w++) {
+                text.append(WORDS[random.nextInt(WORDS.length)]);
+                text.append(random.nextInt(8) == 0 ? "。\n" : " ");
+            }
+            Files.write(directory.resolve("doc" + i + ".md"), text.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        search = newSearch(directory.resolve(".index"));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<SearchResult> indexed() {
+        return search.query("数据库连接 timeout retry", 5);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public double[] scan() throws IOException {
+        List<String> texts = new ArrayList<>(documents);
+        for (int i = 0; i < documents; i++) {
+            texts.add(Files.readString(directory.resolve("doc" + i + ".md"), StandardCharsets.UTF_8));
+        }
+        return MainContentExtractor.Bm25.score(texts, "数据库连接 timeout retry");
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public LocalSearch build() throws IOException {
+        return newSearch(Files.createTempDirectory(directory, ".build"));
+    }
+
+    private LocalSearch newSearch(Path indexDirectory) {
+        return new LocalSearch.Builder()
+                .documentDirectory(directory)
+                .indexDirectory(indexDirectory)
+                .refreshInterval(Duration.ofHours(1))
+                .build();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LocalSearchBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,156 @@
+package io.github.internlm.lagent4j.actions;
+
+import io.github.internlm.lagent4j.metrics.PrometheusExporter;
+import io.github.internlm.lagent4j.schema.ActionReturn;
+import io.github.internlm.lagent4j.schema.ActionStatusCode;
+import io.github.internlm.lagent4j.schema.FunctionCall;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LocalSearch类的单元测试
+ */
+public class LocalSearchTest {
+
+    @TempDir
+    Path docs;
+
+    @Test
+    public void testQueryRanksByBm25AndMatchesWebSearchShape() throws IOException {
+        write("deploy.md", "# 部署指南\n\n服务通过容器部署，部署前需要配置数据库连接和环境变量。\n");
+        write("retry.md", "# Retry policy\n\nRequests that fail with 429 are retried with exponential backoff. "
+                + "The retry budget limits retries per minute.\n");
+        write("guide/faq.html", "<html><head><title>常见问题</title></head><body><nav>首页</nav>"
+                + "<p>数据库连接失败时，检查连接池配置。</p></body></html>");
+        write("notes.bin", "数据库 数据库 数据库");
+        LocalSearch search = build();
+        assertEquals(3, search.getDocumentCount());
+
+        ActionReturn result = search.execute(new FunctionCall("local_search", Map.of("query", "数据库连接")));
+        assertEquals(ActionStatusCode.SUCCESS, result.getState());
+        List<Map<String, String>> items = result.getResult();
+        assertEquals(2, items.size());
+        assertEquals(Set.of("title", "snippet", "url"), items.get(0).keySet());
+        assertEquals("常见问题", items.get(0).get("title"));
+        assertTrue(items.get(0).get("snippet").contains("数据库连接失败"));
+        assertEquals(docs.resolve("guide/faq.html").toUri().toString(), items.get(0).get("url"));
+        assertEquals("部署指南", items.get(1).get("title"));
+
+        List<SearchResult> retry = search.query("RETRY budget", 5);
+        assertEquals("Retry policy", retry.get(0).getTitle());
+        assertTrue(retry.get(0).getSnippet().contains("retry budget"));
+
+        assertEquals(ActionStatusCode.API_ERROR,
+                search.execute(new FunctionCall("local_search", Map.of("query", "不存在的词"))).getState());
+        assertEquals(ActionStatusCode.ARGS_ERROR,
+                search.execute(new FunctionCall("local_search", Map.of("query", ""))).getState());
+
+        // 作为WebSearch的本地后端
+        ActionReturn web = new WebSearch(search).execute(new FunctionCall("web_search", Map.of("query", "部署")));
+        assertEquals("部署指南", web.getResult().get(0).get("title"));
+    }
+
+    @Test
+    public void testIncrementalUpdatesAndReopen() throws IOException {
+        write("a.txt", "alpha beta");
+        write("b.txt", "beta gamma");
+        LocalSearch search = build();
+        assertEquals(1, search.getSegmentCount());
+        assertFalse(search.refresh());
+
+        // 修改、新增和删除的文档写入新段，原段中的旧版本标记为已删除
+        write("a.txt", "alpha delta");
+        Files.setLastModifiedTime(docs.resolve("a.txt"), FileTime.fromMillis(System.currentTimeMillis() + 5000));
+        write("c.txt", "delta epsilon");
+        assertTrue(search.refresh());
+        assertEquals(2, search.getSegmentCount());
+        assertEquals(3, search.getDocumentCount());
+        assertEquals(List.of("a.txt", "c.txt"), titles(search.query("delta", 5)).stream().sorted().toList());
+        assertEquals(List.of("b.txt"), titles(search.query("beta", 5)));
+
+        Files.delete(docs.resolve("b.txt"));
+        assertTrue(search.refresh());
+        assertEquals(2, search.getDocumentCount());
+        assertTrue(search.query("gamma", 5).isEmpty());
+
+        // 重新打开时直接使用磁盘上的索引，不再读取文档
+        LocalSearch reopened = build();
+        assertEquals(2, reopened.getDocumentCount());
+        assertEquals(List.of("c.txt"), titles(reopened.query("epsilon", 5)));
+        String text = new PrometheusExporter().render(List.of(reopened));
+        assertTrue(text.contains("lagent4j_local_search_indexed_files_total{action=\"local_search\"} 0"), text);
+    }
+
+    @Test
+    public void testEditedDocumentsDoNotSkewScores() throws IOException {
+        write("a.md", "# A\nalpha one");
+        write("b.md", "# B\nalpha two");
+        write("c.md", "# C\nalpha three");
+        LocalSearch search = build();
+        assertEquals(3, search.query("alpha", 5).size());
+
+        // 修改后旧版本仍留在原段中，文档频率不能把它算进去，否则idf为负，所有命中都被过滤
+        write("a.md", "# A\nalpha one edited");
+        Files.setLastModifiedTime(docs.resolve("a.md"), FileTime.fromMillis(System.currentTimeMillis() + 5000));
+        assertTrue(search.refresh());
+        assertEquals(2, search.getSegmentCount());
+        assertEquals(3, search.getDocumentCount());
+        List<SearchResult> results = search.query("alpha", 5);
+        assertEquals(List.of("A", "B", "C"), titles(results).stream().sorted().toList());
+        assertTrue(results.stream().anyMatch(result -> result.getSnippet().contains("edited")));
+    }
+
+    @Test
+    public void testLargeIndexAndMerge() throws IOException {
+        // 文档号差值和词频超过127时需要多个字节编码
+        for (int i = 0; i < 300; i++) {
+            write("doc" + i + ".txt", "common " + "word" + i + (i % 150 == 0 ? " rare".repeat(200) : ""));
+        }
+        LocalSearch search = build();
+        assertEquals(300, search.getDocumentCount());
+        assertEquals(List.of("doc0.txt", "doc150.txt"), titles(search.query("rare", 5)).stream().sorted().toList());
+        assertEquals(List.of("doc299.txt"), titles(search.query("word299", 5)));
+        assertEquals(10, search.query("common", 10).size());
+
+        // 删除的文档超过一半时合并为一个段
+        for (int i = 0; i < 200; i++) {
+            Files.delete(docs.resolve("doc" + i + ".txt"));
+        }
+        write("new.txt", "common fresh");
+        assertTrue(search.refresh());
+        assertEquals(1, search.getSegmentCount());
+        assertEquals(101, search.getDocumentCount());
+        assertEquals(List.of("new.txt"), titles(search.query("fresh", 5)));
+        assertThrows(IllegalArgumentException.class,
+                () -> new LocalSearch.Builder().documentDirectory(docs.resolve("missing")).build());
+    }
+
+    private LocalSearch build() {
+        return new LocalSearch.Builder()
+                .documentDirectory(docs)
+                .refreshInterval(Duration.ofHours(1))
+                .build();
+    }
+
+    private void write(String path, String content) throws IOException {
+        Path file = docs.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> titles(List<SearchResult> results) {
+        return results.stream().map(SearchResult::getTitle).toList();
+    }
+}
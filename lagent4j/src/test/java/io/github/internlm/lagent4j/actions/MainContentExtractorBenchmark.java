@@ -0,0 +1,86 @@
+package io.github.internlm.lagent4j.actions;
+
+import io.github.internlm.lagent4j.utils.TokenCounter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 正文提取基准测试
+ * <p>
+ * 在测试资源中的新闻页和文档页上对比全文提取、正文提取和按查询排序的正文提取的耗时与分配。
+ * 运行main方法时先打印三种结果的估算token数，用于比较写入上下文的内容大小。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MainContentExtractorBenchmark {
+
+    private static final int MAX_CONTENT_LENGTH = 8000;
+
+    @Param({"news-article.html", "docs-page.html"})
+    private String fixture;
+
+    private String page;
+    private String query;
+
+    @Setup
+    public void setUp() throws IOException {
+        page = load(fixture);
+        query = query(fixture);
+    }
+
+    @Benchmark
+    public String full() throws IOException {
+        return HtmlStreamExtractor.extract(new StringReader(page), HtmlStreamExtractor.Mode.TEXT, MAX_CONTENT_LENGTH)
+                .getContent();
+    }
+
+    @Benchmark
+    public String main() throws IOException {
+        return MainContentExtractor.extract(new StringReader(page), null, MAX_CONTENT_LENGTH).getContent();
+    }
+
+    @Benchmark
+    public String ranked() throws IOException {
+        return MainContentExtractor.extract(new StringReader(page), query, MAX_CONTENT_LENGTH).getContent();
+    }
+
+    private static String load(String fixture) throws IOException {
+        try (InputStream input = MainContentExtractorBenchmark.class.getResourceAsStream("/html/" + fixture)) {
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String query(String fixture) {
+        return fixture.startsWith("news") ? "票价 换乘" : "rate limit retry 429";
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        for (String fixture : new String[]{"news-article.html", "docs-page.html"}) {
+            MainContentExtractorBenchmark benchmark = new MainContentExtractorBenchmark();
+            benchmark.fixture = fixture;
+            benchmark.setUp();
+            System.out.printf("%s: full=%d tokens, main=%d tokens, ranked(limit 2000)=%d tokens%n", fixture,
+                    TokenCounter.estimate(benchmark.full()),
+                    TokenCounter.estimate(benchmark.main()),
+                    TokenCounter.estimate(MainContentExtractor.extract(
+                            new StringReader(benchmark.page), benchmark.query, 2000).getContent()));
+        }
+        new Runner(new OptionsBuilder()
+                .include(MainContentExtractorBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
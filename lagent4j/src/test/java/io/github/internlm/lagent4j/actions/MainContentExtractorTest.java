@@ -0,0 +1,100 @@
+package io.github.internlm.lagent4j.actions;
+
+import io.github.internlm.lagent4j.utils.TokenCounter;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * MainContentExtractor类的单元测试
+ */
+public class MainContentExtractorTest {
+
+    @Test
+    public void testNewsArticleKeepsArticleAndDropsBoilerplate() throws IOException {
+        String content = main("news-article.html", null);
+        assertTrue(content.startsWith("地铁十四号线二期工程最新进展：十二座车站主体完工"), content);
+        assertTrue(content.contains("起步价三元可乘坐六公里"));
+        assertTrue(content.contains("二十四小时内得到答复"));
+        assertFalse(content.contains("频道1"));
+        assertFalse(content.contains("相关阅读"));
+        assertFalse(content.contains("广告"));
+        assertFalse(content.contains("网友评论"));
+        assertFalse(content.contains("版权所有"));
+        assertFalse(content.contains("Cookie"));
+
+        String full = full("news-article.html");
+        assertTrue(TokenCounter.estimate(content) * 2 < TokenCounter.estimate(full),
+                TokenCounter.estimate(content) + " vs " + TokenCounter.estimate(full));
+    }
+
+    @Test
+    public void testDocsPageKeepsMainElement() throws IOException {
+        String content = main("docs-page.html", null);
+        assertTrue(content.startsWith("Client Library Guide"), content);
+        assertTrue(content.contains("Retry-After header"));
+        assertFalse(content.contains("API Reference Section"));
+        assertFalse(content.contains("Was this page helpful"));
+        assertFalse(content.contains("All rights reserved"));
+    }
+
+    @Test
+    public void testQueryRanksRelevantSectionsFirst() throws IOException {
+        String content = main("news-article.html", "票价 换乘");
+        assertTrue(content.startsWith("票价与换乘"), content);
+
+        String docs = main("docs-page.html", "rate limit retry 429");
+        assertTrue(docs.startsWith("Rate limits"), docs);
+
+        // 上限较小时只保留最相关的小节
+        HtmlStreamExtractor.Result limited = MainContentExtractor.extract(reader("news-article.html"), "交通管制", 300);
+        assertTrue(limited.isTruncated());
+        assertTrue(limited.getContent().startsWith("交通疏导"), limited.getContent());
+        assertTrue(limited.getContent().length() <= 300);
+    }
+
+    @Test
+    public void testFallsBackToAllTextWithoutMainContainer() throws IOException {
+        HtmlStreamExtractor.Result result = MainContentExtractor.extract(
+                new StringReader("<html><body><p>短短一句话</p><nav><a href='/'>首页</a></nav></body></html>"), null, 100);
+        assertEquals("短短一句话", result.getContent());
+        assertFalse(result.isTruncated());
+    }
+
+    @Test
+    public void testStopsParsingLongPages() throws IOException {
+        StringBuilder html = new StringBuilder("<html><body><article>");
+        for (int i = 0; i < 2000; i++) {
+            html.append("<p>第").append(i).append("段正文，内容足够长，包含逗号，用于参与正文评分。</p>");
+        }
+        html.append("</article><p id='tail'>页尾</p></body></html>");
+        StringReader reader = new StringReader(html.toString());
+
+        HtmlStreamExtractor.Result result = MainContentExtractor.extract(reader, null, 1000);
+
+        assertTrue(result.getContent().startsWith("第0段正文"), result.getContent());
+        assertTrue(result.isTruncated());
+        // 收集到上限的若干倍后就停止，剩余内容不再读取
+        assertTrue(reader.read() != -1);
+    }
+
+    private static String main(String fixture, String query) throws IOException {
+        return MainContentExtractor.extract(reader(fixture), query, 8000).getContent();
+    }
+
+    private static String full(String fixture) throws IOException {
+        return HtmlStreamExtractor.extract(reader(fixture), HtmlStreamExtractor.Mode.TEXT, 8000).getContent();
+    }
+
+    private static InputStreamReader reader(String fixture) {
+        InputStream input = MainContentExtractorTest.class.getResourceAsStream("/html/" + fixture);
+        assertNotNull(input, fixture);
+        return new InputStreamReader(input, StandardCharsets.UTF_8);
+    }
+}
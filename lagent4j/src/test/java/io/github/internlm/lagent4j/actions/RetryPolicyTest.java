@@ -0,0 +1,80 @@
+package io.github.internlm.lagent4j.actions;
+
+import io.github.internlm.lagent4j.schema.ActionReturn;
+import io.github.internlm.lagent4j.schema.ActionStatusCode;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RetryPolicy和RetryBudget类的单元测试
+ */
+public class RetryPolicyTest {
+
+    @Test
+    public void testExponentialDelayWithoutJitter() {
+        RetryPolicy policy = new RetryPolicy.Builder()
+                .baseDelayMillis(100)
+                .maxDelayMillis(500)
+                .jitter(0)
+                .build();
+
+        assertEquals(100, policy.delayMillis(1));
+        assertEquals(200, policy.delayMillis(2));
+        assertEquals(400, policy.delayMillis(3));
+        assertEquals(500, policy.delayMillis(4));
+    }
+
+    @Test
+    public void testJitteredDelayStaysWithinBounds() {
+        RetryPolicy policy = new RetryPolicy.Builder()
+                .baseDelayMillis(100)
+                .maxDelayMillis(1000)
+                .jitter(0.5)
+                .build();
+
+        for (int i = 0; i < 1000; i++) {
+            long delay = policy.delayMillis(2);
+            assertTrue(delay >= 100 && delay <= 200, "delay=" + delay);
+        }
+    }
+
+    @Test
+    public void testClassification() {
+        RetryPolicy policy = RetryPolicy.defaults();
+
+        assertTrue(policy.isRetryable(new CompletionException(new TimeoutException())));
+        assertTrue(policy.isRetryable(new IOException("reset")));
+        assertTrue(policy.isRetryable(new IllegalStateException("flaky")));
+        assertFalse(policy.isRetryable(new IllegalArgumentException("bad args")));
+        assertEquals(ActionStatusCode.ARGS_ERROR, policy.classify(new IllegalArgumentException()));
+
+        assertTrue(policy.isRetryable(ActionReturn.builder().state(ActionStatusCode.BUSY).build()));
+        assertFalse(policy.isRetryable(ActionReturn.builder().state(ActionStatusCode.ARGS_ERROR).build()));
+        assertFalse(new RetryPolicy.Builder()
+                .retryableStates(EnumSet.of(ActionStatusCode.ARGS_ERROR))
+                .build()
+                .isRetryable(ActionReturn.builder().state(ActionStatusCode.ARGS_ERROR).build()));
+    }
+
+    @Test
+    public void testBudgetCapsRetryRatio() {
+        RetryBudget budget = new RetryBudget(0.1, 0, 100);
+
+        int granted = 0;
+        for (int i = 0; i < 1000; i++) {
+            budget.recordRequest();
+            if (budget.tryAcquireRetry()) {
+                granted++;
+            }
+        }
+
+        assertEquals(100, granted);
+        assertEquals(900, budget.getRejected());
+    }
+}
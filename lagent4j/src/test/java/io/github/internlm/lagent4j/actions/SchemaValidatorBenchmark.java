@@ -0,0 +1,139 @@
+package io.github.internlm.lagent4j.actions;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 参数校验基准测试
+ * <p>
+ * 对比预编译的{@link SchemaValidator}与每次调用都遍历Schema Map的朴素校验，
+ * 运行main方法并查看gc.alloc.rate.norm即可得到每次校验的分配字节数。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SchemaValidatorBenchmark {
+
+    private Map<String, Object> schema;
+    private SchemaValidator validator;
+    private Map<String, Object> arguments;
+
+    @Setup
+    public void setUp() {
+        schema = Map.of(
+                "type", "object",
+                "properties", Map.of(
+                        "url", Map.of("type", "string", "description", "要访问的URL"),
+                        "mode", Map.of("type", "string", "enum", List.of("raw", "text", "title", "meta")),
+                        "max_length", Map.of("type", "integer", "minimum", 1, "maximum", 100000),
+                        "headers", Map.of("type", "object"),
+                        "follow_redirects", Map.of("type", "boolean")),
+                "required", List.of("url"));
+        validator = SchemaValidator.compile(schema);
+        arguments = Map.of(
+                "url", "https://example.com/article",
+                "mode", "text",
+                "max_length", 8000,
+                "headers", Map.of("Accept", "text/html"),
+                "follow_redirects", true);
+    }
+
+    @Benchmark
+    public String compiled() {
+        return validator.validate(arguments);
+    }
+
+    @Benchmark
+    public String naive() {
+        return naiveValidate(schema, arguments);
+    }
+
+    /**
+     * 朴素实现：每次调用都从Schema Map中查找关键字并比较类型名
+     */
+    @SuppressWarnings("unchecked")
+    private static String naiveValidate(Map<String, Object> schema, Object value) {
+        String type = (String) schema.get("type");
+        if (type != null && !type.equals(naiveType(value))) {
+            return "类型应为" + type;
+        }
+        Object allowed = schema.get("enum");
+        if (allowed instanceof Collection && !((Collection<Object>) allowed).contains(value)) {
+            return "取值不合法";
+        }
+        if (value instanceof Number) {
+            double number = ((Number) value).doubleValue();
+            Object minimum = schema.get("minimum");
+            Object maximum = schema.get("maximum");
+            if (minimum instanceof Number && number < ((Number) minimum).doubleValue()) {
+                return "过小";
+            }
+            if (maximum instanceof Number && number > ((Number) maximum).doubleValue()) {
+                return "过大";
+            }
+        }
+        if (value instanceof Map) {
+            Map<String, Object> object = (Map<String, Object>) value;
+            Object required = schema.get("required");
+            if (required instanceof Collection) {
+                for (Object name : (Collection<Object>) required) {
+                    if (!object.containsKey(name)) {
+                        return "缺少" + name;
+                    }
+                }
+            }
+            Object properties = schema.get("properties");
+            if (properties instanceof Map) {
+                for (Map.Entry<String, Object> entry : ((Map<String, Object>) properties).entrySet()) {
+                    if (object.containsKey(entry.getKey())) {
+                        String error = naiveValidate((Map<String, Object>) entry.getValue(), object.get(entry.getKey()));
+                        if (error != null) {
+                            return entry.getKey() + ": " + error;
+                        }
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String naiveType(Object value) {
+        if (value instanceof String) {
+            return "string";
+        }
+        if (value instanceof Boolean) {
+            return "boolean";
+        }
+        if (value instanceof Integer || value instanceof Long) {
+            return "integer";
+        }
+        if (value instanceof Number) {
+            return "number";
+        }
+        if (value instanceof Map) {
+            return "object";
+        }
+        if (value instanceof List) {
+            return "array";
+        }
+        return "null";
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SchemaValidatorBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,120 @@
+package io.github.internlm.lagent4j.actions;
+
+import io.github.internlm.lagent4j.metrics.PrometheusExporter;
+import io.github.internlm.lagent4j.schema.ActionReturn;
+import io.github.internlm.lagent4j.schema.ActionStatusCode;
+import io.github.internlm.lagent4j.schema.AgentMessage;
+import io.github.internlm.lagent4j.schema.FunctionCall;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SchemaValidator类的单元测试
+ */
+public class SchemaValidatorTest {
+
+    private static final Map<String, Object> SCHEMA = Map.of(
+            "type", "object",
+            "properties", Map.of(
+                    "query", Map.of("type", "string", "minLength", 1),
+                    "count", Map.of("type", "integer", "minimum", 1, "maximum", 50),
+                    "mode", Map.of("type", "string", "enum", List.of("raw", "text")),
+                    "filters", Map.of(
+                            "type", "array",
+                            "items", Map.of(
+                                    "type", "object",
+                                    "properties", Map.of("site", Map.of("type", "string")),
+                                    "required", List.of("site")))),
+            "required", List.of("query"),
+            "additionalProperties", false);
+
+    private final SchemaValidator validator = SchemaValidator.compile(SCHEMA);
+
+    @Test
+    public void testValidArguments() {
+        assertNull(validator.validate(Map.of("query", "java")));
+        assertNull(validator.validate(Map.of("query", "java", "count", 5, "mode", "text")));
+        // 整数值的浮点数视为整数
+        assertNull(validator.validate(Map.of("query", "java", "count", 5.0)));
+        assertNull(validator.validate(Map.of("query", "java", "filters", List.of(Map.of("site", "a.com")))));
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertEquals("参数 query 缺少必填参数", validator.validate(Map.of()));
+        assertEquals("参数 query 缺少必填参数", validator.validate(null));
+        assertEquals("参数 count 类型应为integer，实际为string",
+                validator.validate(Map.of("query", "java", "count", "5")));
+        assertEquals("参数 count 不能大于50.0", validator.validate(Map.of("query", "java", "count", 99)));
+        assertEquals("参数 query 长度不能小于1", validator.validate(Map.of("query", "")));
+        assertEquals("参数 mode 取值应为[raw, text]之一，实际为html",
+                validator.validate(Map.of("query", "java", "mode", "html")));
+        assertEquals("参数 filters[1].site 缺少必填参数", validator.validate(Map.of("query", "java",
+                "filters", List.of(Map.of("site", "a.com"), Map.of()))));
+        assertEquals("参数 page 不支持的参数", validator.validate(Map.of("query", "java", "page", 2)));
+    }
+
+    @Test
+    public void testLegacyParametersAreNotValidated() {
+        Map<String, Object> legacy = new HashMap<>();
+        legacy.put("query", "搜索关键词");
+        assertTrue(SchemaValidator.compile(legacy).acceptsAll());
+        assertTrue(SchemaValidator.compile(null).acceptsAll());
+        assertNull(SchemaValidator.compile(legacy).validate(Map.of("anything", 1)));
+    }
+
+    @Test
+    public void testExecutorRejectsInvalidArgumentsWithoutRetry() throws Exception {
+        ActionExecutor executor = new ActionExecutor(1);
+        AtomicInteger executions = new AtomicInteger();
+        Action search = new Action() {
+            @Override
+            public String getName() {
+                return "search";
+            }
+
+            @Override
+            public String getDescription() {
+                return "search";
+            }
+
+            @Override
+            public Map<String, Object> getParameters() {
+                return SCHEMA;
+            }
+
+            @Override
+            public ActionReturn execute(FunctionCall functionCall) {
+                executions.incrementAndGet();
+                return ActionReturn.builder().build();
+            }
+        };
+        executor.registerAction(search);
+        try {
+            ActionReturn result = executor.executeAsync(search, new FunctionCall("search", Map.of("count", 3)), 5, 3)
+                    .get(1, TimeUnit.SECONDS);
+            assertEquals(ActionStatusCode.ARGS_ERROR, result.getState());
+            assertEquals("参数 query 缺少必填参数", result.getErrmsg());
+            assertEquals(0, executions.get());
+
+            // 以JSON字符串给出的参数先解析再校验
+            AgentMessage message = new AgentMessage("user", "");
+            message.setFormatted(Map.of("function_call",
+                    Map.of("name", "search", "arguments", "{\"query\": \"java\"}")));
+            executor.process(message);
+            assertEquals(1, executions.get());
+
+            String text = new PrometheusExporter().render(List.of(executor));
+            assertTrue(text.contains("lagent4j_action_invalid_arguments_total{action=\"search\"} 1"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package io.github.internlm.lagent4j.actions;
+
+import io.github.internlm.lagent4j.schema.ActionReturn;
+import io.github.internlm.lagent4j.schema.ActionStatusCode;
+import io.github.internlm.lagent4j.schema.AgentMessage;
+import io.github.internlm.lagent4j.schema.FunctionCall;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * StreamingAction及ActionExecutor流式执行的单元测试
+ */
+public class StreamingActionTest {
+
+    private final ActionExecutor executor = new ActionExecutor(2);
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testPartialResultsAreDeliveredInOrder() throws Exception {
+        StreamingAction lines = new LinesAction("lines", List.of("第一行", "第二行", "第三行"));
+        executor.registerAction(lines);
+        List<String> partials = Collections.synchronizedList(new ArrayList<>());
+
+        ActionReturn result = executor.executeStreamAsync(lines, new FunctionCall("lines", Map.of()), 5,
+                partial -> partials.add(partial.formatResult())).get(1, TimeUnit.SECONDS);
+
+        assertEquals(List.of("第一行", "第二行", "第三行"), partials);
+        assertEquals(ActionStatusCode.SUCCESS, result.getState());
+        assertEquals("第一行\n第二行\n第三行", result.formatResult());
+        // 直接执行时忽略部分结果，返回值不变
+        assertEquals(result.formatResult(), lines.execute(new FunctionCall("lines", Map.of())).formatResult());
+    }
+
+    @Test
+    public void testPlainActionEmitsSinglePartial() throws Exception {
+        Action plain = new Action() {
+            @Override
+            public String getName() {
+                return "plain";
+            }
+
+            @Override
+            public String getDescription() {
+                return "plain";
+            }
+
+            @Override
+            public Map<String, Object> getParameters() {
+                return Map.of();
+            }
+
+            @Override
+            public ActionReturn execute(FunctionCall functionCall) {
+                return text("完整结果");
+            }
+        };
+        executor.registerAction(plain);
+        List<String> partials = Collections.synchronizedList(new ArrayList<>());
+
+        AgentMessage message = new AgentMessage("user", "");
+        message.setFormatted(Map.of("function_call", Map.of("name", "plain", "arguments", Map.of())));
+        AgentMessage response = executor.processStreamAsync(message, partial -> partials.add(partial.formatResult()))
+                .get(1, TimeUnit.SECONDS);
+
+        assertEquals(List.of("完整结果"), partials);
+        assertEquals("完整结果", response.getContent());
+    }
+
+    @Test
+    public void testPartialsAfterTimeoutAreDropped() throws Exception {
+        StreamingAction slow = new LinesAction("slow", List.of("a", "b")) {
+            @Override
+            public ActionReturn executeStream(FunctionCall functionCall, Consumer<ActionReturn> onPartial) {
+                onPartial.accept(text("a"));
+                try {
+                    Thread.sleep(1500);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                onPartial.accept(text("b"));
+                return text("a\nb");
+            }
+        };
+        executor.registerAction(slow);
+        List<String> partials = Collections.synchronizedList(new ArrayList<>());
+
+        ActionReturn result = executor.executeStreamAsync(slow, new FunctionCall("slow", Map.of()), 1,
+                partial -> partials.add(partial.formatResult())).get(3, TimeUnit.SECONDS);
+
+        assertNotEquals(ActionStatusCode.SUCCESS, result.getState());
+        Thread.sleep(800);
+        assertEquals(List.of("a"), partials);
+    }
+
+    @Test
+    public void testProcessStreamHonorsTimeout() throws Exception {
+        StreamingAction slow = new LinesAction("slow", List.of("a")) {
+            @Override
+            public ActionReturn executeStream(FunctionCall functionCall, Consumer<ActionReturn> onPartial) {
+                try {
+                    Thread.sleep(3000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return text("a");
+            }
+        };
+        executor.registerAction(slow);
+
+        AgentMessage message = new AgentMessage("user", "");
+        message.setFormatted(Map.of("function_call", Map.of("name", "slow", "arguments", Map.of())));
+        long start = System.nanoTime();
+        AgentMessage response = executor.processStreamAsync(message, 1, partial -> { })
+                .get(3, TimeUnit.SECONDS);
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2500);
+        assertNotEquals("a", response.getContent());
+    }
+
+    private static ActionReturn text(String content) {
+        return ActionReturn.builder()
+                .result(List.of(Map.of("type", "text", "content", content)))
+                .build();
+    }
+
+    /**
+     * 逐行输出部分结果的测试动作
+     */
+    private static class LinesAction implements StreamingAction {
+        private final String name;
+        private final List<String> lines;
+
+        LinesAction(String name, List<String> lines) {
+            this.name = name;
+            this.lines = lines;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getDescription() {
+            return name;
+        }
+
+        @Override
+        public Map<String, Object> getParameters() {
+            return Map.of();
+        }
+
+        @Override
+        public ActionReturn executeStream(FunctionCall functionCall, Consumer<ActionReturn> onPartial) {
+            for (String line : lines) {
+                onPartial.accept(text(line));
+            }
+            return text(String.join("\n", lines));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package io.github.internlm.lagent4j.actions;
+
+import io.github.internlm.lagent4j.schema.ActionReturn;
+import io.github.internlm.lagent4j.schema.FunctionCall;
+
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 测试用动作，执行时调用传入的函数，没有参数Schema
+ */
+final class TestAction implements Action {
+    private final String name;
+    private final boolean cacheable;
+    private final boolean idempotent;
+    private final Function<FunctionCall, ActionReturn> body;
+
+    /**
+     * 创建一个不可缓存、非幂等的测试动作
+     *
+     * @param name 动作名称
+     * @param body 执行函数
+     */
+    TestAction(String name, Function<FunctionCall, ActionReturn> body) {
+        this(name, false, false, body);
+    }
+
+    /**
+     * 创建测试动作
+     *
+     * @param name       动作名称
+     * @param cacheable  结果是否可缓存
+     * @param idempotent 是否幂等
+     * @param body       执行函数
+     */
+    TestAction(String name, boolean cacheable, boolean idempotent, Function<FunctionCall, ActionReturn> body) {
+        this.name = name;
+        this.cacheable = cacheable;
+        this.idempotent = idempotent;
+        this.body = body;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getDescription() {
+        return name;
+    }
+
+    @Override
+    public Map<String, Object> getParameters() {
+        return Map.of();
+    }
+
+    @Override
+    public ActionReturn execute(FunctionCall functionCall) {
+        return body.apply(functionCall);
+    }
+
+    @Override
+    public boolean isCacheable() {
+        return cacheable;
+    }
+
+    @Override
+    public boolean isIdempotent() {
+        return idempotent;
+    }
+}
@@ -0,0 +1,134 @@
+package io.github.internlm.lagent4j.actions;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import io.github.internlm.lagent4j.schema.ActionReturn;
+import io.github.internlm.lagent4j.schema.FunctionCall;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ToolCatalog类的单元测试
+ */
+public class ToolCatalogTest {
+
+    private final ActionExecutor executor = new ActionExecutor(1);
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testCatalogIsRebuiltOnlyWhenActionsChange() {
+        CountingAction echo = new CountingAction("echo");
+        executor.registerAction(echo);
+        ToolCatalog first = executor.getCatalog();
+        int calls = echo.parameterCalls.get();
+
+        for (int i = 0; i < 10; i++) {
+            assertSame(first.getText(), executor.getToolsDescription());
+        }
+        assertEquals(calls, echo.parameterCalls.get());
+
+        executor.registerAction(new CountingAction("another"));
+        ToolCatalog second = executor.getCatalog();
+        assertTrue(second.getVersion() > first.getVersion());
+        assertEquals(2, second.getDescriptions().size());
+
+        assertTrue(executor.unregisterAction("another"));
+        assertTrue(executor.getCatalog().getVersion() > second.getVersion());
+        executor.clearActions();
+        assertTrue(executor.getCatalog().isEmpty());
+        assertEquals("", executor.getToolsDescription());
+    }
+
+    @Test
+    public void testTextSchemaAndTokenCounts() {
+        executor.registerAction(new WebSearch());
+        executor.registerAction(new WebBrowser());
+        ToolCatalog catalog = executor.getCatalog();
+
+        String text = catalog.getText();
+        assertTrue(text.indexOf("工具名称: web_browser") < text.indexOf("工具名称: web_search"));
+        assertTrue(text.contains("  - query: 搜索关键词\n"));
+        assertTrue(text.contains("  - url: 要访问的URL\n"));
+        assertTrue(text.indexOf("  - count:") < text.indexOf("  - query: 搜索关键词"));
+
+        JSONArray tools = JSON.parseArray(new String(catalog.getSchemaJson(), StandardCharsets.UTF_8));
+        assertEquals(2, tools.size());
+        assertEquals("function", tools.getJSONObject(0).getString("type"));
+        assertEquals("web_browser", tools.getJSONObject(0).getJSONObject("function").getString("name"));
+        assertEquals("query", tools.getJSONObject(1).getJSONObject("function")
+                .getJSONObject("parameters").getJSONArray("required").getString(0));
+
+        int perTool = catalog.getToolTokenCounts().values().stream().mapToInt(Integer::intValue).sum();
+        assertTrue(catalog.getTokenCount() > 0);
+        assertTrue(Math.abs(catalog.getTokenCount() - perTool) <= catalog.getToolTokenCounts().size());
+        assertThrows(UnsupportedOperationException.class,
+                () -> catalog.getDescriptions().get(0).put("name", "changed"));
+    }
+
+    @Test
+    public void testResponseFormatConstrainsNamesAndParameters() {
+        executor.registerAction(new WebSearch());
+        executor.registerAction(new WebBrowser());
+        ToolCatalog catalog = executor.getCatalog();
+
+        JSONObject format = JSON.parseObject(JSON.toJSONString(catalog.getResponseFormat()));
+        assertEquals("json_schema", format.getString("type"));
+        JSONObject schema = format.getJSONObject("json_schema").getJSONObject("schema");
+        assertEquals("tool_calls", schema.getJSONArray("required").getString(0));
+        JSONArray variants = schema.getJSONObject("properties").getJSONObject("tool_calls")
+                .getJSONObject("items").getJSONArray("anyOf");
+        assertEquals(2, variants.size());
+        JSONObject search = variants.getJSONObject(1).getJSONObject("properties");
+        assertEquals("web_search", search.getJSONObject("name").getJSONArray("enum").getString(0));
+        assertEquals("query", search.getJSONObject("parameters").getJSONArray("required").getString(0));
+        assertThrows(UnsupportedOperationException.class, () -> catalog.getResponseFormat().put("type", "text"));
+    }
+
+    /**
+     * 记录getParameters调用次数的测试动作
+     */
+    private static final class CountingAction implements Action {
+        private final String name;
+        private final AtomicInteger parameterCalls = new AtomicInteger();
+
+        CountingAction(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getDescription() {
+            return name;
+        }
+
+        @Override
+        public Map<String, Object> getParameters() {
+            parameterCalls.incrementAndGet();
+            Map<String, Object> text = new HashMap<>();
+            text.put("type", "string");
+            text.put("description", "text");
+            return Map.of("type", "object", "properties", Map.of("text", text));
+        }
+
+        @Override
+        public ActionReturn execute(FunctionCall functionCall) {
+            return ActionReturn.builder().build();
+        }
+    }
+}
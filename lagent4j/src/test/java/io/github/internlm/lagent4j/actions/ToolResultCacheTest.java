@@ -0,0 +1,197 @@
+package io.github.internlm.lagent4j.actions;
+
+import io.github.internlm.lagent4j.metrics.PrometheusExporter;
+import io.github.internlm.lagent4j.schema.ActionReturn;
+import io.github.internlm.lagent4j.schema.ActionStatusCode;
+import io.github.internlm.lagent4j.schema.FunctionCall;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ToolResultCache类的单元测试
+ */
+public class ToolResultCacheTest {
+
+    private ActionExecutor executor;
+
+    private Action action;
+
+    @AfterEach
+    public void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testKeyIgnoresOrderAndNumberRepresentation() {
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put("query", "java");
+        first.put("count", 5);
+        first.put("filter", null);
+        Map<String, Object> second = new LinkedHashMap<>();
+        second.put("count", 5.0);
+        second.put("query", "java");
+
+        assertEquals(ToolResultCache.key("web_search", first), ToolResultCache.key("web_search", second));
+        assertNotEquals(ToolResultCache.key("web_search", first),
+                ToolResultCache.key("web_search", Map.of("query", "java", "count", 6)));
+        assertNotEquals(ToolResultCache.key("web_search", first), ToolResultCache.key("web_browser", first));
+    }
+
+    @Test
+    public void testCachedResultExpiresAfterTtl() throws Exception {
+        AtomicLong now = new AtomicLong();
+        ToolResultCache cache = new ToolResultCache.Builder()
+                .action("search", new CacheConfig(Duration.ofSeconds(10), 16))
+                .ticker(now::get)
+                .build();
+        AtomicInteger executions = new AtomicInteger();
+        executor = newExecutor(cache, new TestAction("search", true, false, call -> {
+            executions.incrementAndGet();
+            return text("result");
+        }));
+
+        run("search", Map.of("q", "a"));
+        run("search", Map.of("q", "a"));
+        assertEquals(1, executions.get());
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(11));
+        run("search", Map.of("q", "a"));
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsedAndSkipsFailures() throws Exception {
+        ToolResultCache cache = new ToolResultCache.Builder()
+                .defaultConfig(new CacheConfig(Duration.ofMinutes(1), 2))
+                .build();
+        AtomicInteger executions = new AtomicInteger();
+        executor = newExecutor(cache, new TestAction("search", true, false, call -> {
+            executions.incrementAndGet();
+            if ("bad".equals(call.getArguments().get("q"))) {
+                return ActionReturn.builder().state(ActionStatusCode.ARGS_ERROR).errmsg("bad").build();
+            }
+            return text("result");
+        }));
+
+        run("search", Map.of("q", "a"));
+        run("search", Map.of("q", "b"));
+        run("search", Map.of("q", "a"));
+        run("search", Map.of("q", "c"));
+        assertEquals(2, cache.size("search"));
+
+        run("search", Map.of("q", "a"));
+        assertEquals(3, executions.get());
+        run("search", Map.of("q", "b"));
+        assertEquals(4, executions.get());
+
+        run("search", Map.of("q", "bad"));
+        run("search", Map.of("q", "bad"));
+        assertEquals(6, executions.get());
+    }
+
+    @Test
+    public void testConcurrentIdenticalCallsExecuteOnce() throws Exception {
+        ToolResultCache cache = new ToolResultCache.Builder().build();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger executions = new AtomicInteger();
+        executor = newExecutor(cache, new TestAction("fetch", false, true, call -> {
+            executions.incrementAndGet();
+            started.countDown();
+            await(release);
+            return text("page");
+        }));
+
+        CompletableFuture<ActionReturn> first = execute("fetch", Map.of("url", "http://a"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<ActionReturn> second = execute("fetch", Map.of("url", "http://a"));
+        release.countDown();
+
+        assertEquals("page", first.get(5, TimeUnit.SECONDS).formatResult());
+        assertEquals("page", second.get(5, TimeUnit.SECONDS).formatResult());
+        assertEquals(1, executions.get());
+
+        // 只幂等不可缓存的动作执行完成后不保留结果
+        execute("fetch", Map.of("url", "http://a")).get(5, TimeUnit.SECONDS);
+        assertEquals(2, executions.get());
+        assertEquals(0, cache.size("fetch"));
+    }
+
+    @Test
+    public void testNonCacheableActionBypassesCache() throws Exception {
+        ToolResultCache cache = new ToolResultCache.Builder().build();
+        AtomicInteger executions = new AtomicInteger();
+        executor = newExecutor(cache, new TestAction("write", false, false, call -> {
+            executions.incrementAndGet();
+            return text("ok");
+        }));
+
+        run("write", Map.of("path", "a"));
+        run("write", Map.of("path", "a"));
+
+        assertEquals(2, executions.get());
+        assertFalse(new PrometheusExporter().render(List.of(executor)).contains("lagent4j_tool_cache"));
+    }
+
+    @Test
+    public void testHitRatioMetrics() throws Exception {
+        ToolResultCache cache = new ToolResultCache.Builder().build();
+        executor = newExecutor(cache, new TestAction("search", true, true, call -> text("result")));
+
+        run("search", Map.of("q", "a"));
+        run("search", Map.of("q", "a"));
+        run("search", Map.of("q", "a"));
+        run("search", Map.of("q", "b"));
+
+        assertEquals(0.5, cache.getHitRatio("search"));
+        String text = new PrometheusExporter().render(List.of(executor));
+        assertTrue(text.contains("lagent4j_tool_cache_hits_total{action=\"search\"} 2"));
+        assertTrue(text.contains("lagent4j_tool_cache_misses_total{action=\"search\"} 2"));
+        assertTrue(text.contains("lagent4j_tool_cache_entries{action=\"search\"} 2"));
+        assertTrue(text.contains("lagent4j_tool_cache_hit_ratio{action=\"search\"} 0.5"));
+    }
+
+    private ActionExecutor newExecutor(ToolResultCache cache, TestAction action) {
+        this.action = action;
+        ActionExecutor executor = new ActionExecutor(2);
+        executor.setToolResultCache(cache);
+        executor.registerAction(action);
+        return executor;
+    }
+
+    private CompletableFuture<ActionReturn> execute(String name, Map<String, Object> arguments) {
+        return executor.executeAsync(action, new FunctionCall(name, arguments), 5, 0);
+    }
+
+    private ActionReturn run(String name, Map<String, Object> arguments) throws Exception {
+        return execute(name, arguments).get(5, TimeUnit.SECONDS);
+    }
+
+    private static ActionReturn text(String content) {
+        return ActionReturn.builder()
+                .result(List.of(Map.of("type", "text", "content", content)))
+                .build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package io.github.internlm.lagent4j.actions;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.internlm.lagent4j.metrics.PrometheusExporter;
+import io.github.internlm.lagent4j.schema.ActionReturn;
+import io.github.internlm.lagent4j.schema.ActionStatusCode;
+import io.github.internlm.lagent4j.schema.FunctionCall;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * WebBrowser类的单元测试，使用本地HTTP服务器
+ */
+public class WebBrowserTest {
+
+    private HttpServer server;
+    private String baseUrl;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger notModified = new AtomicInteger();
+
+    @TempDir
+    Path cacheDirectory;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/large", exchange -> {
+            StringBuilder html = new StringBuilder("<html><head><title>大页面</title></head><body>");
+            for (int i = 0; i < 200_000; i++) {
+                html.append("<p>段落").append(i).append("</p>");
+            }
+            send(exchange, html.append("</body></html>").toString(), StandardCharsets.UTF_8);
+        });
+        server.createContext("/gbk", exchange ->
+                send(exchange, "<html><head><title>中文标题</title></head><body><p>正文</p></body></html>",
+                        Charset.forName("GBK")));
+        server.createContext("/fresh", exchange -> {
+            requests.incrementAndGet();
+            exchange.getResponseHeaders().set("Cache-Control", "max-age=60");
+            send(exchange, "<html><body><p>有效期内的页面</p></body></html>", StandardCharsets.UTF_8);
+        });
+        server.createContext("/etag", exchange -> {
+            requests.incrementAndGet();
+            exchange.getResponseHeaders().set("ETag", "\"v1\"");
+            if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModified.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            send(exchange, "<html><body><p>带ETag的页面</p></body></html>", StandardCharsets.UTF_8);
+        });
+        server.createContext("/article", exchange -> {
+            try (InputStream input = WebBrowserTest.class.getResourceAsStream("/html/news-article.html")) {
+                send(exchange, new String(input.readAllBytes(), StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+            }
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testLargePageIsTruncatedWithoutReadingWholeBody() {
+        WebBrowser browser = new WebBrowser(10);
+        ActionReturn text = browser.execute(call("/large", "full"));
+        assertEquals(ActionStatusCode.SUCCESS, text.getState());
+        String content = text.getResult().get(0).get("content");
+        assertTrue(content.startsWith("段落0 段落1"));
+        assertTrue(content.endsWith("... (内容已截断)"));
+        assertTrue(content.length() <= 8000 + "... (内容已截断)".length());
+
+        assertEquals("大页面", browser.execute(call("/large", "title")).getResult().get(0).get("content"));
+        String raw = browser.execute(call("/large", "raw")).getResult().get(0).get("content");
+        assertTrue(raw.startsWith("<html><head><title>大页面"));
+        assertTrue(raw.endsWith("... (内容已截断)"));
+    }
+
+    @Test
+    public void testByteLimitAndCharset() {
+        // 正文长度不到8000字符，但下载字节数达到上限，同样标记为截断
+        WebBrowser limited = new WebBrowser(10, 1024);
+        String content = limited.execute(call("/large", "full")).getResult().get(0).get("content");
+        assertTrue(content.length() < 1024);
+        assertTrue(content.endsWith("... (内容已截断)"));
+
+        WebBrowser browser = new WebBrowser(10);
+        assertEquals("中文标题", browser.execute(call("/gbk", "title")).getResult().get(0).get("content"));
+        assertEquals("正文", browser.execute(call("/gbk", "text")).getResult().get(0).get("content"));
+        assertThrows(IllegalArgumentException.class, () -> new WebBrowser(10, 0));
+    }
+
+    @Test
+    public void testExtractedContentIsReusedWhileFresh() {
+        WebBrowser browser = new WebBrowser(10);
+        for (int i = 0; i < 3; i++) {
+            assertEquals("有效期内的页面", browser.execute(call("/fresh", "text")).getResult().get(0).get("content"));
+        }
+        assertEquals(1, requests.get());
+        // 模式不同，分别缓存
+        assertEquals("", browser.execute(call("/fresh", "title")).getResult().get(0).get("content"));
+        assertEquals(2, requests.get());
+
+        String text = new PrometheusExporter().render(List.of(browser));
+        assertTrue(text.contains("lagent4j_web_page_cache_hits_total{action=\"web_browser\"} 2"));
+        assertTrue(text.contains("lagent4j_web_page_cache_misses_total{action=\"web_browser\"} 2"));
+    }
+
+    @Test
+    public void testStaleEntryIsRevalidatedWithConditionalRequest() {
+        WebBrowser browser = new WebBrowser(10);
+        for (int i = 0; i < 3; i++) {
+            assertEquals("带ETag的页面", browser.execute(call("/etag", "text")).getResult().get(0).get("content"));
+        }
+        assertEquals(3, requests.get());
+        assertEquals(2, notModified.get());
+        String text = new PrometheusExporter().render(List.of(browser));
+        assertTrue(text.contains("lagent4j_web_page_cache_revalidated_total{action=\"web_browser\"} 2"));
+
+        // 关闭提取结果缓存后每次都下载完整页面
+        WebBrowser uncached = new WebBrowser.Builder().pageCacheSize(0).build();
+        uncached.execute(call("/etag", "text"));
+        uncached.execute(call("/etag", "text"));
+        assertEquals(2, notModified.get());
+    }
+
+    @Test
+    public void testDiskCacheServesFreshResponsesWithoutNetwork() {
+        WebBrowser browser = new WebBrowser.Builder()
+                .cache(cacheDirectory.toFile(), 1024 * 1024)
+                .pageCacheSize(0)
+                .build();
+        assertEquals("有效期内的页面", browser.execute(call("/fresh", "text")).getResult().get(0).get("content"));
+        assertEquals("有效期内的页面", browser.execute(call("/fresh", "text")).getResult().get(0).get("content"));
+        assertEquals(1, requests.get());
+
+        String text = new PrometheusExporter().render(List.of(browser));
+        assertTrue(text.contains("lagent4j_web_http_cache_hits_total{action=\"web_browser\"} 1"));
+        assertTrue(text.contains("lagent4j_web_http_network_responses_total{action=\"web_browser\"} 1"));
+    }
+
+    @Test
+    public void testTextModeExtractsMainContentAndRanksByQuery() {
+        WebBrowser browser = new WebBrowser(10);
+        String text = browser.execute(call("/article", "text")).getResult().get(0).get("content");
+        String full = browser.execute(call("/article", "full")).getResult().get(0).get("content");
+        assertTrue(text.startsWith("地铁十四号线二期工程最新进展"), text);
+        assertFalse(text.contains("版权所有"));
+        assertTrue(full.contains("版权所有"));
+
+        // 不同问题的结果分别缓存
+        String ranked = browser.execute(new FunctionCall("web_browser",
+                Map.of("url", baseUrl + "/article", "query", "票价 换乘"))).getResult().get(0).get("content");
+        assertTrue(ranked.startsWith("票价与换乘"), ranked);
+        assertEquals(text, browser.execute(call("/article", "text")).getResult().get(0).get("content"));
+    }
+
+    private FunctionCall call(String path, String mode) {
+        return new FunctionCall("web_browser", Map.of("url", baseUrl + path, "mode", mode));
+    }
+
+    private static void send(HttpExchange exchange, String html, Charset charset) throws IOException {
+        byte[] bytes = html.getBytes(charset);
+        exchange.getResponseHeaders().set("Content-Type", "text/html; charset=" + charset.name());
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        } catch (IOException e) {
+            // 客户端提前关闭连接
+        }
+    }
+}
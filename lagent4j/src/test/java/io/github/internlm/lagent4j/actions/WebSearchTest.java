@@ -0,0 +1,174 @@
+package io.github.internlm.lagent4j.actions;
+
+import com.sun.net.httpserver.HttpServer;
+import io.github.internlm.lagent4j.metrics.PrometheusExporter;
+import io.github.internlm.lagent4j.schema.ActionReturn;
+import io.github.internlm.lagent4j.schema.ActionStatusCode;
+import io.github.internlm.lagent4j.schema.FunctionCall;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * WebSearch类的单元测试，使用本地搜索后端
+ */
+public class WebSearchTest {
+
+    /**
+     * 每个查询延迟返回的本地后端，结果URL由查询和名次组成，"shared"结果在所有查询中都出现
+     */
+    private static final class DelayedBackend implements SearchBackend {
+        final AtomicInteger calls = new AtomicInteger();
+        final long delayMillis;
+
+        DelayedBackend(long delayMillis) {
+            this.delayMillis = delayMillis;
+        }
+
+        @Override
+        public CompletableFuture<List<SearchResult>> search(String query, int count) {
+            calls.incrementAndGet();
+            if (query.startsWith("fail")) {
+                return CompletableFuture.failedFuture(new IOException("backend down"));
+            }
+            long delay = query.startsWith("slow") ? 5_000 : delayMillis;
+            return CompletableFuture.supplyAsync(() -> List.of(
+                    new SearchResult(query + " 1", "摘要", "https://example.com/" + query + "/1"),
+                    new SearchResult("shared", "摘要", "https://example.com/shared"),
+                    new SearchResult(query + " 3", "摘要", "https://example.com/" + query + "/3")),
+                    CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @Test
+    public void testQueriesFanOutInParallelAndMerge() {
+        DelayedBackend backend = new DelayedBackend(300);
+        WebSearch search = new WebSearch(backend);
+
+        long start = System.nanoTime();
+        ActionReturn result = search.execute(call(Map.of("query", "a", "queries", List.of("b", "c", "a"))));
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(ActionStatusCode.SUCCESS, result.getState());
+        assertEquals(3, backend.calls.get());
+        assertTrue(elapsed < 800, "查询应当并行执行，耗时" + elapsed + "ms");
+        List<Map<String, String>> items = result.getResult();
+        // 按名次交替合并，重复的URL只保留一次
+        assertEquals(List.of("a 1", "b 1", "c 1", "shared", "a 3", "b 3", "c 3"),
+                items.stream().map(item -> item.get("title")).toList());
+    }
+
+    @Test
+    public void testResultsAreCachedAndConcurrentQueriesShared() {
+        DelayedBackend backend = new DelayedBackend(100);
+        WebSearch search = new WebSearch(backend);
+
+        CompletableFuture<List<SearchResult>> first = search.search("java", 5);
+        CompletableFuture<List<SearchResult>> second = search.search("java", 5);
+        assertEquals(first.join(), second.join());
+        assertEquals(1, backend.calls.get());
+
+        search.execute(call(Map.of("query", "java")));
+        assertEquals(1, backend.calls.get());
+        // 数量不同时分别缓存
+        search.execute(call(Map.of("query", "java", "count", 3)));
+        assertEquals(2, backend.calls.get());
+
+        String text = new PrometheusExporter().render(List.of(search));
+        assertTrue(text.contains("lagent4j_web_search_cache_hits_total{action=\"web_search\"} 2"), text);
+        assertTrue(text.contains("lagent4j_web_search_backend_queries_total{action=\"web_search\"} 2"), text);
+
+        WebSearch uncached = new WebSearch.Builder().backend(backend).cacheSize(0).build();
+        uncached.execute(call(Map.of("query", "java")));
+        uncached.execute(call(Map.of("query", "java")));
+        assertEquals(4, backend.calls.get());
+    }
+
+    @Test
+    public void testCancellingSharedQueryDoesNotAffectOtherCallers() {
+        DelayedBackend backend = new DelayedBackend(100);
+        WebSearch search = new WebSearch(backend);
+
+        CompletableFuture<List<SearchResult>> first = search.search("java", 5);
+        CompletableFuture<List<SearchResult>> second = search.search("java", 5);
+        assertTrue(first.cancel(true));
+
+        assertEquals(3, second.join().size());
+        assertEquals(3, search.search("java", 5).join().size());
+        assertEquals(1, backend.calls.get());
+    }
+
+    @Test
+    public void testTimeoutAndFailuresReturnCompletedQueries() {
+        DelayedBackend backend = new DelayedBackend(10);
+        WebSearch search = new WebSearch.Builder().backend(backend).timeout(Duration.ofMillis(500)).build();
+
+        ActionReturn partial = search.execute(call(Map.of("query", "fast", "queries", List.of("slow", "fail"))));
+        assertEquals(ActionStatusCode.SUCCESS, partial.getState());
+        assertEquals(3, partial.getResult().size());
+
+        ActionReturn failed = search.execute(call(Map.of("query", "fail")));
+        assertEquals(ActionStatusCode.API_ERROR, failed.getState());
+        assertTrue(failed.getErrmsg().contains("backend down"));
+        // 失败的结果不缓存
+        int calls = backend.calls.get();
+        search.execute(call(Map.of("query", "fail")));
+        assertEquals(calls + 1, backend.calls.get());
+
+        assertEquals(ActionStatusCode.ARGS_ERROR, search.execute(call(Map.of("query", " "))).getState());
+        assertThrows(IllegalArgumentException.class, () -> new WebSearch.Builder().maxQueries(0));
+    }
+
+    @Test
+    public void testBingBackendSendsKeyAndParsesResults() throws Exception {
+        AtomicReference<String> key = new AtomicReference<>();
+        AtomicReference<String> query = new AtomicReference<>();
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/search", exchange -> {
+            key.set(exchange.getRequestHeaders().getFirst("Ocp-Apim-Subscription-Key"));
+            query.set(exchange.getRequestURI().getQuery());
+            byte[] body = ("{\"webPages\":{\"value\":["
+                    + "{\"name\":\"结果一\",\"snippet\":\"摘要一\",\"url\":\"https://example.com/1\"},"
+                    + "{\"name\":\"结果二\",\"snippet\":\"摘要二\",\"url\":\"https://example.com/2\"}]}}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        try {
+            BingSearchBackend backend = new BingSearchBackend.Builder()
+                    .endpoint("http://127.0.0.1:" + server.getAddress().getPort() + "/search")
+                    .apiKey("secret")
+                    .build();
+            List<SearchResult> results = backend.search("中文 查询", 5).get(5, TimeUnit.SECONDS);
+            assertEquals(2, results.size());
+            assertEquals("结果一", results.get(0).getTitle());
+            assertEquals("https://example.com/2", results.get(1).getUrl());
+            assertEquals("secret", key.get());
+            assertEquals("q=中文 查询&count=5", query.get());
+
+            List<SearchResult> limited = backend.search("x", 1).get(5, TimeUnit.SECONDS);
+            assertEquals(1, limited.size());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private static FunctionCall call(Map<String, Object> arguments) {
+        return new FunctionCall("web_search", arguments);
+    }
+}
@@ -0,0 +1,132 @@
+package io.github.internlm.lagent4j.agents;
+
+import io.github.internlm.lagent4j.actions.ActionExecutor;
+import io.github.internlm.lagent4j.llms.BaseLLM;
+import io.github.internlm.lagent4j.metrics.PrometheusExporter;
+import io.github.internlm.lagent4j.schema.AgentMessage;
+import io.github.internlm.lagent4j.schema.ChatMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * AgentExecutionContext类的单元测试
+ */
+public class AgentExecutionContextTest {
+
+    private AgentExecutionContext context;
+
+    @AfterEach
+    public void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    public void testClosingSharedContextIsIgnored() throws Exception {
+        try (AgentExecutionContext shared = AgentExecutionContext.shared()) {
+            assertSame(AgentExecutionContext.shared(), shared);
+        }
+
+        assertEquals("ok", AgentExecutionContext.supplyAsync(() -> "ok", AgentExecutionContext.shared().getLlm())
+                .get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testRejectsWhenQueueIsFull() throws Exception {
+        context = new AgentExecutionContext.Builder().llmThreads(1).queueCapacity(1).build();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+
+        CompletableFuture<Void> running = CompletableFuture.runAsync(() -> {
+            started.countDown();
+            awaitQuietly(release);
+        }, context.getLlm());
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = AgentExecutionContext.supplyAsync(() -> "queued", context.getLlm());
+        CompletableFuture<String> rejected = AgentExecutionContext.supplyAsync(() -> "rejected", context.getLlm());
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> rejected.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+        assertEquals(1, context.getLlm().getPending().sum());
+        assertEquals(1, context.getLlm().getRejected().sum());
+
+        release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+        assertEquals(0, context.getLlm().getPending().sum());
+    }
+
+    @Test
+    public void testStagesRunOnTheirOwnPools() throws Exception {
+        context = new AgentExecutionContext.Builder().build();
+        Set<String> llmThreads = ConcurrentHashMap.newKeySet();
+        Set<String> toolThreads = ConcurrentHashMap.newKeySet();
+
+        BaseLLM llm = mock(BaseLLM.class);
+        when(llm.chatMessages(any())).thenAnswer(invocation -> {
+            llmThreads.add(Thread.currentThread().getName());
+            List<ChatMessage> messages = invocation.getArgument(0);
+            String system = messages.get(0).getContent();
+            if (system.contains("判断是否需要使用工具来回答")) {
+                return "思考：需要查询\n决策：使用工具";
+            }
+            if (system.contains("生成标准的工具调用格式")) {
+                return "<tool>{\"name\": \"echo\", \"parameters\": {\"text\": \"hi\"}}</tool>";
+            }
+            return "总结：hi";
+        });
+        ActionExecutor executor = mock(ActionExecutor.class);
+        when(executor.getToolsDescription()).thenReturn("echo");
+        when(executor.processAsync(any())).thenAnswer(invocation -> {
+            // 工具执行器的线程只负责分发，动作在动作执行器中异步执行
+            toolThreads.add(Thread.currentThread().getName());
+            return CompletableFuture.completedFuture(new AgentMessage("action_executor", "hi"));
+        });
+
+        SyncAgent agent = new SyncAgent(llm, "你是助手", null, null, null, executor, "test_agent", null);
+        agent.setExecutionContext(context);
+        AgentMessage response = agent.processAsync(new AgentMessage("user", "回显hi"), 0).get(10, TimeUnit.SECONDS);
+
+        assertEquals("总结：hi", response.getContent());
+        assertFalse(llmThreads.isEmpty());
+        assertTrue(llmThreads.stream().allMatch(name -> name.startsWith("lagent4j-llm-")));
+        assertEquals(1, toolThreads.size());
+        assertTrue(toolThreads.iterator().next().startsWith("lagent4j-tools-"));
+    }
+
+    @Test
+    public void testPrometheusRendering() {
+        context = new AgentExecutionContext.Builder().build();
+        context.getTools().execute(() -> {
+        });
+
+        String text = new PrometheusExporter().render(List.of(context));
+
+        assertTrue(text.contains("# TYPE lagent4j_executor_queue_depth gauge"));
+        assertTrue(text.contains("lagent4j_executor_queue_depth{pool=\"llm\"} 0"));
+        assertTrue(text.contains("lagent4j_executor_rejected_total{pool=\"tools\"}"));
+        assertTrue(text.contains("lagent4j_executor_queue_wait_seconds_count{pool=\"orchestration\"}"));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,21 +1,30 @@
 package io.github.internlm.lagent4j.agents;
 
+import io.github.internlm.lagent4j.actions.Action;
 import io.github.internlm.lagent4j.actions.ActionExecutor;
 import io.github.internlm.lagent4j.agents.aggregator.DefaultAggregator;
 import io.github.internlm.lagent4j.llms.BaseLLM;
 import io.github.internlm.lagent4j.memory.MemoryManager;
+import io.github.internlm.lagent4j.prompts.PromptRegistry;
 import io.github.internlm.lagent4j.prompts.parsers.StrParser;
+import io.github.internlm.lagent4j.prompts.parsers.ToolParser;
+import io.github.internlm.lagent4j.schema.ActionReturn;
 import io.github.internlm.lagent4j.schema.AgentMessage;
+import io.github.internlm.lagent4j.schema.ChatMessage;
+import io.github.internlm.lagent4j.schema.FunctionCall;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -49,8 +58,10 @@ public class AgentTest {
         when(mockLlm.chat(any(), any())).thenReturn("Mock response");
         when(mockLlm.chatAsync(any())).thenReturn(CompletableFuture.completedFuture("Mock response"));
         when(mockLlm.chatAsync(any(), any())).thenReturn(CompletableFuture.completedFuture("Mock response"));
+        when(mockLlm.chatMessages(any())).thenReturn("Mock response");
+        when(mockLlm.chatMessages(any(), any())).thenReturn("Mock response");
 
-        when(mockAggregator.aggregate(any(), any(), any(), any())).thenReturn(List.of(Map.of("role", "system", "content", "You are a helpful assistant.")));
+        when(mockAggregator.aggregateMessages(any(), any(), any(), any())).thenReturn(List.of(ChatMessage.system("You are a helpful assistant.")));
 
         when(mockParser.parseResponse(any())).thenReturn("Mock response");
         
@@ -76,7 +87,7 @@ public class AgentTest {
         assertEquals("Mock response", response.getContent());
         
         // 验证LLM被调用
-        verify(mockLlm).chat(any());
+        verify(mockLlm).chatMessages(any());
     }
     
     @Test
@@ -90,7 +101,7 @@ public class AgentTest {
         assertEquals("Mock response", response.getContent());
         
         // 验证LLM被调用
-        verify(mockLlm).chat(any());
+        verify(mockLlm).chatMessages(any());
     }
     
     @Test
@@ -217,4 +228,139 @@ public class AgentTest {
         assertTrue(template.contains("test_tool"));
         assertTrue(template.contains("Test tool description"));
     }
-} 
\ No newline at end of file
+
+    @Test
+    public void testPrefixStableLayoutKeepsSystemMessageIdentical() {
+        when(mockExecutor.getToolsDescription()).thenReturn("test_tool: Test tool description");
+        SyncAgent prefixAgent = new SyncAgent(mockLlm, "You are a helpful assistant.", null, mockParser,
+                new DefaultAggregator(), mockExecutor, "test_agent", "Test Agent");
+        prefixAgent.setPromptLayout(PromptLayout.PREFIX_STABLE);
+        prefixAgent.getMemory().add(new AgentMessage("user", "今天天气怎么样？"), 0);
+
+        List<ChatMessage> decision = prefixAgent.buildDecisionMessages(0, "今天天气怎么样？");
+        List<ChatMessage> toolCall = prefixAgent.buildToolCallMessages(0, "今天天气怎么样？", "使用工具");
+        List<ChatMessage> summary = prefixAgent.buildSummaryMessages(0, "今天天气怎么样？", "晴");
+
+        // 三个阶段的系统消息是同一个对象，问题只出现在历史消息中
+        assertSame(decision.get(0), toolCall.get(0));
+        assertSame(decision.get(0), summary.get(0));
+        assertFalse(decision.get(0).getContent().contains("今天天气怎么样？"));
+        assertEquals("今天天气怎么样？", decision.get(1).getContent());
+        assertTrue(summary.get(summary.size() - 1).getContent().contains("晴"));
+
+        // 工具列表变化后重建系统消息
+        when(mockExecutor.getToolsDescription()).thenReturn("other_tool: Other tool description");
+        ChatMessage rebuilt = prefixAgent.buildDecisionMessages(0, "今天天气怎么样？").get(0);
+        assertNotSame(decision.get(0), rebuilt);
+        assertTrue(rebuilt.getContent().contains("other_tool"));
+    }
+
+    @Test
+    public void testParallelToolCallsMergedInOrder() {
+        ActionExecutor executor = new ActionExecutor(4);
+        // 三个调用都到达闭锁后才会返回：只要有一个调用在其他调用之后才开始执行，闭锁就会超时
+        CountDownLatch allStarted = new CountDownLatch(3);
+        executor.registerAction(new LatchAction("slow", allStarted));
+        executor.registerAction(new LatchAction("fast", allStarted));
+        SyncAgent toolAgent = new SyncAgent(mockLlm, "You are a helpful assistant.", null, null, null, executor,
+                "test_agent", null);
+        try {
+            Object parsed = new ToolParser().parseResponse(
+                    "<tool>{\"name\": \"slow\", \"parameters\": {}}</tool>\n" +
+                    "<tool>[{\"name\": \"fast\", \"parameters\": {}}, {\"name\": \"slow\", \"parameters\": {}}]</tool>");
+            List<Map<String, Object>> toolCalls = toolAgent.toToolCalls(parsed);
+
+            String result = toolAgent.processToolCalls(toolCalls);
+
+            assertEquals(3, toolCalls.size());
+            assertEquals("工具 slow 执行结果:\nslow\n\n工具 fast 执行结果:\nfast\n\n工具 slow 执行结果:\nslow\n\n", result);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testToolTurnDeadlineKeepsFinishedResults() {
+        ActionExecutor executor = new ActionExecutor(4);
+        // slow的闭锁永远不会打开，只有被取消时才会返回
+        LatchAction slow = new LatchAction("slow", new CountDownLatch(2));
+        executor.registerAction(slow);
+        executor.registerAction(new LatchAction("fast", new CountDownLatch(0)));
+        SyncAgent toolAgent = new SyncAgent(mockLlm, "You are a helpful assistant.", null, null, null, executor,
+                "test_agent", null);
+        toolAgent.setToolTurnTimeout(Duration.ofSeconds(2));
+        try {
+            String result = toolAgent.processToolCalls(List.of(
+                    Map.of("name", "slow", "parameters", Map.of()),
+                    Map.of("name", "fast", "parameters", Map.of())));
+
+            assertTrue(result.startsWith("工具 slow 执行超时"), result);
+            assertTrue(result.endsWith("工具 fast 执行结果:\nfast\n\n"), result);
+            // 超时的调用被取消，不会一直占用动作执行器
+            assertTrue(slow.interrupted.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            fail(e);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testDeprecatedTemplatesMatchRegistryDefaults() {
+        PromptRegistry prompts = PromptRegistry.defaults();
+
+        assertEquals(String.format(Agent.TOOL_DECISION_TEMPLATE, "工具", "问题"),
+                prompts.get(Agent.TOOL_DECISION_PROMPT).format(Map.of("tools", "工具", "question", "问题")));
+        assertEquals(String.format(Agent.TOOL_CALL_TEMPLATE, "工具", "问题", "决策"),
+                prompts.get(Agent.TOOL_CALL_PROMPT).format(Map.of("tools", "工具", "question", "问题", "decision", "决策")));
+        assertEquals(String.format(Agent.RESULT_SUMMARY_TEMPLATE, "问题", "结果"),
+                prompts.get(Agent.RESULT_SUMMARY_PROMPT).format(Map.of("question", "问题", "result", "结果")));
+    }
+
+    /**
+     * 到达闭锁并等待闭锁打开后返回自身名称的测试动作
+     */
+    private static final class LatchAction implements Action {
+        private final String name;
+        private final CountDownLatch gate;
+        private final CountDownLatch interrupted = new CountDownLatch(1);
+
+        LatchAction(String name, CountDownLatch gate) {
+            this.name = name;
+            this.gate = gate;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getDescription() {
+            return name;
+        }
+
+        @Override
+        public Map<String, Object> getParameters() {
+            return Map.of();
+        }
+
+        @Override
+        public ActionReturn execute(FunctionCall functionCall) {
+            String content = name;
+            gate.countDown();
+            try {
+                if (!gate.await(30, TimeUnit.SECONDS)) {
+                    content = name + " 等待超时";
+                }
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                Thread.currentThread().interrupt();
+            }
+            return ActionReturn.builder()
+                    .result(List.of(Map.of("type", "text", "content", content)))
+                    .build();
+        }
+    }
+}
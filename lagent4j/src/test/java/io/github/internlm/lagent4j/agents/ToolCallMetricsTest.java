@@ -0,0 +1,157 @@
+package io.github.internlm.lagent4j.agents;
+
+import io.github.internlm.lagent4j.actions.Action;
+import io.github.internlm.lagent4j.actions.ActionExecutor;
+import io.github.internlm.lagent4j.llms.BaseLLM;
+import io.github.internlm.lagent4j.metrics.PrometheusExporter;
+import io.github.internlm.lagent4j.schema.ActionReturn;
+import io.github.internlm.lagent4j.schema.AgentMessage;
+import io.github.internlm.lagent4j.schema.ChatMessage;
+import io.github.internlm.lagent4j.schema.FunctionCall;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * ToolCallMetrics类及工具调用修正的单元测试
+ */
+public class ToolCallMetricsTest {
+
+    private final ActionExecutor executor = new ActionExecutor(2);
+    private final List<String> prompts = Collections.synchronizedList(new ArrayList<>());
+    private volatile String toolCallResponse;
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testOnlyBrokenCallsAreRepaired() throws Exception {
+        executor.registerAction(new EchoAction());
+        BaseLLM llm = mockLlm();
+        toolCallResponse = "<tool>{\"name\": \"echo\", \"parameters\": {\"text\": \"a\"}}</tool>\n"
+                + "<tool>{\"name\": \"echo\", \"parameters\": {\"text\": \"b\"</tool>\n"
+                + "<tool>{\"name\": \"echo\", \"parameters\": {\"txt\": \"c\"}}</tool>\n"
+                + "<tool>{\"name\": \"missing\", \"parameters\": {}}</tool>";
+        SyncAgent agent = new SyncAgent(llm, "你是助手", null, null, null, executor, "test_agent", null);
+
+        AgentMessage response = agent.processAsync(new AgentMessage("user", "回显"), 0).get(10, TimeUnit.SECONDS);
+
+        assertEquals("总结", response.getContent());
+        // 每个有问题的调用单独修正一次，正确的调用不重新生成
+        List<String> repairs = prompts.stream().filter(p -> p.contains("下面的工具调用无法执行")).toList();
+        assertEquals(3, repairs.size());
+        assertTrue(repairs.stream().anyMatch(p -> p.contains("未找到动作: missing")));
+        assertTrue(repairs.stream().noneMatch(p -> p.contains("\"text\": \"a\"")));
+        // 修正后的调用回到原来的位置
+        String summary = prompts.stream().filter(p -> p.contains("执行结果")).findFirst().orElseThrow();
+        assertTrue(summary.indexOf("echo:a") < summary.indexOf("echo:b"));
+        assertTrue(summary.indexOf("echo:b") < summary.indexOf("echo:c"));
+
+        ToolCallMetrics metrics = agent.getToolCallMetrics();
+        assertEquals(1, metrics.getTurns().sum());
+        assertEquals(1, metrics.getFailedTurns().sum());
+        assertEquals(2, metrics.getRepaired().sum());
+        assertEquals(1, metrics.getAbandoned().sum());
+        assertTrue(metrics.getWastedTokens().sum() > 0);
+        assertEquals(1.0, metrics.getParseFailureRate());
+    }
+
+    @Test
+    public void testStructuredOutputSendsResponseFormat() {
+        executor.registerAction(new EchoAction());
+        BaseLLM llm = mockLlm();
+        when(llm.supportsStructuredOutput()).thenReturn(true);
+        toolCallResponse = "{\"tool_calls\": [{\"name\": \"echo\", \"parameters\": {\"text\": \"a\"}}]}";
+        SyncAgent agent = new SyncAgent(llm, "你是助手", null, null, null, executor, "test_agent", null);
+
+        agent.process(new AgentMessage("user", "回显"), 0);
+        agent.setMaxRepairAttempts(0);
+        toolCallResponse = "{\"tool_calls\": [{\"name\": \"echo\", \"parameters\": {}}]}";
+        agent.process(new AgentMessage("user", "回显"), 0);
+
+        verify(llm, times(2)).chatMessages(any(),
+                argThat(params -> params != null && params.get("response_format") == executor.getCatalog().getResponseFormat()));
+        assertTrue(prompts.stream().noneMatch(p -> p.contains("下面的工具调用无法执行")));
+        ToolCallMetrics metrics = agent.getToolCallMetrics();
+        assertEquals(0.5, metrics.getParseFailureRate());
+        assertEquals(1, metrics.getAbandoned().sum());
+
+        String text = new PrometheusExporter().render(List.of(metrics));
+        assertTrue(text.contains("lagent4j_tool_call_turns_total{agent=\"test_agent\"} 2"), text);
+        assertTrue(text.contains("lagent4j_tool_call_wasted_tokens_count{agent=\"test_agent\"} 2"), text);
+    }
+
+    private BaseLLM mockLlm() {
+        BaseLLM llm = mock(BaseLLM.class);
+        Answer<String> answer = invocation -> {
+            List<ChatMessage> messages = invocation.getArgument(0);
+            StringBuilder text = new StringBuilder();
+            for (ChatMessage message : messages) {
+                text.append(message.getContent()).append('\n');
+            }
+            String prompt = text.toString();
+            prompts.add(prompt);
+            if (prompt.contains("下面的工具调用无法执行")) {
+                if (prompt.contains("\"b\"")) {
+                    return "<tool>{\"name\": \"echo\", \"parameters\": {\"text\": \"b\"}}</tool>";
+                }
+                if (prompt.contains("txt")) {
+                    return "{\"tool_calls\": [{\"name\": \"echo\", \"parameters\": {\"text\": \"c\"}}]}";
+                }
+                return "抱歉，没有这个工具";
+            }
+            if (prompt.contains("判断是否需要使用工具来回答")) {
+                return "决策：使用工具";
+            }
+            if (prompt.contains("生成标准的工具调用格式")) {
+                return toolCallResponse;
+            }
+            return "总结";
+        };
+        when(llm.chatMessages(any())).thenAnswer(answer);
+        when(llm.chatMessages(any(), any())).thenAnswer(answer);
+        return llm;
+    }
+
+    /**
+     * 原样返回text参数的测试动作
+     */
+    private static class EchoAction implements Action {
+        @Override
+        public String getName() {
+            return "echo";
+        }
+
+        @Override
+        public String getDescription() {
+            return "回显文本";
+        }
+
+        @Override
+        public Map<String, Object> getParameters() {
+            return Map.of("type", "object",
+                    "properties", Map.of("text", Map.of("type", "string", "description", "要回显的文本")),
+                    "required", List.of("text"));
+        }
+
+        @Override
+        public ActionReturn execute(FunctionCall functionCall) {
+            return ActionReturn.builder()
+                    .result(List.of(Map.of("type", "text", "content", "echo:" + functionCall.getArguments().get("text"))))
+                    .build();
+        }
+    }
+}
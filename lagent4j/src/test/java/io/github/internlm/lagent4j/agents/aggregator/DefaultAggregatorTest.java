@@ -0,0 +1,72 @@
+package io.github.internlm.lagent4j.agents.aggregator;
+
+import io.github.internlm.lagent4j.memory.Memory;
+import io.github.internlm.lagent4j.schema.AgentMessage;
+import io.github.internlm.lagent4j.schema.ChatMessage;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DefaultAggregator类的单元测试
+ */
+@SuppressWarnings("deprecation")
+public class DefaultAggregatorTest {
+
+    @Test
+    public void testAggregateMessages() {
+        Memory memory = new Memory();
+        memory.add(new AgentMessage("user", "你好"));
+        memory.add(new AgentMessage("agent", "你好，有什么可以帮你？"));
+
+        List<ChatMessage> messages = new DefaultAggregator().aggregateMessages(memory, "agent", null, "系统指令");
+
+        assertEquals(List.of(ChatMessage.system("系统指令"), ChatMessage.user("你好"),
+                ChatMessage.assistant("你好，有什么可以帮你？")), messages);
+    }
+
+    @Test
+    public void testLegacyAggregateOverrideStillApplies() {
+        DefaultAggregator aggregator = new DefaultAggregator() {
+            @Override
+            public List<Map<String, String>> aggregate(Memory memory, String name, Object parser,
+                                                       Object systemInstruction) {
+                List<Map<String, String>> messages = new ArrayList<>(
+                        super.aggregate(memory, name, parser, systemInstruction));
+                messages.add(Map.of("role", "user", "content", "附加消息"));
+                return messages;
+            }
+        };
+
+        List<ChatMessage> messages = aggregator.aggregateMessages(new Memory(), "agent", null, "系统指令");
+
+        assertEquals(List.of(ChatMessage.system("系统指令"), ChatMessage.user("附加消息")), messages);
+    }
+
+    @Test
+    public void testLegacySystemAndMemoryOverridesStillApply() {
+        DefaultAggregator aggregator = new DefaultAggregator() {
+            @Override
+            public List<Map<String, String>> aggregateSystemInstruction(Object systemInstruction) {
+                return List.of(Map.of("role", "system", "content", "覆盖的指令"));
+            }
+
+            @Override
+            protected List<Map<String, String>> aggregateMemory(Memory memory, String name) {
+                return List.of(Map.of("role", "user", "content", "覆盖的历史"));
+            }
+        };
+        Memory memory = new Memory();
+        memory.add(new AgentMessage("user", "你好"));
+
+        List<ChatMessage> messages = aggregator.aggregateMessages(memory, "agent", null, "系统指令");
+        List<ChatMessage> prefixStable = aggregator.aggregatePrefixStable(memory, "agent", null, "本轮");
+
+        assertEquals(List.of(ChatMessage.system("覆盖的指令"), ChatMessage.user("覆盖的历史")), messages);
+        assertEquals(List.of(ChatMessage.user("覆盖的历史"), ChatMessage.user("本轮")), prefixStable);
+    }
+}
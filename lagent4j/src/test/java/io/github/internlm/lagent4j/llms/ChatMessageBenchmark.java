@@ -0,0 +1,103 @@
+package io.github.internlm.lagent4j.llms;
+
+import com.alibaba.fastjson2.JSON;
+import io.github.internlm.lagent4j.agents.aggregator.DefaultAggregator;
+import io.github.internlm.lagent4j.memory.Memory;
+import io.github.internlm.lagent4j.schema.AgentMessage;
+import io.github.internlm.lagent4j.schema.ChatMessage;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求构建基准测试
+ * <p>
+ * 对比基于Map的消息列表与类型化消息在“聚合历史 + 序列化请求体”路径上的耗时和分配量，
+ * 运行main方法并查看gc.alloc.rate.norm即可得到每次请求的分配字节数。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChatMessageBenchmark {
+
+    @Param({"4", "32"})
+    public int historySize;
+
+    private Memory memory;
+    private String systemPrompt;
+    private ChatMessage systemMessage;
+    private Map<String, Object> defaultParams;
+    private DefaultAggregator aggregator;
+    private OpenAIModel model;
+
+    @Setup
+    public void setUp() {
+        memory = new Memory();
+        for (int i = 0; i < historySize; i++) {
+            memory.add(new AgentMessage(i % 2 == 0 ? "user" : "agent",
+                    "第" + i + "轮对话内容，包含一些用于测试的中文和 English text."));
+        }
+        systemPrompt = "你是一个可以使用工具的AI助手。".repeat(20);
+        systemMessage = ChatMessage.system(systemPrompt);
+        systemMessage.toJsonBytes();
+        aggregator = new DefaultAggregator();
+        model = new OpenAIModel.Builder().apiKey("benchmark").build();
+
+        defaultParams = new HashMap<>();
+        defaultParams.put("model", "gpt-3.5-turbo");
+        defaultParams.put("temperature", 0.7);
+        defaultParams.put("max_tokens", 2048);
+        defaultParams.put("top_p", 1.0);
+        defaultParams.put("frequency_penalty", 0.0);
+        defaultParams.put("presence_penalty", 0.0);
+    }
+
+    /**
+     * 旧路径：每条消息一个HashMap，请求体再复制一次参数Map后整体序列化
+     */
+    @Benchmark
+    public byte[] mapMessages() {
+        List<Map<String, String>> messages = new ArrayList<>();
+        Map<String, String> system = new HashMap<>();
+        system.put("role", "system");
+        system.put("content", systemPrompt);
+        messages.add(system);
+        memory.getMemory().forEach(message -> {
+            Map<String, String> formatted = new HashMap<>();
+            formatted.put("role", "agent".equals(message.getSender()) ? "assistant" : "user");
+            formatted.put("content", message.getContent().toString());
+            messages.add(formatted);
+        });
+
+        Map<String, Object> requestBody = new HashMap<>(new HashMap<>(defaultParams));
+        requestBody.put("messages", messages);
+        return JSON.toJSONBytes(requestBody);
+    }
+
+    /**
+     * 新路径：类型化消息，系统指令复用已缓存的JSON编码，请求体直接写入字节流
+     */
+    @Benchmark
+    public byte[] typedMessages() {
+        List<ChatMessage> messages = aggregator.aggregateMessages(memory, "agent", null, systemMessage);
+        return model.buildRequestBody(messages, null, false);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ChatMessageBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
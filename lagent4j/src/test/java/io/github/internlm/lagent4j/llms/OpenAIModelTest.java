@@ -0,0 +1,157 @@
+package io.github.internlm.lagent4j.llms;
+
+import com.sun.net.httpserver.HttpServer;
+import io.github.internlm.lagent4j.metrics.PrometheusExporter;
+import io.github.internlm.lagent4j.schema.ChatMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * OpenAIModel类的单元测试
+ * <p>
+ * 使用本地HTTP服务模拟OpenAI兼容接口
+ */
+public class OpenAIModelTest {
+
+    private HttpServer server;
+    private final AtomicReference<String> lastRequest = new AtomicReference<>();
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v1/chat/completions", exchange -> {
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            lastRequest.set(body);
+            boolean stream = body.contains("\"stream\":true");
+            exchange.getResponseHeaders().add("Content-Type", stream ? "text/event-stream" : "application/json");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                if (stream) {
+                    for (String token : List.of("你", "好", "！")) {
+                        out.write(("data: {\"choices\":[{\"delta\":{\"content\":\"" + token + "\"}}]}\n\n")
+                                .getBytes(StandardCharsets.UTF_8));
+                        out.flush();
+                        sleep(5);
+                    }
+                    out.write(("data: {\"choices\":[],\"usage\":{\"prompt_tokens\":12,\"completion_tokens\":3,"
+                            + "\"prompt_tokens_details\":{\"cached_tokens\":8}}}\n\n")
+                            .getBytes(StandardCharsets.UTF_8));
+                    out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+                } else {
+                    out.write(("{\"choices\":[{\"message\":{\"role\":\"assistant\",\"content\":\"你好！\"}}],"
+                            + "\"usage\":{\"prompt_tokens\":12,\"completion_tokens\":3}}")
+                            .getBytes(StandardCharsets.UTF_8));
+                }
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    private OpenAIModel newModel() {
+        return new OpenAIModel.Builder()
+                .apiKey("test-key")
+                .baseUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/v1")
+                .model("test-model")
+                .build();
+    }
+
+    @Test
+    public void testChatRecordsUsageAndDuration() {
+        OpenAIModel model = newModel();
+
+        String response = model.chatMessages(List.of(ChatMessage.system("你是助手"), ChatMessage.user("你好")));
+
+        assertEquals("你好！", response);
+        assertTrue(lastRequest.get().contains("\"messages\":[{\"role\":\"system\",\"content\":\"你是助手\"}"));
+
+        LLMMetrics.Stats stats = model.getMetrics().getStats("test-model", model.getMetrics().getAllStats()
+                .iterator().next().getEndpoint());
+        assertEquals(1, stats.getRequests().sum());
+        assertEquals(0, stats.getErrors().sum());
+        assertEquals(12, stats.getPromptTokens().sum());
+        assertEquals(3, stats.getCompletionTokens().sum());
+        assertEquals(1, stats.getDuration().getCount());
+        assertEquals(1, stats.getQueue().getCount());
+        assertEquals(0, stats.getTtft().getCount());
+        assertEquals(0, stats.getCacheHits().sum());
+    }
+
+    @Test
+    public void testChatStreamRecordsTtftAndInterTokenGaps() throws Exception {
+        OpenAIModel model = newModel();
+        StringBuilder received = new StringBuilder();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+
+        model.chatMessagesStream(List.of(ChatMessage.user("你好")), null,
+                received::append, done::completeExceptionally, () -> done.complete(null));
+        done.get(10, TimeUnit.SECONDS);
+
+        assertEquals("你好！", received.toString());
+        assertTrue(lastRequest.get().contains("\"stream_options\":{\"include_usage\":true}"));
+
+        LLMMetrics.Stats stats = model.getMetrics().getAllStats().iterator().next();
+        assertEquals(1, stats.getRequests().sum());
+        assertEquals(1, stats.getTtft().getCount());
+        assertEquals(2, stats.getInterToken().getCount());
+        assertEquals(3, stats.getCompletionTokens().sum());
+        assertEquals(1, stats.getTokensPerSecond().getCount());
+        assertEquals(1, stats.getCacheHits().sum());
+        assertEquals(8, stats.getCachedPromptTokens().sum());
+        assertEquals(1, stats.getCacheHitTtft().getCount());
+    }
+
+    @Test
+    public void testFailedCallCountsAsError() {
+        OpenAIModel model = new OpenAIModel.Builder()
+                .apiKey("test-key")
+                .baseUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/missing")
+                .model("test-model")
+                .build();
+
+        assertThrows(RuntimeException.class, () -> model.chatMessages(List.of(ChatMessage.user("你好"))));
+
+        LLMMetrics.Stats stats = model.getMetrics().getAllStats().iterator().next();
+        assertEquals(1, stats.getRequests().sum());
+        assertEquals(1, stats.getErrors().sum());
+    }
+
+    @Test
+    public void testPrometheusRendering() {
+        OpenAIModel model = newModel();
+        model.chatMessages(List.of(ChatMessage.user("你好")));
+
+        String text = new PrometheusExporter().render(List.of(model.getMetrics()));
+
+        assertTrue(text.contains("# TYPE lagent4j_llm_requests_total counter"));
+        assertTrue(text.contains("# TYPE lagent4j_llm_duration_seconds summary"));
+        assertTrue(text.contains("lagent4j_llm_prompt_tokens_total{endpoint=\"http://127.0.0.1:"));
+        assertTrue(text.contains("model=\"test-model\"} 12"));
+        assertTrue(text.contains("lagent4j_llm_duration_seconds_count{"));
+        assertTrue(text.contains("quantile=\"0.99\""));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
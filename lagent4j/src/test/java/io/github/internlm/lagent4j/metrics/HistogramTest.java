@@ -0,0 +1,72 @@
+package io.github.internlm.lagent4j.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Histogram类的单元测试
+ */
+public class HistogramTest {
+
+    @Test
+    public void testSmallValuesAreExact() {
+        Histogram histogram = new Histogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(5050, histogram.getSum());
+        assertEquals(50, histogram.getValueAtPercentile(50));
+        assertEquals(99, histogram.getValueAtPercentile(99));
+        assertEquals(100, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void testLargeValuesWithinRelativeError() {
+        Histogram histogram = new Histogram();
+        for (long v = 1000; v <= 1_000_000; v += 1000) {
+            histogram.record(v);
+        }
+
+        long p50 = histogram.getValueAtPercentile(50);
+        long p99 = histogram.getValueAtPercentile(99);
+        assertEquals(500_000, p50, 500_000 / 64.0);
+        assertEquals(990_000, p99, 990_000 / 64.0);
+        assertEquals(1_000_000, histogram.getMax());
+    }
+
+    @Test
+    public void testBucketBoundaries() {
+        for (long v : new long[]{0, 1, 127, 128, 129, 255, 256, 1 << 20, Histogram.MAX_TRACKABLE_VALUE}) {
+            int index = Histogram.indexOf(v);
+            assertTrue(Histogram.upperBoundOf(index) >= v);
+            if (index > 0) {
+                assertTrue(Histogram.upperBoundOf(index - 1) < v);
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentRecording() throws InterruptedException {
+        Histogram histogram = new Histogram();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            pool.execute(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    histogram.record(i);
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(80_000, histogram.getCount());
+        assertEquals(9_999, histogram.getMax());
+    }
+}
@@ -0,0 +1,48 @@
+package io.github.internlm.lagent4j.prompts;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 编译前的PromptTemplate实现（每次填充时用正则扫描模板），用于一致性测试和基准测试的对照
+ */
+final class LegacyPromptTemplate {
+    private static final Pattern VARIABLE_PATTERN = Pattern.compile("\\{([^{}]+)\\}");
+
+    private final String template;
+
+    LegacyPromptTemplate(String template) {
+        this.template = template;
+    }
+
+    String format(Map<String, Object> variables) {
+        if (variables == null || variables.isEmpty()) {
+            return template;
+        }
+        StringBuffer result = new StringBuffer();
+        Matcher matcher = VARIABLE_PATTERN.matcher(template);
+        while (matcher.find()) {
+            String variableName = matcher.group(1);
+            Object value = variables.get(variableName);
+            String replacement = value != null ? value.toString() : matcher.group(0);
+            matcher.appendReplacement(result, Matcher.quoteReplacement(replacement));
+        }
+        matcher.appendTail(result);
+        return result.toString();
+    }
+
+    String format(Object... variables) {
+        if (variables == null || variables.length == 0) {
+            return template;
+        }
+        Map<String, Object> variableMap = new HashMap<>();
+        Matcher matcher = VARIABLE_PATTERN.matcher(template);
+        int index = 0;
+        while (matcher.find() && index < variables.length) {
+            variableMap.put(matcher.group(1), variables[index++]);
+        }
+        return format(variableMap);
+    }
+}
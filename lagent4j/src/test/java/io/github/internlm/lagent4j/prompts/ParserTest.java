@@ -0,0 +1,59 @@
+package io.github.internlm.lagent4j.prompts;
+
+import io.github.internlm.lagent4j.schema.FunctionCall;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Parser接口默认方法的单元测试
+ */
+public class ParserTest {
+
+    @Test
+    public void testLegacyParserReturningContent() {
+        Parser parser = response -> {
+            Map<String, Object> map = new HashMap<>();
+            map.put("status", 1);
+            map.put("content", Map.of("answer", response));
+            return map;
+        };
+
+        ParseResult result = parser.parse("42");
+
+        ParseResult.Json json = assertInstanceOf(ParseResult.Json.class, result);
+        assertTrue(json.success());
+        assertEquals(Map.of("answer", "42"), json.content());
+    }
+
+    @Test
+    public void testLegacyParserReturningToolCall() {
+        Parser parser = response -> {
+            Map<String, Object> map = new HashMap<>();
+            map.put("name", "search");
+            map.put("parameters", Map.of("query", response));
+            return map;
+        };
+
+        ParseResult result = parser.parse("java");
+
+        ParseResult.ToolCalls toolCalls = assertInstanceOf(ParseResult.ToolCalls.class, result);
+        assertTrue(toolCalls.success());
+        assertEquals(1, toolCalls.calls().size());
+        FunctionCall call = toolCalls.calls().get(0);
+        assertEquals("search", call.getName());
+        assertEquals(Map.of("query", "java"), call.getArguments());
+    }
+
+    @Test
+    public void testLegacyParserReturningText() {
+        Parser parser = response -> null;
+
+        ParseResult result = parser.parse("你好");
+
+        assertEquals(new ParseResult.Text("你好"), result);
+    }
+}
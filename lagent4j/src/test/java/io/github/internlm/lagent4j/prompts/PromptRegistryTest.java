@@ -0,0 +1,113 @@
+package io.github.internlm.lagent4j.prompts;
+
+import io.github.internlm.lagent4j.utils.TokenCounter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PromptRegistry类的单元测试
+ */
+public class PromptRegistryTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testDefaultTemplatesAndStaticTokenCount() {
+        PromptRegistry registry = PromptRegistry.defaults();
+        PromptTemplate system = registry.get("tool_system");
+        assertSame(system, registry.get("tool_system"));
+        assertTrue(system.getVariableNames().contains("tools"));
+        // 示例JSON中的花括号没有提供值，保留原样
+        String text = system.format(Map.of("tools", "工具名称: web_search"));
+        assertTrue(text.endsWith("可用工具列表：\n工具名称: web_search\n"), text);
+        assertTrue(text.contains("\"参数1\": \"值1\""));
+
+        PromptTemplate call = registry.get("tool_call");
+        Map<String, Object> variables = Map.of("tools", "工具名称: web_search\n参数: query", "question", "今天天气如何？",
+                "decision", "决策：使用工具");
+        int estimated = call.estimateTokens(variables);
+        int actual = TokenCounter.estimate(call.format(variables));
+        assertTrue(Math.abs(estimated - actual) <= call.getVariableNames().size(), estimated + " vs " + actual);
+        assertTrue(call.getStaticTokenCount() > 0 && call.getStaticTokenCount() < estimated);
+
+        assertFalse(registry.contains("missing"));
+        assertThrows(IllegalArgumentException.class, () -> registry.get("missing"));
+    }
+
+    @Test
+    public void testDirectoryOverridesDefaultsAndReloads() throws IOException {
+        write("tool_decision_instruction.txt", "只回答：使用或不使用。\r\n");
+        write("greeting.txt", "你好，{name}");
+        write("notes.md", "不是模板");
+        PromptRegistry registry = new PromptRegistry(directory);
+        assertEquals("只回答：使用或不使用。\n", registry.get("tool_decision_instruction").getTemplate());
+        assertTrue(registry.get("tool_system").getTemplate().contains("{tools}"));
+        assertFalse(registry.contains("notes"));
+
+        PromptTemplate greeting = registry.get("greeting");
+        long version = registry.getVersion();
+        assertFalse(registry.reload());
+        assertSame(greeting, registry.get("greeting"));
+
+        write("greeting.txt", "您好，{name}");
+        assertTrue(registry.reload());
+        assertEquals("您好，张三", registry.get("greeting").format(Map.of("name", "张三")));
+        assertSame(registry.get("tool_decision_instruction"), registry.get("tool_decision_instruction"));
+        assertEquals(version + 1, registry.getVersion());
+
+        // 删除后退回默认模板
+        Files.delete(directory.resolve("tool_decision_instruction.txt"));
+        assertTrue(registry.reload());
+        assertTrue(registry.get("tool_decision_instruction").getTemplate().startsWith("请仔细分析"));
+    }
+
+    @Test
+    public void testWatchSwapsTemplatesWithoutBlockingReaders() throws Exception {
+        write("greeting.txt", "v0 {name}");
+        try (PromptRegistry registry = new PromptRegistry(directory).watch()) {
+            AtomicReference<String> failure = new AtomicReference<>();
+            Thread reader = new Thread(() -> {
+                while (!Thread.currentThread().isInterrupted()) {
+                    String text = registry.get("greeting").format(Map.of("name", "x"));
+                    if (!text.startsWith("v") || !text.endsWith(" x")) {
+                        failure.set(text);
+                    }
+                }
+            });
+            reader.start();
+            for (int i = 1; i <= 3; i++) {
+                write("greeting.txt", "v" + i + " {name}");
+                String expected = "v" + i + " x";
+                long deadline = System.currentTimeMillis() + 10_000;
+                while (!expected.equals(registry.get("greeting").format(Map.of("name", "x")))
+                        && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(20);
+                }
+                assertEquals(expected, registry.get("greeting").format(Map.of("name", "x")));
+            }
+            reader.interrupt();
+            reader.join();
+            assertNull(failure.get());
+            assertTrue(registry.getVersion() >= 3);
+        }
+        assertThrows(IllegalStateException.class, () -> new PromptRegistry().watch());
+    }
+
+    private void write(String name, String content) throws IOException {
+        Path temp = directory.resolve(name + ".tmp");
+        Files.write(temp, content.getBytes(StandardCharsets.UTF_8));
+        Files.move(temp, directory.resolve(name), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,90 @@
+package io.github.internlm.lagent4j.prompts;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 提示模板填充基准测试
+ * <p>
+ * 对比每次用正则扫描模板的旧实现与编译后的模板：按Map填充、按位置填充，以及追加到复用的StringBuilder。
+ * 运行main方法并查看gc.alloc.rate.norm即可得到每次填充的分配字节数。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PromptTemplateBenchmark {
+
+    private static final String TEMPLATE = """
+            你是一个智能助手。根据用户的问题和可用工具，判断是否需要调用工具。
+
+            可用工具：
+            {tools}
+
+            用户问题：{question}
+
+            历史摘要：{summary}
+
+            请以JSON格式回答，例如 {"need_tool": true, "reason": "..."}。当前时间：{now}
+            """;
+
+    private LegacyPromptTemplate legacy;
+    private PromptTemplate compiled;
+    private Map<String, Object> variables;
+    private StringBuilder buffer;
+
+    @Setup
+    public void setUp() {
+        legacy = new LegacyPromptTemplate(TEMPLATE);
+        compiled = new PromptTemplate(TEMPLATE);
+        variables = Map.of(
+                "tools", "工具名称: web_search\n工具描述: 搜索网页内容\n参数:\n  - query: 搜索关键词\n".repeat(4),
+                "question", "北京今天的天气怎么样？需要带伞吗？",
+                "summary", "用户此前询问了上海的天气和航班信息。",
+                "now", "2026-10-19 10:00");
+        buffer = new StringBuilder(4096);
+    }
+
+    @Benchmark
+    public String legacyMap() {
+        return legacy.format(variables);
+    }
+
+    @Benchmark
+    public String compiledMap() {
+        return compiled.format(variables);
+    }
+
+    @Benchmark
+    public String legacyPositional() {
+        return legacy.format(variables.get("tools"), variables.get("question"), variables.get("summary"),
+                variables.get("now"));
+    }
+
+    @Benchmark
+    public String compiledPositional() {
+        return compiled.format(variables.get("tools"), variables.get("question"), variables.get("summary"),
+                variables.get("now"));
+    }
+
+    @Benchmark
+    public int compiledRender() {
+        buffer.setLength(0);
+        return compiled.render(variables, buffer).length();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PromptTemplateBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
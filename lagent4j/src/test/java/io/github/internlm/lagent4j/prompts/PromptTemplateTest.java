@@ -0,0 +1,77 @@
+package io.github.internlm.lagent4j.prompts;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PromptTemplate类的单元测试
+ */
+public class PromptTemplateTest {
+
+    @Test
+    public void testFormatAndRender() throws IOException {
+        PromptTemplate template = new PromptTemplate("你好，{name}！今天是{day}。{missing} {} {{name}} {\"a\": 1}");
+        assertEquals(List.of("name", "day", "missing", "\"a\": 1"), template.getVariableNames());
+        assertEquals("你好，！今天是。 {} {} ".length(), template.getLiteralLength());
+
+        Map<String, Object> variables = Map.of("name", "张三", "day", 3);
+        String expected = "你好，张三！今天是3。{missing} {} {张三} {\"a\": 1}";
+        assertEquals(expected, template.format(variables));
+        assertEquals("前缀" + expected, template.render(variables, new StringBuilder("前缀")).toString());
+        StringWriter writer = new StringWriter();
+        template.render(variables, writer);
+        assertEquals(expected, writer.toString());
+
+        assertEquals(template.getTemplate(), template.format(Map.of()));
+        assertEquals(template.getTemplate(), template.render(null, new StringBuilder()).toString());
+        assertEquals("$1 \\n", new PromptTemplate("{a} {b}").format(Map.of("a", "$1", "b", "\\n")));
+    }
+
+    @Test
+    public void testPositionalFormat() {
+        PromptTemplate template = new PromptTemplate("{a}-{b}-{a}-{c}");
+        assertEquals("3-2-3-{c}", template.format(1, 2, 3));
+        assertEquals("1-{b}-1-{c}", template.format(1));
+        assertEquals("{a}-{b}-{a}-{c}", template.format());
+    }
+
+    @Test
+    public void testMatchesRegexImplementation() {
+        Random random = new Random(7);
+        String alphabet = "ab{}{} x\n$\\中";
+        for (int round = 0; round < 5000; round++) {
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(24);
+            for (int i = 0; i < length; i++) {
+                text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String source = text.toString();
+            PromptTemplate compiled = new PromptTemplate(source);
+            LegacyPromptTemplate legacy = new LegacyPromptTemplate(source);
+
+            Map<String, Object> variables = new HashMap<>();
+            for (String name : compiled.getVariableNames()) {
+                if (random.nextBoolean()) {
+                    variables.put(name, random.nextBoolean() ? "v" + random.nextInt(10) : null);
+                }
+            }
+            variables.put("unused", "x");
+            assertEquals(legacy.format(variables), compiled.format(variables), source);
+            assertEquals(legacy.format(variables), compiled.render(variables, new StringBuilder()).toString(), source);
+
+            Object[] positional = new Object[random.nextInt(4)];
+            for (int i = 0; i < positional.length; i++) {
+                positional[i] = random.nextInt(3) == 0 ? null : i;
+            }
+            assertEquals(legacy.format(positional), compiled.format(positional), source);
+        }
+    }
+}
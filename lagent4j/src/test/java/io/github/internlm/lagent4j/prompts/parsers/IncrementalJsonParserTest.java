@@ -0,0 +1,152 @@
+package io.github.internlm.lagent4j.prompts.parsers;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONException;
+import com.alibaba.fastjson2.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * IncrementalJsonParser类的单元测试
+ */
+public class IncrementalJsonParserTest {
+
+    private static final String DOCUMENT = "{\"text\": \"换行\\n引号\\\"反斜杠\\\\斜杠\\/中\\u6587\\ud83d\\ude00\","
+            + " \"numbers\": [0, -12, 3.25, -1.5e3, 2E-2, 123456789012, 98765432109876543210],"
+            + " \"flags\": [true, false, null], \"nested\": {\"a\": [[], {}], \"b\": \"\"}, \"键 名\": 1}";
+
+    @Test
+    public void testEverySplitPointMatchesWholeParse() {
+        Object expected = JSON.parse(DOCUMENT);
+        for (int split = 0; split <= DOCUMENT.length(); split++) {
+            IncrementalJsonParser parser = new IncrementalJsonParser();
+            parser.feed(DOCUMENT.substring(0, split));
+            parser.feed(DOCUMENT.substring(split));
+            assertEquals(expected, parser.finish(), "split at " + split);
+        }
+
+        // 逐字符送入，边界落在每个字符串、转义序列和数字的中间
+        IncrementalJsonParser parser = new IncrementalJsonParser();
+        for (int i = 0; i < DOCUMENT.length(); i++) {
+            parser.feed(DOCUMENT.substring(i, i + 1));
+        }
+        JSONObject result = (JSONObject) parser.finish();
+        assertEquals(expected, result);
+        assertEquals("换行\n引号\"反斜杠\\斜杠/中文\uD83D\uDE00", result.getString("text"));
+        assertEquals(List.of(0, -12), result.getJSONArray("numbers").subList(0, 2));
+        assertEquals(123456789012L, result.getJSONArray("numbers").get(5));
+    }
+
+    @Test
+    public void testElementsEmittedAsSoonAsTheyClose() {
+        String response = "好的，结果如下：\n```json\n{\"query\": \"天气\", \"results\": ["
+                + "{\"title\": \"北京天气\", \"url\": \"https://a.example\"},"
+                + "{\"title\": \"上海\\\"天气\\\"\", \"url\": \"https://b.example\"}]}\n```";
+        List<Object> results = new ArrayList<>();
+        List<String> paths = new ArrayList<>();
+        IncrementalJsonParser parser = new IncrementalJsonParser((path, value) -> {
+            paths.add(path);
+            IncrementalJsonParser.elementsOf("$.results", results::add).onValue(path, value);
+        });
+
+        int firstClose = response.indexOf("},") + 1;
+        parser.feed(response.substring(0, firstClose - 1));
+        assertTrue(results.isEmpty());
+        parser.feed(response.substring(firstClose - 1, firstClose));
+        // 第一个结果闭合时立即送出，第二个结果还没有生成
+        assertEquals(1, results.size());
+        assertEquals("北京天气", ((JSONObject) results.get(0)).getString("title"));
+        assertFalse(parser.isComplete());
+
+        parser.feed(response.substring(firstClose));
+        assertEquals(2, results.size());
+        assertEquals("上海\"天气\"", ((JSONObject) results.get(1)).getString("title"));
+        assertTrue(parser.isComplete());
+        assertEquals(List.of("$.query", "$.results[0].title", "$.results[0].url", "$.results[0]",
+                "$.results[1].title", "$.results[1].url", "$.results[1]", "$.results", "$"), paths);
+        assertEquals(JSON.parse(response.substring(response.indexOf('{'), response.lastIndexOf('}') + 1)),
+                parser.finish());
+    }
+
+    @Test
+    public void testLenientInputAndErrors() {
+        IncrementalJsonParser parser = new IncrementalJsonParser();
+        parser.feed("[{\"a\": \"多\n行\", \"b\": [1, 2,],},]");
+        assertEquals(JSONArray.of(JSONObject.of("a", "多\n行", "b", JSONArray.of(1, 2))), parser.finish());
+
+        IncrementalJsonParser incomplete = new IncrementalJsonParser();
+        incomplete.feed("{\"a\": [1, 2");
+        assertFalse(incomplete.isComplete());
+        assertThrows(JSONException.class, incomplete::finish);
+        assertThrows(JSONException.class, () -> new IncrementalJsonParser().finish());
+
+        IncrementalJsonParser broken = new IncrementalJsonParser();
+        assertThrows(JSONException.class, () -> broken.feed("{\"a\" 1}"));
+        assertThrows(IllegalStateException.class, () -> broken.feed("}"));
+        assertThrows(JSONException.class, () -> new IncrementalJsonParser().feed("[1, tru]"));
+        assertThrows(JSONException.class, () -> new IncrementalJsonParser().feed("{\"a\": \"\\x\"}"));
+        assertThrows(JSONException.class, () -> new IncrementalJsonParser().feed("[1}"));
+        assertThrows(JSONException.class, () -> new IncrementalJsonParser().feed("[1-2]"));
+    }
+
+    @Test
+    public void testRandomDocumentsAndChunking() {
+        Random random = new Random(49);
+        for (int round = 0; round < 300; round++) {
+            Object value = randomContainer(random, 0);
+            String text = random.nextBoolean() ? JSON.toJSONString(value) : JSON.toJSONString(value,
+                    com.alibaba.fastjson2.JSONWriter.Feature.PrettyFormat);
+            Object expected = JSON.parse(text);
+            IncrementalJsonParser parser = new IncrementalJsonParser();
+            int i = 0;
+            while (i < text.length()) {
+                int next = Math.min(text.length(), i + 1 + random.nextInt(8));
+                parser.feed(text.substring(i, next));
+                i = next;
+            }
+            assertEquals(expected, parser.finish(), text);
+        }
+    }
+
+    private static Object randomContainer(Random random, int depth) {
+        int size = random.nextInt(5);
+        if (random.nextBoolean()) {
+            JSONObject object = new JSONObject();
+            for (int i = 0; i < size; i++) {
+                object.put(randomString(random), randomValue(random, depth + 1));
+            }
+            return object;
+        }
+        JSONArray array = new JSONArray();
+        for (int i = 0; i < size; i++) {
+            array.add(randomValue(random, depth + 1));
+        }
+        return array;
+    }
+
+    private static Object randomValue(Random random, int depth) {
+        return switch (random.nextInt(depth < 3 ? 7 : 5)) {
+            case 0 -> randomString(random);
+            case 1 -> random.nextInt() >> random.nextInt(31);
+            case 2 -> random.nextLong();
+            case 3 -> random.nextBoolean();
+            case 4 -> new java.math.BigDecimal(random.nextInt(100000)).movePointLeft(random.nextInt(4));
+            default -> randomContainer(random, depth);
+        };
+    }
+
+    private static String randomString(Random random) {
+        String alphabet = "ab中文\"\\/\n\t\u0001\uD83D\uDE00 ";
+        StringBuilder text = new StringBuilder();
+        for (int i = random.nextInt(6); i > 0; i--) {
+            text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return text.toString();
+    }
+}
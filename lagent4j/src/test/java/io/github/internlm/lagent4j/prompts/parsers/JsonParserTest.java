@@ -1,5 +1,6 @@
 package io.github.internlm.lagent4j.prompts.parsers;
 
+import io.github.internlm.lagent4j.prompts.ParseResult;
 import org.junit.jupiter.api.Test;
 
 import java.util.Map;
@@ -168,4 +169,29 @@ public class JsonParserTest {
         Map<String, Object> parameters = (Map<String, Object>) resultMap.get("parameters");
         assertEquals("https://example.com", parameters.get("url"));
     }
-} 
\ No newline at end of file
+
+    @Test
+    public void testParseReturnsTypedResult() {
+        String response = "{\"action\": \"web_browser\", \"parameters\": {\"url\": \"https://example.com\"}}";
+
+        ParseResult result = new JsonParser().parse(response);
+        ParseResult.Json json = assertInstanceOf(ParseResult.Json.class, result);
+        assertTrue(json.success());
+        assertEquals(1, json.blocks().size());
+        assertEquals("raw", json.blocks().get(0).format());
+        assertEquals("web_browser", ((Map<?, ?>) json.content()).get("action"));
+        assertEquals(Map.of("status", 1, "content", json.content()), json.toMap());
+
+        ParseResult.Json failed = (ParseResult.Json) new JsonParser().parse("没有JSON");
+        assertFalse(failed.success());
+        assertEquals("没有JSON", failed.thought());
+        assertEquals(0, failed.toMap().get("status"));
+
+        // StrParser只识别带function_call或action的JSON
+        StrParser strParser = new StrParser();
+        assertEquals(json.content(), ((ParseResult.Json) strParser.parse(response)).content());
+        assertEquals(json.content(), strParser.parseResponse(response));
+        assertInstanceOf(ParseResult.Text.class, strParser.parse("{\"other\": 1}"));
+        assertNull(strParser.parseResponse("普通文本"));
+    }
+}
@@ -0,0 +1,74 @@
+package io.github.internlm.lagent4j.prompts.parsers;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 线性扫描前的ToolParser实现（每次解析时编译正则，JSON错误直接抛出），用于一致性测试和基准测试的对照
+ */
+final class LegacyToolParser {
+    private final String toolType;
+    private final String begin;
+    private final String end;
+
+    LegacyToolParser(String toolType, String begin, String end) {
+        this.toolType = toolType;
+        this.begin = begin;
+        this.end = end;
+    }
+
+    Map<String, Object> parseResponse(String response) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("tool_type", toolType);
+        String thought = "";
+        String action = "";
+        Pattern pattern = Pattern.compile(Pattern.quote(begin) + "(.*?)" + Pattern.quote(end), Pattern.DOTALL);
+        Matcher matcher = pattern.matcher(response);
+        if (matcher.find()) {
+            int beginIndex = response.indexOf(begin);
+            if (beginIndex > 0) {
+                thought = response.substring(0, beginIndex).trim();
+            }
+            List<Map<String, Object>> toolCalls = new ArrayList<>();
+            do {
+                addToolCalls(matcher.group(1).trim(), toolCalls);
+            } while (matcher.find());
+            JSONObject toolObj = toolCalls.isEmpty() ? new JSONObject() : (JSONObject) toolCalls.get(0);
+            action = toolObj.getString("name");
+            result.putAll(toolObj);
+            result.put(ToolParser.TOOL_CALLS, toolCalls);
+            result.put("status", 1);
+        } else {
+            thought = response.trim();
+            result.put("status", 0);
+        }
+        result.put("thought", thought);
+        result.put("action", action);
+        return result;
+    }
+
+    private static void addToolCalls(String toolIn, List<Map<String, Object>> toolCalls) {
+        if (toolIn.startsWith("[")) {
+            JSONArray array = JSON.parseArray(toolIn);
+            for (int i = 0; i < array.size(); i++) {
+                Object item = array.get(i);
+                if (item instanceof JSONObject) {
+                    toolCalls.add((JSONObject) item);
+                }
+            }
+            return;
+        }
+        JSONObject toolObj = JSON.parseObject(toolIn);
+        if (toolObj != null) {
+            toolCalls.add(toolObj);
+        }
+    }
+}
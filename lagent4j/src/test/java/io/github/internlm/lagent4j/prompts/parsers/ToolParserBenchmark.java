@@ -0,0 +1,73 @@
+package io.github.internlm.lagent4j.prompts.parsers;
+
+import io.github.internlm.lagent4j.prompts.ParseResult;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 工具调用解析基准测试
+ * <p>
+ * 对比每次编译正则、经过JSONObject生成Map的旧实现与线性扫描的实现，输入为一段较长的思考过程加两个工具块：
+ * typed直接绑定为FunctionCall并返回类型化结果，map在此基础上再转换为Map形式。
+ * repaired基准的工具块使用单引号和末尾逗号，测量修复后重新解析的开销。
+ * 运行main方法并查看gc.alloc.rate.norm即可得到每次解析的分配字节数。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ToolParserBenchmark {
+
+    private static final String THOUGHT = "用户想知道北京明天的天气以及是否需要带伞，我需要先搜索天气预报，再根据降水概率给出建议。\n".repeat(8);
+
+    private static final String WELL_FORMED = THOUGHT
+            + "<tool>{\"name\": \"web_search\", \"parameters\": {\"query\": \"北京 明天 天气预报\", \"count\": 5}}</tool>\n"
+            + "<tool>{\"name\": \"calculator\", \"parameters\": {\"expression\": \"0.6 * 100\"}}</tool>";
+
+    private static final String MALFORMED = THOUGHT
+            + "<tool>{'name': 'web_search', 'parameters': {'query': '北京 明天 天气预报', 'count': 5,},}</tool>\n"
+            + "<tool>{'name': 'calculator', 'parameters': {'expression': '0.6 * 100', 'exact': True}}</tool>";
+
+    private LegacyToolParser legacy;
+    private ToolParser parser;
+
+    @Setup
+    public void setUp() {
+        legacy = new LegacyToolParser("tool", "<tool>", "</tool>");
+        parser = new ToolParser();
+    }
+
+    @Benchmark
+    public Object legacy() {
+        return legacy.parseResponse(WELL_FORMED);
+    }
+
+    @Benchmark
+    public Object map() {
+        return parser.parseResponse(WELL_FORMED);
+    }
+
+    @Benchmark
+    public ParseResult typed() {
+        return parser.parse(WELL_FORMED);
+    }
+
+    @Benchmark
+    public ParseResult repaired() {
+        return parser.parse(MALFORMED);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ToolParserBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,215 @@
+package io.github.internlm.lagent4j.prompts.parsers;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
+import io.github.internlm.lagent4j.prompts.ParseResult;
+import io.github.internlm.lagent4j.schema.FunctionCall;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ToolParser的容错解析和随机一致性测试
+ */
+public class ToolParserFuzzTest {
+
+    private static final String[] TEXTS = {"北京", "weather", "多行\n文本", "带\"引号\"", "tab\there", "C:\\temp", "", "'单'"};
+
+    @Test
+    public void testRepairsCommonModelMistakes() {
+        ToolParser parser = new ToolParser();
+        String response = "先搜索一下。\n<tool>{'name': 'web_search', 'parameters': {'query': '北京\n天气', 'count': 3,},}</tool>\n"
+                + "<tool>```json\n{\"name\": \"calculator\", \"parameters\": {\"expression\": \"1+1\", \"exact\": True}} // 计算\n```</tool>";
+        ParseResult.ToolCalls result = parser.parse(response);
+        assertTrue(result.success());
+        assertEquals("先搜索一下。", result.thought());
+        assertEquals("web_search", result.action());
+        List<FunctionCall> calls = result.calls();
+        assertEquals(2, calls.size());
+        assertEquals("北京\n天气", calls.get(0).getArguments().get("query"));
+        assertEquals(3, calls.get(0).getArguments().get("count"));
+        assertEquals(Boolean.TRUE, calls.get(1).getArguments().get("exact"));
+        assertTrue(result.errors().isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testTypedResultAndMapAdapter() {
+        ToolParser parser = new ToolParser();
+        // 参数被输出为JSON字符串时解析为对象；arguments和parameters都可以作为参数字段
+        ParseResult.ToolCalls result = parser.parse("<tool>[{\"name\": \"a\", \"arguments\": \"{\\\"q\\\": 1}\", \"id\": \"call_1\"},"
+                + " {\"name\": \"b\", \"parameters\": {\"x\": [1, 2]}}]</tool>");
+        assertEquals(List.of(new FunctionCall("a", Map.of("q", 1), "call_1"),
+                new FunctionCall("b", Map.of("x", List.of(1, 2)))), result.calls());
+
+        Map<String, Object> map = result.toMap();
+        assertEquals(1, map.get("status"));
+        assertEquals("a", map.get("name"));
+        assertEquals("call_1", map.get("id"));
+        assertEquals(Map.of("q", 1), map.get("parameters"));
+        List<Map<String, Object>> calls = (List<Map<String, Object>>) map.get(ToolParser.TOOL_CALLS);
+        assertEquals(Map.of("name", "b", "parameters", Map.of("x", List.of(1, 2))), calls.get(1));
+        assertEquals(map, parser.parseResponse("<tool>[{\"name\": \"a\", \"arguments\": {\"q\": 1}, \"id\": \"call_1\"},"
+                + " {\"name\": \"b\", \"parameters\": {\"x\": [1, 2]}}]</tool>"));
+
+        // 参数不是对象的调用无法绑定，记录为错误
+        result = parser.parse("<tool>{\"name\": \"a\", \"parameters\": [1]}</tool>");
+        assertFalse(result.success());
+        assertEquals(1, result.errors().size());
+        assertTrue(result.calls().isEmpty());
+
+        // 代码块不是JSON，整体作为动作
+        result = new ToolParser("code_interpreter", "```python", "```").parse("运行\n```python\nprint(1)\n```");
+        assertTrue(result.success());
+        assertEquals("print(1)", result.action());
+        assertTrue(result.calls().isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testMalformedAndUnterminatedBlocks() {
+        ToolParser parser = new ToolParser();
+
+        // 无法修复的块记录错误并跳过，不影响其他块
+        Map<String, Object> result = (Map<String, Object>) parser.parseResponse(
+                "<tool>{\"name\": \"broken\", \"parameters\": {</tool><tool>{\"name\": \"ok\"}</tool>");
+        assertEquals(1, result.get("status"));
+        assertEquals("ok", result.get("action"));
+        assertEquals(1, ((List<?>) result.get(ToolParser.TOOL_CALLS)).size());
+        assertEquals(1, ((List<?>) result.get(ToolParser.PARSE_ERRORS)).size());
+
+        result = (Map<String, Object>) parser.parseResponse("<tool>{\"name\": 'broken'</tool>");
+        assertEquals(0, result.get("status"));
+        assertEquals("", result.get("action"));
+        assertNull(result.get(ToolParser.TOOL_CALLS));
+        assertEquals(1, ((List<?>) result.get(ToolParser.PARSE_ERRORS)).size());
+
+        // 停止词截掉结束标记：完整的调用仍然可用，被截断的调用不执行
+        result = (Map<String, Object>) parser.parseResponse("调用工具\n<tool>{\"name\": \"web_search\"}");
+        assertEquals(1, result.get("status"));
+        assertEquals("web_search", result.get("name"));
+        result = (Map<String, Object>) parser.parseResponse("调用工具\n<tool>{\"name\": \"web_search\", \"param");
+        assertEquals(0, result.get("status"));
+        assertNull(result.get(ToolParser.PARSE_ERRORS));
+
+        assertThrows(IllegalArgumentException.class, () -> new ToolParser("tool", "", "</tool>"));
+    }
+
+    @Test
+    public void testStructuredOutputWithoutMarkers() {
+        ToolParser parser = new ToolParser();
+
+        // 结构化输出模式下整个回复就是调用JSON
+        ParseResult.ToolCalls result = (ParseResult.ToolCalls) parser.parse(
+                "{\"tool_calls\": [{\"name\": \"web_search\", \"parameters\": {\"query\": \"天气\"}},"
+                        + " {\"name\": \"web_browser\", \"parameters\": {\"url\": \"https://example.com\"}}]}");
+        assertTrue(result.success());
+        assertEquals("web_search", result.action());
+        assertEquals(2, result.calls().size());
+        assertEquals("https://example.com", result.calls().get(1).getArguments().get("url"));
+
+        result = (ParseResult.ToolCalls) parser.parse("```json\n{\"name\": \"web_search\", \"parameters\": {}}\n```");
+        assertEquals("web_search", result.action());
+
+        // 无法解析的整段回复记录为待修正的片段
+        result = (ParseResult.ToolCalls) parser.parse("{\"tool_calls\": [{\"name\": \"web_search\", \"param");
+        assertFalse(result.success());
+        assertEquals(1, result.errors().size());
+        assertEquals(0, result.errors().get(0).position());
+        assertTrue(result.errors().get(0).fragment().startsWith("{\"tool_calls\""));
+
+        // 普通文本仍然整体作为思考过程
+        result = (ParseResult.ToolCalls) parser.parse("不需要调用工具");
+        assertEquals("不需要调用工具", result.thought());
+        assertTrue(result.errors().isEmpty());
+    }
+
+    @Test
+    public void testMatchesLegacyParserOnWellFormedInput() {
+        Random random = new Random(47);
+        for (int round = 0; round < 500; round++) {
+            String[] markers = random.nextBoolean()
+                    ? new String[]{"<tool>", "</tool>"} : new String[]{"```json", "```"};
+            ToolParser parser = new ToolParser("tool", markers[0], markers[1]);
+            LegacyToolParser legacy = new LegacyToolParser("tool", markers[0], markers[1]);
+            StringBuilder response = new StringBuilder();
+            int blocks = random.nextInt(4);
+            for (int b = 0; b < blocks; b++) {
+                response.append(text(random)).append(random.nextBoolean() ? "\n" : "")
+                        .append(markers[0]).append(random.nextBoolean() ? "\n" : "")
+                        .append(random.nextInt(4) == 0 ? JSON.toJSONString(List.of(call(random), call(random)))
+                                : JSON.toJSONString(call(random)))
+                        .append(random.nextBoolean() ? "\n" : "").append(markers[1]);
+            }
+            response.append(text(random));
+            String input = response.toString();
+            assertEquals(legacy.parseResponse(input), parser.parseResponse(input), input);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testRepairedCallsMatchOriginal() {
+        Random random = new Random(48);
+        ToolParser parser = new ToolParser();
+        for (int round = 0; round < 500; round++) {
+            Map<String, Object> call = call(random);
+            String broken = corrupt(JSON.toJSONString(call), random);
+            Map<String, Object> result = (Map<String, Object>) parser.parseResponse("思考<tool>" + broken + "</tool>");
+            assertNull(result.get(ToolParser.PARSE_ERRORS), broken);
+            List<Map<String, Object>> calls = (List<Map<String, Object>>) result.get(ToolParser.TOOL_CALLS);
+            assertEquals(List.of(JSON.parseObject(JSON.toJSONString(call))), calls, broken);
+        }
+    }
+
+    private static Map<String, Object> call(Random random) {
+        JSONObject parameters = new JSONObject();
+        for (int i = 0; i < random.nextInt(4); i++) {
+            parameters.put("p" + i, random.nextBoolean() ? TEXTS[random.nextInt(TEXTS.length)] : random.nextInt(100));
+        }
+        JSONObject call = new JSONObject();
+        call.put("name", "tool_" + random.nextInt(5));
+        call.put("parameters", parameters);
+        return call;
+    }
+
+    private static String text(Random random) {
+        return random.nextBoolean() ? "" : "思考 " + TEXTS[random.nextInt(TEXTS.length)] + " ";
+    }
+
+    /**
+     * 模拟模型输出JSON时的常见错误：字符串中的换行和制表符不转义、单引号字符串、末尾逗号
+     */
+    private static String corrupt(String json, Random random) {
+        StringBuilder out = new StringBuilder();
+        boolean single = random.nextBoolean();
+        boolean inString = false;
+        for (int i = 0; i < json.length(); i++) {
+            char c = json.charAt(i);
+            if (c == '\\' && inString) {
+                char next = json.charAt(++i);
+                switch (next) {
+                    case 'n' -> out.append('\n');
+                    case 't' -> out.append('\t');
+                    case '"' -> out.append(single ? "\"" : "\\\"");
+                    default -> out.append(c).append(next);
+                }
+            } else if (c == '"') {
+                inString = !inString;
+                out.append(single ? '\'' : '"');
+            } else if (c == '\'' && inString && single) {
+                out.append("\\'");
+            } else if ((c == '}' || c == ']') && !inString && random.nextBoolean()) {
+                out.append(",\n").append(c);
+            } else {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,111 @@
+package io.github.internlm.lagent4j.utils;
+
+import io.github.internlm.lagent4j.agents.AgentExecutionContext;
+import io.github.internlm.lagent4j.agents.SyncAgent;
+import io.github.internlm.lagent4j.llms.BaseLLM;
+import io.github.internlm.lagent4j.schema.AgentMessage;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * VirtualThreads类的单元测试
+ */
+public class VirtualThreadsTest {
+
+    private static final int SESSIONS = 10_000;
+
+    private static final long MAX_HEAP_BYTES = 64L * 1024 * 1024;
+
+    @Test
+    public void testNewExecutorRunsTasks() throws Exception {
+        ExecutorService executor = VirtualThreads.newExecutor("test-");
+        try {
+            String threadName = executor.submit(() -> Thread.currentThread().getName()).get(5, TimeUnit.SECONDS);
+            assertTrue(threadName.startsWith("test-"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testFactoryRequiresSupport() {
+        if (VirtualThreads.isSupported()) {
+            assertNotNull(VirtualThreads.factory("test-").newThread(() -> {
+            }));
+        } else {
+            assertThrows(UnsupportedOperationException.class, () -> VirtualThreads.factory("test-"));
+        }
+    }
+
+    /**
+     * 一万个会话同时阻塞在模型调用上：只有每个会话都拥有自己的线程时闭锁才会打开
+     * <p>
+     * 属于load组，由JDK 21及以上激活的load-tests profile在-Xmx64m的独立JVM中运行，堆不够时以OutOfMemoryError失败
+     */
+    @Test
+    @Tag("load")
+    public void testTenThousandConcurrentSessions() throws Exception {
+        assumeTrue(VirtualThreads.isSupported(), "需要JDK 21及以上版本");
+        assumeTrue(Runtime.getRuntime().maxMemory() <= MAX_HEAP_BYTES, "需要在load-tests profile的小堆JVM中运行");
+
+        CountDownLatch allBlocked = new CountDownLatch(SESSIONS);
+        BaseLLM blockingLlm = new BaseLLM() {
+            @Override
+            public String chat(List<Map<String, String>> messages) {
+                allBlocked.countDown();
+                try {
+                    if (!allBlocked.await(60, TimeUnit.SECONDS)) {
+                        return "timeout";
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return "interrupted";
+                }
+                return "ok";
+            }
+
+            @Override
+            public CompletableFuture<String> chatAsync(List<Map<String, String>> messages) {
+                return CompletableFuture.completedFuture(chat(messages));
+            }
+
+            @Override
+            public void chatStream(List<Map<String, String>> messages, Consumer<String> onChunk,
+                                   Consumer<Throwable> onError, Runnable onComplete) {
+                onChunk.accept(chat(messages));
+                onComplete.run();
+            }
+        };
+
+        AgentExecutionContext context = new AgentExecutionContext.Builder().virtualThreads().build();
+        SyncAgent agent = new SyncAgent(blockingLlm, "你是助手");
+        agent.setExecutionContext(context);
+        try {
+            List<CompletableFuture<AgentMessage>> futures = new ArrayList<>(SESSIONS);
+            for (int i = 0; i < SESSIONS; i++) {
+                futures.add(agent.processAsync(new AgentMessage("user", "你好"), i));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(90, TimeUnit.SECONDS);
+
+            for (CompletableFuture<AgentMessage> future : futures) {
+                assertEquals("ok", future.join().getContent());
+            }
+            assertEquals(SESSIONS, agent.getMemory().sessionCount());
+            assertEquals(2, agent.getMemory().get(SESSIONS - 1).size());
+        } finally {
+            context.close();
+        }
+    }
+}